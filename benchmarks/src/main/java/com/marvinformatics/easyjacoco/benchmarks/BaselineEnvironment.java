@@ -0,0 +1,99 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+/**
+ * Machine and JDK a result file was recorded with, kept in a properties file next to it, e.g.
+ * <code>baseline.properties</code> for <code>baseline.csv</code>.
+ *
+ * <p>Usage: <code>BaselineEnvironment baseline.csv</code> writes the properties of the running JVM
+ * for the given result file.
+ */
+public final class BaselineEnvironment {
+
+  private static final String[] SYSTEM_PROPERTIES = {
+    "java.vendor", "java.vm.name", "java.runtime.version", "os.name", "os.version", "os.arch"
+  };
+
+  private BaselineEnvironment() {}
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: BaselineEnvironment results.csv");
+      System.exit(2);
+    }
+    final Path file = fileFor(args[0]);
+    try (OutputStream out = Files.newOutputStream(file)) {
+      current().store(out, "Environment " + Paths.get(args[0]).getFileName() + " was recorded on");
+    }
+    System.out.println("Wrote " + file);
+  }
+
+  /** Properties of the running JVM and machine. */
+  static Properties current() {
+    final Properties environment = new Properties();
+    for (final String name : SYSTEM_PROPERTIES) {
+      environment.setProperty(name, System.getProperty(name, ""));
+    }
+    environment.setProperty(
+        "availableProcessors", String.valueOf(Runtime.getRuntime().availableProcessors()));
+    environment.setProperty(
+        "maxHeapMB", String.valueOf(Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+    return environment;
+  }
+
+  /**
+   * Describes how the running environment differs from the one recorded for the result file, empty
+   * if they match or nothing was recorded.
+   */
+  static List<String> differences(final String resultFile) throws IOException {
+    final List<String> differences = new ArrayList<String>();
+    final Path file = fileFor(resultFile);
+    if (!Files.isRegularFile(file)) {
+      return differences;
+    }
+    final Properties recorded = new Properties();
+    try (InputStream in = Files.newInputStream(file)) {
+      recorded.load(in);
+    }
+    final Properties current = current();
+    for (final String name : recorded.stringPropertyNames()) {
+      final String value = current.getProperty(name);
+      if (value != null && !value.equals(recorded.getProperty(name))) {
+        differences.add(name + " was " + recorded.getProperty(name) + ", is " + value);
+      }
+    }
+    return differences;
+  }
+
+  private static Path fileFor(final String resultFile) {
+    final Path path = Paths.get(resultFile);
+    final String name = path.getFileName().toString();
+    final int extension = name.lastIndexOf('.');
+    return path.resolveSibling(
+        (extension > 0 ? name.substring(0, extension) : name) + ".properties");
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Compares two JMH result files written with <code>-rf csv</code>, typically the checked in
+ * baseline and a fresh run, and fails if a benchmark got slower than the threshold allows.
+ *
+ * <p>Usage: <code>CompareBaseline baseline.csv results.csv [thresholdPercent]</code>. Results are
+ * matched by benchmark and parameters, only benchmarks present in both files are compared and
+ * secondary results are ignored. The threshold defaults to 10 percent. Differences to the machine
+ * and JDK recorded for the baseline by {@link BaselineEnvironment} are printed as warnings first.
+ */
+public final class CompareBaseline {
+
+  private CompareBaseline() {}
+
+  public static void main(final String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: CompareBaseline baseline.csv results.csv [thresholdPercent]");
+      System.exit(2);
+    }
+    final Map<String, Result> baseline = read(args[0]);
+    final Map<String, Result> current = read(args[1]);
+    final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+    for (final String difference : BaselineEnvironment.differences(args[0])) {
+      System.out.println("Warning: recorded on another environment, " + difference);
+    }
+
+    int regressions = 0;
+    System.out.println(
+        String.format(
+            Locale.ROOT, "%-70s %12s %12s %8s", "benchmark", "baseline", "current", "change"));
+    for (final Map.Entry<String, Result> entry : current.entrySet()) {
+      final Result before = baseline.get(entry.getKey());
+      if (before == null) {
+        continue;
+      }
+      final Result after = entry.getValue();
+      // throughput gets worse when it drops, all other modes report time per operation
+      final double change =
+          (after.score - before.score) / before.score * (after.higherIsBetter() ? -100 : 100);
+      final boolean regression =
+          change > threshold && Math.abs(after.score - before.score) > before.error + after.error;
+      if (regression) {
+        regressions++;
+      }
+      System.out.println(
+          String.format(
+              Locale.ROOT,
+              "%-70s %12.3f %12.3f %+7.1f%% %s%s",
+              entry.getKey(),
+              before.score,
+              after.score,
+              change,
+              after.unit,
+              regression ? "  REGRESSION" : ""));
+    }
+    if (regressions > 0) {
+      System.out.println(
+          String.format(
+              Locale.ROOT, "%s benchmarks regressed by more than %s%%", regressions, threshold));
+      System.exit(1);
+    }
+  }
+
+  private static Map<String, Result> read(final String file) throws IOException {
+    final List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+    final Map<String, Result> results = new LinkedHashMap<String, Result>();
+    if (lines.isEmpty()) {
+      return results;
+    }
+    final List<String> header = split(lines.get(0));
+    for (final String line : lines.subList(1, lines.size())) {
+      final List<String> columns = split(line);
+      final String benchmark = columns.get(header.indexOf("Benchmark"));
+      if (benchmark.indexOf(':') >= 0) {
+        continue;
+      }
+      final String score = columns.get(header.indexOf("Score"));
+      final String error = columns.get(header.indexOf("Score Error (99.9%)"));
+      // class and method name, the package is the same for all benchmarks
+      final int method = benchmark.lastIndexOf('.');
+      final StringBuilder key =
+          new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.', method - 1) + 1));
+      for (int i = 0; i < header.size(); i++) {
+        if (header.get(i).startsWith("Param: ") && !columns.get(i).isEmpty()) {
+          key.append(' ').append(header.get(i).substring(7)).append('=').append(columns.get(i));
+        }
+      }
+      results.put(
+          key.toString(),
+          new Result(
+              columns.get(header.indexOf("Mode")),
+              Double.parseDouble(score),
+              // single sample runs have no error margin
+              error.equals("NaN") ? 0 : Double.parseDouble(error),
+              columns.get(header.indexOf("Unit"))));
+    }
+    return results;
+  }
+
+  private static List<String> split(final String line) {
+    final List<String> columns = new ArrayList<String>();
+    final StringBuilder column = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      final char c = line.charAt(i);
+      if (c == '"') {
+        quoted = !quoted;
+      } else if (c == ',' && !quoted) {
+        columns.add(column.toString());
+        column.setLength(0);
+      } else {
+        column.append(c);
+      }
+    }
+    columns.add(column.toString());
+    return columns;
+  }
+
+  /** Primary result of a benchmark. */
+  private static class Result {
+    final String mode;
+    final double score;
+    final double error;
+    final String unit;
+
+    Result(final String mode, final double score, final double error, final String unit) {
+      this.mode = mode;
+      this.score = score;
+      this.error = error;
+      this.unit = unit;
+    }
+
+    boolean higherIsBetter() {
+      return "thrpt".equals(mode);
+    }
+  }
+}
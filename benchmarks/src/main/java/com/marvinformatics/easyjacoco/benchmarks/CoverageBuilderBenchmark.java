@@ -0,0 +1,103 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import com.marvinformatics.easyjacoco.jacoco.CoverageBuilder;
+import java.util.concurrent.TimeUnit;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link CoverageBuilder} fed with already analyzed classes: collecting the class coverage of a
+ * whole reactor, and building the bundle with its source files and packages from it.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(value = 3, jvmArgsAppend = {"-Xms3g", "-Xmx3g"})
+public class CoverageBuilderBenchmark {
+
+  @Param({"10000", "100000", "1000000"})
+  int classes;
+
+  IClassCoverage[] coverage;
+  CoverageBuilder builder;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    coverage = new IClassCoverage[classes];
+    for (int i = 0; i < classes; i++) {
+      coverage[i] = classCoverage(i);
+    }
+    builder = new CoverageBuilder(QuietLog.INSTANCE);
+    for (final IClassCoverage c : coverage) {
+      builder.visitCoverage(c);
+    }
+  }
+
+  /** Invalidates the source files built by the previous call, as visiting a class does. */
+  @Setup(Level.Invocation)
+  public void invalidate() {
+    builder.visitCoverage(coverage[0]);
+  }
+
+  private static IClassCoverage classCoverage(final int index) {
+    final String name = SyntheticClasses.name(index);
+    final ClassCoverageImpl c = new ClassCoverageImpl(name, index, false);
+    c.setSourceFileName(name.substring(name.lastIndexOf('/') + 1) + ".java");
+    for (int m = 0; m < 2; m++) {
+      final MethodCoverageImpl method = new MethodCoverageImpl("m" + m, "(I)I", null);
+      final int first = 4 + m * 6;
+      method.increment(CounterImpl.getInstance(0, 3), CounterImpl.getInstance(1, 1), first + 1);
+      method.increment(CounterImpl.getInstance(0, 2), CounterImpl.COUNTER_0_0, first + 2);
+      method.increment(CounterImpl.getInstance(3, 0), CounterImpl.COUNTER_0_0, first + 4);
+      method.incrementMethodCounter();
+      c.addMethod(method);
+    }
+    return c;
+  }
+
+  @Benchmark
+  public CoverageBuilder visitCoverage() {
+    final CoverageBuilder fresh = new CoverageBuilder(QuietLog.INSTANCE);
+    for (final IClassCoverage c : coverage) {
+      fresh.visitCoverage(c);
+    }
+    return fresh;
+  }
+
+  @Benchmark
+  public IBundleCoverage getBundle() {
+    return builder.getBundle("bundle");
+  }
+}
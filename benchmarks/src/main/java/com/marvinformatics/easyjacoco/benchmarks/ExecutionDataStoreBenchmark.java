@@ -0,0 +1,137 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import com.marvinformatics.easyjacoco.jacoco.PackedExecutionDataStore;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares JaCoCo's {@link ExecutionDataStore} with {@link PackedExecutionDataStore}: lookup cost
+ * per class and the memory retained by a fully loaded store, reported as <code>retainedMB</code>
+ * secondary results.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(value = 3, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ExecutionDataStoreBenchmark {
+
+  @Param("500000")
+  int classes;
+
+  @Param("24")
+  int probes;
+
+  long[] ids;
+  ExecutionDataStore heapStore;
+  PackedExecutionDataStore packedStore;
+  long heapRetained;
+  long packedRetained;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    final Random random = new Random(42);
+    ids = new long[classes];
+    for (int i = 0; i < classes; i++) {
+      ids[i] = random.nextLong();
+    }
+
+    long before = usedHeap();
+    heapStore = new ExecutionDataStore();
+    fill(heapStore::visitClassExecution);
+    heapRetained = usedHeap() - before;
+
+    packedStore = new PackedExecutionDataStore(classes);
+    fill(packedStore::visitClassExecution);
+    // the probe bitsets are off heap, count the whole store
+    packedRetained = packedStore.memoryUsage();
+  }
+
+  private void fill(final Consumer<ExecutionData> store) {
+    final Random random = new Random(7);
+    for (int i = 0; i < classes; i++) {
+      final boolean[] hits = new boolean[probes];
+      for (int p = 0; p < probes; p++) {
+        hits[p] = random.nextBoolean();
+      }
+      store.accept(new ExecutionData(ids[i], "com/example/generated/Class" + i, hits));
+    }
+  }
+
+  private static long usedHeap() {
+    for (int i = 0; i < 3; i++) {
+      System.gc();
+    }
+    final Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /** Per iteration cursor over the class ids, reports the store footprint as aux counters. */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Cursor {
+    int next;
+    public long retainedMB;
+
+    int next(final int bound) {
+      next = next + 1 == bound ? 0 : next + 1;
+      return next;
+    }
+  }
+
+  @Benchmark
+  public ExecutionData heapLookup(final Cursor cursor) {
+    cursor.retainedMB = heapRetained >> 20;
+    return heapStore.get(ids[cursor.next(classes)]);
+  }
+
+  @Benchmark
+  public ExecutionData packedLookup(final Cursor cursor) {
+    cursor.retainedMB = packedRetained >> 20;
+    return packedStore.get(ids[cursor.next(classes)]);
+  }
+
+  @Benchmark
+  public boolean heapContainsName(final Cursor cursor) {
+    cursor.retainedMB = heapRetained >> 20;
+    return heapStore.contains("com/example/generated/Class" + cursor.next(classes));
+  }
+
+  @Benchmark
+  public boolean packedContainsName(final Cursor cursor) {
+    cursor.retainedMB = packedRetained >> 20;
+    return packedStore.contains("com/example/generated/Class" + cursor.next(classes));
+  }
+}
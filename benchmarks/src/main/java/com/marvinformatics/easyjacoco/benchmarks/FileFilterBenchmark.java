@@ -0,0 +1,105 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import com.marvinformatics.easyjacoco.jacoco.FileFilter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link FileFilter} as used for exec and class files: walking a synthetic tree with include and
+ * exclude patterns, and matching a single relative path as done for archive entries.
+ *
+ * <p>The tree holds <code>files</code> class files in packages of {@link
+ * SyntheticClasses#PACKAGE_SIZE}, plus a source file next to each package that the includes don't
+ * match.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 10, time = 2)
+@Fork(3)
+public class FileFilterBenchmark {
+
+  @Param({"10000", "100000"})
+  int files;
+
+  File directory;
+  FileFilter filter;
+  String[] paths;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = SyntheticClasses.tempDirectory("file-filter");
+    paths = new String[files];
+    for (int i = 0; i < files; i++) {
+      final String name = SyntheticClasses.name(i);
+      paths[i] = name + ".class";
+      final Path file = directory.toPath().resolve(paths[i]);
+      if (i % SyntheticClasses.PACKAGE_SIZE == 0) {
+        Files.createDirectories(file.getParent());
+        Files.createFile(file.resolveSibling("package-info.java"));
+      }
+      Files.createFile(file);
+    }
+    filter = new FileFilter(List.of("**/*.class"), List.of("**/p1/**", "**/*Test.class"));
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticClasses.delete(directory);
+  }
+
+  /** Per thread cursor over the relative paths. */
+  @State(Scope.Thread)
+  public static class Cursor {
+    int next;
+
+    int next(final int bound) {
+      next = next + 1 == bound ? 0 : next + 1;
+      return next;
+    }
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  public List<File> getFiles() throws IOException {
+    return filter.getFiles(directory);
+  }
+
+  @Benchmark
+  @OutputTimeUnit(TimeUnit.MICROSECONDS)
+  public boolean matches(final Cursor cursor) {
+    return filter.matches(paths[cursor.next(files)]);
+  }
+}
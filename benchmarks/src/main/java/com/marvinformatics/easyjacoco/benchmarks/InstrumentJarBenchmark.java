@@ -0,0 +1,93 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import com.marvinformatics.easyjacoco.InstrumentJarMojo;
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.descriptor.MojoDescriptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link InstrumentJarMojo} instrumenting a synthetic jar into a new file, configured the way Maven
+ * would inject its parameters.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(3)
+public class InstrumentJarBenchmark {
+
+  @Param({"1000", "10000"})
+  int classes;
+
+  File directory;
+  File source;
+  MojoExecution execution;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = SyntheticClasses.tempDirectory("instrument-jar");
+    source = new File(directory, "synthetic.jar");
+    SyntheticClasses.writeJar(source, classes, 3);
+    final MojoDescriptor descriptor = new MojoDescriptor();
+    descriptor.setGoal("instrument-jar");
+    execution = new MojoExecution(descriptor, "benchmark");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticClasses.delete(directory);
+  }
+
+  @Benchmark
+  public long instrument() throws MojoExecutionException, ReflectiveOperationException {
+    final File destination = new File(directory, "synthetic-instrumented.jar");
+    final InstrumentJarMojo mojo = new InstrumentJarMojo();
+    mojo.setLog(QuietLog.INSTANCE);
+    inject(mojo, "source", source);
+    inject(mojo, "destination", destination);
+    inject(mojo, "metricsDirectory", new File(directory, "metrics"));
+    inject(mojo, "mojoExecution", execution);
+    mojo.execute();
+    return destination.length();
+  }
+
+  private static void inject(final Object mojo, final String name, final Object value)
+      throws ReflectiveOperationException {
+    final Field field = mojo.getClass().getDeclaredField(name);
+    field.setAccessible(true);
+    field.set(mojo, value);
+  }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import com.marvinformatics.easyjacoco.jacoco.CoverageBuilder;
+import com.marvinformatics.easyjacoco.jacoco.PhaseMetrics;
+import com.marvinformatics.easyjacoco.jacoco.ReportFormat;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.jacoco.core.analysis.Analyzer;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Rendering an analyzed bundle with the visitor of each {@link ReportFormat}, including the
+ * highlighted source pages of the html report. Sources are served from memory, so only the report
+ * output touches the disk.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(value = 3, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ReportFormatBenchmark {
+
+  @Param({"HTML", "XML", "CSV"})
+  ReportFormat format;
+
+  @Param("5000")
+  int classes;
+
+  static final int METHODS = 3;
+
+  File directory;
+  List<SessionInfo> sessions;
+  ExecutionDataStore store;
+  IBundleCoverage bundle;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = SyntheticClasses.tempDirectory("report-format");
+    sessions = List.of(new SessionInfo("synthetic", 0, 0));
+    store = new ExecutionDataStore();
+    final CoverageBuilder builder = new CoverageBuilder(QuietLog.INSTANCE);
+    final Analyzer analyzer = new Analyzer(store, builder);
+    final Random random = new Random(42);
+    final byte[][] classFiles = new byte[classes][];
+    for (int i = 0; i < classes; i++) {
+      classFiles[i] = SyntheticClasses.classFile(SyntheticClasses.name(i), METHODS);
+      final boolean[] probes = new boolean[SyntheticClasses.probeCount(classFiles[i])];
+      for (int p = 0; p < probes.length; p++) {
+        probes[p] = random.nextDouble() < 0.6;
+      }
+      store.put(
+          new ExecutionData(CRC64.classId(classFiles[i]), SyntheticClasses.name(i), probes));
+    }
+    for (int i = 0; i < classes; i++) {
+      analyzer.analyzeClass(classFiles[i], SyntheticClasses.name(i));
+    }
+    bundle = builder.getBundle("bundle");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticClasses.delete(directory);
+  }
+
+  @Benchmark
+  public PhaseMetrics render() throws IOException {
+    final PhaseMetrics metrics = new PhaseMetrics();
+    final IReportVisitor visitor =
+        format.createVisitor(directory, "UTF-8", Locale.ENGLISH, null, false, metrics);
+    visitor.visitInfo(sessions, store.getContents());
+    visitor.visitBundle(bundle, new SyntheticSources());
+    visitor.visitEnd();
+    return metrics;
+  }
+
+  /** Serves the sources of the synthetic classes. */
+  static class SyntheticSources implements ISourceFileLocator {
+    @Override
+    public Reader getSourceFile(final String packageName, final String fileName) {
+      final String name = packageName + '/' + fileName.substring(0, fileName.length() - 5);
+      return new StringReader(SyntheticClasses.source(name, METHODS));
+    }
+
+    @Override
+    public int getTabWidth() {
+      return 4;
+    }
+  }
+}
@@ -0,0 +1,154 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import com.marvinformatics.easyjacoco.jacoco.ReportSupport;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.project.MavenProject;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.IReportGroupVisitor;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link ReportSupport#processProjects} end to end, as report-project runs it for an aggregated
+ * bundle: loading the exec file, scanning and analyzing the class directories of all modules and
+ * emitting the bundle. The bundle goes to a visitor discarding it, rendering is measured by {@link
+ * ReportFormatBenchmark}.
+ *
+ * <p><code>mode</code> selects how execution data is held and classes are analyzed: JaCoCo's store
+ * (<code>default</code>), <code>packed</code>, <code>externalMerge</code> with a small budget, and
+ * <code>streaming</code>.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 10, time = 5)
+@Fork(value = 3, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class ReportSupportBenchmark {
+
+  @Param({"10000", "50000"})
+  int classes;
+
+  @Param("10")
+  int modules;
+
+  @Param({"default", "packed", "externalMerge", "streaming"})
+  String mode;
+
+  File directory;
+  File exec;
+  List<MavenProject> projects;
+
+  @Setup(Level.Trial)
+  public void setUp() throws IOException {
+    directory = SyntheticClasses.tempDirectory("report-support");
+    exec = new File(directory, "jacoco.exec");
+    projects = new ArrayList<MavenProject>();
+    final List<byte[]> classFiles = new ArrayList<byte[]>();
+    final int perModule = classes / modules;
+    for (int m = 0; m < modules; m++) {
+      final File module = new File(directory, "module-" + m);
+      final File output = new File(module, "target/classes");
+      classFiles.addAll(SyntheticClasses.write(output, null, m * perModule, perModule, 3));
+      final MavenProject project = new MavenProject();
+      project.setGroupId("com.example");
+      project.setArtifactId("module-" + m);
+      project.setVersion("1.0");
+      project.setFile(new File(module, "pom.xml"));
+      project.getBuild().setOutputDirectory(output.getPath());
+      projects.add(project);
+    }
+    SyntheticClasses.writeExec(exec, classFiles, 0, 0.6, 42);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() throws IOException {
+    SyntheticClasses.delete(directory);
+  }
+
+  @Benchmark
+  public int processProjects() throws IOException {
+    final ReportSupport support = new ReportSupport(QuietLog.INSTANCE);
+    switch (mode) {
+      case "packed":
+        support.enablePackedExecutionData();
+        break;
+      case "externalMerge":
+        support.enableExternalMerge(new File(directory, "spill"), 16L * 1024 * 1024);
+        break;
+      case "streaming":
+        support.enableStreaming();
+        break;
+      default:
+        break;
+    }
+    final DiscardingVisitor discard = new DiscardingVisitor();
+    support.addVisitor(discard);
+    try {
+      support.loadExecutionData(exec);
+      final IReportVisitor visitor = support.initRootVisitor();
+      support.processProjects(visitor, projects, List.of("**/*.class"), List.of(), List.of());
+      visitor.visitEnd();
+    } finally {
+      support.close();
+    }
+    return discard.classes;
+  }
+
+  /** Visitor keeping only the class count of the bundles it receives. */
+  static class DiscardingVisitor implements IReportVisitor {
+    int classes;
+
+    @Override
+    public void visitInfo(
+        final List<SessionInfo> sessionInfos, final Collection<ExecutionData> executionData) {}
+
+    @Override
+    public void visitBundle(final IBundleCoverage bundle, final ISourceFileLocator locator) {
+      classes += bundle.getClassCounter().getTotalCount();
+    }
+
+    @Override
+    public IReportGroupVisitor visitGroup(final String name) {
+      return this;
+    }
+
+    @Override
+    public void visitEnd() {}
+  }
+}
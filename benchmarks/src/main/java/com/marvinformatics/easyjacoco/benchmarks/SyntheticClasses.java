@@ -0,0 +1,296 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.benchmarks;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates class files, their sources and matching execution data, so benchmarks run against
+ * realistic inputs without compiling or testing anything. Generation is seeded, the same arguments
+ * always produce the same bytes.
+ *
+ * <p>Each class <code>ClassN</code> has a constructor and a number of methods <code>mK(int)</code>
+ * with a branch each, spread over the packages <code>com/example/pN</code>.
+ */
+final class SyntheticClasses {
+
+  /** Classes per package. */
+  static final int PACKAGE_SIZE = 50;
+
+  private SyntheticClasses() {}
+
+  /**
+   * @param index index of the class
+   * @return VM name of the class
+   */
+  static String name(final int index) {
+    return "com/example/p" + index / PACKAGE_SIZE + "/Class" + index;
+  }
+
+  /**
+   * @param name VM name of the class
+   * @param methods number of methods besides the constructor
+   * @return class file of the class
+   */
+  static byte[] classFile(final String name, final int methods) {
+    final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+    writer.visitSource(simpleName(name) + ".java", null);
+
+    final MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+    init.visitCode();
+    line(init, 3);
+    init.visitVarInsn(Opcodes.ALOAD, 0);
+    init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    init.visitInsn(Opcodes.RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+
+    for (int m = 0; m < methods; m++) {
+      final int first = 4 + m * 6;
+      final MethodVisitor method =
+          writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + m, "(I)I", null, null);
+      method.visitCode();
+      final Label negative = new Label();
+      line(method, first + 1);
+      method.visitVarInsn(Opcodes.ILOAD, 1);
+      method.visitIntInsn(Opcodes.BIPUSH, m);
+      method.visitJumpInsn(Opcodes.IF_ICMPLE, negative);
+      line(method, first + 2);
+      method.visitVarInsn(Opcodes.ILOAD, 1);
+      method.visitInsn(Opcodes.IRETURN);
+      method.visitLabel(negative);
+      line(method, first + 4);
+      method.visitVarInsn(Opcodes.ILOAD, 1);
+      method.visitInsn(Opcodes.INEG);
+      method.visitInsn(Opcodes.IRETURN);
+      method.visitMaxs(0, 0);
+      method.visitEnd();
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  /**
+   * @param name VM name of the class
+   * @param methods number of methods besides the constructor
+   * @return source of the class, lines matching the line numbers of {@link #classFile}
+   */
+  static String source(final String name, final int methods) {
+    final StringBuilder source = new StringBuilder();
+    source.append("package ").append(packageName(name).replace('/', '.')).append(";\n\n");
+    source.append("public class ").append(simpleName(name)).append(" {\n");
+    for (int m = 0; m < methods; m++) {
+      source.append("  public int m").append(m).append("(int x) {\n");
+      source.append("    if (x > ").append(m).append(") {\n");
+      source.append("      return x;\n");
+      source.append("    }\n");
+      source.append("    return -x;\n");
+      source.append("  }\n");
+    }
+    source.append("}\n");
+    return source.toString();
+  }
+
+  /**
+   * @param classFile class file
+   * @return number of probes JaCoCo inserts into the class
+   */
+  static int probeCount(final byte[] classFile) {
+    final int[] count = new int[1];
+    final ClassProbesVisitor counter =
+        new ClassProbesVisitor() {
+          @Override
+          public MethodProbesVisitor visitMethod(
+              final int access,
+              final String name,
+              final String desc,
+              final String signature,
+              final String[] exceptions) {
+            return null;
+          }
+
+          @Override
+          public void visitTotalProbeCount(final int total) {
+            count[0] = total;
+          }
+        };
+    new ClassReader(classFile).accept(new ClassProbesAdapter(counter, false), 0);
+    return count[0];
+  }
+
+  /**
+   * Writes classes <code>first</code> to <code>first + count - 1</code> and their sources.
+   *
+   * @param classes directory of the class files
+   * @param sources directory of the sources, or <code>null</code> for none
+   * @param first index of the first class
+   * @param count number of classes
+   * @param methods number of methods per class
+   * @return class files written, in index order
+   * @throws IOException if the files can't be written
+   */
+  static List<byte[]> write(
+      final File classes, final File sources, final int first, final int count, final int methods)
+      throws IOException {
+    final List<byte[]> written = new ArrayList<byte[]>(count);
+    for (int i = first; i < first + count; i++) {
+      final String name = name(i);
+      final byte[] bytes = classFile(name, methods);
+      final Path file = classes.toPath().resolve(name + ".class");
+      Files.createDirectories(file.getParent());
+      Files.write(file, bytes);
+      if (sources != null) {
+        final Path source = sources.toPath().resolve(name + ".java");
+        Files.createDirectories(source.getParent());
+        Files.write(source, source(name, methods).getBytes(StandardCharsets.UTF_8));
+      }
+      written.add(bytes);
+    }
+    return written;
+  }
+
+  /**
+   * Writes a jar with classes <code>0</code> to <code>count - 1</code>.
+   *
+   * @param jar jar to write
+   * @param count number of classes
+   * @param methods number of methods per class
+   * @throws IOException if the jar can't be written
+   */
+  static void writeJar(final File jar, final int count, final int methods) throws IOException {
+    try (ZipOutputStream out =
+        new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(jar.toPath())))) {
+      for (int i = 0; i < count; i++) {
+        final String name = name(i);
+        out.putNextEntry(new ZipEntry(name + ".class"));
+        out.write(classFile(name, methods));
+        out.closeEntry();
+      }
+    }
+  }
+
+  /**
+   * Writes execution data for the given classes, each probe hit with a seeded probability.
+   *
+   * @param exec exec file to write
+   * @param classFiles class files to write execution data for, in index order
+   * @param first index of the first class
+   * @param hitRatio probability of a probe being hit
+   * @param seed seed of the hits
+   * @throws IOException if the file can't be written
+   */
+  static void writeExec(
+      final File exec,
+      final List<byte[]> classFiles,
+      final int first,
+      final double hitRatio,
+      final long seed)
+      throws IOException {
+    final Random random = new Random(seed);
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(exec.toPath()))) {
+      final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+      writer.visitSessionInfo(new SessionInfo("synthetic", 0, 0));
+      for (int i = 0; i < classFiles.size(); i++) {
+        final byte[] bytes = classFiles.get(i);
+        final boolean[] probes = new boolean[probeCount(bytes)];
+        for (int p = 0; p < probes.length; p++) {
+          probes[p] = random.nextDouble() < hitRatio;
+        }
+        writer.visitClassExecution(
+            new ExecutionData(CRC64.classId(bytes), name(first + i), probes));
+      }
+    }
+  }
+
+  /**
+   * @param prefix prefix of the directory name
+   * @return new empty temporary directory
+   * @throws IOException if the directory can't be created
+   */
+  static File tempDirectory(final String prefix) throws IOException {
+    return Files.createTempDirectory("easy-jacoco-" + prefix).toFile();
+  }
+
+  /**
+   * Deletes a directory and everything in it.
+   *
+   * @param directory directory to delete
+   * @throws IOException if a file can't be deleted
+   */
+  static void delete(final File directory) throws IOException {
+    if (directory == null || !directory.exists()) {
+      return;
+    }
+    Files.walkFileTree(
+        directory.toPath(),
+        new SimpleFileVisitor<Path>() {
+          @Override
+          public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs)
+              throws IOException {
+            Files.delete(file);
+            return FileVisitResult.CONTINUE;
+          }
+
+          @Override
+          public FileVisitResult postVisitDirectory(final Path dir, final IOException e)
+              throws IOException {
+            Files.delete(dir);
+            return FileVisitResult.CONTINUE;
+          }
+        });
+  }
+
+  private static void line(final MethodVisitor method, final int line) {
+    final Label label = new Label();
+    method.visitLabel(label);
+    method.visitLineNumber(line, label);
+  }
+
+  private static String packageName(final String name) {
+    return name.substring(0, name.lastIndexOf('/'));
+  }
+
+  private static String simpleName(final String name) {
+    return name.substring(name.lastIndexOf('/') + 1);
+  }
+}
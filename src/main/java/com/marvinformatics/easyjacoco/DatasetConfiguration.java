@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import org.apache.maven.plugin.MojoExecutionException;
+
+/**
+ * A named selection of execution data files, e.g. unit tests only, integration tests only or all of
+ * them. Several datasets are analyzed in a single pass over the class files.
+ */
+public class DatasetConfiguration {
+
+  private String name;
+  private List<String> dataFileIncludes;
+  private List<String> dataFileExcludes;
+  private List<RuleConfiguration> rules;
+
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * @param name name of the dataset, used for the report directory and in log messages
+   */
+  public void setName(final String name) {
+    this.name = name;
+  }
+
+  public List<String> getDataFileIncludes() {
+    return dataFileIncludes;
+  }
+
+  /**
+   * @param dataFileIncludes execution data files of this dataset, defaults to all *.exec files
+   */
+  public void setDataFileIncludes(final List<String> dataFileIncludes) {
+    this.dataFileIncludes = dataFileIncludes;
+  }
+
+  public List<String> getDataFileExcludes() {
+    return dataFileExcludes;
+  }
+
+  /**
+   * @param dataFileExcludes execution data files to exclude from this dataset
+   */
+  public void setDataFileExcludes(final List<String> dataFileExcludes) {
+    this.dataFileExcludes = dataFileExcludes;
+  }
+
+  public List<RuleConfiguration> getRules() {
+    return rules;
+  }
+
+  /**
+   * @param rules rules checked against this dataset, defaults to the project rules
+   */
+  public void setRules(final List<RuleConfiguration> rules) {
+    this.rules = rules;
+  }
+
+  /**
+   * Checks that each dataset has a name and no two datasets share one. Names are compared ignoring
+   * case, as they name report directories.
+   *
+   * @param datasets configured datasets
+   * @throws MojoExecutionException if a name is missing or used twice
+   */
+  static void checkNames(final List<DatasetConfiguration> datasets) throws MojoExecutionException {
+    final Set<String> names = new HashSet<String>();
+    for (final DatasetConfiguration dataset : datasets) {
+      final String name = dataset.getName();
+      if (name == null || name.trim().isEmpty()) {
+        throw new MojoExecutionException("Each dataset must have a name");
+      }
+      if (!names.add(name.toLowerCase(Locale.ROOT))) {
+        throw new MojoExecutionException("Dataset name " + name + " is used more than once");
+      }
+    }
+  }
+}
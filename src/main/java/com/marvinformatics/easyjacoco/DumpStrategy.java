@@ -0,0 +1,34 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+/** Defines when the JaCoCo agent of the test JVMs dumps execution data. */
+public enum DumpStrategy {
+  /** The agent writes a single session to target/jacoco.exec when the test JVM exits. */
+  FILE,
+
+  /**
+   * A JUnit Platform listener dumps one session per test class, named after the class, to
+   * target/jacoco-sessions. Data recorded outside of test classes is still written on exit.
+   */
+  PER_TEST,
+
+  /**
+   * The agents send their data to a collector started by the build for each module, which merges it
+   * in memory and writes a single target/jacoco.exec once the tests ran.
+   */
+  COLLECTOR
+}
@@ -15,11 +15,13 @@
  */
 package com.marvinformatics.easyjacoco;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.Properties;
@@ -59,7 +61,7 @@ public class EasyJacocoLifecycleParticipant extends AbstractMavenLifecyclePartic
 
   @Override
   public void afterProjectsRead(MavenSession session) throws MavenExecutionException {
-    if ("true".equalsIgnoreCase(System.getProperty("easyjacoco.skip"))) {
+    if (isSkipped(session, session.getTopLevelProject())) {
       log.info("Skipping EasyJacoco lifecycle logic due to -Deasyjacoco.skip=true");
       return;
     }
@@ -85,8 +87,18 @@ public class EasyJacocoLifecycleParticipant extends AbstractMavenLifecyclePartic
     }
 
     log.info("Registering jacoco related plugins on all modules");
+    var dumpStrategy = readDumpStrategy(topLevelProject);
     for (var project : session.getProjects()) {
-      registerVanillaJacocoExecution(project);
+      var jacocoPlugin = registerVanillaJacocoExecution(project);
+      if (dumpStrategy == DumpStrategy.PER_TEST) {
+        registerPerTestDumps(project);
+      } else if (dumpStrategy == DumpStrategy.COLLECTOR) {
+        if (isSkipped(session, project)) {
+          log.debug("Coverage collector skipped for " + project.getArtifactId());
+        } else {
+          registerCollector(project, jacocoPlugin);
+        }
+      }
     }
 
     if (session.getProjects().size() > 1) {
@@ -104,6 +116,12 @@ public class EasyJacocoLifecycleParticipant extends AbstractMavenLifecyclePartic
         var allProjects = new ArrayList<>(session.getProjects());
         allProjects.add(reportProject);
         session.setProjects(allProjects);
+        // Maven 3.9.10+ rebuilds the reactor graph from all projects, filtered by the projects
+        if (session.getAllProjects() != null && !session.getAllProjects().contains(reportProject)) {
+          var reactor = new ArrayList<>(session.getAllProjects());
+          reactor.add(reportProject);
+          session.setAllProjects(reactor);
+        }
         log.debug("Added coverage project to reactor: " + reportProject.getArtifactId());
       } else {
         log.debug(
@@ -113,6 +131,50 @@ public class EasyJacocoLifecycleParticipant extends AbstractMavenLifecyclePartic
     }
   }
 
+  /**
+   * Stops the collectors still running, e.g. because the build failed before stop-collector ran, so
+   * their sockets and threads don't outlive the build.
+   */
+  @Override
+  public void afterSessionEnd(MavenSession session) throws MavenExecutionException {
+    if (session.getProjects() == null) {
+      return;
+    }
+    for (var project : session.getProjects()) {
+      // the collector is loaded by the plugin realm, so it is only known as Closeable here
+      var collector = project.getContextValue(StartCollectorMojo.COLLECTOR_KEY);
+      if (!(collector instanceof Closeable)) {
+        continue;
+      }
+      project.setContextValue(StartCollectorMojo.COLLECTOR_KEY, null);
+      try {
+        ((Closeable) collector).close();
+        log.warn(
+            "Coverage collector of "
+                + project.getArtifactId()
+                + " was still running at the end of the build and was stopped, its execution data is lost");
+      } catch (IOException e) {
+        log.warn(
+            "Unable to stop coverage collector of "
+                + project.getArtifactId()
+                + ": "
+                + e.getMessage());
+      }
+    }
+  }
+
+  /** <code>easyjacoco.skip</code> as the mojos of the project resolve it. */
+  private boolean isSkipped(MavenSession session, MavenProject project) {
+    var value = session.getUserProperties().getProperty("easyjacoco.skip");
+    if (value == null) {
+      value = System.getProperty("easyjacoco.skip");
+    }
+    if (value == null && project != null) {
+      value = project.getProperties().getProperty("easyjacoco.skip");
+    }
+    return value != null && "true".equalsIgnoreCase(value.trim());
+  }
+
   private void syncExtensionVersion(MavenSession session, MavenProject topLevelProject) {
     String syncExtensionVersion =
         readConfigurationValue(topLevelProject, "syncExtensionVersion", "true");
@@ -378,6 +440,113 @@ public class EasyJacocoLifecycleParticipant extends AbstractMavenLifecyclePartic
     return plugin;
   }
 
+  private DumpStrategy readDumpStrategy(MavenProject topLevelProject) {
+    String dumpStrategyStr = readConfigurationValue(topLevelProject, "dumpStrategy", "FILE");
+    try {
+      return DumpStrategy.valueOf(dumpStrategyStr.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      log.warn("Invalid dumpStrategy value: " + dumpStrategyStr + ". Defaulting to FILE.");
+      return DumpStrategy.FILE;
+    }
+  }
+
+  private void registerPerTestDumps(MavenProject project) throws MavenExecutionException {
+    String listenerPath;
+    try {
+      listenerPath =
+          new File(
+                  EasyJacocoLifecycleParticipant.class
+                      .getProtectionDomain()
+                      .getCodeSource()
+                      .getLocation()
+                      .toURI())
+              .getAbsolutePath();
+    } catch (Exception e) {
+      throw new MavenExecutionException(
+          "Unable to locate the per-test dump listener: " + e.getMessage(), e);
+    }
+    var sessionsDir = new File(project.getBuild().getDirectory(), "jacoco-sessions").getPath();
+
+    for (var pluginKey :
+        List.of(
+            "org.apache.maven.plugins:maven-surefire-plugin",
+            "org.apache.maven.plugins:maven-failsafe-plugin")) {
+      var plugin = project.getPlugin(pluginKey);
+      if (plugin == null) {
+        continue;
+      }
+      // plugin configuration is already merged into the executions at this point
+      plugin.setConfiguration(
+          addPerTestDumpConfiguration(plugin.getConfiguration(), listenerPath, sessionsDir));
+      for (var execution : plugin.getExecutions()) {
+        execution.setConfiguration(
+            addPerTestDumpConfiguration(execution.getConfiguration(), listenerPath, sessionsDir));
+      }
+    }
+  }
+
+  private void registerCollector(MavenProject project, Plugin jacocoPlugin)
+      throws MavenExecutionException {
+    var plugin = project.getPlugin("com.marvinformatics.jacoco:easy-jacoco-maven-plugin");
+    if (plugin == null) {
+      plugin = new Plugin();
+      plugin.setGroupId("com.marvinformatics.jacoco");
+      plugin.setArtifactId("easy-jacoco-maven-plugin");
+      plugin.setVersion(
+          readArtifactProperties("com.marvinformatics.jacoco", "easy-jacoco-maven-plugin")
+              .getProperty("version"));
+      project.getBuild().addPlugin(plugin);
+    }
+
+    var start = new PluginExecution();
+    start.setId("easy-jacoco-start-collector");
+    start.setGoals(List.of("start-collector"));
+    plugin.addExecution(start);
+
+    var stop = new PluginExecution();
+    stop.setId("easy-jacoco-stop-collector");
+    stop.setGoals(List.of("stop-collector"));
+    plugin.addExecution(stop);
+
+    // goals bound to the same phase run in plugin order: the collector has to start before
+    // prepare-agent and write its exec file before report
+    var plugins = project.getBuild().getPlugins();
+    plugins.remove(jacocoPlugin);
+    plugins.add(plugins.indexOf(plugin) + 1, jacocoPlugin);
+
+    var configuration = new Xpp3Dom("configuration");
+    configuration.addChild(newPair("output", "tcpclient"));
+    configuration.addChild(newPair("address", "${easyjacoco.collector.address}"));
+    configuration.addChild(newPair("port", "${easyjacoco.collector.port}"));
+    for (var execution : jacocoPlugin.getExecutions()) {
+      execution.setConfiguration(configuration);
+    }
+  }
+
+  private Xpp3Dom addPerTestDumpConfiguration(
+      Object configuration, String listenerPath, String sessionsDir) {
+    var dom =
+        configuration instanceof Xpp3Dom ? (Xpp3Dom) configuration : new Xpp3Dom("configuration");
+    var classpath = childOf(dom, "additionalClasspathElements");
+    if (Arrays.stream(classpath.getChildren()).noneMatch(e -> listenerPath.equals(e.getValue()))) {
+      classpath.addChild(newPair("additionalClasspathElement", listenerPath));
+    }
+    var properties = childOf(dom, "systemPropertyVariables");
+    if (properties.getChild("easyjacoco.sessionsDir") == null) {
+      properties.addChild(newPair("easyjacoco.sessionsDir", sessionsDir));
+    }
+    return dom;
+  }
+
+  private Xpp3Dom childOf(Xpp3Dom parent, String name) {
+    var child = parent.getChild(name);
+    if (child == null) {
+      child = new Xpp3Dom(name);
+      parent.addChild(child);
+    }
+    return child;
+  }
+
   private Xpp3Dom newPair(String name, String value) {
     var dom = new Xpp3Dom(name);
     dom.setValue(value);
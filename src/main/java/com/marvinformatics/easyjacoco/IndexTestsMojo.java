@@ -0,0 +1,122 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import com.marvinformatics.easyjacoco.jacoco.FileFilter;
+import com.marvinformatics.easyjacoco.jacoco.TestImpactIndex;
+import com.marvinformatics.easyjacoco.jacoco.TestSources;
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Builds an index from each class to the tests that executed it, for {@link SelectTestsMojo}. Tests
+ * are the sessions of the exec files, so these have to be dumped once per test, with the test name
+ * as session id. Sessions whose id doesn't name a test class of the reactor, e.g. the <code>
+ * host-1a2b3c</code> ids the JaCoCo agent generates, are skipped.
+ */
+@Mojo(name = "index-tests", aggregator = true, defaultPhase = LifecyclePhase.VERIFY)
+public class IndexTestsMojo extends AbstractMojo {
+
+  /**
+   * Skip the execution of the index-tests goal.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.skip", defaultValue = "false")
+  private boolean skip;
+
+  /** Maven session object provided by the Maven runtime. */
+  @Parameter(defaultValue = "${session}", readonly = true)
+  private MavenSession session;
+
+  /**
+   * A list of execution data files to include, relative to the top level project. Supports
+   * wildcards.
+   *
+   * <p>Default: All *.exec files in target/jacoco-sessions directories.
+   */
+  @Parameter private List<String> dataFileIncludes;
+
+  /**
+   * A list of execution data files to exclude. Supports wildcard characters (*, ?).
+   *
+   * <p>Default: None.
+   */
+  @Parameter private List<String> dataFileExcludes;
+
+  /**
+   * File the index is written to.
+   *
+   * <p>Default: target/test-impact.idx of the top level project.
+   */
+  @Parameter(
+      property = "easyjacoco.testIndex",
+      defaultValue = "${project.build.directory}/test-impact.idx")
+  private File indexFile;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (skip) {
+      getLog().info("Test index skipped via skip configuration");
+      return;
+    }
+
+    final File projectRoot = session.getTopLevelProject().getBasedir();
+    final List<String> includes =
+        dataFileIncludes == null ? List.of("**/target/jacoco-sessions/*.exec") : dataFileIncludes;
+    final TestSources testSources = new TestSources(session.getAllProjects());
+    final TestImpactIndex.Builder builder = new TestImpactIndex.Builder(testSources::isTest);
+    try {
+      final List<File> files = new FileFilter(includes, dataFileExcludes).getFiles(projectRoot);
+      if (files.isEmpty()) {
+        getLog()
+            .error(
+                String.format(
+                    "No execution data found at: %s includes: %s excludes: %s",
+                    projectRoot, includes, dataFileExcludes));
+      }
+      for (final File execFile : files) {
+        getLog().info("Indexing execution data file " + execFile);
+        builder.read(execFile);
+      }
+      if (builder.getTestCount() == 0 && builder.getSkippedSessionCount() > 0) {
+        getLog()
+            .warn(
+                String.format(
+                    "None of the %s sessions names a test class, dump execution data once per test with the test class as session id to select tests by coverage",
+                    builder.getSkippedSessionCount()));
+      }
+      builder.write(indexFile);
+    } catch (final IOException e) {
+      throw new MojoExecutionException("Error while indexing tests: " + e.getMessage(), e);
+    }
+    getLog()
+        .info(
+            String.format(
+                "Indexed %s classes executed by %s tests to %s, skipped %s sessions not naming a test",
+                builder.getClassCount(),
+                builder.getTestCount(),
+                indexFile,
+                builder.getSkippedSessionCount()));
+  }
+}
@@ -15,6 +15,7 @@
  */
 package com.marvinformatics.easyjacoco;
 
+import com.marvinformatics.easyjacoco.jacoco.PhaseMetrics;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -24,6 +25,7 @@ import java.io.OutputStream;
 import java.util.List;
 import java.util.stream.Collectors;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -67,6 +69,21 @@ public class InstrumentJarMojo extends AbstractMojo {
   @Parameter(property = "easyjacoco.destination", required = true)
   private File destination;
 
+  /**
+   * Directory the phase metrics of this goal are written to as JSON, one file per goal execution
+   * with wall time, classes and bytes of the instrumentation.
+   *
+   * <p>Default: target/easy-jacoco-metrics.
+   */
+  @Parameter(
+      property = "easyjacoco.metricsDirectory",
+      defaultValue = "${project.build.directory}/easy-jacoco-metrics")
+  private File metricsDirectory;
+
+  /** Execution of this goal, names the metrics file. */
+  @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+  private MojoExecution mojoExecution;
+
   @Override
   public void execute() throws MojoExecutionException {
     if (skip) {
@@ -98,12 +115,15 @@ public class InstrumentJarMojo extends AbstractMojo {
     WildcardMatcher excludes =
         new WildcardMatcher(this.excludes.stream().collect(Collectors.joining(":")));
 
+    final PhaseMetrics metrics = new PhaseMetrics();
+    final PhaseMetrics.Phase instrumentation = metrics.phase(PhaseMetrics.INSTRUMENT);
     var instrumenter =
         new Instrumenter(new OfflineInstrumentationAccessGenerator()) {
           public byte[] instrument(final byte[] buffer, final String name) throws IOException {
             var classname = name.split("@")[1];
             if (includes.matches(classname) && !excludes.matches(classname)) {
               getLog().debug(String.format("Instrumenting class %s", classname));
+              instrumentation.addClasses(1);
               return super.instrument(buffer, classname);
             }
             getLog().debug(String.format("Skip instrumentation for %s", classname));
@@ -112,13 +132,18 @@ public class InstrumentJarMojo extends AbstractMojo {
         };
 
     destination.getParentFile().mkdirs();
+    final PhaseMetrics.Timer timer = instrumentation.start();
     try (final InputStream input = new FileInputStream(source);
         final OutputStream output = new FileOutputStream(destination)) {
-      instrumenter.instrumentAll(input, output, source.getAbsolutePath());
+      instrumenter.instrumentAll(input, instrumentation.count(output), source.getAbsolutePath());
+      instrumentation.addBytesRead(source.length());
       getLog().info("Instrumented jar saved to: " + destination.getAbsolutePath());
     } catch (final IOException e) {
       destination.delete();
       throw new MojoExecutionException(e);
+    } finally {
+      timer.stop();
     }
+    metrics.report(getLog(), metricsDirectory, mojoExecution);
   }
 }
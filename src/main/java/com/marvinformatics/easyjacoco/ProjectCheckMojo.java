@@ -15,14 +15,30 @@
  */
 package com.marvinformatics.easyjacoco;
 
+import com.marvinformatics.easyjacoco.jacoco.AnalysisCache;
+import com.marvinformatics.easyjacoco.jacoco.CoverageBaseline;
+import com.marvinformatics.easyjacoco.jacoco.CoverageCheckHaltedException;
+import com.marvinformatics.easyjacoco.jacoco.DiffFilter;
 import com.marvinformatics.easyjacoco.jacoco.FileFilter;
+import com.marvinformatics.easyjacoco.jacoco.GitDiff;
+import com.marvinformatics.easyjacoco.jacoco.IssueReporter;
+import com.marvinformatics.easyjacoco.jacoco.LeanCoverageBuilder;
+import com.marvinformatics.easyjacoco.jacoco.MemoryBudget;
+import com.marvinformatics.easyjacoco.jacoco.PhaseMetrics;
 import com.marvinformatics.easyjacoco.jacoco.ReportSupport;
+import com.marvinformatics.easyjacoco.jacoco.SharedAnalysisCache;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -30,6 +46,7 @@ import org.apache.maven.plugins.annotations.Parameter;
 import org.jacoco.core.analysis.ICounter.CounterValue;
 import org.jacoco.core.analysis.ICoverageNode;
 import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.check.IViolationsOutput;
 import org.jacoco.report.check.Limit;
@@ -110,7 +127,7 @@ public class ProjectCheckMojo extends AbstractMojo implements IViolationsOutput
   /**
    * List of execution data files to include for coverage analysis. Supports wildcards.
    *
-   * <p>Default: All *.exec files in target directories.
+   * <p>Default: All *.exec files in target and target/jacoco-sessions directories.
    */
   @Parameter private List<String> dataFileIncludes;
 
@@ -128,8 +145,246 @@ public class ProjectCheckMojo extends AbstractMojo implements IViolationsOutput
    */
   @Parameter private List<String> excludeModules;
 
+  /**
+   * Merge execution data out of core. Execution data is partitioned by class id into spill files
+   * and classes are analyzed one partition group at a time, so the heap used for execution data is
+   * bound by {@link #externalMergeBudget} instead of the size of the exec files.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.externalMerge", defaultValue = "false")
+  private boolean externalMerge;
+
+  /**
+   * Heap budget, in megabytes, for the merged execution data of one external merge pass. Every pass
+   * scans the class files of all modules again, so a smaller budget trades heap for reading class
+   * files once per pass.
+   *
+   * <p>Default: 256.
+   */
+  @Parameter(property = "easyjacoco.externalMergeBudget", defaultValue = "256")
+  private int externalMergeBudget;
+
+  /** Directory for the temporary spill files of the external merge. */
+  @Parameter(defaultValue = "${project.build.directory}/easy-jacoco-spill")
+  private File spillDirectory;
+
+  /**
+   * Keep execution data in a packed store: class ids in a primitive hash table, probes as bitsets
+   * in a direct buffer. Cuts the heap needed for execution data of projects with many classes. Exec
+   * files are memory-mapped and decoded in place. In exchange each lookup decodes the class from
+   * the buffer: about 256 ns against 84 ns for JaCoCo's store with 500,000 classes in the
+   * ExecutionDataStoreBenchmark, small next to analyzing the class. Ignored when {@link
+   * #externalMerge} is enabled.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.packedExecutionData", defaultValue = "false")
+  private boolean packedExecutionData;
+
+  /**
+   * Named datasets to check in a single pass, e.g. unit tests, integration tests and both merged.
+   * Each dataset selects its own execution data files and is checked against its own rules, or
+   * {@link #projectRules} if it has none. Class files are read and parsed once for all datasets.
+   * When not specified a single check is run on {@link #dataFileIncludes}.
+   *
+   * <pre>{@code
+   * <datasets>
+   *   <dataset>
+   *     <name>unit</name>
+   *     <dataFileIncludes>**&#47;target/jacoco.exec</dataFileIncludes>
+   *   </dataset>
+   *   <dataset>
+   *     <name>it</name>
+   *     <dataFileIncludes>**&#47;target/jacoco-it.exec</dataFileIncludes>
+   *     <rules>...</rules>
+   *   </dataset>
+   * </datasets>
+   * }</pre>
+   */
+  @Parameter private List<DatasetConfiguration> datasets;
+
+  /**
+   * When all rules are on BUNDLE or PACKAGE elements, fold each analyzed class into package
+   * counters right away instead of building the full coverage tree. Class, method, line and source
+   * file nodes are then never retained, which cuts heap and time on large reactors. The coverage of
+   * Kotlin inline functions isn't applied to the class declaring them, and of different classes
+   * with the same name the first one analyzed is counted, so counters may differ from the full
+   * analysis for such classes.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.leanAnalysis", defaultValue = "false")
+  private boolean leanAnalysis;
+
+  /**
+   * Analyze and check one module at a time. CLASS, SOURCEFILE and METHOD rules are checked on each
+   * module's classes, which are then folded into package counters and released, so peak heap usage
+   * is set by the largest module instead of the whole reactor. BUNDLE and PACKAGE rules are checked
+   * on the folded counters once all modules are analyzed. Classes and source files spanning several
+   * modules are checked per module. Not used with {@link #externalMerge} or {@link #datasets}, and
+   * not needed when {@link #leanAnalysis} applies.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.streamingAnalysis", defaultValue = "false")
+  private boolean streamingAnalysis;
+
+  /**
+   * Together with {@link #haltOnFailure}, check rules while classes are analyzed and stop as soon
+   * as {@link #failFastViolations} violations are found, instead of analyzing the whole reactor
+   * first. Only limits whose verdict can't change anymore are checked early: all limits of CLASS
+   * and METHOD rules, and maximums of BUNDLE and PACKAGE rules on counts that only grow. Other
+   * limits are still checked once the analysis completes.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.failFast", defaultValue = "false")
+  private boolean failFast;
+
+  /**
+   * Number of violations to collect before a {@link #failFast} check stops the analysis, at least
+   * 1.
+   *
+   * <p>Default: 1.
+   */
+  @Parameter(property = "easyjacoco.failFastViolations", defaultValue = "1")
+  private int failFastViolations;
+
+  /**
+   * File every rule violation and every class with mismatching execution data is written to, in the
+   * background while checking. Written as JSON lines, or as CSV when the file name ends with <code>
+   * .csv</code>.
+   *
+   * <p>Default: None, issues are only logged.
+   */
+  @Parameter(property = "easyjacoco.issuesFile")
+  private File issuesFile;
+
+  /**
+   * Number of violations and mismatching classes logged to the console. Further issues are only
+   * counted and summed up at the end, and still written to {@link #issuesFile}.
+   *
+   * <p>Default: 100.
+   */
+  @Parameter(property = "easyjacoco.maxLoggedIssues", defaultValue = "100")
+  private int maxLoggedIssues;
+
+  /**
+   * Git revision to check changed code against, e.g. <code>origin/main</code>. When set only the
+   * lines added or modified since the current branch was forked from this revision, as reported by
+   * the local <code>git diff</code> against their merge base, are analyzed and checked: modules
+   * without changed sources are skipped, and all rules apply to the changed lines only. The
+   * revision must be available locally, nothing is fetched.
+   *
+   * <p>Default: None, all code is checked.
+   */
+  @Parameter(property = "easyjacoco.diffBase")
+  private String diffBase;
+
+  /**
+   * Fail on per class coverage regressions against {@link #baselineFile}: a class fails when its
+   * covered ratio of instructions, branches, lines or methods drops below the baseline. The
+   * baseline is written by the first check that doesn't find one, and rewritten with {@link
+   * #updateBaseline}. Not used with {@link #datasets} or {@link #diffBase}.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.ratchet", defaultValue = "false")
+  private boolean ratchet;
+
+  /**
+   * Per class baseline for the {@link #ratchet}, a compact binary file meant to be committed with
+   * the coverage module.
+   *
+   * <p>Default: coverage-baseline.bin in the coverage module.
+   */
+  @Parameter(
+      property = "easyjacoco.baselineFile",
+      defaultValue = "${project.basedir}/coverage-baseline.bin")
+  private File baselineFile;
+
+  /**
+   * Write {@link #baselineFile} from this check instead of comparing with it, e.g. to accept a drop
+   * in coverage or to record improvements.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.updateBaseline", defaultValue = "false")
+  private boolean updateBaseline;
+
   private boolean violations;
 
+  private IssueReporter issues;
+
+  private DiffFilter diff;
+
+  /**
+   * Size, in megabytes, of the cache of parsed exec files and analyzed classes kept in memory
+   * between builds of a Maven daemon like mvnd. Exec files and classes that didn't change since an
+   * earlier build are reused instead of read and analyzed again. Set to -1 to disable, or to a size
+   * to use the cache outside of mvnd as well.
+   *
+   * <p>Default: 0, 256 MB in mvnd and disabled otherwise.
+   */
+  @Parameter(property = "easyjacoco.analysisCacheSize", defaultValue = "0")
+  private int analysisCacheSize;
+
+  /**
+   * Directory of a cache of analyzed classes shared by builds, e.g. on a network file system
+   * mounted by all CI agents. Each class is stored by its class id and a hash of its execution
+   * data, so a class that didn't change is analyzed once for all builds seeing the same coverage of
+   * it. Entries are written atomically, and the least recently used are deleted once the directory
+   * outgrows {@link #sharedCacheSize}. Not used with external merge.
+   *
+   * <p>Default: None, no shared cache.
+   */
+  @Parameter(property = "easyjacoco.sharedCacheDirectory")
+  private File sharedCacheDirectory;
+
+  /**
+   * Size, in megabytes, of {@link #sharedCacheDirectory}.
+   *
+   * <p>Default: 1024.
+   */
+  @Parameter(property = "easyjacoco.sharedCacheSize", defaultValue = "1024")
+  private int sharedCacheSize;
+
+  /**
+   * Heap budget, in megabytes, of the analysis, or 0 for three quarters of the maximum heap. Before
+   * each module is analyzed the heap retained after the last full garbage collection is compared
+   * with the budget, requesting one when the heap in use is above it. Once it's exceeded the check
+   * continues with {@link #streamingAnalysis} for the remaining modules, instead of running out of
+   * memory. Has no effect on the analysis with {@link #leanAnalysis}, {@link #failFast} or {@link
+   * #externalMerge}, where heap is already bound or can't be released. Peak heap per phase and
+   * module is logged and written to {@link #metricsDirectory} either way.
+   *
+   * <p>Default: -1, no budget.
+   */
+  @Parameter(property = "easyjacoco.memoryBudget", defaultValue = "-1")
+  private int memoryBudget;
+
+  /**
+   * Directory the phase metrics of this goal are written to as JSON, one file per goal execution
+   * with wall time, files, classes and bytes of each phase.
+   *
+   * <p>Default: target/easy-jacoco-metrics.
+   */
+  @Parameter(
+      property = "easyjacoco.metricsDirectory",
+      defaultValue = "${project.build.directory}/easy-jacoco-metrics")
+  private File metricsDirectory;
+
+  /** Execution of this goal, names the metrics file. */
+  @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+  private MojoExecution mojoExecution;
+
+  private final PhaseMetrics metrics = new PhaseMetrics();
+
+  private AnalysisCache cache;
+
+  private SharedAnalysisCache sharedCache;
+
   @Override
   public void execute() throws MojoExecutionException {
     if (skip) {
@@ -159,24 +414,119 @@ public class ProjectCheckMojo extends AbstractMojo implements IViolationsOutput
       projectRules.add(rule);
     }
 
+    if (failFast && !haltOnFailure) {
+      getLog().info("failFast has no effect unless haltOnFailure is enabled");
+    }
+    if (isFailFast() && failFastViolations < 1) {
+      throw new MojoExecutionException(
+          "failFastViolations must be at least 1, but is " + failFastViolations);
+    }
+
     var projectRoot = session.getTopLevelProject().getBasedir();
 
+    if (diffBase != null && !diffBase.isEmpty()) {
+      diff = diffFilter(projectRoot);
+      if (diff.getSourceFileCount() == 0) {
+        getLog().info("No sources changed since " + diffBase + ", nothing to check.");
+        return;
+      }
+    }
+
+    try {
+      issues = new IssueReporter(getLog(), issuesFile, maxLoggedIssues);
+    } catch (final IOException e) {
+      throw new MojoExecutionException(
+          "Unable to create issues file " + issuesFile + ": " + e.getMessage(), e);
+    }
+    cache = AnalysisCache.configured(analysisCacheSize);
+    sharedCache =
+        sharedCacheDirectory == null
+            ? null
+            : new SharedAnalysisCache(sharedCacheDirectory, sharedCacheSize * 1024L * 1024L);
+
+    if (datasets != null && !datasets.isEmpty()) {
+      checkDatasets(projectRoot);
+      return;
+    }
+
     final ReportSupport support = new ReportSupport(getLog());
+    support.setMetrics(metrics);
+    support.setIssueReporter(issues, null);
+    if (cache != null) {
+      support.setAnalysisCache(cache);
+    }
+    if (sharedCache != null) {
+      support.setSharedCache(sharedCache);
+    }
+    if (memoryBudget >= 0) {
+      support.setMemoryBudget(new MemoryBudget(memoryBudget * 1024L * 1024L));
+    }
+    if (diff != null) {
+      support.enableDiff(diff);
+    }
+    if (externalMerge) {
+      support.enableExternalMerge(spillDirectory, externalMergeBudget * 1024L * 1024L);
+    } else if (packedExecutionData) {
+      support.enablePackedExecutionData();
+    }
 
-    final List<Rule> checkerrules = new ArrayList<Rule>();
-    for (final RuleConfiguration r : projectRules) {
-      checkerrules.add(r.rule);
+    final List<Rule> rules = rules(projectRules);
+    if (leanAnalysis && LeanCoverageBuilder.isSufficientFor(rules)) {
+      support.enableLeanAnalysis();
+    } else if (streamingAnalysis) {
+      if (externalMerge) {
+        getLog()
+            .warn("streamingAnalysis is not supported together with externalMerge and is ignored");
+      } else {
+        support.enableStreaming();
+      }
+    }
+    support.addRulesChecker(rules, this);
+    if (isFailFast()) {
+      support.enableFailFast(rules, this, failFastViolations);
+    }
+    CoverageBaseline current = null;
+    if (ratchet || updateBaseline) {
+      if (diff != null) {
+        getLog().warn("ratchet is not supported together with diffBase and is ignored");
+      } else {
+        current = new CoverageBaseline();
+        support.setClassVisitor(current);
+      }
     }
-    support.addRulesChecker(checkerrules, this);
 
     try {
       final IReportVisitor visitor = support.initRootVisitor();
       loadExecutionData(support, projectRoot);
       support.processProjects(
           visitor, session.getAllProjects(), includes, excludes, excludeModules);
-      visitor.visitEnd();
+      final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.REPORT).start();
+      try {
+        visitor.visitEnd();
+      } finally {
+        timer.stop();
+      }
+      if (current != null) {
+        ratchet(current);
+      }
+    } catch (final CoverageCheckHaltedException e) {
+      throw new MojoExecutionException(
+          "Coverage checks have not been met. " + e.getMessage() + ". See log for details.");
     } catch (final IOException e) {
       throw new MojoExecutionException("Error while checking code coverage: " + e.getMessage(), e);
+    } catch (final OutOfMemoryError e) {
+      throw new MojoExecutionException(MemoryBudget.describeOutOfMemory(metrics), e);
+    } finally {
+      closeQuietly(support);
+      closeQuietly(issues);
+      metrics.report(getLog(), metricsDirectory, mojoExecution);
+      if (cache != null) {
+        cache.logStatistics(getLog());
+      }
+      if (sharedCache != null) {
+        sharedCache.logStatistics(getLog());
+        sharedCache.evict(getLog());
+      }
     }
     if (violations) {
       if (this.haltOnFailure) {
@@ -189,12 +539,197 @@ public class ProjectCheckMojo extends AbstractMojo implements IViolationsOutput
     }
   }
 
+  private void checkDatasets(final File projectRoot) throws MojoExecutionException {
+    DatasetConfiguration.checkNames(datasets);
+    if (externalMerge) {
+      getLog().warn("externalMerge is not supported together with datasets and is ignored");
+    }
+    if (streamingAnalysis) {
+      getLog().warn("streamingAnalysis is not supported together with datasets and is ignored");
+    }
+    if (ratchet || updateBaseline) {
+      getLog().warn("ratchet is not supported together with datasets and is ignored");
+    }
+    final Map<ReportSupport, IReportGroupVisitor> groups =
+        new LinkedHashMap<ReportSupport, IReportGroupVisitor>();
+    final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
+    final Set<String> failed = new LinkedHashSet<String>();
+    try {
+      for (final DatasetConfiguration dataset : datasets) {
+        final String name = dataset.getName();
+        final ReportSupport support = new ReportSupport(getLog());
+        support.setMetrics(metrics);
+        support.setIssueReporter(issues, name);
+        if (cache != null) {
+          support.setAnalysisCache(cache);
+        }
+        if (sharedCache != null) {
+          support.setSharedCache(sharedCache);
+        }
+        if (memoryBudget >= 0) {
+          support.setMemoryBudget(new MemoryBudget(memoryBudget * 1024L * 1024L));
+        }
+        if (diff != null) {
+          support.enableDiff(diff);
+        }
+        if (packedExecutionData) {
+          support.enablePackedExecutionData();
+        }
+        loadExecutionData(
+            support, projectRoot, dataset.getDataFileIncludes(), dataset.getDataFileExcludes());
+
+        final List<RuleConfiguration> datasetRules =
+            dataset.getRules() == null || dataset.getRules().isEmpty()
+                ? projectRules
+                : dataset.getRules();
+        final List<Rule> rules = rules(datasetRules);
+        if (leanAnalysis && LeanCoverageBuilder.isSufficientFor(rules)) {
+          support.enableLeanAnalysis();
+        }
+        final IViolationsOutput output =
+            (node, rule, limit, message) -> {
+              issues.violation(name, node, limit, message);
+              failed.add(name);
+            };
+        support.addRulesChecker(rules, output);
+        if (isFailFast()) {
+          support.enableFailFast(rules, output, failFastViolations);
+        }
+        final IReportVisitor visitor = support.initRootVisitor();
+        visitors.add(visitor);
+        groups.put(support, visitor);
+      }
+
+      ReportSupport.processProjects(
+          groups, session.getAllProjects(), includes, excludes, excludeModules);
+      final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.REPORT).start();
+      try {
+        for (final IReportVisitor visitor : visitors) {
+          visitor.visitEnd();
+        }
+      } finally {
+        timer.stop();
+      }
+    } catch (final CoverageCheckHaltedException e) {
+      throw new MojoExecutionException(
+          String.format(
+              "Coverage checks have not been met for datasets %s. %s. See log for details.",
+              failed, e.getMessage()));
+    } catch (final IOException e) {
+      throw new MojoExecutionException("Error while checking code coverage: " + e.getMessage(), e);
+    } catch (final OutOfMemoryError e) {
+      throw new MojoExecutionException(MemoryBudget.describeOutOfMemory(metrics), e);
+    } finally {
+      for (final ReportSupport support : groups.keySet()) {
+        closeQuietly(support);
+      }
+      closeQuietly(issues);
+      metrics.report(getLog(), metricsDirectory, mojoExecution);
+      if (cache != null) {
+        cache.logStatistics(getLog());
+      }
+      if (sharedCache != null) {
+        sharedCache.logStatistics(getLog());
+        sharedCache.evict(getLog());
+      }
+    }
+
+    for (final DatasetConfiguration dataset : datasets) {
+      if (failed.contains(dataset.getName())) {
+        getLog()
+            .warn(
+                String.format(
+                    "Coverage checks of dataset '%s' have not been met.", dataset.getName()));
+      } else {
+        getLog()
+            .info(
+                String.format(
+                    "All coverage checks of dataset '%s' have been met.", dataset.getName()));
+      }
+    }
+    if (!failed.isEmpty()) {
+      final String message =
+          String.format(
+              "Coverage checks have not been met for datasets %s. See log for details.", failed);
+      if (this.haltOnFailure) {
+        throw new MojoExecutionException(message);
+      } else {
+        this.getLog().warn(message);
+      }
+    }
+  }
+
+  private void ratchet(final CoverageBaseline current) throws IOException {
+    if (updateBaseline || !baselineFile.isFile()) {
+      current.write(baselineFile);
+      getLog()
+          .info(
+              String.format(
+                  "Coverage baseline of %s classes written to %s", current.size(), baselineFile));
+      return;
+    }
+    final long start = System.nanoTime();
+    final CoverageBaseline baseline = CoverageBaseline.read(baselineFile);
+    getLog()
+        .info(
+            String.format(
+                "Coverage baseline of %s classes loaded in %s ms",
+                baseline.size(), (System.nanoTime() - start) / 1000000));
+    final int regressions = current.checkAgainst(baseline, this);
+    if (regressions > 0) {
+      getLog()
+          .warn(
+              String.format(
+                  "%s coverage regressions against %s, run with -Deasyjacoco.updateBaseline to accept them",
+                  regressions, baselineFile));
+    }
+  }
+
+  private DiffFilter diffFilter(final File projectRoot) throws MojoExecutionException {
+    try {
+      final Map<File, BitSet> changes = GitDiff.changedLines(projectRoot, diffBase);
+      int lines = 0;
+      for (final BitSet changed : changes.values()) {
+        lines += changed.cardinality();
+      }
+      getLog()
+          .info(
+              String.format(
+                  "%s lines changed in %s files since %s", lines, changes.size(), diffBase));
+      return new DiffFilter(changes, session.getAllProjects());
+    } catch (final IOException e) {
+      throw new MojoExecutionException(
+          "Unable to read changes since " + diffBase + ": " + e.getMessage(), e);
+    }
+  }
+
+  private boolean isFailFast() {
+    return failFast && haltOnFailure;
+  }
+
+  private static List<Rule> rules(final List<RuleConfiguration> configurations) {
+    final List<Rule> rules = new ArrayList<Rule>();
+    for (final RuleConfiguration r : configurations) {
+      rules.add(r.rule);
+    }
+    return rules;
+  }
+
   void loadExecutionData(final ReportSupport support, File projectRoot) throws IOException {
-    if (dataFileIncludes == null) {
-      dataFileIncludes = List.of("**/target/*.exec");
+    loadExecutionData(support, projectRoot, dataFileIncludes, dataFileExcludes);
+  }
+
+  private void loadExecutionData(
+      final ReportSupport support,
+      final File projectRoot,
+      List<String> fileIncludes,
+      final List<String> fileExcludes)
+      throws IOException {
+    if (fileIncludes == null) {
+      fileIncludes = List.of("**/target/*.exec", "**/target/jacoco-sessions/*.exec");
     }
 
-    final FileFilter filter = new FileFilter(dataFileIncludes, dataFileExcludes);
+    final FileFilter filter = new FileFilter(fileIncludes, fileExcludes).withMetrics(metrics);
     List<File> files = filter.getFiles(projectRoot);
 
     if (files.isEmpty()) {
@@ -202,7 +737,7 @@ public class ProjectCheckMojo extends AbstractMojo implements IViolationsOutput
           .error(
               String.format(
                   "No execution data found at: %s includes: %s excludes: %s",
-                  projectRoot, dataFileIncludes, dataFileExcludes));
+                  projectRoot, fileIncludes, fileExcludes));
     }
 
     for (final File execFile : files) {
@@ -210,9 +745,25 @@ public class ProjectCheckMojo extends AbstractMojo implements IViolationsOutput
     }
   }
 
+  private void closeQuietly(final ReportSupport support) {
+    try {
+      support.close();
+    } catch (final IOException e) {
+      getLog().debug("Unable to delete temporary files: " + e.getMessage(), e);
+    }
+  }
+
+  private void closeQuietly(final IssueReporter issues) {
+    try {
+      issues.close();
+    } catch (final IOException e) {
+      getLog().warn("Unable to write issues file: " + e.getMessage(), e);
+    }
+  }
+
   @Override
   public void onViolation(ICoverageNode node, Rule rule, Limit limit, String message) {
-    this.getLog().warn(message);
+    issues.violation(null, node, limit, message);
     violations = true;
   }
 }
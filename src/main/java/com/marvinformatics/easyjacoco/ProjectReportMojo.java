@@ -15,15 +15,29 @@
  */
 package com.marvinformatics.easyjacoco;
 
+import com.marvinformatics.easyjacoco.jacoco.AnalysisCache;
 import com.marvinformatics.easyjacoco.jacoco.FileFilter;
+import com.marvinformatics.easyjacoco.jacoco.IssueReporter;
+import com.marvinformatics.easyjacoco.jacoco.MemoryBudget;
+import com.marvinformatics.easyjacoco.jacoco.PhaseMetrics;
 import com.marvinformatics.easyjacoco.jacoco.ReportFormat;
 import com.marvinformatics.easyjacoco.jacoco.ReportSupport;
+import com.marvinformatics.easyjacoco.jacoco.ReportTier;
+import com.marvinformatics.easyjacoco.jacoco.SharedAnalysisCache;
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
 import org.apache.maven.execution.MavenSession;
 import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecution;
 import org.apache.maven.plugin.MojoExecutionException;
 import org.apache.maven.plugins.annotations.LifecyclePhase;
 import org.apache.maven.plugins.annotations.Mojo;
@@ -89,6 +103,28 @@ public class ProjectReportMojo extends AbstractMojo {
    */
   @Parameter String footer;
 
+  /**
+   * Only rewrite HTML pages whose content changed since the previous report, and delete the pages
+   * of classes, packages and modules that disappeared. Unchanged pages are recognized by a hash
+   * kept in a manifest in the output directory, so they are neither written nor read again. Speeds
+   * up repeated reports on network backed workspaces.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.incrementalReport", defaultValue = "false")
+  private boolean incrementalReport;
+
+  /**
+   * Level of detail of the report: SUMMARY for the totals of each module, PACKAGE for the counters
+   * of each package, CLASS for classes and methods without source pages, or FULL. Cheaper tiers cut
+   * the coverage tree while analyzing, skip looking up sources and render fewer pages, e.g. for
+   * quick feedback on pull requests.
+   *
+   * <p>Default: FULL.
+   */
+  @Parameter(property = "easyjacoco.reportTier", defaultValue = "FULL")
+  private ReportTier reportTier;
+
   /** Encoding of the source files. */
   @Parameter(property = "project.build.sourceEncoding", defaultValue = "UTF-8")
   private String sourceEncoding;
@@ -124,6 +160,147 @@ public class ProjectReportMojo extends AbstractMojo {
    */
   @Parameter private List<String> excludeModules;
 
+  /**
+   * Merge execution data out of core. Execution data is partitioned by class id into spill files
+   * and classes are analyzed one partition group at a time, so the heap used for execution data is
+   * bound by {@link #externalMergeBudget} instead of the size of the exec files. Useful when the
+   * project collects several GB of execution data.
+   */
+  @Parameter(property = "easyjacoco.externalMerge", defaultValue = "false")
+  private boolean externalMerge;
+
+  /**
+   * Heap budget, in megabytes, for the merged execution data of one external merge pass. Every pass
+   * scans the class files of all modules again, so a smaller budget trades heap for reading class
+   * files once per pass.
+   */
+  @Parameter(property = "easyjacoco.externalMergeBudget", defaultValue = "256")
+  private int externalMergeBudget;
+
+  /** Directory for the temporary spill files of the external merge. */
+  @Parameter(defaultValue = "${project.build.directory}/easy-jacoco-spill")
+  private File spillDirectory;
+
+  /**
+   * Keep execution data in a packed store: class ids in a primitive hash table, probes as bitsets
+   * in a direct buffer. Cuts the heap needed for execution data of projects with many classes. Exec
+   * files are memory-mapped and decoded in place. In exchange each lookup decodes the class from
+   * the buffer: about 256 ns against 84 ns for JaCoCo's store with 500,000 classes in the
+   * ExecutionDataStoreBenchmark, small next to analyzing the class. Ignored when {@link
+   * #externalMerge} is enabled.
+   */
+  @Parameter(property = "easyjacoco.packedExecutionData", defaultValue = "false")
+  private boolean packedExecutionData;
+
+  /**
+   * Named datasets to report in a single pass, e.g. unit tests, integration tests and both merged.
+   * Each dataset selects its own execution data files and gets its report in a sub directory of
+   * {@link #outputDirectory} named after the dataset. Class files are read and parsed once for all
+   * datasets. When not specified a single report is created from {@link #dataFileIncludes}.
+   *
+   * <pre>{@code
+   * <datasets>
+   *   <dataset>
+   *     <name>unit</name>
+   *     <dataFileIncludes>**&#47;target/jacoco.exec</dataFileIncludes>
+   *   </dataset>
+   *   <dataset>
+   *     <name>it</name>
+   *     <dataFileIncludes>**&#47;target/jacoco-it.exec</dataFileIncludes>
+   *   </dataset>
+   *   <dataset>
+   *     <name>all</name>
+   *   </dataset>
+   * </datasets>
+   * }</pre>
+   */
+  @Parameter private List<DatasetConfiguration> datasets;
+
+  /**
+   * File every class with mismatching execution data is written to, in the background while
+   * analyzing. Written as JSON lines, or as CSV when the file name ends with <code>.csv</code>.
+   *
+   * <p>Default: None, mismatches are only logged.
+   */
+  @Parameter(property = "easyjacoco.issuesFile")
+  private File issuesFile;
+
+  /**
+   * Number of mismatching classes logged to the console. Further mismatches are only counted and
+   * summed up at the end, and still written to {@link #issuesFile}.
+   *
+   * <p>Default: 100.
+   */
+  @Parameter(property = "easyjacoco.maxLoggedIssues", defaultValue = "100")
+  private int maxLoggedIssues;
+
+  private IssueReporter issues;
+
+  /**
+   * Size, in megabytes, of the cache of parsed exec files and analyzed classes kept in memory
+   * between builds of a Maven daemon like mvnd. Exec files and classes that didn't change since an
+   * earlier build are reused instead of read and analyzed again. Set to -1 to disable, or to a size
+   * to use the cache outside of mvnd as well.
+   *
+   * <p>Default: 0, 256 MB in mvnd and disabled otherwise.
+   */
+  @Parameter(property = "easyjacoco.analysisCacheSize", defaultValue = "0")
+  private int analysisCacheSize;
+
+  /**
+   * Directory of a cache of analyzed classes shared by builds, e.g. on a network file system
+   * mounted by all CI agents. Each class is stored by its class id and a hash of its execution
+   * data, so a class that didn't change is analyzed once for all builds seeing the same coverage of
+   * it. Entries are written atomically, and the least recently used are deleted once the directory
+   * outgrows {@link #sharedCacheSize}. Not used with external merge.
+   *
+   * <p>Default: None, no shared cache.
+   */
+  @Parameter(property = "easyjacoco.sharedCacheDirectory")
+  private File sharedCacheDirectory;
+
+  /**
+   * Size, in megabytes, of {@link #sharedCacheDirectory}.
+   *
+   * <p>Default: 1024.
+   */
+  @Parameter(property = "easyjacoco.sharedCacheSize", defaultValue = "1024")
+  private int sharedCacheSize;
+
+  /**
+   * Heap budget, in megabytes, of the analysis, or 0 for three quarters of the maximum heap. Before
+   * each module is analyzed the heap retained after the last full garbage collection is compared
+   * with the budget, requesting one when the heap in use is above it. Once it's exceeded the report
+   * leaves out the source pages of the remaining modules, instead of running out of memory, and the
+   * goal ends with a warning listing them. As the switch depends on the heap, so does the report.
+   * Peak heap per phase and module is logged and written to {@link #metricsDirectory} either way.
+   *
+   * <p>Default: -1, no budget.
+   */
+  @Parameter(property = "easyjacoco.memoryBudget", defaultValue = "-1")
+  private int memoryBudget;
+
+  /**
+   * Directory the phase metrics of this goal are written to as JSON, one file per goal execution
+   * with wall time, files, classes and bytes of each phase.
+   *
+   * <p>Default: target/easy-jacoco-metrics.
+   */
+  @Parameter(
+      property = "easyjacoco.metricsDirectory",
+      defaultValue = "${project.build.directory}/easy-jacoco-metrics")
+  private File metricsDirectory;
+
+  /** Execution of this goal, names the metrics file. */
+  @Parameter(defaultValue = "${mojoExecution}", readonly = true)
+  private MojoExecution mojoExecution;
+
+  private final PhaseMetrics metrics = new PhaseMetrics();
+
+  private AnalysisCache cache;
+
+  private SharedAnalysisCache sharedCache;
+
   @Override
   public void execute() throws MojoExecutionException {
     if (skip) {
@@ -137,50 +314,240 @@ public class ProjectReportMojo extends AbstractMojo {
     var projectRoot = session.getTopLevelProject().getBasedir();
 
     try {
-      final ReportSupport support = new ReportSupport(getLog());
+      issues = new IssueReporter(getLog(), issuesFile, maxLoggedIssues);
+    } catch (final IOException e) {
+      throw new MojoExecutionException(
+          "Unable to create issues file " + issuesFile + ": " + e.getMessage(), e);
+    }
+    cache = AnalysisCache.configured(analysisCacheSize);
+    sharedCache =
+        sharedCacheDirectory == null
+            ? null
+            : new SharedAnalysisCache(sharedCacheDirectory, sharedCacheSize * 1024L * 1024L);
+
+    if (datasets != null && !datasets.isEmpty()) {
+      createDatasetReports(projectRoot);
+      return;
+    }
+
+    final ReportSupport support = new ReportSupport(getLog());
+    support.setMetrics(metrics);
+    support.setIssueReporter(issues, null);
+    if (cache != null) {
+      support.setAnalysisCache(cache);
+    }
+    if (sharedCache != null) {
+      support.setSharedCache(sharedCache);
+    }
+    if (memoryBudget >= 0) {
+      support.setMemoryBudget(new MemoryBudget(memoryBudget * 1024L * 1024L));
+    }
+    if (reportTier != ReportTier.FULL) {
+      support.setReportTier(reportTier);
+    }
+    try {
+      if (externalMerge) {
+        support.enableExternalMerge(spillDirectory, externalMergeBudget * 1024L * 1024L);
+        if (formats.contains(ReportFormat.HTML)) {
+          getLog().info("The HTML sessions page lists no executed classes with external merge");
+        }
+      } else if (packedExecutionData) {
+        support.enablePackedExecutionData();
+      }
       loadExecutionData(support, projectRoot);
       outputDirectory.mkdirs();
 
       for (final ReportFormat f : formats) {
         support.addVisitor(
-            f.createVisitor(outputDirectory, outputEncoding, Locale.getDefault(), footer));
+            f.createVisitor(
+                outputDirectory,
+                outputEncoding,
+                Locale.getDefault(),
+                footer,
+                incrementalReport,
+                metrics));
       }
 
       final IReportVisitor visitor = support.initRootVisitor();
       createReport(visitor, support);
-      visitor.visitEnd();
+      final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.REPORT).start();
+      try {
+        visitor.visitEnd();
+      } finally {
+        timer.stop();
+      }
 
       getLog().info(String.format("Project report available at: %s", outputDirectory));
     } catch (final IOException e) {
       throw new MojoExecutionException("Error while creating report: " + e.getMessage(), e);
+    } catch (final OutOfMemoryError e) {
+      throw new MojoExecutionException(MemoryBudget.describeOutOfMemory(metrics), e);
+    } finally {
+      closeQuietly(support);
+      closeQuietly(issues);
+      metrics.report(getLog(), metricsDirectory, mojoExecution);
+      if (cache != null) {
+        cache.logStatistics(getLog());
+      }
+      if (sharedCache != null) {
+        sharedCache.logStatistics(getLog());
+        sharedCache.evict(getLog());
+      }
+      warnModulesWithoutSources(Collections.singletonList(support));
+    }
+  }
+
+  private void createDatasetReports(final File projectRoot) throws MojoExecutionException {
+    DatasetConfiguration.checkNames(datasets);
+    if (externalMerge) {
+      getLog().warn("externalMerge is not supported together with datasets and is ignored");
+    }
+    final Map<ReportSupport, IReportGroupVisitor> groups =
+        new LinkedHashMap<ReportSupport, IReportGroupVisitor>();
+    final List<IReportVisitor> visitors = new ArrayList<IReportVisitor>();
+    try {
+      for (final DatasetConfiguration dataset : datasets) {
+        final ReportSupport support = new ReportSupport(getLog());
+        support.setMetrics(metrics);
+        support.setIssueReporter(issues, dataset.getName());
+        if (cache != null) {
+          support.setAnalysisCache(cache);
+        }
+        if (sharedCache != null) {
+          support.setSharedCache(sharedCache);
+        }
+        if (memoryBudget >= 0) {
+          support.setMemoryBudget(new MemoryBudget(memoryBudget * 1024L * 1024L));
+        }
+        if (reportTier != ReportTier.FULL) {
+          support.setReportTier(reportTier);
+        }
+        if (packedExecutionData) {
+          support.enablePackedExecutionData();
+        }
+        loadExecutionData(
+            support, projectRoot, dataset.getDataFileIncludes(), dataset.getDataFileExcludes());
+
+        final File datasetDirectory = new File(outputDirectory, dataset.getName());
+        datasetDirectory.mkdirs();
+        for (final ReportFormat f : formats) {
+          support.addVisitor(
+              f.createVisitor(
+                  datasetDirectory,
+                  outputEncoding,
+                  Locale.getDefault(),
+                  footer,
+                  incrementalReport,
+                  metrics));
+        }
+        final IReportVisitor visitor = support.initRootVisitor();
+        visitors.add(visitor);
+        groups.put(support, visitor.visitGroup(title + " (" + dataset.getName() + ")"));
+      }
+
+      ReportSupport.processEachProject(
+          groups, reportedProjects(), includes, excludes, sourceEncoding, excludeModules);
+      final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.REPORT).start();
+      try {
+        for (final IReportVisitor visitor : visitors) {
+          visitor.visitEnd();
+        }
+      } finally {
+        timer.stop();
+      }
+
+      for (final DatasetConfiguration dataset : datasets) {
+        getLog()
+            .info(
+                String.format(
+                    "Project report for dataset '%s' available at: %s",
+                    dataset.getName(), new File(outputDirectory, dataset.getName())));
+      }
+    } catch (final IOException e) {
+      throw new MojoExecutionException("Error while creating report: " + e.getMessage(), e);
+    } catch (final OutOfMemoryError e) {
+      throw new MojoExecutionException(MemoryBudget.describeOutOfMemory(metrics), e);
+    } finally {
+      for (final ReportSupport support : groups.keySet()) {
+        closeQuietly(support);
+      }
+      closeQuietly(issues);
+      metrics.report(getLog(), metricsDirectory, mojoExecution);
+      if (cache != null) {
+        cache.logStatistics(getLog());
+      }
+      if (sharedCache != null) {
+        sharedCache.logStatistics(getLog());
+        sharedCache.evict(getLog());
+      }
+      warnModulesWithoutSources(groups.keySet());
+    }
+  }
+
+  /** Warns about the modules whose source pages were left out to stay within the memory budget. */
+  private void warnModulesWithoutSources(final Collection<ReportSupport> supports) {
+    final Set<String> modules = new LinkedHashSet<String>();
+    for (final ReportSupport support : supports) {
+      modules.addAll(support.getModulesWithoutSources());
+    }
+    if (!modules.isEmpty()) {
+      getLog()
+          .warn(
+              String.format(
+                  "Memory budget exceeded, the report has no source pages for %s modules: %s",
+                  Integer.valueOf(modules.size()), String.join(", ", modules)));
     }
   }
 
   void createReport(final IReportGroupVisitor visitor, final ReportSupport support)
       throws IOException {
     final IReportGroupVisitor group = visitor.visitGroup(title);
+    support.processEachProject(
+        group, reportedProjects(), includes, excludes, sourceEncoding, excludeModules);
+  }
 
+  private List<MavenProject> reportedProjects() {
+    final List<MavenProject> projects = new ArrayList<>();
     for (MavenProject project : session.getAllProjects()) {
       if (project.getPackaging().equals("pom")) {
         continue;
       }
-      support.processProject(
-          group,
-          project.getArtifactId(),
-          project,
-          includes,
-          excludes,
-          sourceEncoding,
-          excludeModules);
+      projects.add(project);
+    }
+    return projects;
+  }
+
+  private void closeQuietly(final ReportSupport support) {
+    try {
+      support.close();
+    } catch (final IOException e) {
+      getLog().debug("Unable to delete temporary files: " + e.getMessage(), e);
+    }
+  }
+
+  private void closeQuietly(final IssueReporter issues) {
+    try {
+      issues.close();
+    } catch (final IOException e) {
+      getLog().warn("Unable to write issues file: " + e.getMessage(), e);
     }
   }
 
   void loadExecutionData(final ReportSupport support, File projectRoot) throws IOException {
-    if (dataFileIncludes == null) {
-      dataFileIncludes = List.of("**/target/*.exec");
+    loadExecutionData(support, projectRoot, dataFileIncludes, dataFileExcludes);
+  }
+
+  private void loadExecutionData(
+      final ReportSupport support,
+      final File projectRoot,
+      List<String> fileIncludes,
+      final List<String> fileExcludes)
+      throws IOException {
+    if (fileIncludes == null) {
+      fileIncludes = List.of("**/target/*.exec", "**/target/jacoco-sessions/*.exec");
     }
 
-    final FileFilter filter = new FileFilter(dataFileIncludes, dataFileExcludes);
+    final FileFilter filter = new FileFilter(fileIncludes, fileExcludes).withMetrics(metrics);
     for (final File execFile : filter.getFiles(projectRoot)) {
       support.loadExecutionData(execFile);
     }
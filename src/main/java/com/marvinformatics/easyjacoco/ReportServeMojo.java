@@ -0,0 +1,186 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import com.marvinformatics.easyjacoco.jacoco.FileFilter;
+import com.marvinformatics.easyjacoco.jacoco.ReportServer;
+import com.marvinformatics.easyjacoco.jacoco.ReportSupport;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+import org.jacoco.report.IReportVisitor;
+
+/**
+ * Serves the aggregated coverage report of the project over a local HTTP port until the build is
+ * interrupted. Coverage is analyzed like {@link ProjectReportMojo} does and kept in memory, HTML
+ * pages are only rendered when they are viewed instead of writing the whole report to disk.
+ */
+@Mojo(name = "report-serve", aggregator = true)
+public class ReportServeMojo extends AbstractMojo {
+
+  /** Skip execution of the mojo. Can be set via -Deasyjacoco.skip=true */
+  @Parameter(property = "easyjacoco.skip", defaultValue = "false")
+  private boolean skip;
+
+  /** Maven session object provided by the Maven runtime. */
+  @Parameter(defaultValue = "${session}", readonly = true)
+  private MavenSession session;
+
+  /**
+   * Port the report is served on, bound to the loopback interface only. Set to 0 for any free port.
+   *
+   * <p>Default: 8787.
+   */
+  @Parameter(property = "easyjacoco.servePort", defaultValue = "8787")
+  private int port;
+
+  /**
+   * Size, in megabytes, of the rendered pages kept in memory. The pages viewed least recently are
+   * rendered again when they are viewed after being evicted.
+   *
+   * <p>Default: 32.
+   */
+  @Parameter(property = "easyjacoco.pageCacheSize", defaultValue = "32")
+  private int pageCacheSize;
+
+  /** Encoding of the served pages. */
+  @Parameter(property = "project.reporting.outputEncoding", defaultValue = "UTF-8")
+  private String outputEncoding;
+
+  /** Name of the root node of the report. */
+  @Parameter(defaultValue = "${project.name}")
+  private String title;
+
+  /** Footer text of the report pages. */
+  @Parameter private String footer;
+
+  /** Encoding of the source files. */
+  @Parameter(property = "project.build.sourceEncoding", defaultValue = "UTF-8")
+  private String sourceEncoding;
+
+  /**
+   * A list of class files to include in the report. May use wildcard characters (* and ?). When not
+   * specified everything will be included.
+   */
+  @Parameter private List<String> includes;
+
+  /**
+   * A list of class files to exclude from the report. May use wildcard characters (* and ?). When
+   * not specified nothing will be excluded.
+   */
+  @Parameter private List<String> excludes;
+
+  /**
+   * A list of execution data files to include in the report from each project. May use wildcard
+   * characters (* and ?). When not specified all *.exec files from the target folder will be
+   * included.
+   */
+  @Parameter private List<String> dataFileIncludes;
+
+  /**
+   * A list of execution data files to exclude from the report. May use wildcard characters (* and
+   * ?). When not specified nothing will be excluded.
+   */
+  @Parameter private List<String> dataFileExcludes;
+
+  /**
+   * A list of modules/projects to exclude from the report. Must match the module artifactId. When
+   * not specified nothing will be excluded.
+   */
+  @Parameter private List<String> excludeModules;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (skip) {
+      getLog().info("Report server skipped via skip configuration");
+      return;
+    }
+
+    final ReportSupport support = new ReportSupport(getLog());
+    final ReportServer server =
+        new ReportServer(
+            getLog(), outputEncoding, Locale.getDefault(), footer, pageCacheSize * 1024L * 1024L);
+    try {
+      loadExecutionData(support, session.getTopLevelProject().getBasedir());
+      support.addVisitor(server.recorder());
+      final IReportVisitor visitor = support.initRootVisitor();
+      support.processEachProject(
+          visitor.visitGroup(title),
+          reportedProjects(),
+          includes,
+          excludes,
+          sourceEncoding,
+          excludeModules);
+      visitor.visitEnd();
+
+      final URI address = server.start(port);
+      getLog()
+          .info(String.format("Serving the coverage report at %s, press Ctrl+C to stop", address));
+      awaitInterrupt();
+    } catch (final IOException e) {
+      throw new MojoExecutionException("Error while serving report: " + e.getMessage(), e);
+    } finally {
+      server.close();
+      try {
+        support.close();
+      } catch (final IOException e) {
+        getLog().debug("Unable to delete temporary files: " + e.getMessage(), e);
+      }
+    }
+  }
+
+  private static void awaitInterrupt() {
+    try {
+      while (true) {
+        Thread.sleep(Long.MAX_VALUE);
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private List<MavenProject> reportedProjects() {
+    final List<MavenProject> projects = new ArrayList<>();
+    for (MavenProject project : session.getAllProjects()) {
+      if (project.getPackaging().equals("pom")) {
+        continue;
+      }
+      projects.add(project);
+    }
+    return projects;
+  }
+
+  private void loadExecutionData(final ReportSupport support, final File projectRoot)
+      throws IOException {
+    final List<String> fileIncludes =
+        dataFileIncludes == null
+            ? List.of("**/target/*.exec", "**/target/jacoco-sessions/*.exec")
+            : dataFileIncludes;
+    for (final File execFile :
+        new FileFilter(fileIncludes, dataFileExcludes).getFiles(projectRoot)) {
+      support.loadExecutionData(execFile);
+    }
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import com.marvinformatics.easyjacoco.jacoco.DiffFilter;
+import com.marvinformatics.easyjacoco.jacoco.GitDiff;
+import com.marvinformatics.easyjacoco.jacoco.TestImpactIndex;
+import com.marvinformatics.easyjacoco.jacoco.TestSources;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.maven.execution.MavenSession;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+/**
+ * Lists the tests affected by a set of changed classes, looked up in the index written by {@link
+ * IndexTestsMojo}. Changed tests are selected themselves, whether they are part of the index or
+ * not, so new tests are run as well. The result is a comma separated list of test names, ready to
+ * be passed to surefire as <code>-Dtest</code>.
+ */
+@Mojo(name = "select-tests", aggregator = true)
+public class SelectTestsMojo extends AbstractMojo {
+
+  /**
+   * Skip the execution of the select-tests goal.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.skip", defaultValue = "false")
+  private boolean skip;
+
+  /** Maven session object provided by the Maven runtime. */
+  @Parameter(defaultValue = "${session}", readonly = true)
+  private MavenSession session;
+
+  /**
+   * Index written by the index-tests goal.
+   *
+   * <p>Default: target/test-impact.idx of the top level project.
+   */
+  @Parameter(
+      property = "easyjacoco.testIndex",
+      defaultValue = "${project.build.directory}/test-impact.idx")
+  private File indexFile;
+
+  /**
+   * Fully qualified names of the changed classes, e.g. <code>com.example.Foo</code>. Nested classes
+   * of a changed class are changed as well.
+   *
+   * <p>Default: None.
+   */
+  @Parameter(property = "easyjacoco.changedClasses")
+  private List<String> changedClasses;
+
+  /**
+   * Git revision to read changed classes from, e.g. <code>origin/main</code>. Classes are named
+   * after the source files changed since this revision in the compile source roots of the reactor,
+   * tests after the ones changed in the test compile source roots. Used in addition to {@link
+   * #changedClasses}.
+   *
+   * <p>Default: None.
+   */
+  @Parameter(property = "easyjacoco.diffBase")
+  private String diffBase;
+
+  /**
+   * File the selected tests are written to, as a single comma separated line.
+   *
+   * <p>Default: target/selected-tests.txt of the top level project.
+   */
+  @Parameter(
+      property = "easyjacoco.selectedTests",
+      defaultValue = "${project.build.directory}/selected-tests.txt")
+  private File outputFile;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (skip) {
+      getLog().info("Test selection skipped via skip configuration");
+      return;
+    }
+
+    final TestSources testSources = new TestSources(session.getAllProjects());
+    final Set<String> changed = new LinkedHashSet<String>();
+    final Set<String> tests = new TreeSet<String>();
+    if (changedClasses != null) {
+      for (final String className : changedClasses) {
+        if (!className.trim().isEmpty()) {
+          changed.add(className.trim().replace('.', '/'));
+        }
+      }
+    }
+    try {
+      if (diffBase != null && !diffBase.isEmpty()) {
+        final Map<File, BitSet> changes =
+            GitDiff.changedLines(session.getTopLevelProject().getBasedir(), diffBase);
+        final DiffFilter diff = new DiffFilter(changes, session.getAllProjects());
+        for (final String source : diff.getSourceFiles()) {
+          final int extension = source.lastIndexOf('.');
+          changed.add(extension < 0 ? source : source.substring(0, extension));
+        }
+        // changed tests may share helpers with other tests, they are looked up as classes as well
+        for (final String test : testSources.changedTests(changes)) {
+          tests.add(test);
+          changed.add(test.replace('.', '/'));
+        }
+      }
+      if (!indexFile.isFile()) {
+        throw new MojoExecutionException(
+            "No test index found at " + indexFile + ", run the index-tests goal first");
+      }
+      final TestImpactIndex index = TestImpactIndex.open(indexFile);
+      final List<String> unknown = new ArrayList<String>();
+      tests.addAll(index.affectedTests(changed, unknown));
+      for (final String className : unknown) {
+        // changed tests are selected themselves
+        final String test = className.replace('/', '.');
+        if (tests.contains(test)) {
+          continue;
+        }
+        if (index.isTest(test) || testSources.isTest(test)) {
+          tests.add(test);
+        } else {
+          getLog().debug("No test executed changed class " + test);
+        }
+      }
+
+      final String selection = String.join(",", tests);
+      Files.createDirectories(outputFile.getAbsoluteFile().getParentFile().toPath());
+      Files.write(outputFile.toPath(), List.of(selection), StandardCharsets.UTF_8);
+      getLog()
+          .info(
+              String.format(
+                  "%s of %s tests affected by %s changed classes, written to %s",
+                  tests.size(), index.getTestCount(), changed.size(), outputFile));
+      if (!tests.isEmpty()) {
+        getLog().info("-Dtest=" + selection);
+      }
+    } catch (final IOException e) {
+      throw new MojoExecutionException("Error while selecting tests: " + e.getMessage(), e);
+    }
+  }
+}
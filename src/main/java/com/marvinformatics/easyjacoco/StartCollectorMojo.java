@@ -0,0 +1,82 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import com.marvinformatics.easyjacoco.jacoco.CoverageCollector;
+import java.io.IOException;
+import java.net.InetAddress;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Starts a {@link CoverageCollector} for the module in the background, on a free port of the
+ * loopback interface. Address and port are published as the <code>easyjacoco.collector.address
+ * </code> and <code>easyjacoco.collector.port</code> project properties, for agents running with
+ * <code>output=tcpclient</code>. Stopped by {@link StopCollectorMojo}.
+ */
+@Mojo(name = "start-collector", defaultPhase = LifecyclePhase.INITIALIZE)
+public class StartCollectorMojo extends AbstractMojo {
+
+  /** Project property holding the address of the running collector. */
+  static final String ADDRESS_PROPERTY = "easyjacoco.collector.address";
+
+  /** Project property holding the port of the running collector. */
+  static final String PORT_PROPERTY = "easyjacoco.collector.port";
+
+  /** Project context key of the running collector. */
+  static final String COLLECTOR_KEY = CoverageCollector.class.getName();
+
+  /**
+   * Skip the execution of the start-collector goal.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.skip", defaultValue = "false")
+  private boolean skip;
+
+  /** Maven project object provided by the Maven runtime. */
+  @Parameter(defaultValue = "${project}", readonly = true)
+  private MavenProject project;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (skip) {
+      getLog().info("Coverage collector skipped via skip configuration");
+      return;
+    }
+    if (project.getContextValue(COLLECTOR_KEY) != null) {
+      getLog().debug("Coverage collector already running");
+      return;
+    }
+
+    final InetAddress address = InetAddress.getLoopbackAddress();
+    final CoverageCollector collector;
+    try {
+      collector = CoverageCollector.start(address, 0);
+    } catch (final IOException e) {
+      throw new MojoExecutionException(
+          "Error while starting coverage collector: " + e.getMessage(), e);
+    }
+    project.setContextValue(COLLECTOR_KEY, collector);
+    project.getProperties().setProperty(ADDRESS_PROPERTY, address.getHostAddress());
+    project.getProperties().setProperty(PORT_PROPERTY, String.valueOf(collector.getPort()));
+    getLog().info("Coverage collector listening on port " + collector.getPort());
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import com.marvinformatics.easyjacoco.jacoco.CoverageCollector;
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Stops the collector started by {@link StartCollectorMojo} once the tests of the module ran, and
+ * writes the execution data it merged to a single exec file.
+ */
+@Mojo(name = "stop-collector", defaultPhase = LifecyclePhase.VERIFY)
+public class StopCollectorMojo extends AbstractMojo {
+
+  /**
+   * Skip the execution of the stop-collector goal.
+   *
+   * <p>Default: false.
+   */
+  @Parameter(property = "easyjacoco.skip", defaultValue = "false")
+  private boolean skip;
+
+  /** Maven project object provided by the Maven runtime. */
+  @Parameter(defaultValue = "${project}", readonly = true)
+  private MavenProject project;
+
+  /**
+   * Exec file the collected execution data is written to, replacing data of previous builds.
+   *
+   * <p>Default: target/jacoco.exec.
+   */
+  @Parameter(
+      property = "easyjacoco.collectorFile",
+      defaultValue = "${project.build.directory}/jacoco.exec")
+  private File collectorFile;
+
+  /**
+   * Seconds to wait for agents still sending data, e.g. of test JVMs that are shutting down.
+   *
+   * <p>Default: 60.
+   */
+  @Parameter(property = "easyjacoco.collectorTimeout", defaultValue = "60")
+  private int collectorTimeout;
+
+  @Override
+  public void execute() throws MojoExecutionException {
+    if (skip) {
+      getLog().info("Coverage collector skipped via skip configuration");
+      return;
+    }
+    final CoverageCollector collector =
+        (CoverageCollector) project.getContextValue(StartCollectorMojo.COLLECTOR_KEY);
+    if (collector == null) {
+      getLog().debug("No coverage collector running");
+      return;
+    }
+    project.setContextValue(StartCollectorMojo.COLLECTOR_KEY, null);
+
+    try {
+      final int dropped = collector.stop(TimeUnit.SECONDS.toMillis(collectorTimeout));
+      if (dropped > 0) {
+        getLog()
+            .warn(
+                String.format(
+                    "%s agents still connected after %s seconds, their data is lost",
+                    dropped, collectorTimeout));
+      }
+      if (collector.getFailedCount() > 0) {
+        getLog()
+            .warn(
+                String.format(
+                    "Lost connection to %s agents, their coverage may be incomplete",
+                    collector.getFailedCount()));
+      }
+      if (!collector.write(collectorFile)) {
+        getLog().info("No execution data received by coverage collector");
+        return;
+      }
+    } catch (final IOException e) {
+      throw new MojoExecutionException(
+          "Error while stopping coverage collector: " + e.getMessage(), e);
+    }
+    getLog()
+        .info(
+            String.format(
+                "Collected %s sessions with %s classes from %s agents to %s",
+                collector.getSessionCount(),
+                collector.getClassCount(),
+                collector.getConnectionCount(),
+                collectorFile));
+  }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.CRC32C;
+import org.apache.maven.plugin.logging.Log;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+
+/**
+ * JVM wide cache of parsed exec files and analyzed classes, for Maven daemons like mvnd that keep
+ * the plugin loaded between builds. Repeated builds then only parse exec files and analyze classes
+ * that changed since a previous build.
+ *
+ * <p>Exec files are keyed by path. A cached file is only used while its size, modification time and
+ * CRC32C match, so a file rewritten within the same millisecond isn't mistaken for the cached one,
+ * otherwise it's read again and replaces the cached one. Classes are keyed by class id, a CRC64 of
+ * the class file, together with their probes, so a hit is exactly what the analyzer would produce.
+ * Entries are evicted least recently used first once their weight, an estimate of their heap size,
+ * exceeds the limit.
+ *
+ * <p>Cached class coverage is shared by all builds and must not be modified.
+ */
+public final class AnalysisCache {
+
+  /** System property set in mvnd daemons, see {@link #isDaemon()}. */
+  static final String MVND_HOME = "mvnd.home";
+
+  /** Size of the cache in a daemon when none is configured. */
+  public static final long DEFAULT_DAEMON_SIZE = 256L * 1024 * 1024;
+
+  private static AnalysisCache shared;
+
+  private final Map<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+  private long maxWeight;
+  private long weight;
+  private final LongAdder classHits = new LongAdder();
+  private final LongAdder classMisses = new LongAdder();
+  private final LongAdder execHits = new LongAdder();
+  private final LongAdder execMisses = new LongAdder();
+
+  AnalysisCache(final long maxWeight) {
+    this.maxWeight = maxWeight;
+  }
+
+  /**
+   * Returns the cache shared by all goals of this JVM, created on first use. A different size
+   * resizes it, evicting entries if needed.
+   *
+   * @param maxWeight limit of the weight of all entries, in bytes
+   * @return shared cache
+   */
+  public static synchronized AnalysisCache shared(final long maxWeight) {
+    if (shared == null) {
+      shared = new AnalysisCache(maxWeight);
+    } else {
+      shared.resize(maxWeight);
+    }
+    return shared;
+  }
+
+  /**
+   * Returns the shared cache as configured for a goal.
+   *
+   * @param megabytes size of the cache, <code>0</code> for {@link #DEFAULT_DAEMON_SIZE} in a daemon
+   *     and no cache otherwise, or a negative size for no cache
+   * @return shared cache, or <code>null</code> if disabled
+   */
+  public static AnalysisCache configured(final int megabytes) {
+    if (megabytes < 0 || megabytes == 0 && !isDaemon()) {
+      return null;
+    }
+    return shared(megabytes == 0 ? DEFAULT_DAEMON_SIZE : megabytes * 1024L * 1024L);
+  }
+
+  /**
+   * @return whether Maven runs in a mvnd daemon, where the cache outlives the build
+   */
+  public static boolean isDaemon() {
+    return System.getProperty(MVND_HOME) != null;
+  }
+
+  private synchronized void resize(final long maxWeight) {
+    this.maxWeight = maxWeight;
+    evict();
+  }
+
+  /**
+   * Loads an exec file into the loader, from the cache if the file didn't change.
+   *
+   * @param file exec file to load
+   * @param loader loader to add the sessions and execution data to
+   * @throws IOException if the file can't be read
+   */
+  public void load(final File file, final ExecFileLoader loader) throws IOException {
+    final ExecKey key = new ExecKey(file.getAbsolutePath());
+    final long size = file.length();
+    final long modified = file.lastModified();
+    final long checksum = checksum(file);
+    ExecFile cached = (ExecFile) get(key);
+    if (cached == null
+        || cached.size != size
+        || cached.modified != modified
+        || cached.checksum != checksum) {
+      execMisses.increment();
+      cached = read(file, size, modified, checksum);
+      put(key, cached, cached.weight);
+    } else {
+      execHits.increment();
+    }
+    for (final SessionInfo info : cached.sessions) {
+      loader.getSessionInfoStore().visitSessionInfo(info);
+    }
+    for (final ExecutionData data : cached.data) {
+      // the store merges into the data it holds, it gets a copy of the cached probes
+      loader
+          .getExecutionDataStore()
+          .put(new ExecutionData(data.getId(), data.getName(), data.getProbes().clone()));
+    }
+  }
+
+  private static ExecFile read(
+      final File file, final long size, final long modified, final long checksum)
+      throws IOException {
+    final ExecFile exec = new ExecFile(size, modified, checksum);
+    try (InputStream in = new BufferedInputStream(Files.newInputStream(file.toPath()))) {
+      final ExecutionDataReader reader = new ExecutionDataReader(in);
+      reader.setSessionInfoVisitor(exec.sessions::add);
+      reader.setExecutionDataVisitor(
+          data -> {
+            exec.data.add(data);
+            exec.weight += 64 + data.getProbes().length + 2L * data.getName().length();
+          });
+      reader.read();
+    }
+    return exec;
+  }
+
+  private static long checksum(final File file) throws IOException {
+    final CRC32C crc = new CRC32C();
+    final byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = Files.newInputStream(file.toPath())) {
+      for (int read = in.read(buffer); read >= 0; read = in.read(buffer)) {
+        crc.update(buffer, 0, read);
+      }
+    }
+    return crc.getValue();
+  }
+
+  /**
+   * Looks up the coverage of a class analyzed before with the same execution data.
+   *
+   * @param classId id of the class
+   * @param probes probes of the class' execution data, or <code>null</code> if there is none
+   * @param noMatch whether the execution data has a different class of the same name
+   * @return cached coverage, or <code>null</code>
+   */
+  public IClassCoverage getClass(
+      final long classId, final boolean[] probes, final boolean noMatch) {
+    final IClassCoverage coverage = (IClassCoverage) get(new ClassKey(classId, probes, noMatch));
+    if (coverage == null) {
+      classMisses.increment();
+    } else {
+      classHits.increment();
+    }
+    return coverage;
+  }
+
+  /**
+   * Caches the coverage of an analyzed class.
+   *
+   * @param classId id of the class
+   * @param probes probes of the class' execution data, or <code>null</code> if there is none
+   * @param noMatch whether the execution data has a different class of the same name
+   * @param coverage coverage of the class, not modified afterwards
+   * @param classFileSize size of the class file, the coverage is weighed by
+   */
+  public void putClass(
+      final long classId,
+      final boolean[] probes,
+      final boolean noMatch,
+      final IClassCoverage coverage,
+      final long classFileSize) {
+    // analyzed classes take about twice the size of their class file on the heap
+    put(
+        new ClassKey(classId, probes == null ? null : probes.clone(), noMatch),
+        coverage,
+        2 * classFileSize);
+  }
+
+  private synchronized Object get(final Object key) {
+    final Entry entry = entries.get(key);
+    return entry == null ? null : entry.value;
+  }
+
+  private synchronized void put(final Object key, final Object value, final long weight) {
+    if (weight > maxWeight) {
+      return;
+    }
+    final Entry previous = entries.put(key, new Entry(value, weight));
+    this.weight += weight - (previous == null ? 0 : previous.weight);
+    evict();
+  }
+
+  private void evict() {
+    final Iterator<Entry> eldest = entries.values().iterator();
+    while (weight > maxWeight && eldest.hasNext()) {
+      weight -= eldest.next().weight;
+      eldest.remove();
+    }
+  }
+
+  /** Drops all entries, e.g. to release heap when memory runs short. */
+  public synchronized void clear() {
+    entries.clear();
+    weight = 0;
+  }
+
+  /**
+   * Logs hits and misses since the previous call, and the weight of the cache.
+   *
+   * @param log log to write to
+   */
+  public void logStatistics(final Log log) {
+    final long weight;
+    final long maxWeight;
+    synchronized (this) {
+      weight = this.weight;
+      maxWeight = this.maxWeight;
+    }
+    final long classes = classHits.sum();
+    final long execFiles = execHits.sum();
+    log.info(
+        format(
+            "Analysis cache reused %s of %s classes and %s of %s exec files, %s of %s MB used",
+            classes,
+            classes + classMisses.sumThenReset(),
+            execFiles,
+            execFiles + execMisses.sumThenReset(),
+            weight / (1024 * 1024),
+            maxWeight / (1024 * 1024)));
+    classHits.add(-classes);
+    execHits.add(-execFiles);
+  }
+
+  private static final class Entry {
+    final Object value;
+    final long weight;
+
+    Entry(final Object value, final long weight) {
+      this.value = value;
+      this.weight = weight;
+    }
+  }
+
+  /** Sessions and execution data of an exec file, as read. */
+  private static final class ExecFile {
+    final long size;
+    final long modified;
+    final long checksum;
+    final List<SessionInfo> sessions = new ArrayList<SessionInfo>();
+    final List<ExecutionData> data = new ArrayList<ExecutionData>();
+    long weight;
+
+    ExecFile(final long size, final long modified, final long checksum) {
+      this.size = size;
+      this.modified = modified;
+      this.checksum = checksum;
+    }
+  }
+
+  private static final class ExecKey {
+    final String path;
+
+    ExecKey(final String path) {
+      this.path = path;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return o instanceof ExecKey && path.equals(((ExecKey) o).path);
+    }
+
+    @Override
+    public int hashCode() {
+      return path.hashCode();
+    }
+  }
+
+  private static final class ClassKey {
+    final long classId;
+    final boolean[] probes;
+    final boolean noMatch;
+
+    ClassKey(final long classId, final boolean[] probes, final boolean noMatch) {
+      this.classId = classId;
+      this.probes = probes;
+      this.noMatch = noMatch;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (!(o instanceof ClassKey)) {
+        return false;
+      }
+      final ClassKey other = (ClassKey) o;
+      return classId == other.classId
+          && noMatch == other.noMatch
+          && Arrays.equals(probes, other.probes);
+    }
+
+    @Override
+    public int hashCode() {
+      return Long.hashCode(classId) * 31 + Arrays.hashCode(probes);
+    }
+  }
+}
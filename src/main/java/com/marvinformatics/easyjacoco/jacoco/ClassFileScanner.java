@@ -0,0 +1,326 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import org.jacoco.core.internal.ContentTypeDetector;
+import org.jacoco.core.internal.data.CRC64;
+
+/**
+ * Reads class files and hands them out together with their class id, so callers can decide what to
+ * do with a class before paying for its analysis. Directories, class files and (nested) archives
+ * are supported, mirroring {@link org.jacoco.core.analysis.Analyzer#analyzeAll(File)}.
+ */
+public class ClassFileScanner {
+
+  /** Receives the class files found by the scanner. */
+  public interface ClassFileVisitor {
+
+    /**
+     * Called for every class file.
+     *
+     * @param classId CRC64 id of the class, as used in execution data
+     * @param bytes class file contents
+     * @param location human readable location, used in error messages
+     * @throws IOException if the class can't be processed
+     */
+    void visitClassFile(long classId, byte[] bytes, String location) throws IOException;
+  }
+
+  /** Entries of multi-release jars for other Java versions, the base version is scanned only. */
+  static final String VERSIONS = "META-INF/versions/";
+
+  private final FileFilter filter;
+  private final ExecutorService executor;
+  private final int threads;
+
+  /**
+   * Creates a scanner that only considers files matched by the given filter and scans archives on
+   * the calling thread.
+   *
+   * @param filter includes/excludes applied to files of scanned directories
+   */
+  public ClassFileScanner(final FileFilter filter) {
+    this(filter, null, 1);
+  }
+
+  /**
+   * Creates a scanner that only considers files matched by the given filter and scans the classes
+   * of archives with the given executor.
+   *
+   * @param filter includes/excludes applied to files of scanned directories
+   * @param executor executor shared by all archives scanned, see {@link #newExecutor()}
+   * @param threads number of threads of the executor
+   */
+  public ClassFileScanner(
+      final FileFilter filter, final ExecutorService executor, final int threads) {
+    this.filter = filter;
+    this.executor = executor;
+    this.threads = executor == null ? 1 : threads;
+  }
+
+  /**
+   * Creates an executor for {@link #scanArchive}, with one daemon thread per processor. Meant to be
+   * shared by all scanners of a goal and shut down once the goal is done.
+   *
+   * @return a new executor
+   */
+  public static ExecutorService newExecutor() {
+    final AtomicInteger count = new AtomicInteger();
+    return Executors.newFixedThreadPool(
+        parallelism(),
+        task -> {
+          final Thread thread = new Thread(task, "easy-jacoco-scan-" + count.incrementAndGet());
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * @return number of threads of executors created by {@link #newExecutor()}
+   */
+  public static int parallelism() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  /**
+   * Scans all matching files below the given directory.
+   *
+   * @param directory directory to scan
+   * @param visitor receives the class files
+   * @throws IOException if a file can't be read
+   */
+  public void scan(final File directory, final ClassFileVisitor visitor) throws IOException {
+    for (final File file : filter.getFiles(directory)) {
+      try (InputStream in = new FileInputStream(file)) {
+        scan(in, file.getPath(), visitor);
+      }
+    }
+  }
+
+  /**
+   * Scans the class files of an archive, e.g. a module's packaged jar. Archive entries are read
+   * through random access and analyzed by the threads of the scanner's executor, each one reading
+   * into its own reused buffer and reporting to its own visitor. Entry names are matched against
+   * the filter, and entries for other Java versions of multi-release jars are skipped. Other
+   * entries than <code>.class</code> files are detected by their content like files of directories,
+   * and scanned on the calling thread.
+   *
+   * <p>Entries are assigned to threads by their file name, and each thread scans its entries in
+   * archive order. Classes with the same name, e.g. <code>com/example/A.class</code> and <code>
+   * BOOT-INF/classes/com/example/A.class</code>, thus reach the visitors in archive order like they
+   * do on a single thread, and the same one wins a name clash in every build.
+   *
+   * @param archive jar or zip file to scan
+   * @param visitors creates one visitor per scanning thread; visitors may share state, so what they
+   *     update must be thread safe
+   * @throws IOException if the archive can't be read or a visitor fails
+   */
+  public void scanArchive(final File archive, final Supplier<ClassFileVisitor> visitors)
+      throws IOException {
+    try (ZipFile zip = new ZipFile(archive)) {
+      final List<ZipEntry> classes = new ArrayList<ZipEntry>();
+      final ClassFileVisitor nestedVisitor = visitors.get();
+      final Enumeration<? extends ZipEntry> entries = zip.entries();
+      while (entries.hasMoreElements()) {
+        final ZipEntry entry = entries.nextElement();
+        final String name = entry.getName();
+        if (entry.isDirectory() || name.startsWith(VERSIONS) || !filter.matches(name)) {
+          continue;
+        }
+        if (name.endsWith(".class")) {
+          classes.add(entry);
+        } else {
+          try (InputStream in = zip.getInputStream(entry)) {
+            scan(in, archive.getPath() + "@" + name, nestedVisitor);
+          }
+        }
+      }
+
+      final int workerCount = Math.min(threads, classes.size());
+      if (workerCount <= 1) {
+        scanEntries(zip, archive.getPath(), classes, new AtomicInteger(), nestedVisitor);
+        return;
+      }
+      final List<List<ZipEntry>> partitions = new ArrayList<List<ZipEntry>>(workerCount);
+      for (int i = 0; i < workerCount; i++) {
+        partitions.add(new ArrayList<ZipEntry>());
+      }
+      for (final ZipEntry entry : classes) {
+        partitions.get(Math.floorMod(fileName(entry).hashCode(), workerCount)).add(entry);
+      }
+      final Map<AtomicInteger, Integer> cursors = new HashMap<AtomicInteger, Integer>();
+      final List<Future<?>> workers = new ArrayList<Future<?>>();
+      try {
+        for (final List<ZipEntry> partition : partitions) {
+          if (partition.isEmpty()) {
+            continue;
+          }
+          final AtomicInteger next = new AtomicInteger();
+          cursors.put(next, Integer.valueOf(partition.size()));
+          workers.add(
+              executor.submit(
+                  () -> {
+                    scanEntries(zip, archive.getPath(), partition, next, visitors.get());
+                    return null;
+                  }));
+        }
+        for (final Future<?> worker : workers) {
+          await(worker);
+        }
+      } finally {
+        // the zip file is closed next, workers still running must not read from it
+        cursors.forEach((next, size) -> next.set(size.intValue()));
+        for (final Future<?> worker : workers) {
+          awaitQuietly(worker);
+        }
+      }
+    }
+  }
+
+  private static String fileName(final ZipEntry entry) {
+    final String name = entry.getName();
+    return name.substring(name.lastIndexOf('/') + 1);
+  }
+
+  private static void scanEntries(
+      final ZipFile zip,
+      final String location,
+      final List<ZipEntry> entries,
+      final AtomicInteger next,
+      final ClassFileVisitor visitor)
+      throws IOException {
+    byte[] buffer = new byte[64 * 1024];
+    int index;
+    while ((index = next.getAndIncrement()) < entries.size()) {
+      final ZipEntry entry = entries.get(index);
+      int length = 0;
+      try (InputStream in = zip.getInputStream(entry)) {
+        if (entry.getSize() > buffer.length) {
+          buffer = new byte[(int) entry.getSize()];
+        }
+        int read;
+        while ((read = in.read(buffer, length, buffer.length - length)) != -1) {
+          length += read;
+          if (length == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+          }
+        }
+      }
+      if (!isClassFile(buffer, length)) {
+        continue;
+      }
+      // class ids and the analyzer need an array of the exact class size
+      final byte[] bytes = Arrays.copyOf(buffer, length);
+      visitor.visitClassFile(CRC64.classId(bytes), bytes, location + "@" + entry.getName());
+    }
+  }
+
+  private static boolean isClassFile(final byte[] buffer, final int length) {
+    return length >= 4
+        && (buffer[0] & 0xff) == 0xca
+        && (buffer[1] & 0xff) == 0xfe
+        && (buffer[2] & 0xff) == 0xba
+        && (buffer[3] & 0xff) == 0xbe;
+  }
+
+  private static void awaitQuietly(final Future<?> worker) {
+    boolean interrupted = false;
+    while (true) {
+      try {
+        worker.get();
+        break;
+      } catch (final InterruptedException e) {
+        interrupted = true;
+      } catch (final ExecutionException | CancellationException e) {
+        // already reported by await
+        break;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static void await(final Future<?> worker) throws IOException {
+    try {
+      worker.get();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while scanning archive");
+    } catch (final ExecutionException e) {
+      if (e.getCause() instanceof IOException) {
+        throw (IOException) e.getCause();
+      }
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private void scan(final InputStream input, final String location, final ClassFileVisitor visitor)
+      throws IOException {
+    final ContentTypeDetector detector = new ContentTypeDetector(input);
+    switch (detector.getType()) {
+      case ContentTypeDetector.CLASSFILE:
+        final byte[] bytes = detector.getInputStream().readAllBytes();
+        visitor.visitClassFile(CRC64.classId(bytes), bytes, location);
+        break;
+      case ContentTypeDetector.ZIPFILE:
+        scanZip(detector.getInputStream(), location, visitor);
+        break;
+      case ContentTypeDetector.GZFILE:
+        scan(new GZIPInputStream(detector.getInputStream()), location, visitor);
+        break;
+      default:
+        break;
+    }
+  }
+
+  private void scanZip(
+      final InputStream input, final String location, final ClassFileVisitor visitor)
+      throws IOException {
+    final ZipInputStream zip = new ZipInputStream(input);
+    ZipEntry entry;
+    while ((entry = zip.getNextEntry()) != null) {
+      if (!entry.isDirectory() && !entry.getName().startsWith(VERSIONS)) {
+        scan(zip, location + "@" + entry.getName(), visitor);
+      }
+    }
+  }
+}
@@ -0,0 +1,341 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.data.CompactDataOutput;
+import org.jacoco.report.check.IViolationsOutput;
+import org.jacoco.report.check.Limit;
+import org.jacoco.report.check.Rule;
+
+/**
+ * Missed and covered counts of instructions, branches, lines and methods per class, used as a
+ * baseline coverage must not drop below. Classes visited are summed up by name.
+ *
+ * <p>The file format is meant to be compared without building a lookup table: a header, the number
+ * of classes, then the classes sorted by the bytes of their UTF-8 names. Each name is stored as the
+ * length of the prefix it shares with the previous name plus the remaining bytes, followed by the
+ * counters. All numbers are varints as in exec files. Reading a baseline just loads the file, it is
+ * decoded while being merged with the sorted classes of a check.
+ */
+public class CoverageBaseline implements ICoverageVisitor {
+
+  private static final int MAGIC = 0xEC0BA5E1;
+
+  private static final int VERSION = 1;
+
+  private static final CounterEntity[] COUNTERS = {
+    CounterEntity.INSTRUCTION, CounterEntity.BRANCH, CounterEntity.LINE, CounterEntity.METHOD
+  };
+
+  /** missed and covered count of each counter, by class VM name, <code>null</code> once read */
+  private final Map<String, int[]> classes;
+
+  /** encoded baseline as read from a file, <code>null</code> while visiting classes */
+  private final ByteBuffer encoded;
+
+  /** Creates an empty baseline, classes are added by visiting them. */
+  public CoverageBaseline() {
+    this.classes = new HashMap<String, int[]>();
+    this.encoded = null;
+  }
+
+  private CoverageBaseline(final ByteBuffer encoded) {
+    this.classes = null;
+    this.encoded = encoded;
+  }
+
+  @Override
+  public synchronized void visitCoverage(final IClassCoverage coverage) {
+    if (classes == null) {
+      throw new IllegalStateException("A baseline read from a file can't be changed");
+    }
+    final int[] counts =
+        classes.computeIfAbsent(coverage.getName(), n -> new int[COUNTERS.length * 2]);
+    for (int i = 0; i < COUNTERS.length; i++) {
+      final ICounter counter = coverage.getCounter(COUNTERS[i]);
+      counts[2 * i] += counter.getMissedCount();
+      counts[2 * i + 1] += counter.getCoveredCount();
+    }
+  }
+
+  /**
+   * @return number of classes in this baseline
+   */
+  public synchronized int size() {
+    return classes == null ? new Cursor(encoded).size : classes.size();
+  }
+
+  /**
+   * Reports every class whose covered ratio of a counter dropped below the given baseline. Classes
+   * missing from either side and counters without items are not compared.
+   *
+   * @param baseline baseline to compare with
+   * @param output receives a CLASS violation per counter that regressed
+   * @return number of regressions found
+   */
+  public int checkAgainst(final CoverageBaseline baseline, final IViolationsOutput output) {
+    final Cursor now = new Cursor(encode());
+    final Cursor before = new Cursor(baseline.encode());
+    int regressions = 0;
+    boolean more = now.next() && before.next();
+    while (more) {
+      final int order =
+          Arrays.compareUnsigned(now.name, 0, now.nameLength, before.name, 0, before.nameLength);
+      if (order < 0) {
+        more = now.next();
+      } else if (order > 0) {
+        more = before.next();
+      } else {
+        regressions += compare(now, before, output);
+        more = now.next() && before.next();
+      }
+    }
+    return regressions;
+  }
+
+  private static int compare(
+      final Cursor now, final Cursor before, final IViolationsOutput output) {
+    int regressions = 0;
+    for (int i = 0; i < COUNTERS.length; i++) {
+      final long coveredBefore = before.counts[2 * i + 1];
+      final long totalBefore = before.counts[2 * i] + coveredBefore;
+      final long covered = now.counts[2 * i + 1];
+      final long total = now.counts[2 * i] + covered;
+      if (totalBefore == 0 || total == 0 || covered * totalBefore >= coveredBefore * total) {
+        continue;
+      }
+      regressions++;
+      report(now.name(), now.counts, COUNTERS[i], ratio(coveredBefore, totalBefore), output);
+    }
+    return regressions;
+  }
+
+  private static void report(
+      final String name,
+      final int[] counts,
+      final CounterEntity entity,
+      final BigDecimal minimum,
+      final IViolationsOutput output) {
+    final ClassCounters node = new ClassCounters(name, counts);
+    final ICounter counter = node.getCounter(entity);
+    final Limit limit = new Limit();
+    limit.setCounter(entity.name());
+    limit.setValue(ICounter.CounterValue.COVEREDRATIO.name());
+    limit.setMinimum(minimum.toPlainString());
+    final Rule rule = new Rule();
+    rule.setElement(ElementType.CLASS);
+    rule.setLimits(Collections.singletonList(limit));
+    output.onViolation(
+        node,
+        rule,
+        limit,
+        format(
+            "Coverage regressed for class %s: %s covered ratio is %s, but baseline is %s",
+            name.replace('/', '.'),
+            entity.name().toLowerCase(),
+            ratio(counter.getCoveredCount(), counter.getTotalCount()).toPlainString(),
+            minimum.toPlainString()));
+  }
+
+  private static BigDecimal ratio(final long covered, final long total) {
+    return BigDecimal.valueOf(covered).divide(BigDecimal.valueOf(total), 4, RoundingMode.FLOOR);
+  }
+
+  /**
+   * Writes this baseline to a file, replacing it once completely written.
+   *
+   * @param file file to write
+   * @throws IOException if the file can't be written
+   */
+  public void write(final File file) throws IOException {
+    final ByteBuffer bytes = encode();
+    final File directory = file.getAbsoluteFile().getParentFile();
+    Files.createDirectories(directory.toPath());
+    final File temp = File.createTempFile(file.getName(), ".tmp", directory);
+    try {
+      try (OutputStream out = Files.newOutputStream(temp.toPath())) {
+        out.write(bytes.array(), bytes.arrayOffset(), bytes.remaining());
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+  }
+
+  private synchronized ByteBuffer encode() {
+    if (classes == null) {
+      return encoded.duplicate();
+    }
+    final List<Map.Entry<byte[], int[]>> entries =
+        new ArrayList<Map.Entry<byte[], int[]>>(classes.size());
+    for (final Map.Entry<String, int[]> entry : classes.entrySet()) {
+      entries.add(
+          new AbstractMap.SimpleImmutableEntry<byte[], int[]>(
+              entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue()));
+    }
+    entries.sort((a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey()));
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream(entries.size() * 24 + 16);
+    try {
+      final CompactDataOutput out = new CompactDataOutput(bytes);
+      out.writeInt(MAGIC);
+      out.writeVarInt(VERSION);
+      out.writeVarInt(entries.size());
+      byte[] previous = new byte[0];
+      for (final Map.Entry<byte[], int[]> entry : entries) {
+        final byte[] name = entry.getKey();
+        final int shared = sharedPrefix(previous, name);
+        out.writeVarInt(shared);
+        out.writeVarInt(name.length - shared);
+        out.write(name, shared, name.length - shared);
+        for (final int count : entry.getValue()) {
+          out.writeVarInt(count);
+        }
+        previous = name;
+      }
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return ByteBuffer.wrap(bytes.toByteArray());
+  }
+
+  private static int sharedPrefix(final byte[] a, final byte[] b) {
+    final int length = Math.min(a.length, b.length);
+    int i = 0;
+    while (i < length && a[i] == b[i]) {
+      i++;
+    }
+    return i;
+  }
+
+  /**
+   * Reads a baseline written by {@link #write(File)}. Only the header is checked, classes are
+   * decoded when compared.
+   *
+   * @param file file to read
+   * @return baseline read
+   * @throws IOException if the file can't be read or isn't a baseline
+   */
+  public static CoverageBaseline read(final File file) throws IOException {
+    final ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+    try {
+      if (buffer.remaining() < 4 || buffer.getInt(0) != MAGIC) {
+        throw new IOException(file + " is not a coverage baseline");
+      }
+      final int version = new Cursor(buffer).version;
+      if (version != VERSION) {
+        throw new IOException(
+            format("Unsupported version %s of coverage baseline %s", version, file));
+      }
+    } catch (final BufferUnderflowException e) {
+      throw new IOException("Truncated coverage baseline " + file, e);
+    }
+    return new CoverageBaseline(buffer);
+  }
+
+  /** Decodes the classes of an encoded baseline one at a time, in name order. */
+  private static class Cursor {
+    private final ByteBuffer buffer;
+    private final int version;
+    private final int size;
+    private int remaining;
+    private byte[] name = new byte[256];
+    private int nameLength;
+    private final int[] counts = new int[COUNTERS.length * 2];
+
+    Cursor(final ByteBuffer encoded) {
+      this.buffer = encoded.duplicate();
+      buffer.getInt();
+      this.version = readVarInt(buffer);
+      this.size = readVarInt(buffer);
+      this.remaining = size;
+    }
+
+    boolean next() {
+      if (remaining == 0) {
+        return false;
+      }
+      remaining--;
+      final int shared = readVarInt(buffer);
+      final int suffix = readVarInt(buffer);
+      if (shared + suffix > name.length) {
+        name = Arrays.copyOf(name, Math.max(shared + suffix, name.length * 2));
+      }
+      buffer.get(name, shared, suffix);
+      nameLength = shared + suffix;
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = readVarInt(buffer);
+      }
+      return true;
+    }
+
+    String name() {
+      return new String(name, 0, nameLength, StandardCharsets.UTF_8);
+    }
+  }
+
+  /** Same encoding as <code>CompactDataOutput.writeVarInt</code>: 7 bits per byte, LSB first. */
+  private static int readVarInt(final ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = buffer.get() & 0xFF;
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /** Class node carrying just the counters kept in a baseline, for reporting regressions. */
+  private static class ClassCounters extends CoverageNodeImpl {
+
+    ClassCounters(final String name, final int[] counts) {
+      super(ElementType.CLASS, name);
+      instructionCounter = CounterImpl.getInstance(counts[0], counts[1]);
+      branchCounter = CounterImpl.getInstance(counts[2], counts[3]);
+      lineCounter = CounterImpl.getInstance(counts[4], counts[5]);
+      methodCounter = CounterImpl.getInstance(counts[6], counts[7]);
+    }
+  }
+}
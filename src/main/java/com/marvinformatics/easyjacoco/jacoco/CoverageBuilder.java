@@ -26,6 +26,7 @@ import org.jacoco.core.analysis.IPackageCoverage;
 import org.jacoco.core.analysis.ISourceFileCoverage;
 import org.jacoco.core.internal.analysis.BundleCoverageImpl;
 import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.PackageCoverageImpl;
 import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
 import org.jacoco.core.internal.analysis.SourceNodeImpl;
 
@@ -50,11 +51,50 @@ public class CoverageBuilder implements ICoverageVisitor {
 
   private final Log log;
 
+  private final DuplicateClassFilter duplicates;
+
+  private final boolean sourceFileNodes;
+
   /** Create a new builder. */
   public CoverageBuilder(Log log) {
+    this(log, new DuplicateClassFilter());
+  }
+
+  /**
+   * Create a new builder sharing the duplicate filter of another builder, e.g. one builder per
+   * module whose classes are folded into a common builder afterwards.
+   *
+   * @param log for log output
+   * @param duplicates filter for class files already fed into any of the builders sharing it
+   */
+  public CoverageBuilder(final Log log, final DuplicateClassFilter duplicates) {
+    this(log, duplicates, true);
+  }
+
+  /**
+   * Create a new builder, optionally without source file nodes. Merging the lines of the classes of
+   * each source file is skipped then, and bundles only have class nodes below their packages.
+   *
+   * @param log for log output
+   * @param duplicates filter for class files already fed into any of the builders sharing it
+   * @param sourceFileNodes whether source file nodes are built
+   */
+  public CoverageBuilder(
+      final Log log, final DuplicateClassFilter duplicates, final boolean sourceFileNodes) {
     this.log = log;
     this.classes = new HashMap<String, IClassCoverage>();
     this.sourcefiles = new HashMap<String, ISourceFileCoverage>();
+    this.duplicates = duplicates;
+    this.sourceFileNodes = sourceFileNodes;
+  }
+
+  /**
+   * Filter for class files that are identical to a class already fed into this builder.
+   *
+   * @return duplicate filter of this builder
+   */
+  public DuplicateClassFilter getDuplicates() {
+    return duplicates;
   }
 
   /**
@@ -85,9 +125,39 @@ public class CoverageBuilder implements ICoverageVisitor {
    */
   public IBundleCoverage getBundle(final String name) {
     build();
+    if (!sourceFileNodes) {
+      return new BundleCoverageImpl(name, classPackages());
+    }
     return new BundleCoverageImpl(name, classes.values(), sourcefiles.values());
   }
 
+  /**
+   * Package nodes with just the classes, as packages built by JaCoCo only count classes without a
+   * source file on their own.
+   */
+  private Collection<IPackageCoverage> classPackages() {
+    final Map<String, Collection<IClassCoverage>> byPackage =
+        new HashMap<String, Collection<IClassCoverage>>();
+    for (final IClassCoverage coverage : classes.values()) {
+      byPackage
+          .computeIfAbsent(coverage.getPackageName(), key -> new ArrayList<IClassCoverage>())
+          .add(coverage);
+    }
+    final Collection<IPackageCoverage> packages = new ArrayList<IPackageCoverage>();
+    for (final Map.Entry<String, Collection<IClassCoverage>> entry : byPackage.entrySet()) {
+      final PackageCoverageImpl coverage =
+          new PackageCoverageImpl(
+              entry.getKey(), entry.getValue(), Collections.<ISourceFileCoverage>emptyList());
+      for (final IClassCoverage c : entry.getValue()) {
+        if (c.getSourceFileName() != null) {
+          coverage.increment(c);
+        }
+      }
+      packages.add(coverage);
+    }
+    return packages;
+  }
+
   /**
    * Returns all classes for which execution data does not match.
    *
@@ -117,6 +187,9 @@ public class CoverageBuilder implements ICoverageVisitor {
         }
       }
     }
+    if (!sourceFileNodes) {
+      return;
+    }
     for (final IClassCoverage coverage : classes.values()) {
       final String source = coverage.getSourceFileName();
       if (source != null) {
@@ -128,7 +201,7 @@ public class CoverageBuilder implements ICoverageVisitor {
 
   // === ICoverageVisitor ===
 
-  public void visitCoverage(final IClassCoverage coverage) {
+  public synchronized void visitCoverage(final IClassCoverage coverage) {
     sourcefiles = null;
     final String name = coverage.getName();
     final IClassCoverage dup = classes.put(name, coverage);
@@ -0,0 +1,46 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+/**
+ * Thrown when a {@link FailFastChecker} collected enough violations and the analysis was stopped
+ * before all classes were analyzed. The violations were already reported when this is thrown.
+ * Unchecked, so it isn't mistaken for an I/O error by code handling those, and passes the threads
+ * scanning archives as is.
+ */
+public class CoverageCheckHaltedException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  private final int violations;
+
+  /**
+   * @param violations number of violations found before stopping
+   */
+  public CoverageCheckHaltedException(final int violations) {
+    super(format("Analysis stopped after %s coverage check violations", violations));
+    this.violations = violations;
+  }
+
+  /**
+   * @return number of violations found before stopping
+   */
+  public int getViolations() {
+    return violations;
+  }
+}
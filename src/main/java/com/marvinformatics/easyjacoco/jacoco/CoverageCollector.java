@@ -0,0 +1,238 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.HashSet;
+import java.util.Set;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfoStore;
+import org.jacoco.core.runtime.RemoteControlReader;
+import org.jacoco.core.runtime.RemoteControlWriter;
+
+/**
+ * Receives execution data from JaCoCo agents running with <code>output=tcpclient</code>. Probes are
+ * merged in memory as they arrive, so the data of any number of test JVMs ends up as a single exec
+ * file, written once all agents disconnected.
+ *
+ * <p>Agents dump when their JVM exits, so by the time the build stopped running tests every agent
+ * has sent its data or is about to. Stopping waits for the open connections to drain before the
+ * data is written.
+ */
+public class CoverageCollector implements Closeable {
+
+  private final ServerSocket server;
+  private final Thread acceptor;
+  private final Set<Socket> connections = new HashSet<Socket>();
+  private final SessionInfoStore sessions = new SessionInfoStore();
+  private final ExecutionDataStore data = new ExecutionDataStore();
+  private int connectionCount;
+  private int failedCount;
+
+  private CoverageCollector(final ServerSocket server) {
+    this.server = server;
+    this.acceptor = new Thread(this::accept, "easy-jacoco-collector-" + server.getLocalPort());
+    this.acceptor.setDaemon(true);
+  }
+
+  /**
+   * Starts listening for agents.
+   *
+   * @param address address to bind to
+   * @param port port to bind to, 0 for any free port
+   * @return running collector
+   * @throws IOException if the port can't be bound
+   */
+  public static CoverageCollector start(final InetAddress address, final int port)
+      throws IOException {
+    final CoverageCollector collector = new CoverageCollector(new ServerSocket(port, 50, address));
+    collector.acceptor.start();
+    return collector;
+  }
+
+  /**
+   * @return port agents connect to
+   */
+  public int getPort() {
+    return server.getLocalPort();
+  }
+
+  /**
+   * @return number of agents that connected so far
+   */
+  public synchronized int getConnectionCount() {
+    return connectionCount;
+  }
+
+  /**
+   * @return number of sessions received so far
+   */
+  public synchronized int getSessionCount() {
+    return sessions.getInfos().size();
+  }
+
+  /**
+   * @return number of classes with execution data received so far
+   */
+  public synchronized int getClassCount() {
+    return data.getContents().size();
+  }
+
+  /**
+   * @return number of agents whose connection broke, e.g. because their JVM crashed; data received
+   *     before is kept
+   */
+  public synchronized int getFailedCount() {
+    return failedCount;
+  }
+
+  /**
+   * Stops accepting agents and waits for the connected ones to send their data and disconnect.
+   * Agents still connected after the timeout are dropped.
+   *
+   * @param timeout milliseconds to wait for connected agents
+   * @return number of agents dropped
+   * @throws IOException if interrupted while waiting
+   */
+  public int stop(final long timeout) throws IOException {
+    server.close();
+    final long deadline = System.currentTimeMillis() + timeout;
+    int dropped = 0;
+    synchronized (this) {
+      try {
+        long remaining = timeout;
+        while (!connections.isEmpty() && remaining > 0) {
+          wait(remaining);
+          remaining = deadline - System.currentTimeMillis();
+        }
+      } catch (final InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new InterruptedIOException("Interrupted while waiting for coverage agents");
+      }
+      for (final Socket socket : connections) {
+        dropped++;
+        socket.close();
+      }
+      connections.clear();
+    }
+    return dropped;
+  }
+
+  /**
+   * Stops accepting agents and drops the connected ones right away, e.g. when the build failed
+   * before the collector was stopped. Nothing is written.
+   *
+   * @throws IOException if a socket can't be closed
+   */
+  @Override
+  public void close() throws IOException {
+    stop(0);
+  }
+
+  /**
+   * Writes all sessions and the merged execution data received, replacing the file once completely
+   * written. Nothing is written if no agent sent data.
+   *
+   * @param file exec file to write
+   * @return whether the file was written
+   * @throws IOException if the file can't be written
+   */
+  public synchronized boolean write(final File file) throws IOException {
+    if (sessions.getInfos().isEmpty() && data.getContents().isEmpty()) {
+      return false;
+    }
+    final File directory = file.getAbsoluteFile().getParentFile();
+    Files.createDirectories(directory.toPath());
+    final File temp = File.createTempFile(file.getName(), ".tmp", directory);
+    try {
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp.toPath()))) {
+        final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+        sessions.accept(writer);
+        data.accept(writer);
+      }
+      Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(temp.toPath());
+    }
+    return true;
+  }
+
+  private void accept() {
+    while (!server.isClosed()) {
+      try {
+        final Socket socket = server.accept();
+        final int id;
+        synchronized (this) {
+          connections.add(socket);
+          id = ++connectionCount;
+        }
+        final Thread reader = new Thread(() -> receive(socket), acceptor.getName() + "-" + id);
+        reader.setDaemon(true);
+        reader.start();
+      } catch (final IOException e) {
+        // server closed by stop
+      }
+    }
+  }
+
+  private void receive(final Socket socket) {
+    try (Socket s = socket) {
+      // the header written by the remote control writer is what the agent waits for
+      new RemoteControlWriter(s.getOutputStream());
+      final RemoteControlReader reader =
+          new RemoteControlReader(new BufferedInputStream(s.getInputStream()));
+      reader.setSessionInfoVisitor(
+          info -> {
+            synchronized (this) {
+              sessions.visitSessionInfo(info);
+            }
+          });
+      reader.setExecutionDataVisitor(
+          executionData -> {
+            synchronized (this) {
+              data.put(executionData);
+            }
+          });
+      while (reader.read()) {
+        // agents only send data, dump commands are never issued
+      }
+    } catch (final IOException e) {
+      synchronized (this) {
+        // sockets closed by stop after the timeout are expected to fail
+        if (connections.contains(socket)) {
+          failedCount++;
+        }
+      }
+    } finally {
+      synchronized (this) {
+        connections.remove(socket);
+        notifyAll();
+      }
+    }
+  }
+}
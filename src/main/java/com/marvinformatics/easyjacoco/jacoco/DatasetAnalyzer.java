@@ -0,0 +1,200 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.internal.analysis.ClassAnalyzer;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.StringPool;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.MethodNode;
+
+/**
+ * Analyzes a class against several execution data stores while parsing it only once. The class is
+ * read into an ASM tree which is then replayed into one JaCoCo class analyzer per store, following
+ * what {@link org.jacoco.core.analysis.Analyzer#analyzeClass(byte[], String)} does for a single
+ * store.
+ *
+ * <p>With an {@link AnalysisCache} the coverage of classes analyzed before with the same execution
+ * data is taken from the cache, and the class is only parsed for the stores that missed. A {@link
+ * SharedAnalysisCache} is consulted after it, its hits are added to the in memory cache. Kotlin
+ * classes are never cached: the builder applies the coverage of inlined functions to the class that
+ * declares them, so their coverage isn't determined by their own execution data alone.
+ */
+public class DatasetAnalyzer {
+
+  private static final String KOTLIN_METADATA = "Lkotlin/Metadata;";
+
+  private final StringPool stringPool = new StringPool();
+  private AnalysisCache cache;
+  private SharedAnalysisCache sharedCache;
+
+  /**
+   * @param cache cache to look classes up in and to add analyzed classes to
+   * @return this analyzer
+   */
+  public DatasetAnalyzer withCache(final AnalysisCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  /**
+   * @param sharedCache cache shared by builds to look classes up in and to add analyzed classes to
+   * @return this analyzer
+   */
+  public DatasetAnalyzer withSharedCache(final SharedAnalysisCache sharedCache) {
+    this.sharedCache = sharedCache;
+    return this;
+  }
+
+  /**
+   * Analyzes the class against each store and emits the resulting coverage to the visitor at the
+   * same index.
+   *
+   * @param bytes class file contents
+   * @param classId CRC64 id of the class
+   * @param location human readable location, used in error messages
+   * @param stores execution data, one lookup per dataset
+   * @param visitors coverage visitors, one per dataset
+   * @throws IOException if the class can't be analyzed
+   */
+  public void analyzeClass(
+      final byte[] bytes,
+      final long classId,
+      final String location,
+      final List<? extends ExecutionDataLookup> stores,
+      final List<? extends ICoverageVisitor> visitors)
+      throws IOException {
+    try {
+      final ClassReader reader = InstrSupport.classReaderFor(bytes);
+      if ((reader.getAccess() & (Opcodes.ACC_MODULE | Opcodes.ACC_SYNTHETIC)) != 0) {
+        return;
+      }
+      final String className = reader.getClassName();
+      final boolean cacheable = (cache != null || sharedCache != null) && !isKotlin(bytes);
+      final List<Integer> missed = new ArrayList<Integer>(stores.size());
+      for (int i = 0; i < stores.size(); i++) {
+        if (!cacheable
+            || !visitCached(classId, className, bytes.length, stores.get(i), visitors.get(i))) {
+          missed.add(Integer.valueOf(i));
+        }
+      }
+      if (missed.size() == 1) {
+        final int i = missed.get(0).intValue();
+        reader.accept(
+            createAnalyzingVisitor(
+                cacheable, classId, className, bytes.length, stores.get(i), visitors.get(i)),
+            0);
+        return;
+      }
+      if (missed.isEmpty()) {
+        return;
+      }
+
+      final ClassNode node = new ClassNode(InstrSupport.ASM_API_VERSION);
+      reader.accept(node, 0);
+      for (final Integer i : missed) {
+        // JaCoCo keeps per analysis state in Label.info, each replay needs fresh labels
+        for (final MethodNode method : node.methods) {
+          method.instructions.resetLabels();
+        }
+        node.accept(
+            createAnalyzingVisitor(
+                cacheable, classId, node.name, bytes.length, stores.get(i), visitors.get(i)));
+      }
+    } catch (final RuntimeException e) {
+      throw new IOException(format("Error while analyzing %s.", location), e);
+    }
+  }
+
+  /** Emits the cached coverage of the class for the store, if any. */
+  private boolean visitCached(
+      final long classId,
+      final String className,
+      final int classFileSize,
+      final ExecutionDataLookup store,
+      final ICoverageVisitor visitor) {
+    final ExecutionData data = store.get(classId);
+    final boolean[] probes = data == null ? null : data.getProbes();
+    final boolean noMatch = data == null && store.contains(className);
+    IClassCoverage coverage = cache == null ? null : cache.getClass(classId, probes, noMatch);
+    if (coverage == null && sharedCache != null) {
+      coverage = sharedCache.getClass(classId, probes, noMatch);
+      if (coverage != null && cache != null) {
+        cache.putClass(classId, probes, noMatch, coverage, classFileSize);
+      }
+    }
+    if (coverage == null) {
+      return false;
+    }
+    visitor.visitCoverage(coverage);
+    return true;
+  }
+
+  private ClassVisitor createAnalyzingVisitor(
+      final boolean cacheable,
+      final long classId,
+      final String className,
+      final int classFileSize,
+      final ExecutionDataLookup store,
+      final ICoverageVisitor visitor) {
+    final ExecutionData data = store.get(classId);
+    final boolean[] probes;
+    final boolean noMatch;
+    if (data == null) {
+      probes = null;
+      noMatch = store.contains(className);
+    } else {
+      probes = data.getProbes();
+      noMatch = false;
+    }
+    final ClassCoverageImpl coverage = new ClassCoverageImpl(className, classId, noMatch);
+    final ClassAnalyzer analyzer =
+        new ClassAnalyzer(coverage, probes, stringPool) {
+          @Override
+          public void visitEnd() {
+            super.visitEnd();
+            if (cacheable && cache != null) {
+              cache.putClass(classId, probes, noMatch, coverage, classFileSize);
+            }
+            if (cacheable && sharedCache != null) {
+              sharedCache.putClass(classId, probes, noMatch, coverage);
+            }
+            visitor.visitCoverage(coverage);
+          }
+        };
+    return new ClassProbesAdapter(analyzer, false);
+  }
+
+  /** Whether the class file carries Kotlin metadata, looked up in its constant pool. */
+  private static boolean isKotlin(final byte[] bytes) {
+    // ISO-8859-1 maps every byte to one char, so the descriptor is found as is
+    return new String(bytes, StandardCharsets.ISO_8859_1).contains(KOTLIN_METADATA);
+  }
+}
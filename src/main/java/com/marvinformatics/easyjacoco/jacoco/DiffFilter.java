@@ -0,0 +1,198 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.apache.maven.project.MavenProject;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+import org.jacoco.core.internal.instr.InstrSupport;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+
+/**
+ * Restricts coverage to changed lines, e.g. the ones of a {@link GitDiff}. Changed files are mapped
+ * to classes through the compile source roots of the projects and the <code>SourceFile</code>
+ * attribute of the class files:
+ *
+ * <ul>
+ *   <li>projects without changed sources are not scanned at all
+ *   <li>class files not compiled from a changed source are skipped before their analysis
+ *   <li>analyzed classes only keep the counters of their changed lines, methods and classes without
+ *       changed code are dropped
+ * </ul>
+ */
+public class DiffFilter {
+
+  private final Map<String, BitSet> changedLines = new HashMap<String, BitSet>();
+  private final Set<String> packages = new HashSet<String>();
+  private final Set<MavenProject> projects = new HashSet<MavenProject>();
+
+  /**
+   * Maps the changed files onto the source roots of the given projects.
+   *
+   * @param changes changed line numbers by absolute file
+   * @param projects projects to map the changes to
+   * @throws IOException if a path can't be resolved
+   */
+  public DiffFilter(final Map<File, BitSet> changes, final List<MavenProject> projects)
+      throws IOException {
+    // git reports resolved paths, project directories may contain symbolic links
+    final Map<String, BitSet> files = new HashMap<String, BitSet>();
+    for (final Map.Entry<File, BitSet> change : changes.entrySet()) {
+      files.put(change.getKey().getCanonicalPath(), change.getValue());
+    }
+    for (final MavenProject project : projects) {
+      for (final File root : ReportSupport.getCompileSourceRoots(project)) {
+        final String prefix = root.getCanonicalPath() + File.separator;
+        for (final Map.Entry<String, BitSet> change : files.entrySet()) {
+          final String path = change.getKey();
+          if (!path.startsWith(prefix)) {
+            continue;
+          }
+          final String relative = path.substring(prefix.length()).replace(File.separatorChar, '/');
+          final int slash = relative.lastIndexOf('/');
+          packages.add(slash < 0 ? "" : relative.substring(0, slash));
+          changedLines.computeIfAbsent(relative, k -> new BitSet()).or(change.getValue());
+          this.projects.add(project);
+        }
+      }
+    }
+  }
+
+  /**
+   * @return number of changed source files found in the projects
+   */
+  public int getSourceFileCount() {
+    return changedLines.size();
+  }
+
+  /**
+   * @return changed source files, relative to their source root, e.g. <code>
+   *     com/example/Foo.java</code>
+   */
+  public Set<String> getSourceFiles() {
+    return Collections.unmodifiableSet(changedLines.keySet());
+  }
+
+  /**
+   * @param project project to check
+   * @return <code>true</code> if sources of the project were changed
+   */
+  public boolean touches(final MavenProject project) {
+    return projects.contains(project);
+  }
+
+  /**
+   * Checks whether a class file was compiled from a changed source. Only the class header is
+   * parsed, method bodies are skipped.
+   *
+   * @param bytes class file contents
+   * @return <code>true</code> if the class needs to be analyzed
+   */
+  public boolean accepts(final byte[] bytes) {
+    final ClassReader reader = InstrSupport.classReaderFor(bytes);
+    final String name = reader.getClassName();
+    final int slash = name.lastIndexOf('/');
+    final String packageName = slash < 0 ? "" : name.substring(0, slash);
+    if (!packages.contains(packageName)) {
+      return false;
+    }
+    final String[] source = new String[1];
+    reader.accept(
+        new ClassVisitor(InstrSupport.ASM_API_VERSION) {
+          @Override
+          public void visitSource(final String file, final String debug) {
+            source[0] = file;
+          }
+        },
+        ClassReader.SKIP_CODE | ClassReader.SKIP_FRAMES);
+    return source[0] != null && changedLines.containsKey(key(packageName, source[0]));
+  }
+
+  /**
+   * Decorates a visitor so it only receives the changed lines of each class.
+   *
+   * @param delegate visitor receiving the restricted classes
+   * @return visitor restricting classes to their changed lines
+   */
+  public ICoverageVisitor filter(final ICoverageVisitor delegate) {
+    return coverage -> {
+      final IClassCoverage restricted = restrict(coverage);
+      if (restricted != null) {
+        delegate.visitCoverage(restricted);
+      }
+    };
+  }
+
+  private IClassCoverage restrict(final IClassCoverage coverage) {
+    if (coverage.getSourceFileName() == null) {
+      return null;
+    }
+    final BitSet lines =
+        changedLines.get(key(coverage.getPackageName(), coverage.getSourceFileName()));
+    if (lines == null) {
+      return null;
+    }
+    final ClassCoverageImpl result =
+        new ClassCoverageImpl(coverage.getName(), coverage.getId(), coverage.isNoMatch());
+    result.setSignature(coverage.getSignature());
+    result.setSuperName(coverage.getSuperName());
+    result.setInterfaces(coverage.getInterfaceNames());
+    result.setSourceFileName(coverage.getSourceFileName());
+    for (final IMethodCoverage method : coverage.getMethods()) {
+      if (method.getFirstLine() == ISourceNode.UNKNOWN_LINE) {
+        continue;
+      }
+      MethodCoverageImpl changed = null;
+      for (int nr = lines.nextSetBit(method.getFirstLine());
+          nr >= 0 && nr <= method.getLastLine();
+          nr = lines.nextSetBit(nr + 1)) {
+        final ILine line = method.getLine(nr);
+        if (line.getInstructionCounter().getTotalCount() == 0) {
+          continue;
+        }
+        if (changed == null) {
+          changed =
+              new MethodCoverageImpl(method.getName(), method.getDesc(), method.getSignature());
+        }
+        changed.increment(line.getInstructionCounter(), line.getBranchCounter(), nr);
+      }
+      if (changed != null) {
+        changed.incrementMethodCounter();
+        result.addMethod(changed);
+      }
+    }
+    return result.getMethods().isEmpty() ? null : result;
+  }
+
+  private static String key(final String packageName, final String sourceFile) {
+    return packageName.isEmpty() ? sourceFile : packageName + "/" + sourceFile;
+  }
+}
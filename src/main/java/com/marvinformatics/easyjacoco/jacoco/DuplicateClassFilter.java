@@ -0,0 +1,131 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Detects class files that were already seen, by their CRC64 class id, so identical classes found
+ * in several modules (shaded or repackaged jars, copied output directories) are only analyzed once.
+ * Skipped classes are counted per pair of modules for a summary, only the first {@value
+ * #MAX_RECORDED} are recorded one by one. Registering is thread safe.
+ */
+public class DuplicateClassFilter {
+
+  /** A class file skipped because an identical one was already analyzed. */
+  public static class Duplicate {
+    private final String module;
+    private final String originalModule;
+    private final String location;
+
+    Duplicate(final String module, final String originalModule, final String location) {
+      this.module = module;
+      this.originalModule = originalModule;
+      this.location = location;
+    }
+
+    /**
+     * @return module the skipped class file belongs to
+     */
+    public String getModule() {
+      return module;
+    }
+
+    /**
+     * @return module of the identical class file that was analyzed
+     */
+    public String getOriginalModule() {
+      return originalModule;
+    }
+
+    /**
+     * @return location of the skipped class file
+     */
+    public String getLocation() {
+      return location;
+    }
+  }
+
+  /** Skipped class files recorded with their location, the others are only counted. */
+  static final int MAX_RECORDED = 1000;
+
+  private final LongIntHashMap moduleByClass = new LongIntHashMap();
+  private final List<String> modules = new ArrayList<String>();
+  private final Map<String, Integer> moduleIndexes = new HashMap<String, Integer>();
+  private final List<Duplicate> duplicates = new ArrayList<Duplicate>();
+  private final Map<String, Integer> summary = new LinkedHashMap<String, Integer>();
+  private int count;
+
+  /**
+   * Registers a class file and tells whether it should be analyzed.
+   *
+   * @param module module the class file belongs to
+   * @param classId CRC64 id of the class file
+   * @param location location of the class file
+   * @return <code>true</code> if no identical class file was registered before
+   */
+  public synchronized boolean accept(
+      final String module, final long classId, final String location) {
+    final int original = moduleByClass.putIfAbsent(classId, moduleIndex(module));
+    if (original == LongIntHashMap.NO_VALUE) {
+      return true;
+    }
+    final String originalModule = modules.get(original);
+    count++;
+    summary.merge(module + " -> " + originalModule, Integer.valueOf(1), Integer::sum);
+    if (duplicates.size() < MAX_RECORDED) {
+      duplicates.add(new Duplicate(module, originalModule, location));
+    }
+    return false;
+  }
+
+  private int moduleIndex(final String module) {
+    final Integer index = moduleIndexes.get(module);
+    if (index != null) {
+      return index.intValue();
+    }
+    modules.add(module);
+    moduleIndexes.put(module, Integer.valueOf(modules.size() - 1));
+    return modules.size() - 1;
+  }
+
+  /**
+   * @return number of skipped class files
+   */
+  public synchronized int getCount() {
+    return count;
+  }
+
+  /**
+   * @return the first {@value #MAX_RECORDED} skipped class files, in the order they were found
+   */
+  public synchronized List<Duplicate> getDuplicates() {
+    return new ArrayList<Duplicate>(duplicates);
+  }
+
+  /**
+   * Number of skipped class files per module pair.
+   *
+   * @return counts keyed by "module -&gt; original module"
+   */
+  public synchronized Map<String, Integer> getSummary() {
+    return new LinkedHashMap<String, Integer>(summary);
+  }
+}
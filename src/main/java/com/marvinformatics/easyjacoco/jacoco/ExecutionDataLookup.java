@@ -0,0 +1,58 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataStore;
+
+/**
+ * Execution data looked up one class at a time, all {@link DatasetAnalyzer} needs to analyze a
+ * class. JaCoCo's {@link ExecutionDataStore} is final, so stores that keep execution data
+ * differently implement this instead.
+ */
+public interface ExecutionDataLookup {
+
+  /**
+   * @param id class id
+   * @return execution data or <code>null</code> if the class is unknown
+   */
+  ExecutionData get(long id);
+
+  /**
+   * @param name VM name of the class
+   * @return <code>true</code> if execution data for a class with this name exists, regardless of
+   *     its id
+   */
+  boolean contains(String name);
+
+  /**
+   * @param store JaCoCo's execution data store
+   * @return lookup reading from the store
+   */
+  static ExecutionDataLookup of(final ExecutionDataStore store) {
+    return new ExecutionDataLookup() {
+      @Override
+      public ExecutionData get(final long id) {
+        return store.get(id);
+      }
+
+      @Override
+      public boolean contains(final String name) {
+        return store.contains(name);
+      }
+    };
+  }
+}
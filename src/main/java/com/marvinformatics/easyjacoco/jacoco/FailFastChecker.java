@@ -0,0 +1,301 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.ICoverageNode.CounterEntity;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.check.IViolationsOutput;
+import org.jacoco.report.check.Limit;
+import org.jacoco.report.check.Rule;
+import org.jacoco.report.check.RulesChecker;
+
+/**
+ * Checks rules while classes are being analyzed, so a failing check can stop the analysis instead
+ * of waiting for the whole reactor. Class coverage is passed on to the decorated visitor unchanged.
+ *
+ * <p>Only limits whose verdict can't change anymore are checked early:
+ *
+ * <ul>
+ *   <li>all limits of CLASS and METHOD rules, as each class is complete once analyzed
+ *   <li>maximums of BUNDLE and PACKAGE rules on TOTALCOUNT and COVEREDCOUNT, and on MISSEDCOUNT of
+ *       all counters but LINE, as these values only grow while classes are added
+ * </ul>
+ *
+ * Once <code>maxViolations</code> violations are collected the checker is halted and the analysis
+ * is expected to stop. Coverage of Kotlin inline functions, which JaCoCo only attributes back to
+ * their declaring classes after all classes are analyzed, is not taken into account.
+ */
+public class FailFastChecker implements ICoverageVisitor {
+
+  /** A rule violation found while analyzing. */
+  private static class Violation {
+    private final ICoverageNode node;
+    private final Rule rule;
+    private final Limit limit;
+    private final String message;
+
+    Violation(final ICoverageNode node, final Rule rule, final Limit limit, final String message) {
+      this.node = node;
+      this.rule = rule;
+      this.limit = limit;
+      this.message = message;
+    }
+  }
+
+  private final ICoverageVisitor delegate;
+  private final String bundleName;
+  private final IViolationsOutput output;
+  private final int maxViolations;
+  private final IReportVisitor classChecker;
+  private final IReportVisitor growthChecker;
+  private final Map<String, PackageCounters> packages = new HashMap<String, PackageCounters>();
+  private final BundleCounters bundle;
+  private final Set<List<Object>> found = new HashSet<List<Object>>();
+  private final List<Violation> violations = new ArrayList<Violation>();
+  private volatile boolean halted;
+  private boolean reported;
+
+  /**
+   * Creates a checker decorating the given visitor.
+   *
+   * @param delegate visitor receiving the class coverage
+   * @param bundleName name of the bundle the classes end up in, bundle rules are matched against it
+   * @param rules rules to check
+   * @param output receives the violations once the checker halted, see {@link #report()}
+   * @param maxViolations number of violations to collect before halting, at least 1
+   */
+  public FailFastChecker(
+      final ICoverageVisitor delegate,
+      final String bundleName,
+      final Collection<Rule> rules,
+      final IViolationsOutput output,
+      final int maxViolations) {
+    this.delegate = delegate;
+    this.bundleName = bundleName;
+    this.output = output;
+    this.maxViolations = maxViolations;
+    this.classChecker = createChecker(classRules(rules));
+    this.growthChecker = createChecker(growthRules(rules));
+    this.bundle = new BundleCounters(bundleName);
+  }
+
+  /**
+   * Checks whether any of the given rules can be decided before the analysis completes.
+   *
+   * @param rules rules to check
+   * @return <code>true</code> if at least one limit is checked early
+   */
+  public static boolean canDecideEarly(final Collection<Rule> rules) {
+    return !classRules(rules).isEmpty() || !growthRules(rules).isEmpty();
+  }
+
+  private static List<Rule> classRules(final Collection<Rule> rules) {
+    final List<Rule> result = new ArrayList<Rule>();
+    for (final Rule rule : rules) {
+      switch (rule.getElement()) {
+        case CLASS:
+        case METHOD:
+          result.add(rule);
+          break;
+        default:
+          break;
+      }
+    }
+    return result;
+  }
+
+  private static List<Rule> growthRules(final Collection<Rule> rules) {
+    final List<Rule> result = new ArrayList<Rule>();
+    for (final Rule rule : rules) {
+      switch (rule.getElement()) {
+        case BUNDLE:
+        case PACKAGE:
+          final List<Limit> limits = new ArrayList<Limit>();
+          for (final Limit limit : rule.getLimits()) {
+            if (isGrowing(limit)) {
+              limits.add(maximumOf(limit));
+            }
+          }
+          if (!limits.isEmpty()) {
+            final Rule copy = new Rule();
+            copy.setElement(rule.getElement());
+            copy.setIncludes(rule.getIncludes());
+            copy.setExcludes(rule.getExcludes());
+            copy.setLimits(limits);
+            result.add(copy);
+          }
+          break;
+        default:
+          break;
+      }
+    }
+    return result;
+  }
+
+  private static boolean isGrowing(final Limit limit) {
+    if (limit.getMaximum() == null) {
+      return false;
+    }
+    switch (limit.getValue()) {
+      case TOTALCOUNT:
+      case COVEREDCOUNT:
+        return true;
+      case MISSEDCOUNT:
+        // a line missed by one class may still be covered by another class of its source file
+        return limit.getEntity() != CounterEntity.LINE;
+      default:
+        return false;
+    }
+  }
+
+  /** Same limit without its minimum, a minimum can still be reached by classes not seen yet. */
+  private static Limit maximumOf(final Limit limit) {
+    final Limit maximum = new Limit();
+    maximum.setCounter(limit.getEntity().name());
+    maximum.setValue(limit.getValue().name());
+    maximum.setMaximum(limit.getMaximum());
+    return maximum;
+  }
+
+  private IReportVisitor createChecker(final List<Rule> rules) {
+    if (rules.isEmpty()) {
+      return null;
+    }
+    final RulesChecker checker = new RulesChecker();
+    checker.setRules(rules);
+    return checker.createVisitor(this::collect);
+  }
+
+  @Override
+  public void visitCoverage(final IClassCoverage coverage) {
+    delegate.visitCoverage(coverage);
+    synchronized (this) {
+      if (halted) {
+        return;
+      }
+      if (classChecker != null) {
+        check(
+            classChecker,
+            new BundleCoverageImpl(
+                bundleName, Collections.singletonList(coverage), Collections.emptyList()));
+      }
+      if (growthChecker != null) {
+        final PackageCounters counters =
+            packages.computeIfAbsent(coverage.getPackageName(), PackageCounters::new);
+        final ICounter lines = counters.getLineCounter();
+        counters.add(coverage);
+        bundle.add(coverage, counters, lines);
+        check(growthChecker, bundle);
+      }
+    }
+  }
+
+  private static void check(final IReportVisitor checker, final IBundleCoverage coverage) {
+    try {
+      checker.visitBundle(coverage, null);
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private void collect(
+      final ICoverageNode node, final Rule rule, final Limit limit, final String message) {
+    // bundle and package limits stay violated, only the first time counts
+    if (!found.add(List.of(node, limit)) || halted) {
+      return;
+    }
+    violations.add(new Violation(node, rule, limit, message));
+    if (violations.size() >= maxViolations) {
+      halted = true;
+    }
+  }
+
+  /**
+   * @return <code>true</code> once enough violations are collected to stop the analysis
+   */
+  public boolean isHalted() {
+    return halted;
+  }
+
+  /**
+   * @return number of violations collected so far
+   */
+  public synchronized int getViolationCount() {
+    return violations.size();
+  }
+
+  /**
+   * Emits the collected violations to the output. Only the first call reports, later calls do
+   * nothing. Values in the messages are the ones at the time the violation was found.
+   */
+  public synchronized void report() {
+    if (reported) {
+      return;
+    }
+    reported = true;
+    for (final Violation violation : violations) {
+      output.onViolation(violation.node, violation.rule, violation.limit, violation.message);
+    }
+  }
+
+  /** Bundle node summing up all classes seen so far, exposing only the package last updated. */
+  private static class BundleCounters extends CoverageNodeImpl implements IBundleCoverage {
+
+    private IPackageCoverage current;
+
+    BundleCounters(final String name) {
+      super(ElementType.BUNDLE, name);
+    }
+
+    void add(
+        final IClassCoverage coverage, final PackageCounters counters, final ICounter linesBefore) {
+      instructionCounter = instructionCounter.increment(coverage.getInstructionCounter());
+      branchCounter = branchCounter.increment(coverage.getBranchCounter());
+      complexityCounter = complexityCounter.increment(coverage.getComplexityCounter());
+      methodCounter = methodCounter.increment(coverage.getMethodCounter());
+      classCounter = classCounter.increment(coverage.getClassCounter());
+      final ICounter lines = counters.getLineCounter();
+      lineCounter =
+          lineCounter.increment(
+              lines.getMissedCount() - linesBefore.getMissedCount(),
+              lines.getCoveredCount() - linesBefore.getCoveredCount());
+      current = counters;
+    }
+
+    @Override
+    public Collection<IPackageCoverage> getPackages() {
+      return Collections.singletonList(current);
+    }
+  }
+}
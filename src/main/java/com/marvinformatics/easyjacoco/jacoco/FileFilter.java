@@ -28,6 +28,7 @@ public class FileFilter {
 
   private final List<String> includes;
   private final List<String> excludes;
+  private PhaseMetrics metrics;
 
   /**
    * Construct a new FileFilter
@@ -48,7 +49,30 @@ public class FileFilter {
    * @throws IOException if file system access fails
    */
   public List<File> getFiles(final File directory) throws IOException {
-    return getFiles(directory, getIncludes(), getExcludes());
+    if (metrics == null) {
+      return getFiles(directory, getIncludes(), getExcludes());
+    }
+    final PhaseMetrics.Phase scan = metrics.phase(PhaseMetrics.SCAN);
+    final PhaseMetrics.Timer timer = scan.start();
+    try {
+      final List<File> files = getFiles(directory, getIncludes(), getExcludes());
+      scan.addFiles(files.size());
+      return files;
+    } finally {
+      timer.stop();
+    }
+  }
+
+  /**
+   * Records the time spent in {@link #getFiles(File)} and the files found as {@link
+   * PhaseMetrics#SCAN}.
+   *
+   * @param metrics metrics to record to
+   * @return this filter
+   */
+  public FileFilter withMetrics(final PhaseMetrics metrics) {
+    this.metrics = metrics;
+    return this;
   }
 
   public static List<File> getFiles(File directory, String includes, String excludes)
@@ -67,10 +91,27 @@ public class FileFilter {
     }
   }
 
+  /**
+   * Checks a relative path, e.g. an archive entry name, against the includes and excludes.
+   *
+   * @param relativePath path with '/' separators
+   * @return <code>true</code> if the path is included and not excluded
+   */
+  public boolean matches(final String relativePath) {
+    return matches(relativePath, List.of(getIncludes().split(",")), true)
+        && !matches(relativePath, List.of(getExcludes().split(",")), false);
+  }
+
   private static boolean matches(
       Path basePath, Path path, List<String> patterns, boolean defaultIfEmpty) {
     if (patterns.isEmpty()) return defaultIfEmpty;
     String relativePath = basePath.relativize(path).toString().replace(File.separatorChar, '/');
+    return matches(relativePath, patterns, defaultIfEmpty);
+  }
+
+  private static boolean matches(
+      String relativePath, List<String> patterns, boolean defaultIfEmpty) {
+    if (patterns.isEmpty()) return defaultIfEmpty;
     return patterns.stream().anyMatch(p -> relativePath.matches(globToRegex(p.trim())));
   }
 
@@ -0,0 +1,236 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.IReportGroupVisitor;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.check.IViolationsOutput;
+
+/**
+ * JDK Flight Recorder events of the analysis, load and render phases, so a recording of a Maven
+ * build shows what the plugin spends its time on. Events only cost a few field writes while no
+ * recording is running.
+ */
+public final class FlightRecorderEvents {
+
+  /** Every n-th class is recorded by {@link ClassAnalyzed}, to keep recordings small. */
+  static final int CLASS_SAMPLE_INTERVAL = 100;
+
+  private static final AtomicLong classes = new AtomicLong();
+
+  private FlightRecorderEvents() {}
+
+  /**
+   * @return whether the next class analyzed is recorded, see {@link #CLASS_SAMPLE_INTERVAL}
+   */
+  static boolean sampleClass() {
+    return classes.getAndIncrement() % CLASS_SAMPLE_INTERVAL == 0;
+  }
+
+  /** An exec file was loaded. */
+  @Name("com.marvinformatics.easyjacoco.ExecFileLoaded")
+  @Label("Exec File Loaded")
+  @Category({"Maven", "Easy JaCoCo"})
+  @StackTrace(false)
+  static class ExecFileLoaded extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+  }
+
+  /** The class files of a module were scanned and analyzed. */
+  @Name("com.marvinformatics.easyjacoco.ModuleAnalyzed")
+  @Label("Module Analyzed")
+  @Category({"Maven", "Easy JaCoCo"})
+  @Description("External merge analyzes each module once per pass")
+  @StackTrace(false)
+  static class ModuleAnalyzed extends Event {
+    @Label("Module")
+    String module;
+
+    @Label("Class Files")
+    long classFiles;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+  }
+
+  /** A class file was analyzed, only every n-th class is recorded. */
+  @Name("com.marvinformatics.easyjacoco.ClassAnalyzed")
+  @Label("Class Analyzed")
+  @Category({"Maven", "Easy JaCoCo"})
+  @Description("Sampled, one in " + CLASS_SAMPLE_INTERVAL + " class files is recorded")
+  @StackTrace(false)
+  static class ClassAnalyzed extends Event {
+    @Label("Location")
+    String location;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+  }
+
+  /** A report file was written, from its creation until it was closed. */
+  @Name("com.marvinformatics.easyjacoco.ReportPageWritten")
+  @Label("Report Page Written")
+  @Category({"Maven", "Easy JaCoCo"})
+  @StackTrace(false)
+  static class ReportPageWritten extends Event {
+    @Label("Path")
+    String path;
+
+    @Label("Size")
+    @DataAmount
+    long size;
+  }
+
+  /** The rules of a check were evaluated on a bundle. */
+  @Name("com.marvinformatics.easyjacoco.RuleEvaluated")
+  @Label("Rules Evaluated")
+  @Category({"Maven", "Easy JaCoCo"})
+  @StackTrace(false)
+  static class RuleEvaluated extends Event {
+    @Label("Bundle")
+    String bundle;
+
+    @Label("Rules")
+    int rules;
+
+    @Label("Violations")
+    int violations;
+
+    @Label("Classes")
+    long classes;
+  }
+
+  /**
+   * Records a {@link ReportPageWritten} event when the returned stream is closed.
+   *
+   * @param out stream of the report file
+   * @param path path of the report file
+   * @return stream recording the bytes written to <code>out</code>
+   */
+  static OutputStream page(final OutputStream out, final String path) {
+    final ReportPageWritten event = new ReportPageWritten();
+    if (!event.isEnabled()) {
+      return out;
+    }
+    event.begin();
+    return new FilterOutputStream(out) {
+      @Override
+      public void write(final byte[] b, final int off, final int len) throws IOException {
+        out.write(b, off, len);
+        event.size += len;
+      }
+
+      @Override
+      public void write(final int b) throws IOException {
+        out.write(b);
+        event.size++;
+      }
+
+      @Override
+      public void close() throws IOException {
+        super.close();
+        event.end();
+        if (event.shouldCommit()) {
+          event.path = path;
+          event.commit();
+        }
+      }
+    };
+  }
+
+  /**
+   * Records a {@link RuleEvaluated} event for each bundle a rules checker visits.
+   *
+   * @param checker visitor of the rules checker
+   * @param rules number of rules checked
+   * @param violations counts the violations reported by the checker
+   * @return visitor recording the evaluation
+   */
+  static IReportVisitor rules(
+      final IReportVisitor checker, final int rules, final ViolationCounter violations) {
+    return new IReportVisitor() {
+      @Override
+      public void visitInfo(
+          final List<SessionInfo> sessionInfos, final Collection<ExecutionData> executionData)
+          throws IOException {
+        checker.visitInfo(sessionInfos, executionData);
+      }
+
+      @Override
+      public void visitBundle(final IBundleCoverage bundle, final ISourceFileLocator locator)
+          throws IOException {
+        final RuleEvaluated event = new RuleEvaluated();
+        final int before = violations.count;
+        event.begin();
+        checker.visitBundle(bundle, locator);
+        event.end();
+        if (event.shouldCommit()) {
+          event.bundle = bundle.getName();
+          event.rules = rules;
+          event.violations = violations.count - before;
+          event.classes = bundle.getClassCounter().getTotalCount();
+          event.commit();
+        }
+      }
+
+      @Override
+      public IReportGroupVisitor visitGroup(final String name) throws IOException {
+        return checker.visitGroup(name);
+      }
+
+      @Override
+      public void visitEnd() throws IOException {
+        checker.visitEnd();
+      }
+    };
+  }
+
+  /** Counts the violations passed on to an output, for {@link RuleEvaluated}. */
+  static class ViolationCounter {
+    private int count;
+
+    IViolationsOutput counting(final IViolationsOutput output) {
+      return (node, rule, limit, message) -> {
+        count++;
+        output.onViolation(node, rule, limit, message);
+      };
+    }
+  }
+}
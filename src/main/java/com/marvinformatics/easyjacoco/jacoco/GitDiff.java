@@ -0,0 +1,219 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads the lines changed since a base revision from the local git repository, by running <code>
+ * git diff</code> of the working tree against the merge base of the revision and <code>HEAD</code>.
+ * Changes made to the base branch after the current branch was forked are not reported. Nothing is
+ * fetched, the base revision must be available locally.
+ */
+public final class GitDiff {
+
+  private static final Pattern HUNK =
+      Pattern.compile("^@@ -\\d+(?:,\\d+)? \\+(\\d+)(?:,(\\d+))? @@");
+
+  private GitDiff() {}
+
+  /**
+   * Lists the added and modified lines of every file changed since the current branch was forked
+   * from the given base revision. Deleted files and lines are not reported.
+   *
+   * @param directory directory inside the git repository
+   * @param base revision whose merge base with <code>HEAD</code> the working tree is compared with,
+   *     e.g. <code>origin/main</code>
+   * @return changed line numbers, starting at 1, by absolute file
+   * @throws IOException if git can't be run or fails
+   */
+  public static Map<File, BitSet> changedLines(final File directory, final String base)
+      throws IOException {
+    final File root = new File(firstLine(directory, "git", "rev-parse", "--show-toplevel"));
+    final String mergeBase = firstLine(directory, "git", "merge-base", base, "HEAD");
+    final List<String> diff =
+        run(
+            directory,
+            "git",
+            "-c",
+            "core.quotepath=off",
+            "diff",
+            "--unified=0",
+            "--no-color",
+            "--no-ext-diff",
+            "--no-prefix",
+            mergeBase,
+            "--");
+
+    final Map<File, BitSet> changes = new LinkedHashMap<File, BitSet>();
+    BitSet lines = null;
+    boolean header = false;
+    for (final String line : diff) {
+      if (line.startsWith("diff --git ")) {
+        header = true;
+        lines = null;
+        continue;
+      }
+      // added lines starting with "++" look like file headers, those only come before the hunks
+      if (header && line.startsWith("+++ ")) {
+        final String path = unquote(line.substring(4));
+        lines = "/dev/null".equals(path) ? null : new BitSet();
+        if (lines != null) {
+          changes.put(new File(root, path), lines);
+        }
+        continue;
+      }
+      final Matcher hunk = HUNK.matcher(line);
+      if (!hunk.find()) {
+        continue;
+      }
+      header = false;
+      if (lines != null) {
+        final int start = Integer.parseInt(hunk.group(1));
+        final int count = hunk.group(2) == null ? 1 : Integer.parseInt(hunk.group(2));
+        lines.set(start, start + count);
+      }
+    }
+    changes.values().removeIf(BitSet::isEmpty);
+    return changes;
+  }
+
+  /**
+   * Decodes the path of a <code>+++</code> header. Git appends a tab to paths holding a space, and
+   * quotes paths with special characters C style: control characters are escaped, other bytes that
+   * need quoting are written as octal escapes, which may encode UTF-8 sequences.
+   */
+  private static String unquote(final String header) {
+    final String path = header.endsWith("\t") ? header.substring(0, header.length() - 1) : header;
+    if (path.length() < 2 || !path.startsWith("\"") || !path.endsWith("\"")) {
+      return path;
+    }
+    final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    final int end = path.length() - 1;
+    int i = 1;
+    while (i < end) {
+      final int c = path.codePointAt(i);
+      i += Character.charCount(c);
+      if (c != '\\' || i == end) {
+        bytes.writeBytes(new String(Character.toChars(c)).getBytes(StandardCharsets.UTF_8));
+        continue;
+      }
+      final char escaped = path.charAt(i++);
+      switch (escaped) {
+        case 'a':
+          bytes.write(7);
+          break;
+        case 'b':
+          bytes.write('\b');
+          break;
+        case 'f':
+          bytes.write('\f');
+          break;
+        case 'n':
+          bytes.write('\n');
+          break;
+        case 'r':
+          bytes.write('\r');
+          break;
+        case 't':
+          bytes.write('\t');
+          break;
+        case 'v':
+          bytes.write(11);
+          break;
+        default:
+          if (escaped >= '0' && escaped <= '7') {
+            int value = escaped - '0';
+            for (int digits = 1; digits < 3 && i < end; digits++) {
+              final char digit = path.charAt(i);
+              if (digit < '0' || digit > '7') {
+                break;
+              }
+              value = value * 8 + digit - '0';
+              i++;
+            }
+            bytes.write(value);
+          } else {
+            // quotes and backslashes
+            bytes.write(escaped);
+          }
+      }
+    }
+    return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private static String firstLine(final File directory, final String... command)
+      throws IOException {
+    final List<String> output = run(directory, command);
+    if (output.isEmpty()) {
+      throw new IOException(format("'%s' printed nothing", String.join(" ", command)));
+    }
+    return output.get(0);
+  }
+
+  /**
+   * Runs a command and returns its standard output. Standard error goes to a file of its own, so
+   * warnings of git are not mistaken for output, and is only read when the command fails.
+   */
+  private static List<String> run(final File directory, final String... command)
+      throws IOException {
+    final File errors = File.createTempFile("easy-jacoco-git-", ".err");
+    try {
+      final Process process =
+          new ProcessBuilder(command).directory(directory).redirectError(errors).start();
+      final List<String> output = new ArrayList<String>();
+      try (BufferedReader reader =
+          new BufferedReader(
+              new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+        String line;
+        while ((line = reader.readLine()) != null) {
+          output.add(line);
+        }
+      }
+      final int exit = process.waitFor();
+      if (exit != 0) {
+        throw new IOException(
+            format(
+                "'%s' failed with exit code %s: %s",
+                String.join(" ", command),
+                exit,
+                new String(Files.readAllBytes(errors.toPath()), StandardCharsets.UTF_8).trim()));
+      }
+      return output;
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while running git");
+    } finally {
+      Files.deleteIfExists(errors.toPath());
+    }
+  }
+}
@@ -0,0 +1,203 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import org.jacoco.report.IMultiReportOutput;
+
+/**
+ * Writes report files to a directory, leaving files in place whose content didn't change since the
+ * previous report. Rewrites of a multi-page report are then proportional to the change rather than
+ * to the size of the project, which matters on network backed workspaces.
+ *
+ * <p>Files are buffered in memory and compared by SHA-256 with a manifest of the previous report
+ * kept in the directory, so unchanged files are neither written nor read. A file is written anyway
+ * if its size or modification time differs from the manifest, e.g. because it was written by a
+ * report that didn't use this output. Files of the previous report that weren't written again, like
+ * the pages of removed classes, are deleted on {@link #close()}. Files missing from the manifest
+ * are never deleted.
+ */
+public class IncrementalMultiReportOutput implements IMultiReportOutput {
+
+  /** Name of the manifest listing the files of the previous report. */
+  static final String MANIFEST = ".easy-jacoco-pages";
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final File basedir;
+  private final Map<String, Page> previous;
+  private final Map<String, Page> pages = new TreeMap<String, Page>();
+
+  /**
+   * @param basedir directory the report is written to, created if needed
+   * @throws IOException if the manifest of the previous report can't be read
+   */
+  public IncrementalMultiReportOutput(final File basedir) throws IOException {
+    this.basedir = basedir;
+    this.previous = readManifest(new File(basedir, MANIFEST));
+  }
+
+  @Override
+  public OutputStream createFile(final String path) throws IOException {
+    return new ByteArrayOutputStream() {
+      private boolean closed;
+
+      @Override
+      public void close() throws IOException {
+        if (!closed) {
+          closed = true;
+          commit(path, toByteArray());
+        }
+      }
+    };
+  }
+
+  private synchronized void commit(final String path, final byte[] content) throws IOException {
+    final String hash = sha256(content);
+    final File file = new File(basedir, path);
+    final Page old = previous.get(path);
+    if (old != null
+        && old.hash.equals(hash)
+        && file.length() == content.length
+        && file.lastModified() == old.modified) {
+      pages.put(path, old);
+      return;
+    }
+    file.getParentFile().mkdirs();
+    Files.write(file.toPath(), content);
+    pages.put(path, new Page(hash, file.lastModified()));
+  }
+
+  /**
+   * Deletes the files of the previous report that weren't written again and replaces the manifest.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    for (final String path : previous.keySet()) {
+      if (!pages.containsKey(path)) {
+        final File file = new File(basedir, path);
+        if (file.delete()) {
+          deleteEmptyParents(file.getParentFile());
+        }
+      }
+    }
+    writeManifest();
+  }
+
+  private void deleteEmptyParents(final File directory) {
+    // removed packages leave empty directories behind, the base directory is kept
+    File current = directory;
+    while (current != null && !current.equals(basedir)) {
+      final String[] children = current.list();
+      if (children == null || children.length > 0 || !current.delete()) {
+        return;
+      }
+      current = current.getParentFile();
+    }
+  }
+
+  private static Map<String, Page> readManifest(final File manifest) throws IOException {
+    final Map<String, Page> pages = new HashMap<String, Page>();
+    if (!manifest.isFile()) {
+      return pages;
+    }
+    try (BufferedReader reader = Files.newBufferedReader(manifest.toPath())) {
+      for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+        // <sha-256> <modified> <path>, paths may contain spaces
+        final int hashEnd = line.indexOf(' ');
+        final int modifiedEnd = hashEnd < 0 ? -1 : line.indexOf(' ', hashEnd + 1);
+        if (modifiedEnd < 0) {
+          continue;
+        }
+        try {
+          pages.put(
+              line.substring(modifiedEnd + 1),
+              new Page(
+                  line.substring(0, hashEnd),
+                  Long.parseLong(line.substring(hashEnd + 1, modifiedEnd))));
+        } catch (final NumberFormatException e) {
+          // a damaged line only costs rewriting its file
+        }
+      }
+    }
+    return pages;
+  }
+
+  private void writeManifest() throws IOException {
+    basedir.mkdirs();
+    final Path manifest = new File(basedir, MANIFEST).toPath();
+    final Path temp = Files.createTempFile(basedir.toPath(), MANIFEST, null);
+    try {
+      try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+        for (final Map.Entry<String, Page> entry : pages.entrySet()) {
+          writer.write(entry.getValue().hash);
+          writer.write(' ');
+          writer.write(Long.toString(entry.getValue().modified));
+          writer.write(' ');
+          writer.write(entry.getKey());
+          writer.newLine();
+        }
+      }
+      try {
+        Files.move(temp, manifest, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(temp, manifest, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } finally {
+      Files.deleteIfExists(temp);
+    }
+  }
+
+  private static String sha256(final byte[] content) {
+    final byte[] sha;
+    try {
+      sha = MessageDigest.getInstance("SHA-256").digest(content);
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    final char[] hex = new char[2 * sha.length];
+    for (int i = 0; i < sha.length; i++) {
+      hex[2 * i] = HEX[(sha[i] >>> 4) & 0xF];
+      hex[2 * i + 1] = HEX[sha[i] & 0xF];
+    }
+    return new String(hex);
+  }
+
+  private static final class Page {
+    final String hash;
+    final long modified;
+
+    Page(final String hash, final long modified) {
+      this.hash = hash;
+      this.modified = modified;
+    }
+  }
+}
@@ -0,0 +1,313 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import org.apache.maven.plugin.logging.Log;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.report.check.Limit;
+
+/**
+ * Reports rule violations and classes whose execution data doesn't match. Only the first issues are
+ * logged, the rest is summed up when the reporter is closed. Optionally every issue is written to a
+ * file by a background thread, as JSON lines or as CSV when the file name ends with <code>.csv
+ * </code>.
+ */
+public class IssueReporter implements Closeable {
+
+  private static final String[] COLUMNS = {
+    "type", "dataset", "element", "name", "counter", "value", "minimum", "maximum", "message"
+  };
+
+  /** How long the writer and producers wait on the queue before checking on each other. */
+  private static final long POLL_MILLIS = 50;
+
+  private final Log log;
+  private final File file;
+  private final int maxLogged;
+  private final boolean csv;
+  private final BlockingQueue<String> queue;
+  private final Thread writer;
+  private volatile IOException failure;
+  private volatile boolean closed;
+  private int logged;
+  private int violations;
+  private int mismatches;
+  private int suppressedViolations;
+  private int suppressedMismatches;
+
+  /**
+   * Creates a reporter.
+   *
+   * @param log for console output
+   * @param file file to write all issues to, or <code>null</code> to only log them
+   * @param maxLogged number of issues to log before only counting them
+   * @throws IOException if the file can't be created
+   */
+  public IssueReporter(final Log log, final File file, final int maxLogged) throws IOException {
+    this.log = log;
+    this.file = file;
+    this.maxLogged = maxLogged;
+    if (file == null) {
+      this.csv = false;
+      this.queue = null;
+      this.writer = null;
+      return;
+    }
+    this.csv = file.getName().endsWith(".csv");
+    if (file.getParentFile() != null) {
+      Files.createDirectories(file.getParentFile().toPath());
+    }
+    final Writer out = Files.newBufferedWriter(file.toPath(), StandardCharsets.UTF_8);
+    this.queue = new ArrayBlockingQueue<String>(8192);
+    this.writer = new Thread(() -> write(out), "easy-jacoco-issues");
+    this.writer.setDaemon(true);
+    this.writer.start();
+    if (csv) {
+      enqueue(String.join(",", COLUMNS));
+    }
+  }
+
+  /**
+   * Reports a rule violation.
+   *
+   * @param dataset dataset the violation belongs to, or <code>null</code>
+   * @param node element violating the rule
+   * @param limit violated limit
+   * @param message message reported by JaCoCo
+   */
+  public synchronized void violation(
+      final String dataset, final ICoverageNode node, final Limit limit, final String message) {
+    violations++;
+    if (logged < maxLogged) {
+      logged++;
+      log.warn(dataset == null ? message : format("[%s] %s", dataset, message));
+    } else {
+      suppressedViolations++;
+    }
+    if (queue != null) {
+      enqueue(
+          line(
+              "violation",
+              dataset,
+              node.getElementType().name(),
+              node.getName(),
+              limit.getEntity().name(),
+              limit.getValue().name(),
+              limit.getMinimum(),
+              limit.getMaximum(),
+              message));
+    }
+  }
+
+  /**
+   * Reports a class whose execution data doesn't match the class file.
+   *
+   * @param dataset dataset the class was analyzed for, or <code>null</code>
+   * @param className VM name of the class
+   */
+  public synchronized void mismatch(final String dataset, final String className) {
+    mismatches++;
+    final String message = format("Execution data for class %s does not match.", className);
+    if (logged < maxLogged) {
+      logged++;
+      log.warn(dataset == null ? message : format("[%s] %s", dataset, message));
+    } else {
+      suppressedMismatches++;
+    }
+    if (queue != null) {
+      enqueue(line("mismatch", dataset, "CLASS", className, null, null, null, null, message));
+    }
+  }
+
+  /**
+   * @return number of violations reported so far
+   */
+  public synchronized int getViolations() {
+    return violations;
+  }
+
+  /**
+   * @return number of mismatching classes reported so far
+   */
+  public synchronized int getMismatches() {
+    return mismatches;
+  }
+
+  /**
+   * Logs a summary of the issues that were not logged and waits for the file to be written.
+   *
+   * @throws IOException if the file couldn't be written
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (this) {
+      if (suppressedViolations + suppressedMismatches > 0) {
+        log.warn(
+            format(
+                "%s more violations and %s more classes with mismatching execution data were not logged, %s",
+                Integer.valueOf(suppressedViolations),
+                Integer.valueOf(suppressedMismatches),
+                file == null ? "set issuesFile to record all of them" : "see " + file));
+      }
+    }
+    if (writer == null) {
+      return;
+    }
+    closed = true;
+    try {
+      writer.join();
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted while writing " + file);
+    }
+    if (failure == null && !queue.isEmpty()) {
+      failure = new IOException("Writer of " + file + " stopped, issues are not recorded");
+    }
+    if (failure != null) {
+      throw failure;
+    }
+    log.info(format("%s violations and %s mismatches written to %s", violations, mismatches, file));
+  }
+
+  /**
+   * Hands a line to the writer. Waits while the queue is full, but drops the line once the writer
+   * is gone, so producers never block for good while holding the reporter's lock.
+   */
+  private void enqueue(final String line) {
+    try {
+      while (!closed && !queue.offer(line, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+        if (!writer.isAlive()) {
+          if (failure == null) {
+            failure = new IOException("Writer of " + file + " stopped, issues are not recorded");
+          }
+          return;
+        }
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private void write(final Writer out) {
+    try (Writer w = out) {
+      while (!closed || !queue.isEmpty()) {
+        final String line = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+        // keep draining after a failure so producers never block on a full queue
+        if (line != null && failure == null) {
+          try {
+            w.write(line);
+            w.write('\n');
+          } catch (final IOException e) {
+            failure = e;
+          }
+        }
+      }
+    } catch (final IOException e) {
+      if (failure == null) {
+        failure = e;
+      }
+    } catch (final InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (final RuntimeException e) {
+      failure = new IOException("Writer of " + file + " failed: " + e, e);
+    }
+  }
+
+  private String line(final String... values) {
+    final StringBuilder line = new StringBuilder();
+    if (csv) {
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          line.append(',');
+        }
+        appendCsv(line, values[i]);
+      }
+      return line.toString();
+    }
+    line.append('{');
+    boolean first = true;
+    for (int i = 0; i < values.length; i++) {
+      if (values[i] == null) {
+        continue;
+      }
+      if (!first) {
+        line.append(',');
+      }
+      first = false;
+      appendJson(line, COLUMNS[i]);
+      line.append(':');
+      appendJson(line, values[i]);
+    }
+    return line.append('}').toString();
+  }
+
+  private static void appendCsv(final StringBuilder line, final String value) {
+    if (value == null) {
+      return;
+    }
+    if (value.indexOf(',') < 0
+        && value.indexOf('"') < 0
+        && value.indexOf('\n') < 0
+        && value.indexOf('\r') < 0) {
+      line.append(value);
+      return;
+    }
+    line.append('"').append(value.replace("\"", "\"\"")).append('"');
+  }
+
+  private static void appendJson(final StringBuilder line, final String value) {
+    line.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      final char c = value.charAt(i);
+      switch (c) {
+        case '"':
+          line.append("\\\"");
+          break;
+        case '\\':
+          line.append("\\\\");
+          break;
+        case '\n':
+          line.append("\\n");
+          break;
+        case '\r':
+          line.append("\\r");
+          break;
+        case '\t':
+          line.append("\\t");
+          break;
+        default:
+          if (c < 0x20) {
+            line.append(format("\\u%04x", Integer.valueOf(c)));
+          } else {
+            line.append(c);
+          }
+      }
+    }
+    line.append('"');
+  }
+}
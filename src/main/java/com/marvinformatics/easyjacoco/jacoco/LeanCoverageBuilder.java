@@ -0,0 +1,127 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.plugin.logging.Log;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.internal.analysis.BundleCoverageImpl;
+import org.jacoco.report.check.Rule;
+
+/**
+ * Coverage builder for checks whose rules only look at bundles and packages. Each class is folded
+ * into the counters of its package as soon as it's analyzed and then dropped, so method, line and
+ * source file nodes are not retained. The resulting bundle only has package nodes without classes.
+ *
+ * <p>Unlike {@link CoverageBuilder}, the first class analyzed for a name wins when different
+ * classes share a name, since counters that were already folded can't be taken back. Fragments of
+ * Kotlin inline functions are not applied to the classes they were inlined from.
+ */
+public class LeanCoverageBuilder extends CoverageBuilder {
+
+  private final Log log;
+  private final Map<String, PackageCounters> packages;
+  private final Map<String, Long> classIds;
+  private final List<IClassCoverage> noMatch;
+
+  /**
+   * Create a new builder.
+   *
+   * @param log for log output
+   */
+  public LeanCoverageBuilder(final Log log) {
+    this(log, new DuplicateClassFilter());
+  }
+
+  /**
+   * Create a new builder sharing the duplicate filter of another builder, e.g. to fold the classes
+   * of a builder into package counters and continue with this one.
+   *
+   * @param log for log output
+   * @param duplicates filter for class files already fed into any of the builders sharing it
+   */
+  public LeanCoverageBuilder(final Log log, final DuplicateClassFilter duplicates) {
+    super(log, duplicates);
+    this.log = log;
+    this.packages = new LinkedHashMap<String, PackageCounters>();
+    this.classIds = new HashMap<String, Long>();
+    this.noMatch = new ArrayList<IClassCoverage>();
+  }
+
+  /**
+   * Checks whether bundle and package counters are all the given rules need.
+   *
+   * @param rules rules to check
+   * @return <code>true</code> if all rules are on BUNDLE or PACKAGE elements
+   */
+  public static boolean isSufficientFor(final Collection<Rule> rules) {
+    for (final Rule rule : rules) {
+      switch (rule.getElement()) {
+        case BUNDLE:
+        case PACKAGE:
+          break;
+        default:
+          return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public synchronized void visitCoverage(final IClassCoverage coverage) {
+    final String name = coverage.getName();
+    final Long previous = classIds.putIfAbsent(name, Long.valueOf(coverage.getId()));
+    if (previous != null) {
+      if (previous.longValue() != coverage.getId()) {
+        log.warn("Can't add different class with same name: " + name);
+      }
+      return;
+    }
+    packages.computeIfAbsent(coverage.getPackageName(), PackageCounters::new).add(coverage);
+    if (coverage.isNoMatch()) {
+      noMatch.add(coverage);
+    }
+  }
+
+  @Override
+  public Collection<IClassCoverage> getClasses() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<ISourceFileCoverage> getSourceFiles() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public IBundleCoverage getBundle(final String name) {
+    return new BundleCoverageImpl(name, new ArrayList<IPackageCoverage>(packages.values()));
+  }
+
+  @Override
+  public Collection<IClassCoverage> getNoMatchClasses() {
+    return Collections.unmodifiableCollection(noMatch);
+  }
+}
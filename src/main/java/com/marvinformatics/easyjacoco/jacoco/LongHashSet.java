@@ -0,0 +1,135 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+/** Open addressing set of primitive longs, avoids boxing class ids and hashes. */
+public class LongHashSet {
+
+  private static final long EMPTY = 0;
+
+  private long[] keys;
+  private boolean containsEmpty;
+  private int size;
+
+  /** Creates an empty set. */
+  public LongHashSet() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty set sized for the given number of elements.
+   *
+   * @param expected expected number of elements
+   */
+  public LongHashSet(final int expected) {
+    keys = new long[tableSize(expected)];
+  }
+
+  /**
+   * Adds a value to the set.
+   *
+   * @param value value to add
+   * @return <code>true</code> if the value was not contained before
+   */
+  public boolean add(final long value) {
+    if (value == EMPTY) {
+      if (containsEmpty) {
+        return false;
+      }
+      containsEmpty = true;
+      size++;
+      return true;
+    }
+    int slot = slot(value, keys.length);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == value) {
+        return false;
+      }
+      slot = (slot + 1) & (keys.length - 1);
+    }
+    keys[slot] = value;
+    if (++size * 2 > keys.length) {
+      rehash();
+    }
+    return true;
+  }
+
+  /**
+   * Checks whether the value is contained.
+   *
+   * @param value value to look up
+   * @return <code>true</code> if the value is contained
+   */
+  public boolean contains(final long value) {
+    if (value == EMPTY) {
+      return containsEmpty;
+    }
+    int slot = slot(value, keys.length);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == value) {
+        return true;
+      }
+      slot = (slot + 1) & (keys.length - 1);
+    }
+    return false;
+  }
+
+  /**
+   * Number of values in the set.
+   *
+   * @return size of the set
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Approximate heap used by the set.
+   *
+   * @return size in bytes
+   */
+  public long memoryUsage() {
+    return 8L * keys.length;
+  }
+
+  private void rehash() {
+    final long[] old = keys;
+    keys = new long[old.length * 2];
+    for (final long key : old) {
+      if (key != EMPTY) {
+        int slot = slot(key, keys.length);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = key;
+      }
+    }
+  }
+
+  static int tableSize(final int expected) {
+    int size = 16;
+    while (size < expected * 2) {
+      size <<= 1;
+    }
+    return size;
+  }
+
+  static int slot(final long value, final int tableLength) {
+    long h = value * 0x9E3779B97F4A7C15L;
+    h ^= h >>> 32;
+    return (int) h & (tableLength - 1);
+  }
+}
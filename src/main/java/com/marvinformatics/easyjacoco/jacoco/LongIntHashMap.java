@@ -0,0 +1,134 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+/**
+ * Open addressing map of primitive longs to non-negative ints, avoids boxing class ids and the
+ * indexes they map to.
+ */
+public class LongIntHashMap {
+
+  /** Returned for keys that aren't contained. */
+  public static final int NO_VALUE = -1;
+
+  private static final long EMPTY = 0;
+
+  private long[] keys;
+  private int[] values;
+  private int emptyValue = NO_VALUE;
+  private int size;
+
+  /** Creates an empty map. */
+  public LongIntHashMap() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty map sized for the given number of entries.
+   *
+   * @param expected expected number of entries
+   */
+  public LongIntHashMap(final int expected) {
+    keys = new long[LongHashSet.tableSize(expected)];
+    values = new int[keys.length];
+  }
+
+  /**
+   * Maps the key to the value unless it is already mapped.
+   *
+   * @param key key to add
+   * @param value value to map the key to, not negative
+   * @return value the key was mapped to before, or {@link #NO_VALUE} if it was added
+   */
+  public int putIfAbsent(final long key, final int value) {
+    if (key == EMPTY) {
+      if (emptyValue != NO_VALUE) {
+        return emptyValue;
+      }
+      emptyValue = value;
+      size++;
+      return NO_VALUE;
+    }
+    int slot = LongHashSet.slot(key, keys.length);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & (keys.length - 1);
+    }
+    keys[slot] = key;
+    values[slot] = value;
+    if (++size * 2 > keys.length) {
+      rehash();
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * Looks the value of a key up.
+   *
+   * @param key key to look up
+   * @return value of the key, or {@link #NO_VALUE} if it isn't contained
+   */
+  public int get(final long key) {
+    if (key == EMPTY) {
+      return emptyValue;
+    }
+    int slot = LongHashSet.slot(key, keys.length);
+    while (keys[slot] != EMPTY) {
+      if (keys[slot] == key) {
+        return values[slot];
+      }
+      slot = (slot + 1) & (keys.length - 1);
+    }
+    return NO_VALUE;
+  }
+
+  /**
+   * Number of entries in the map.
+   *
+   * @return size of the map
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Approximate heap used by the map.
+   *
+   * @return size in bytes
+   */
+  public long memoryUsage() {
+    return 12L * keys.length;
+  }
+
+  private void rehash() {
+    final long[] oldKeys = keys;
+    final int[] oldValues = values;
+    keys = new long[oldKeys.length * 2];
+    values = new int[keys.length];
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldKeys[i] != EMPTY) {
+        int slot = LongHashSet.slot(oldKeys[i], keys.length);
+        while (keys[slot] != EMPTY) {
+          slot = (slot + 1) & (keys.length - 1);
+        }
+        keys[slot] = oldKeys[i];
+        values[slot] = oldValues[i];
+      }
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Reads exec files by memory-mapping them and decoding the JaCoCo block format in place. Probes are
+ * merged into a {@link PackedExecutionDataStore} straight from the mapped buffer, so neither <code>
+ * ExecutionData</code> objects nor probe arrays are created while loading.
+ *
+ * <p>Files larger than 2 GB can't be mapped into a single buffer and are read with JaCoCo's {@link
+ * ExecutionDataReader} instead.
+ */
+public class MappedExecFileReader {
+
+  private final ISessionInfoVisitor sessionInfoVisitor;
+  private final PackedExecutionDataStore store;
+
+  /**
+   * Creates a reader.
+   *
+   * @param sessionInfoVisitor receives the session infos
+   * @param store store the execution data is merged into
+   */
+  public MappedExecFileReader(
+      final ISessionInfoVisitor sessionInfoVisitor, final PackedExecutionDataStore store) {
+    this.sessionInfoVisitor = sessionInfoVisitor;
+    this.store = store;
+  }
+
+  /**
+   * Reads all blocks of the given exec file.
+   *
+   * @param file exec file to read
+   * @throws IOException if the file can't be read or is not a valid exec file
+   */
+  public void read(final File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      if (channel.size() > Integer.MAX_VALUE) {
+        readStream(file);
+        return;
+      }
+      final MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      read(buffer);
+    } catch (final BufferUnderflowException e) {
+      throw new EOFException(format("Unexpected end of execution data file %s", file));
+    }
+  }
+
+  private void readStream(final File file) throws IOException {
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file))) {
+      final ExecutionDataReader reader = new ExecutionDataReader(in);
+      reader.setSessionInfoVisitor(sessionInfoVisitor);
+      reader.setExecutionDataVisitor(store);
+      reader.read();
+    }
+  }
+
+  private void read(final ByteBuffer buffer) throws IOException {
+    boolean firstBlock = true;
+    while (buffer.hasRemaining()) {
+      final byte type = buffer.get();
+      if (firstBlock && type != ExecutionDataWriter.BLOCK_HEADER) {
+        throw new IOException("Invalid execution data file.");
+      }
+      firstBlock = false;
+      switch (type) {
+        case ExecutionDataWriter.BLOCK_HEADER:
+          readHeader(buffer);
+          break;
+        case ExecutionDataWriter.BLOCK_SESSIONINFO:
+          readSessionInfo(buffer);
+          break;
+        case ExecutionDataWriter.BLOCK_EXECUTIONDATA:
+          readExecutionData(buffer);
+          break;
+        default:
+          throw new IOException(format("Unknown block type %x.", Byte.valueOf(type)));
+      }
+    }
+  }
+
+  private static void readHeader(final ByteBuffer buffer) throws IOException {
+    if (buffer.getChar() != ExecutionDataWriter.MAGIC_NUMBER) {
+      throw new IOException("Invalid execution data file.");
+    }
+    final char version = buffer.getChar();
+    if (version != ExecutionDataWriter.FORMAT_VERSION) {
+      throw new IOException(format("Incompatible version %x.", Integer.valueOf(version)));
+    }
+  }
+
+  private void readSessionInfo(final ByteBuffer buffer) {
+    final int length = buffer.getChar();
+    final String id = PackedExecutionDataStore.decode(buffer, skip(buffer, length), length);
+    final long start = buffer.getLong();
+    final long dump = buffer.getLong();
+    sessionInfoVisitor.visitSessionInfo(new SessionInfo(id, start, dump));
+  }
+
+  private void readExecutionData(final ByteBuffer buffer) {
+    final long id = buffer.getLong();
+    final int nameLength = buffer.getChar();
+    final int nameOffset = skip(buffer, nameLength);
+    final int probeCount = readVarInt(buffer);
+    final int bitsOffset = skip(buffer, PackedExecutionDataStore.bitsetLength(probeCount));
+    store.merge(id, buffer, nameOffset, nameLength, bitsOffset, probeCount);
+  }
+
+  /** Advances over the given number of bytes and returns the position they start at. */
+  private static int skip(final ByteBuffer buffer, final int length) {
+    final int offset = buffer.position();
+    if (length > buffer.remaining()) {
+      throw new BufferUnderflowException();
+    }
+    buffer.position(offset + length);
+    return offset;
+  }
+
+  /** Same encoding as <code>CompactDataOutput.writeVarInt</code>: 7 bits per byte, LSB first. */
+  private static int readVarInt(final ByteBuffer buffer) {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = buffer.get() & 0xFF;
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+}
@@ -0,0 +1,167 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Heap budget of a goal. The budget is compared with the heap still in use after the most recent
+ * full garbage collection, one that also collects the old generation, so garbage that wasn't
+ * collected yet doesn't count against it. The usage after a young collection still includes all the
+ * garbage of the old generation. While the heap in use is below the budget nothing is measured,
+ * above it a full collection is requested unless one ran since the previous check.
+ */
+public class MemoryBudget {
+
+  /** Share of the maximum heap used as budget when none is configured. */
+  static final double DEFAULT_SHARE = 0.75;
+
+  private final long bytes;
+
+  /** Id of the full collection measured by the previous check. */
+  private long measuredCollection = -1;
+
+  /**
+   * @param bytes budget in bytes, or <code>0</code> for {@link #DEFAULT_SHARE} of the maximum heap
+   */
+  public MemoryBudget(final long bytes) {
+    this.bytes = bytes > 0 ? bytes : (long) (Runtime.getRuntime().maxMemory() * DEFAULT_SHARE);
+  }
+
+  /**
+   * @return budget in bytes
+   */
+  public long getBytes() {
+    return bytes;
+  }
+
+  /**
+   * @return whether the heap retained after a full garbage collection is above the budget
+   */
+  public synchronized boolean isExceeded() {
+    // garbage only adds to the heap in use, below the budget there's nothing to measure
+    if (PhaseMetrics.usedHeap() <= bytes) {
+      return false;
+    }
+    com.sun.management.GcInfo last = lastFullCollection();
+    if (last == null || last.getId() == measuredCollection) {
+      System.gc();
+      last = lastFullCollection();
+    }
+    if (last != null) {
+      measuredCollection = last.getId();
+    }
+    return retainedHeap(last) > bytes;
+  }
+
+  /**
+   * @param metrics metrics of the goal that ran out of memory
+   * @return message naming the phase and module the goal ran out of memory in
+   */
+  public static String describeOutOfMemory(final PhaseMetrics metrics) {
+    return String.format(
+        "Out of memory during %s, peak heap sampled %s MB of %s MB. Lower memoryBudget to switch"
+            + " to low memory analysis earlier, or raise the maximum heap with -Xmx in MAVEN_OPTS",
+        metrics.getActivity(),
+        Long.valueOf(metrics.getPeakHeap() / (1024 * 1024)),
+        Long.valueOf(Runtime.getRuntime().maxMemory() / (1024 * 1024)));
+  }
+
+  /**
+   * @return heap in use after the most recent full garbage collection, in bytes
+   */
+  public static long retainedHeap() {
+    return retainedHeap(lastFullCollection());
+  }
+
+  private static long retainedHeap(final com.sun.management.GcInfo last) {
+    if (last == null) {
+      return collectionUsage();
+    }
+    final Map<String, MemoryUsage> after = last.getMemoryUsageAfterGc();
+    long retained = 0;
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      final MemoryUsage usage = after.get(pool.getName());
+      if (pool.getType() == MemoryType.HEAP && usage != null) {
+        retained += usage.getUsed();
+      }
+    }
+    return retained;
+  }
+
+  /**
+   * Heap in use after the most recent collection of each pool, for JVMs that don't report full
+   * collections or ignore explicit ones. The old generation is only collected by full collections
+   * on most collectors.
+   */
+  private static long collectionUsage() {
+    long retained = 0;
+    boolean reported = false;
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      final MemoryUsage usage =
+          pool.getType() == MemoryType.HEAP ? pool.getCollectionUsage() : null;
+      if (usage != null) {
+        retained += usage.getUsed();
+        reported = true;
+      }
+    }
+    return reported ? retained : PhaseMetrics.usedHeap();
+  }
+
+  /** The most recent collection of all heap pools, or <code>null</code> if there was none yet. */
+  private static com.sun.management.GcInfo lastFullCollection() {
+    final Set<String> heapPools = new HashSet<String>();
+    for (final MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+      if (pool.getType() == MemoryType.HEAP) {
+        heapPools.add(pool.getName());
+      }
+    }
+    com.sun.management.GcInfo last = null;
+    for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+      if (collector instanceof com.sun.management.GarbageCollectorMXBean
+          && isFullCollector(collector, heapPools)) {
+        final com.sun.management.GcInfo info =
+            ((com.sun.management.GarbageCollectorMXBean) collector).getLastGcInfo();
+        if (info != null && (last == null || info.getEndTime() > last.getEndTime())) {
+          last = info;
+        }
+      }
+    }
+    return last;
+  }
+
+  /**
+   * Whether the collector collects the whole heap. Young collectors of the serial and parallel
+   * collectors don't manage the old generation, G1 and generational ZGC name theirs, and the pause
+   * beans of ZGC and Shenandoah report heap usage at pauses, not after a cycle.
+   */
+  private static boolean isFullCollector(
+      final GarbageCollectorMXBean collector, final Set<String> heapPools) {
+    final String name = collector.getName();
+    return Arrays.asList(collector.getMemoryPoolNames()).containsAll(heapPools)
+        && !name.contains("Young")
+        && !name.contains("Minor")
+        && !name.contains("Pauses");
+  }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+
+/**
+ * Package node holding just the counters of its classes, without the class and source file nodes.
+ * Lines of classes sharing a source file are merged like {@link ISourceFileCoverage} does, keeping
+ * one bit per line for "has code" and "is covered", so the line counter is exact at any time.
+ */
+class PackageCounters extends CoverageNodeImpl implements IPackageCoverage {
+
+  private final Map<String, BitSet[]> sourceLines = new HashMap<String, BitSet[]>();
+
+  PackageCounters(final String name) {
+    super(ElementType.PACKAGE, name);
+  }
+
+  /**
+   * Adds the counters of a class to this package.
+   *
+   * @param coverage class to add
+   */
+  void add(final IClassCoverage coverage) {
+    instructionCounter = instructionCounter.increment(coverage.getInstructionCounter());
+    branchCounter = branchCounter.increment(coverage.getBranchCounter());
+    complexityCounter = complexityCounter.increment(coverage.getComplexityCounter());
+    methodCounter = methodCounter.increment(coverage.getMethodCounter());
+    classCounter = classCounter.increment(coverage.getClassCounter());
+    if (coverage.getSourceFileName() == null) {
+      lineCounter = lineCounter.increment(coverage.getLineCounter());
+      return;
+    }
+    final BitSet[] lines =
+        sourceLines.computeIfAbsent(
+            coverage.getSourceFileName(), f -> new BitSet[] {new BitSet(), new BitSet()});
+    int missed = 0;
+    int covered = 0;
+    for (int nr = coverage.getFirstLine(); nr != ISourceNode.UNKNOWN_LINE; nr++) {
+      final ICounter instructions = coverage.getLine(nr).getInstructionCounter();
+      if (instructions.getTotalCount() > 0) {
+        final boolean known = lines[0].get(nr);
+        final boolean wasCovered = lines[1].get(nr);
+        lines[0].set(nr);
+        if (instructions.getCoveredCount() > 0) {
+          lines[1].set(nr);
+          if (!known) {
+            covered++;
+          } else if (!wasCovered) {
+            // a line missed by another class of the same source file
+            missed--;
+            covered++;
+          }
+        } else if (!known) {
+          missed++;
+        }
+      }
+      if (nr == coverage.getLastLine()) {
+        break;
+      }
+    }
+    lineCounter = lineCounter.increment(missed, covered);
+  }
+
+  @Override
+  public Collection<IClassCoverage> getClasses() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<ISourceFileCoverage> getSourceFiles() {
+    return Collections.emptyList();
+  }
+}
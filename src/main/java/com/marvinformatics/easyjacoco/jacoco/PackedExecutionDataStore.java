@@ -0,0 +1,396 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.IExecutionDataVisitor;
+
+/**
+ * Execution data store with a small heap footprint. Class ids are kept in an open addressing <code>
+ * long</code> hash table, class names and probes live in a direct buffer: names as modified UTF-8,
+ * probes as bitsets in the same bit order as exec files.
+ *
+ * <p>Classes are analyzed with a {@link DatasetAnalyzer}, which looks their execution data up in
+ * place. Every lookup decodes the name and probes from the buffer, trading lookup time for heap.
+ */
+public class PackedExecutionDataStore implements IExecutionDataVisitor, ExecutionDataLookup {
+
+  private static final int EMPTY = -1;
+
+  /** probe count (int) and name length (short) precede the name and probe bytes. */
+  private static final int RECORD_HEADER = 6;
+
+  private static final int INITIAL_BUFFER = 1024 * 1024;
+
+  private long[] keys;
+  private int[] offsets;
+  private int size;
+
+  private ByteBuffer data;
+  private int limit;
+
+  private final LongHashSet names;
+
+  /** Creates an empty store. */
+  public PackedExecutionDataStore() {
+    this(1024);
+  }
+
+  /**
+   * Creates an empty store sized for the given number of classes.
+   *
+   * @param expectedClasses expected number of classes
+   */
+  public PackedExecutionDataStore(final int expectedClasses) {
+    final int tableSize = LongHashSet.tableSize(expectedClasses);
+    this.keys = new long[tableSize];
+    this.offsets = new int[tableSize];
+    Arrays.fill(offsets, EMPTY);
+    this.data = ByteBuffer.allocateDirect(INITIAL_BUFFER);
+    this.names = new LongHashSet(expectedClasses);
+  }
+
+  // === IExecutionDataVisitor ===
+
+  @Override
+  public void visitClassExecution(final ExecutionData executionData) {
+    final byte[] name = encode(executionData.getName());
+    final boolean[] probes = executionData.getProbes();
+    final byte[] record = new byte[name.length + bitsetLength(probes.length)];
+    System.arraycopy(name, 0, record, 0, name.length);
+    for (int i = 0; i < probes.length; i++) {
+      if (probes[i]) {
+        record[name.length + (i >>> 3)] |= (byte) (1 << (i & 7));
+      }
+    }
+    merge(
+        executionData.getId(), ByteBuffer.wrap(record), 0, name.length, name.length, probes.length);
+  }
+
+  /**
+   * Merges the probes of a class into the store, reading name and probes straight from the given
+   * buffer. Bytes are only copied when the class is new to the store.
+   *
+   * @param id class id
+   * @param source buffer holding the class name and probes
+   * @param nameOffset absolute position of the class name, as modified UTF-8, in <code>source
+   *     </code>
+   * @param nameLength length of the class name in bytes
+   * @param bitsOffset absolute position of the probes, as bitset, in <code>source</code>
+   * @param probeCount number of probes
+   * @throws IllegalStateException if the class is already known with a different name or probe
+   *     count
+   */
+  public void merge(
+      final long id,
+      final ByteBuffer source,
+      final int nameOffset,
+      final int nameLength,
+      final int bitsOffset,
+      final int probeCount) {
+    final int slot = find(id);
+    final int length = bitsetLength(probeCount);
+    if (offsets[slot] == EMPTY) {
+      final int record = append(source, nameOffset, nameLength, probeCount, length);
+      final int bits = record + RECORD_HEADER + nameLength;
+      for (int i = 0; i < length; i++) {
+        data.put(bits + i, source.get(bitsOffset + i));
+      }
+      keys[slot] = id;
+      offsets[slot] = record;
+      names.add(hash(source, nameOffset, nameLength));
+      if (++size * 2 > keys.length) {
+        rehash();
+      }
+      return;
+    }
+
+    final int record = offsets[slot];
+    assertCompatible(record, id, source, nameOffset, nameLength, probeCount);
+    final int bits = bitsOffset(record);
+    for (int i = 0; i < length; i++) {
+      data.put(bits + i, (byte) (data.get(bits + i) | source.get(bitsOffset + i)));
+    }
+  }
+
+  private int append(
+      final ByteBuffer source,
+      final int nameOffset,
+      final int nameLength,
+      final int probeCount,
+      final int bitsetLength) {
+    ensureCapacity(RECORD_HEADER + nameLength + bitsetLength);
+    data.putInt(limit, probeCount);
+    data.putShort(limit + 4, (short) nameLength);
+    for (int i = 0; i < nameLength; i++) {
+      data.put(limit + RECORD_HEADER + i, source.get(nameOffset + i));
+    }
+    final int record = limit;
+    limit += RECORD_HEADER + nameLength + bitsetLength;
+    return record;
+  }
+
+  private void ensureCapacity(final int bytes) {
+    if (limit + bytes <= data.capacity()) {
+      return;
+    }
+    long capacity = data.capacity();
+    while (capacity < limit + (long) bytes) {
+      capacity *= 2;
+    }
+    if (capacity > Integer.MAX_VALUE) {
+      if (limit + (long) bytes > Integer.MAX_VALUE) {
+        throw new IllegalStateException("Execution data exceeds 2 GB packed store capacity");
+      }
+      capacity = Integer.MAX_VALUE;
+    }
+    final ByteBuffer grown = ByteBuffer.allocateDirect((int) capacity);
+    final ByteBuffer source = data.duplicate();
+    source.position(0).limit(limit);
+    grown.put(source);
+    data = grown;
+  }
+
+  private void assertCompatible(
+      final int record,
+      final long id,
+      final ByteBuffer source,
+      final int nameOffset,
+      final int nameLength,
+      final int probeCount) {
+    boolean sameName = (data.getShort(record + 4) & 0xFFFF) == nameLength;
+    for (int i = 0; sameName && i < nameLength; i++) {
+      sameName = data.get(record + RECORD_HEADER + i) == source.get(nameOffset + i);
+    }
+    if (!sameName) {
+      throw new IllegalStateException(
+          format(
+              "Different class names %s and %s for id %016x.",
+              nameAt(record), decode(source, nameOffset, nameLength), Long.valueOf(id)));
+    }
+    if (data.getInt(record) != probeCount) {
+      throw new IllegalStateException(
+          format(
+              "Incompatible execution data for class %s with id %016x.",
+              nameAt(record), Long.valueOf(id)));
+    }
+  }
+
+  // === lookups ===
+
+  /**
+   * Returns a copy of the execution data for the given class.
+   *
+   * @param id class id
+   * @return execution data or <code>null</code> if the class is unknown
+   */
+  @Override
+  public ExecutionData get(final long id) {
+    final int record = offsets[find(id)];
+    if (record == EMPTY) {
+      return null;
+    }
+    return new ExecutionData(id, nameAt(record), probesAt(record));
+  }
+
+  /**
+   * Checks whether execution data for a class with the given name exists, regardless of its id.
+   * Uses 64 bit name hashes, so a false positive is possible but practically never happens.
+   *
+   * @param name VM name of the class
+   * @return <code>true</code> if a class with this name is contained
+   */
+  @Override
+  public boolean contains(final String name) {
+    final byte[] encoded = encode(name);
+    return names.contains(hash(ByteBuffer.wrap(encoded), 0, encoded.length));
+  }
+
+  /**
+   * Lists all classes with id and name but without probes, which is all report headers need.
+   *
+   * @return execution data entries with empty probe arrays
+   */
+  public List<ExecutionData> getContentsWithoutProbes() {
+    final List<ExecutionData> result = new ArrayList<ExecutionData>(size);
+    for (int slot = 0; slot < keys.length; slot++) {
+      if (offsets[slot] != EMPTY) {
+        result.add(new ExecutionData(keys[slot], nameAt(offsets[slot]), 0));
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Emits copies of all entries to the given visitor.
+   *
+   * @param visitor visitor to emit the entries to
+   */
+  public void accept(final IExecutionDataVisitor visitor) {
+    for (int slot = 0; slot < keys.length; slot++) {
+      final int record = offsets[slot];
+      if (record != EMPTY) {
+        visitor.visitClassExecution(
+            new ExecutionData(keys[slot], nameAt(record), probesAt(record)));
+      }
+    }
+  }
+
+  /**
+   * Number of classes in the store.
+   *
+   * @return number of classes
+   */
+  public int size() {
+    return size;
+  }
+
+  /**
+   * Approximate memory held by the store, on and off heap.
+   *
+   * @return size in bytes
+   */
+  public long memoryUsage() {
+    return data.capacity() + 12L * keys.length + names.memoryUsage();
+  }
+
+  // === internals ===
+
+  private int find(final long id) {
+    int slot = LongHashSet.slot(id, keys.length);
+    while (offsets[slot] != EMPTY && keys[slot] != id) {
+      slot = (slot + 1) & (keys.length - 1);
+    }
+    return slot;
+  }
+
+  private void rehash() {
+    final long[] oldKeys = keys;
+    final int[] oldOffsets = offsets;
+    keys = new long[oldKeys.length * 2];
+    offsets = new int[oldKeys.length * 2];
+    Arrays.fill(offsets, EMPTY);
+    for (int i = 0; i < oldKeys.length; i++) {
+      if (oldOffsets[i] != EMPTY) {
+        final int slot = find(oldKeys[i]);
+        keys[slot] = oldKeys[i];
+        offsets[slot] = oldOffsets[i];
+      }
+    }
+  }
+
+  private int bitsOffset(final int record) {
+    return record + RECORD_HEADER + (data.getShort(record + 4) & 0xFFFF);
+  }
+
+  private boolean[] probesAt(final int record) {
+    final boolean[] probes = new boolean[data.getInt(record)];
+    final int bits = bitsOffset(record);
+    for (int i = 0; i < probes.length; i++) {
+      probes[i] = (data.get(bits + (i >>> 3)) & (1 << (i & 7))) != 0;
+    }
+    return probes;
+  }
+
+  private String nameAt(final int record) {
+    return decode(data, record + RECORD_HEADER, data.getShort(record + 4) & 0xFFFF);
+  }
+
+  static int bitsetLength(final int probeCount) {
+    return (probeCount + 7) >>> 3;
+  }
+
+  /** FNV-1a over the encoded name. */
+  static long hash(final ByteBuffer source, final int offset, final int length) {
+    long hash = 0xcbf29ce484222325L;
+    for (int i = 0; i < length; i++) {
+      hash ^= source.get(offset + i) & 0xFF;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
+  static byte[] encode(final String name) {
+    if (isAscii(name)) {
+      return name.getBytes(StandardCharsets.ISO_8859_1);
+    }
+    try {
+      final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      new DataOutputStream(buffer).writeUTF(name);
+      return Arrays.copyOfRange(buffer.toByteArray(), 2, buffer.size());
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Decodes a modified UTF-8 string without length prefix.
+   *
+   * @param source buffer holding the string
+   * @param offset absolute position of the string
+   * @param length length in bytes
+   * @return decoded string
+   */
+  static String decode(final ByteBuffer source, final int offset, final int length) {
+    final byte[] name = new byte[length];
+    for (int i = 0; i < length; i++) {
+      name[i] = source.get(offset + i);
+    }
+    return decode(name);
+  }
+
+  static String decode(final byte[] name) {
+    boolean ascii = true;
+    for (int i = 0; ascii && i < name.length; i++) {
+      ascii = name[i] > 0;
+    }
+    if (ascii) {
+      return new String(name, StandardCharsets.ISO_8859_1);
+    }
+    final byte[] withLength = new byte[name.length + 2];
+    withLength[0] = (byte) (name.length >>> 8);
+    withLength[1] = (byte) name.length;
+    System.arraycopy(name, 0, withLength, 2, name.length);
+    try {
+      return new DataInputStream(new ByteArrayInputStream(withLength)).readUTF();
+    } catch (final IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static boolean isAscii(final String name) {
+    for (int i = 0; i < name.length(); i++) {
+      final char c = name.charAt(i);
+      if (c == 0 || c > 0x7F) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
@@ -0,0 +1,383 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import org.apache.maven.plugin.MojoExecution;
+import org.apache.maven.plugin.logging.Log;
+
+/**
+ * Wall time, bytes and item counts of the phases of a goal, to tell where its time goes. Counters
+ * are thread safe, so archives scanned by several threads can count classes concurrently.
+ *
+ * <p>Phases may nest: {@link #SCAN} is part of {@link #ANALYZE} when class directories are walked,
+ * and {@link #SOURCES} is part of {@link #REPORT} as formatters look up sources while rendering.
+ *
+ * <p>Heap usage is sampled whenever a phase timer stops and after each module is analyzed, keeping
+ * the peak per phase and per module. Samples include garbage that wasn't collected yet, they show
+ * where heap grows rather than what is retained.
+ */
+public class PhaseMetrics {
+
+  /** Walking directories for exec and class files matched by a {@link FileFilter}. */
+  public static final String SCAN = "scan";
+
+  /** Reading exec files. */
+  public static final String LOAD = "load";
+
+  /** Reading and analyzing class files. */
+  public static final String ANALYZE = "analyze";
+
+  /** Looking up source files for the report. */
+  public static final String SOURCES = "sources";
+
+  /** Formatters and rule checks visiting the analyzed bundles. */
+  public static final String REPORT = "report";
+
+  /** Instrumenting class files. */
+  public static final String INSTRUMENT = "instrument";
+
+  /** Modules listed in the log, the JSON file lists all. */
+  private static final int LOGGED_MODULES = 5;
+
+  private final Map<String, Phase> phases = new LinkedHashMap<String, Phase>();
+  private final Map<String, Long> moduleHeap = new LinkedHashMap<String, Long>();
+  private volatile String activePhase;
+  private volatile String activeModule;
+
+  /** Creates metrics listing the known phases in the order they usually run. */
+  public PhaseMetrics() {
+    for (final String name : new String[] {SCAN, LOAD, ANALYZE, SOURCES, REPORT, INSTRUMENT}) {
+      phase(name);
+    }
+  }
+
+  /**
+   * @param name name of the phase
+   * @return counters of the phase, created on first use
+   */
+  public synchronized Phase phase(final String name) {
+    return phases.computeIfAbsent(name, n -> new Phase(this, n));
+  }
+
+  /**
+   * Records the module being worked on, named in {@link #getActivity()}.
+   *
+   * @param module name of the module, or <code>null</code> when the work isn't about a module
+   */
+  public void enterModule(final String module) {
+    this.activeModule = module;
+  }
+
+  /**
+   * Samples the heap used after a module is analyzed, keeping the peak per module.
+   *
+   * @param module name of the module
+   */
+  public synchronized void sampleModule(final String module) {
+    moduleHeap.merge(module, Long.valueOf(usedHeap()), (a, b) -> Math.max(a, b));
+  }
+
+  /**
+   * Describes what the goal was doing last, e.g. to tell which phase and module ran out of memory.
+   *
+   * @return phase started last and module worked on last
+   */
+  public String getActivity() {
+    final String phase = activePhase;
+    final String module = activeModule;
+    if (phase == null) {
+      return "setup";
+    }
+    return module == null ? phase : phase + " of module " + module;
+  }
+
+  /**
+   * @return peak heap sampled by any phase, in bytes
+   */
+  public synchronized long getPeakHeap() {
+    long peak = 0;
+    for (final Phase phase : phases.values()) {
+      peak = Math.max(peak, phase.peakHeap.get());
+    }
+    return peak;
+  }
+
+  /**
+   * @return heap in use, including garbage that wasn't collected yet, in bytes
+   */
+  static long usedHeap() {
+    final Runtime runtime = Runtime.getRuntime();
+    return runtime.totalMemory() - runtime.freeMemory();
+  }
+
+  /** Modules sorted by their peak heap, largest first. */
+  private synchronized List<Map.Entry<String, Long>> modules() {
+    final List<Map.Entry<String, Long>> modules =
+        new ArrayList<Map.Entry<String, Long>>(moduleHeap.entrySet());
+    modules.sort(Map.Entry.<String, Long>comparingByValue().reversed());
+    return modules;
+  }
+
+  /** Phases that recorded anything. */
+  private synchronized List<Phase> phases() {
+    final List<Phase> used = new ArrayList<Phase>();
+    for (final Phase phase : phases.values()) {
+      if (phase.nanos.sum() > 0 || phase.files.sum() > 0 || phase.classes.sum() > 0) {
+        used.add(phase);
+      }
+    }
+    return used;
+  }
+
+  /**
+   * Logs a table with a row per phase.
+   *
+   * @param log log to write to
+   */
+  public void log(final Log log) {
+    final List<Phase> phases = phases();
+    if (phases.isEmpty()) {
+      return;
+    }
+    final String row = "%-10s %10s %8s %9s %10s %10s %9s %10s %8s";
+    log.info(
+        format(
+            row,
+            "phase",
+            "time (ms)",
+            "files",
+            "classes",
+            "read KB",
+            "written KB",
+            "files/s",
+            "classes/s",
+            "heap MB"));
+    for (final Phase phase : phases) {
+      log.info(
+          format(
+              row,
+              phase.name,
+              phase.getMillis(),
+              phase.files.sum(),
+              phase.classes.sum(),
+              phase.bytesRead.sum() / 1024,
+              phase.bytesWritten.sum() / 1024,
+              perSecond(phase.files.sum(), phase.nanos.sum()),
+              perSecond(phase.classes.sum(), phase.nanos.sum()),
+              phase.peakHeap.get() / (1024 * 1024)));
+    }
+    final List<Map.Entry<String, Long>> modules = modules();
+    if (!modules.isEmpty()) {
+      log.info("Peak heap after analysis by module, largest first:");
+      for (final Map.Entry<String, Long> module :
+          modules.subList(0, Math.min(LOGGED_MODULES, modules.size()))) {
+        log.info(format("  %s: %s MB", module.getKey(), module.getValue() / (1024 * 1024)));
+      }
+    }
+  }
+
+  /**
+   * Writes all phases as a JSON object, for dashboards tracking the overhead of a goal.
+   *
+   * @param file file to write
+   * @param goal name of the goal the phases belong to
+   * @throws IOException if the file can't be written
+   */
+  public void write(final File file, final String goal) throws IOException {
+    final StringBuilder json = new StringBuilder();
+    json.append("{\"goal\":\"").append(goal).append("\",\"phases\":[");
+    boolean first = true;
+    for (final Phase phase : phases()) {
+      if (!first) {
+        json.append(',');
+      }
+      first = false;
+      json.append(
+          format(
+              Locale.ROOT,
+              "{\"name\":\"%s\",\"wallMillis\":%s,\"files\":%s,\"classes\":%s,"
+                  + "\"bytesRead\":%s,\"bytesWritten\":%s,\"filesPerSecond\":%s,"
+                  + "\"classesPerSecond\":%s,\"peakHeapBytes\":%s}",
+              phase.name,
+              phase.getMillis(),
+              phase.files.sum(),
+              phase.classes.sum(),
+              phase.bytesRead.sum(),
+              phase.bytesWritten.sum(),
+              perSecond(phase.files.sum(), phase.nanos.sum()),
+              perSecond(phase.classes.sum(), phase.nanos.sum()),
+              phase.peakHeap.get()));
+    }
+    json.append("],\"modules\":[");
+    first = true;
+    for (final Map.Entry<String, Long> module : modules()) {
+      if (!first) {
+        json.append(',');
+      }
+      first = false;
+      json.append("{\"name\":\"")
+          .append(module.getKey())
+          .append("\",\"peakHeapBytes\":")
+          .append(module.getValue())
+          .append('}');
+    }
+    json.append("]}\n");
+    final File directory = file.getAbsoluteFile().getParentFile();
+    Files.createDirectories(directory.toPath());
+    Files.write(file.toPath(), json.toString().getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Logs the table and writes the JSON file of a goal execution, named after the goal and, when it
+   * differs from the goal, the execution id. Failing to write the file is only logged.
+   *
+   * @param log log to write to
+   * @param directory directory of the JSON file
+   * @param execution execution the phases belong to
+   */
+  public void report(final Log log, final File directory, final MojoExecution execution) {
+    log(log);
+    final String goal = execution.getGoal();
+    final String id = execution.getExecutionId();
+    final File file =
+        new File(directory, goal.equals(id) ? goal + ".json" : goal + "-" + id + ".json");
+    try {
+      write(file, goal);
+      log.debug("Phase metrics written to " + file);
+    } catch (final IOException e) {
+      log.warn("Unable to write phase metrics to " + file + ": " + e.getMessage());
+    }
+  }
+
+  private static long perSecond(final long count, final long nanos) {
+    return nanos == 0 ? 0 : count * 1000000000L / nanos;
+  }
+
+  /** Counters of a single phase. */
+  public static class Phase {
+    private final PhaseMetrics metrics;
+    private final String name;
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder files = new LongAdder();
+    private final LongAdder classes = new LongAdder();
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder bytesWritten = new LongAdder();
+    private final LongAccumulator peakHeap = new LongAccumulator(Math::max, 0);
+
+    Phase(final PhaseMetrics metrics, final String name) {
+      this.metrics = metrics;
+      this.name = name;
+    }
+
+    /**
+     * Starts measuring wall time, until the returned timer is stopped. Timers of the same phase
+     * must not overlap, or their time is counted twice. The heap is sampled when the timer stops.
+     *
+     * @return running timer
+     */
+    public Timer start() {
+      return new Timer(this);
+    }
+
+    /**
+     * @param count number of files processed
+     */
+    public void addFiles(final long count) {
+      files.add(count);
+    }
+
+    /**
+     * @param count number of classes processed
+     */
+    public void addClasses(final long count) {
+      classes.add(count);
+    }
+
+    /**
+     * @param count number of bytes read
+     */
+    public void addBytesRead(final long count) {
+      bytesRead.add(count);
+    }
+
+    /**
+     * @param count number of bytes written
+     */
+    public void addBytesWritten(final long count) {
+      bytesWritten.add(count);
+    }
+
+    /**
+     * Counts the bytes written to a stream, and the stream itself as a file written.
+     *
+     * @param out stream to count
+     * @return stream counting the bytes written to <code>out</code>
+     */
+    public OutputStream count(final OutputStream out) {
+      files.increment();
+      return new FilterOutputStream(out) {
+        @Override
+        public void write(final int b) throws IOException {
+          out.write(b);
+          bytesWritten.increment();
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+          out.write(b, off, len);
+          bytesWritten.add(len);
+        }
+      };
+    }
+
+    private long getMillis() {
+      return nanos.sum() / 1000000;
+    }
+  }
+
+  /** Measures the wall time of a phase, stopped in a <code>finally</code> block. */
+  public static class Timer {
+    private final Phase phase;
+    private final long start = System.nanoTime();
+
+    Timer(final Phase phase) {
+      this.phase = phase;
+      // kept when the timer stops, so a failure still names the phase it happened in
+      phase.metrics.activePhase = phase.name;
+    }
+
+    /** Adds the time since the timer was started to its phase. */
+    public void stop() {
+      phase.nanos.add(System.nanoTime() - start);
+      phase.peakHeap.accumulate(usedHeap());
+    }
+  }
+}
@@ -15,8 +15,10 @@ package com.marvinformatics.easyjacoco.jacoco;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Locale;
 import org.jacoco.report.FileMultiReportOutput;
+import org.jacoco.report.IMultiReportOutput;
 import org.jacoco.report.IReportVisitor;
 import org.jacoco.report.csv.CSVFormatter;
 import org.jacoco.report.html.HTMLFormatter;
@@ -29,7 +31,12 @@ public enum ReportFormat {
   HTML() {
     @Override
     public IReportVisitor createVisitor(
-        File outputDirectory, String outputEncoding, final Locale locale, String footer)
+        File outputDirectory,
+        String outputEncoding,
+        final Locale locale,
+        String footer,
+        final boolean incremental,
+        final PhaseMetrics metrics)
         throws IOException {
       final HTMLFormatter htmlFormatter = new HTMLFormatter();
       htmlFormatter.setOutputEncoding(outputEncoding);
@@ -37,7 +44,12 @@ public enum ReportFormat {
       if (footer != null) {
         htmlFormatter.setFooterText(footer);
       }
-      return htmlFormatter.createVisitor(new FileMultiReportOutput(outputDirectory));
+      return htmlFormatter.createVisitor(
+          counted(
+              incremental
+                  ? new IncrementalMultiReportOutput(outputDirectory)
+                  : new FileMultiReportOutput(outputDirectory),
+              metrics));
     }
   },
 
@@ -45,11 +57,16 @@ public enum ReportFormat {
   XML() {
     @Override
     public IReportVisitor createVisitor(
-        File outputDirectory, String outputEncoding, final Locale locale, String footer)
+        File outputDirectory,
+        String outputEncoding,
+        final Locale locale,
+        String footer,
+        final boolean incremental,
+        final PhaseMetrics metrics)
         throws IOException {
       final XMLFormatter xml = new XMLFormatter();
       xml.setOutputEncoding(outputEncoding);
-      return xml.createVisitor(new FileOutputStream(new File(outputDirectory, "jacoco.xml")));
+      return xml.createVisitor(counted(new File(outputDirectory, "jacoco.xml"), metrics));
     }
   },
 
@@ -57,15 +74,60 @@ public enum ReportFormat {
   CSV() {
     @Override
     public IReportVisitor createVisitor(
-        File outputDirectory, String outputEncoding, final Locale locale, String footer)
+        File outputDirectory,
+        String outputEncoding,
+        final Locale locale,
+        String footer,
+        final boolean incremental,
+        final PhaseMetrics metrics)
         throws IOException {
       final CSVFormatter csv = new CSVFormatter();
       csv.setOutputEncoding(outputEncoding);
-      return csv.createVisitor(new FileOutputStream(new File(outputDirectory, "jacoco.csv")));
+      return csv.createVisitor(counted(new File(outputDirectory, "jacoco.csv"), metrics));
     }
   };
 
+  /**
+   * Creates a visitor writing the report to the given directory.
+   *
+   * @param outputDirectory directory the report files are created in
+   * @param outputEncoding encoding of the report files
+   * @param locale locale numbers are formatted with
+   * @param footer footer text of html pages, or <code>null</code>
+   * @param incremental whether html pages are only written when their content changed, see {@link
+   *     IncrementalMultiReportOutput}
+   * @param metrics records the files and bytes written as {@link PhaseMetrics#REPORT}
+   * @return visitor writing the report
+   * @throws IOException if the report files can't be created
+   */
   public abstract IReportVisitor createVisitor(
-      File outputDirectory, String outputEncoding, final Locale locale, String footer)
+      File outputDirectory,
+      String outputEncoding,
+      final Locale locale,
+      String footer,
+      final boolean incremental,
+      final PhaseMetrics metrics)
       throws IOException;
+
+  private static OutputStream counted(final File file, final PhaseMetrics metrics)
+      throws IOException {
+    return FlightRecorderEvents.page(
+        metrics.phase(PhaseMetrics.REPORT).count(new FileOutputStream(file)), file.getPath());
+  }
+
+  private static IMultiReportOutput counted(
+      final IMultiReportOutput output, final PhaseMetrics metrics) {
+    final PhaseMetrics.Phase report = metrics.phase(PhaseMetrics.REPORT);
+    return new IMultiReportOutput() {
+      @Override
+      public OutputStream createFile(final String path) throws IOException {
+        return FlightRecorderEvents.page(report.count(output.createFile(path)), path);
+      }
+
+      @Override
+      public void close() throws IOException {
+        output.close();
+      }
+    };
+  }
 }
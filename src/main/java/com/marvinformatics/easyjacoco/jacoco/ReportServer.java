@@ -0,0 +1,471 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import org.apache.maven.plugin.logging.Log;
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.ICoverageNode;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.report.ILanguageNames;
+import org.jacoco.report.IMultiReportOutput;
+import org.jacoco.report.IReportGroupVisitor;
+import org.jacoco.report.IReportVisitor;
+import org.jacoco.report.ISourceFileLocator;
+import org.jacoco.report.html.HTMLFormatter;
+import org.jacoco.report.internal.ReportOutputFolder;
+import org.jacoco.report.internal.html.HTMLElement;
+import org.jacoco.report.internal.html.IHTMLReportContext;
+import org.jacoco.report.internal.html.ILinkable;
+import org.jacoco.report.internal.html.index.ElementIndex;
+import org.jacoco.report.internal.html.index.IIndexUpdate;
+import org.jacoco.report.internal.html.page.GroupPage;
+import org.jacoco.report.internal.html.page.NodePage;
+import org.jacoco.report.internal.html.page.PackagePage;
+import org.jacoco.report.internal.html.page.ReportPage;
+import org.jacoco.report.internal.html.page.SessionsPage;
+import org.jacoco.report.internal.html.page.TablePage;
+import org.jacoco.report.internal.html.resources.Resources;
+import org.jacoco.report.internal.html.table.Table;
+
+/**
+ * Serves the HTML report of analyzed bundles over HTTP on the loopback interface, rendering pages
+ * when they are requested instead of writing the whole report up front.
+ *
+ * <p>Bundles are recorded by the visitor of {@link #recorder()} and kept in memory. Pages are
+ * rendered by the page classes of JaCoCo's {@link HTMLFormatter}, so they look the same as the
+ * pages of a written report. Group and bundle pages are rendered on their own, a package is
+ * rendered with its class and source pages the first time one of them is requested. Rendered pages
+ * are kept in a cache evicting the least recently viewed pages first. Classes only get linked from
+ * the sessions page once their package was rendered.
+ */
+public final class ReportServer implements Closeable {
+
+  private static final String INDEX = "index.html";
+  private static final String SESSIONS = "jacoco-sessions.html";
+
+  private final Log log;
+  private final HTMLFormatter formatter;
+  private final long cacheSize;
+  private final List<Object> entries = new ArrayList<Object>();
+  private final Map<String, PageRenderer> renderers = new HashMap<String, PageRenderer>();
+  private final Map<String, byte[]> resources = new HashMap<String, byte[]>();
+  private final Map<String, byte[]> pages = new LinkedHashMap<String, byte[]>(16, 0.75f, true);
+  private long cachedBytes;
+  private Map<String, byte[]> rendered;
+  private List<SessionInfo> sessionInfos = Collections.emptyList();
+  private Collection<ExecutionData> executionData = Collections.emptyList();
+  private ReportOutputFolder root;
+  private ElementIndex index;
+  private Resources pageResources;
+  private SessionsPage sessionsPage;
+  private HttpServer server;
+
+  /**
+   * @param log log to report rendering errors to
+   * @param outputEncoding encoding of the pages
+   * @param locale locale numbers are formatted with
+   * @param footer footer text of the pages, or <code>null</code>
+   * @param cacheSize size of the rendered pages kept in memory, in bytes
+   */
+  public ReportServer(
+      final Log log,
+      final String outputEncoding,
+      final Locale locale,
+      final String footer,
+      final long cacheSize) {
+    this.log = log;
+    this.formatter = new HTMLFormatter();
+    formatter.setOutputEncoding(outputEncoding);
+    formatter.setLocale(locale);
+    if (footer != null) {
+      formatter.setFooterText(footer);
+    }
+    this.cacheSize = cacheSize;
+  }
+
+  /**
+   * @return visitor recording the sessions, groups and bundles to serve
+   */
+  public IReportVisitor recorder() {
+    final Group top = new Group(null);
+    return new IReportVisitor() {
+      @Override
+      public void visitInfo(
+          final List<SessionInfo> sessionInfos, final Collection<ExecutionData> executionData) {
+        ReportServer.this.sessionInfos = new ArrayList<SessionInfo>(sessionInfos);
+        ReportServer.this.executionData = new ArrayList<ExecutionData>(executionData);
+      }
+
+      @Override
+      public void visitBundle(final IBundleCoverage bundle, final ISourceFileLocator locator) {
+        top.visitBundle(bundle, locator);
+      }
+
+      @Override
+      public IReportGroupVisitor visitGroup(final String name) {
+        return top.visitGroup(name);
+      }
+
+      @Override
+      public void visitEnd() {
+        entries.addAll(top.children);
+      }
+    };
+  }
+
+  /**
+   * Starts serving the recorded report.
+   *
+   * @param port port to listen on, <code>0</code> for any free port
+   * @return address of the report
+   * @throws IOException if the port can't be bound or nothing was recorded
+   */
+  public URI start(final int port) throws IOException {
+    if (entries.isEmpty()) {
+      throw new IOException("No coverage recorded to serve");
+    }
+    root = new ReportOutputFolder(new CapturingOutput());
+    index = new ElementIndex(root);
+    pageResources = new Resources(root);
+    rendered = resources;
+    pageResources.copyResources();
+    rendered = null;
+    // like the HTML formatter, the first group or bundle visited is the root page
+    final ReportPage rootPage = createPage(entries.get(0), null, root);
+    sessionsPage =
+        new SessionsPage(sessionInfos, executionData, index, rootPage, root, new Context());
+
+    server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+    server.createContext("/", this::handle);
+    server.start();
+    return URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+  }
+
+  /** Stops serving. */
+  @Override
+  public void close() {
+    if (server != null) {
+      server.stop(0);
+      server = null;
+    }
+  }
+
+  private NodePage<?> createPage(
+      final Object entry, final ReportPage parent, final ReportOutputFolder folder) {
+    final Context context = new Context();
+    if (entry instanceof Group) {
+      final Group group = (Group) entry;
+      final CoverageNodeImpl node =
+          new CoverageNodeImpl(ICoverageNode.ElementType.GROUP, group.name);
+      final GroupPage page = new GroupPage(node, parent, folder, context);
+      for (final Object child : group.children) {
+        final NodePage<?> childPage = createPage(child, page, folder.subFolder(nameOf(child)));
+        node.increment(childPage.getNode());
+        page.addItem(childPage);
+      }
+      register(folder, page::render);
+      return page;
+    }
+
+    final Bundle bundle = (Bundle) entry;
+    final BundleIndexPage page = new BundleIndexPage(bundle.coverage, parent, folder, context);
+    for (final IPackageCoverage pkg : bundle.coverage.getPackages()) {
+      if (!pkg.containsCode()) {
+        continue;
+      }
+      final String name = pkg.getName();
+      final ReportOutputFolder pkgFolder =
+          folder.subFolder(name.isEmpty() ? "default" : name.replace('/', '.'));
+      page.addItem(new PackagePage(pkg, page, bundle.locator, pkgFolder, context));
+      // a package page adds its classes as items when rendered, each rendering needs a fresh page
+      register(
+          pkgFolder, () -> new PackagePage(pkg, page, bundle.locator, pkgFolder, context).render());
+    }
+    register(folder, page::render);
+    return page;
+  }
+
+  private static String nameOf(final Object entry) {
+    return entry instanceof Group ? ((Group) entry).name : ((Bundle) entry).coverage.getName();
+  }
+
+  private void register(final ReportOutputFolder folder, final PageRenderer renderer) {
+    renderers.put(folder.getLink(root, INDEX), renderer);
+  }
+
+  /**
+   * Looks a page up in the cache, rendering it if needed.
+   *
+   * @param path path of the page relative to the root of the report
+   * @return contents of the page, or <code>null</code> if there is no such page
+   * @throws IOException if the page can't be rendered
+   */
+  synchronized byte[] getPage(final String path) throws IOException {
+    byte[] content = resources.get(path);
+    if (content == null) {
+      content = pages.get(path);
+    }
+    if (content != null) {
+      return content;
+    }
+    if (SESSIONS.equals(path)) {
+      // lists the classes linked so far, rendered on each request
+      return render(sessionsPage::render).get(path);
+    }
+    final PageRenderer renderer =
+        renderers.get(path.substring(0, path.lastIndexOf('/') + 1) + INDEX);
+    if (renderer == null) {
+      return null;
+    }
+    final Map<String, byte[]> files = render(renderer);
+    for (final Map.Entry<String, byte[]> file : files.entrySet()) {
+      cache(file.getKey(), file.getValue());
+    }
+    return files.get(path);
+  }
+
+  private Map<String, byte[]> render(final PageRenderer renderer) throws IOException {
+    rendered = new HashMap<String, byte[]>();
+    try {
+      renderer.render();
+      return rendered;
+    } finally {
+      rendered = null;
+    }
+  }
+
+  private void cache(final String path, final byte[] content) {
+    final byte[] previous = pages.put(path, content);
+    cachedBytes += content.length - (previous == null ? 0 : previous.length);
+    final Iterator<byte[]> eldest = pages.values().iterator();
+    while (cachedBytes > cacheSize && eldest.hasNext()) {
+      cachedBytes -= eldest.next().length;
+      eldest.remove();
+    }
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    try {
+      final String method = exchange.getRequestMethod();
+      if (!"GET".equals(method) && !"HEAD".equals(method)) {
+        send(exchange, 405, "text/plain", "Method not allowed".getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+      String path = exchange.getRequestURI().getPath().substring(1);
+      if (path.isEmpty() || path.endsWith("/")) {
+        path += INDEX;
+      }
+      byte[] content;
+      try {
+        content = path.contains("..") ? null : getPage(path);
+      } catch (final IOException | RuntimeException e) {
+        log.warn("Error while rendering " + path + ": " + e.getMessage(), e);
+        send(exchange, 500, "text/plain", String.valueOf(e).getBytes(StandardCharsets.UTF_8));
+        return;
+      }
+      if (content == null) {
+        send(exchange, 404, "text/plain", ("Not found: " + path).getBytes(StandardCharsets.UTF_8));
+      } else {
+        send(exchange, 200, contentType(path), content);
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private void send(
+      final HttpExchange exchange, final int status, final String contentType, final byte[] body)
+      throws IOException {
+    exchange.getResponseHeaders().set("Content-Type", contentType);
+    final boolean head = "HEAD".equals(exchange.getRequestMethod());
+    exchange.sendResponseHeaders(status, head ? -1 : body.length);
+    if (!head) {
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    }
+  }
+
+  private String contentType(final String path) {
+    if (path.endsWith(".html")) {
+      return "text/html; charset=" + formatter.getOutputEncoding();
+    } else if (path.endsWith(".css")) {
+      return "text/css";
+    } else if (path.endsWith(".js")) {
+      return "text/javascript";
+    } else if (path.endsWith(".gif")) {
+      return "image/gif";
+    }
+    return "application/octet-stream";
+  }
+
+  /** Renders one or more pages to the report output. */
+  private interface PageRenderer {
+    void render() throws IOException;
+  }
+
+  /** Output capturing the files of the page being rendered. */
+  private final class CapturingOutput implements IMultiReportOutput {
+    @Override
+    public OutputStream createFile(final String path) {
+      final Map<String, byte[]> target = rendered;
+      return new ByteArrayOutputStream() {
+        @Override
+        public void close() {
+          target.put(path, toByteArray());
+        }
+      };
+    }
+
+    @Override
+    public void close() {}
+  }
+
+  /** Report context of the served pages, shared settings are taken from the formatter. */
+  private final class Context implements IHTMLReportContext {
+    @Override
+    public Resources getResources() {
+      return pageResources;
+    }
+
+    @Override
+    public ILanguageNames getLanguageNames() {
+      return formatter.getLanguageNames();
+    }
+
+    @Override
+    public Table getTable() {
+      return formatter.getTable();
+    }
+
+    @Override
+    public String getFooterText() {
+      return formatter.getFooterText();
+    }
+
+    @Override
+    public ILinkable getSessionsPage() {
+      return sessionsPage;
+    }
+
+    @Override
+    public String getOutputEncoding() {
+      return formatter.getOutputEncoding();
+    }
+
+    @Override
+    public IIndexUpdate getIndexUpdate() {
+      return index;
+    }
+
+    @Override
+    public Locale getLocale() {
+      return formatter.getLocale();
+    }
+  }
+
+  /** A recorded group, with its groups and bundles in the order visited. */
+  private static final class Group implements IReportGroupVisitor {
+    final String name;
+    final List<Object> children = new ArrayList<Object>();
+
+    Group(final String name) {
+      this.name = name;
+    }
+
+    @Override
+    public void visitBundle(final IBundleCoverage bundle, final ISourceFileLocator locator) {
+      children.add(new Bundle(bundle, locator));
+    }
+
+    @Override
+    public IReportGroupVisitor visitGroup(final String name) {
+      final Group group = new Group(name);
+      children.add(group);
+      return group;
+    }
+  }
+
+  private static final class Bundle {
+    final IBundleCoverage coverage;
+    final ISourceFileLocator locator;
+
+    Bundle(final IBundleCoverage coverage, final ISourceFileLocator locator) {
+      this.coverage = coverage;
+      this.locator = locator;
+    }
+  }
+
+  /**
+   * Page of a bundle listing its packages, like JaCoCo's bundle page but without rendering the
+   * packages along with it.
+   */
+  private static final class BundleIndexPage extends TablePage<ICoverageNode> {
+    private final IBundleCoverage bundle;
+
+    BundleIndexPage(
+        final IBundleCoverage bundle,
+        final ReportPage parent,
+        final ReportOutputFolder folder,
+        final IHTMLReportContext context) {
+      super(bundle, parent, folder, context);
+      this.bundle = bundle;
+    }
+
+    @Override
+    protected String getOnload() {
+      return "initialSort(['breadcrumb', 'coveragetable'])";
+    }
+
+    @Override
+    protected String getFileName() {
+      return INDEX;
+    }
+
+    @Override
+    protected void content(final HTMLElement body) throws IOException {
+      if (bundle.getPackages().isEmpty()) {
+        body.p().text("No class files specified.");
+      } else if (!bundle.containsCode()) {
+        body.p().text("None of the analyzed classes contain code relevant for code coverage.");
+      } else {
+        super.content(body);
+      }
+    }
+  }
+}
@@ -16,20 +16,33 @@ package com.marvinformatics.easyjacoco.jacoco;
 import static java.lang.String.format;
 import static java.util.Collections.singletonList;
 
+import com.marvinformatics.easyjacoco.jacoco.ClassFileScanner.ClassFileVisitor;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 import org.apache.maven.plugin.logging.Log;
 import org.apache.maven.project.MavenProject;
 import org.jacoco.core.analysis.Analyzer;
 import org.jacoco.core.analysis.IBundleCoverage;
 import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageVisitor;
+import org.jacoco.core.data.ExecutionDataStore;
 import org.jacoco.core.tools.ExecFileLoader;
 import org.jacoco.report.IReportGroupVisitor;
 import org.jacoco.report.IReportVisitor;
@@ -56,6 +69,31 @@ public class ReportSupport {
   private final Log log;
   private final ExecFileLoader loader;
   private final List<IReportVisitor> formatters;
+  private SpillingExecFileLoader spillingLoader;
+  private PackedExecutionDataStore packedStore;
+  private boolean leanAnalysis;
+  private boolean streaming;
+  private ReportTier reportTier = ReportTier.FULL;
+  private final List<IReportVisitor> moduleCheckers = new ArrayList<IReportVisitor>();
+  private int moduleViolations;
+  private IssueReporter issues;
+  private DiffFilter diff;
+  private String dataset;
+  private List<Rule> failFastRules;
+  private IViolationsOutput failFastOutput;
+  private int failFastViolations;
+  private final Map<CoverageBuilder, FailFastChecker> failFastCheckers =
+      new IdentityHashMap<CoverageBuilder, FailFastChecker>();
+  private final Set<CoverageBuilder> bundleBuilders =
+      Collections.newSetFromMap(new IdentityHashMap<CoverageBuilder, Boolean>());
+  private ICoverageVisitor classVisitor;
+  private PhaseMetrics metrics = new PhaseMetrics();
+  private MemoryBudget memoryBudget;
+  private boolean lowMemory;
+  private final List<String> modulesWithoutSources = new ArrayList<String>();
+  private AnalysisCache cache;
+  private SharedAnalysisCache sharedCache;
+  private ExecutorService scanExecutor;
 
   /**
    * Construct a new instance with the given log output.
@@ -68,6 +106,281 @@ public class ReportSupport {
     this.formatters = new ArrayList<IReportVisitor>();
   }
 
+  /**
+   * Switches to external merge: execution data loaded afterwards is spilled to disk partitioned by
+   * class id, and classes are analyzed one partition group at a time. Must be called before any
+   * execution data is loaded.
+   *
+   * @param spillDirectory directory for the temporary spill files
+   * @param memoryBudget heap budget in bytes for the merged execution data of one pass
+   */
+  public void enableExternalMerge(final File spillDirectory, final long memoryBudget) {
+    log.info(
+        format(
+            "External merge enabled, spilling execution data to %s with a budget of %s MB",
+            spillDirectory, Long.valueOf(memoryBudget / (1024 * 1024))));
+    this.spillingLoader = new SpillingExecFileLoader(spillDirectory, memoryBudget);
+  }
+
+  /**
+   * Keeps execution data in a {@link PackedExecutionDataStore} instead of JaCoCo's heap based
+   * store. Must be called before any execution data is loaded.
+   */
+  public void enablePackedExecutionData() {
+    log.info("Packed execution data store enabled");
+    this.packedStore = new PackedExecutionDataStore();
+  }
+
+  /**
+   * Only keeps bundle and package counters while analyzing, see {@link LeanCoverageBuilder}. Meant
+   * for checks whose rules are all on BUNDLE or PACKAGE elements.
+   */
+  public void enableLeanAnalysis() {
+    log.info("Lean analysis enabled, only bundle and package counters are kept");
+    this.leanAnalysis = true;
+  }
+
+  /**
+   * Cuts the coverage tree of reports below the nodes of the given tier while analyzing. Sources
+   * are only looked up for {@link ReportTier#FULL}, the other tiers emit bundles without source
+   * file nodes, see {@link ReportTier}.
+   *
+   * @param tier level of detail of the report
+   */
+  public void setReportTier(final ReportTier tier) {
+    log.info(format("Report tier %s", tier));
+    this.reportTier = tier;
+  }
+
+  /**
+   * Analyzes the projects of an aggregated bundle one module at a time. CLASS, SOURCEFILE and
+   * METHOD rules are checked on each module's own bundle, then the module's classes are folded into
+   * package counters (see {@link LeanCoverageBuilder}) and its coverage tree is released. BUNDLE
+   * and PACKAGE rules are checked on the folded bundle, so heap usage follows the largest module
+   * instead of the whole reactor. Must be called before rules checkers are added.
+   */
+  public void enableStreaming() {
+    log.info("Streaming analysis enabled, modules are analyzed and checked one at a time");
+    this.streaming = true;
+  }
+
+  /**
+   * Switches to low memory analysis once the heap retained after garbage collection exceeds the
+   * budget, checked before each module is analyzed. Checks of {@link #processProjects(
+   * IReportGroupVisitor, List, List, List, List)} continue with streaming analysis, see {@link
+   * #enableStreaming()}, unless lean analysis or fail fast is enabled. Reports leave out the source
+   * pages of the remaining modules. Heap already used by the execution data and the modules
+   * analyzed so far is not released, switching only slows further growth.
+   *
+   * @param budget heap budget of the goal
+   */
+  public void setMemoryBudget(final MemoryBudget budget) {
+    log.debug(format("Memory budget of %s MB", Long.valueOf(budget.getBytes() / (1024 * 1024))));
+    this.memoryBudget = budget;
+  }
+
+  /**
+   * @return artifact ids of the modules reported without source pages because the memory budget was
+   *     exceeded, in the order they were reported
+   */
+  public List<String> getModulesWithoutSources() {
+    return Collections.unmodifiableList(modulesWithoutSources);
+  }
+
+  /** Whether the memory budget was exceeded, the switch to low memory analysis is permanent. */
+  private boolean isLowMemory() {
+    if (lowMemory || memoryBudget == null || !memoryBudget.isExceeded()) {
+      return lowMemory;
+    }
+    log.warn(
+        format(
+            "Heap in use of %s MB exceeds the memory budget of %s MB, "
+                + "switching to low memory analysis",
+            Long.valueOf(MemoryBudget.retainedHeap() / (1024 * 1024)),
+            Long.valueOf(memoryBudget.getBytes() / (1024 * 1024))));
+    lowMemory = true;
+    if (cache != null) {
+      log.info("Analysis cache cleared to release heap");
+      cache.clear();
+    }
+    return true;
+  }
+
+  /**
+   * Takes exec files and analyzed classes from the given cache when they didn't change since they
+   * were cached, and adds the ones read and analyzed. Exec files are only cached without external
+   * merge and packed execution data, classes without external merge.
+   *
+   * @param cache cache shared with other goals and builds
+   */
+  public void setAnalysisCache(final AnalysisCache cache) {
+    this.cache = cache;
+  }
+
+  /**
+   * Looks analyzed classes up in the given cache shared by builds before analyzing them, and writes
+   * the ones analyzed to it. Used without external merge, after the in memory analysis cache.
+   *
+   * @param sharedCache cache shared with other builds, e.g. on other CI agents
+   */
+  public void setSharedCache(final SharedAnalysisCache sharedCache) {
+    this.sharedCache = sharedCache;
+  }
+
+  /**
+   * Checks the given rules while classes are analyzed, see {@link FailFastChecker}. Once <code>
+   * maxViolations</code> violations are found they are reported to the output and analysis stops
+   * with a {@link CoverageCheckHaltedException}.
+   *
+   * @param rules rules to check early
+   * @param output receives the violations found before stopping
+   * @param maxViolations number of violations to collect before stopping, at least 1
+   */
+  public void enableFailFast(
+      final List<Rule> rules, final IViolationsOutput output, final int maxViolations) {
+    if (!FailFastChecker.canDecideEarly(rules)) {
+      log.info("Fail fast enabled, but no rule can be decided before the analysis completes");
+      return;
+    }
+    log.info(format("Fail fast enabled, stopping after %s violations", maxViolations));
+    this.failFastRules = rules;
+    this.failFastOutput = output;
+    this.failFastViolations = maxViolations;
+  }
+
+  /**
+   * Restricts analysis and checks to changed code, see {@link DiffFilter}. Projects without changed
+   * sources are skipped and class files not compiled from a changed source are not analyzed.
+   *
+   * @param diff changed lines to restrict coverage to
+   */
+  public void enableDiff(final DiffFilter diff) {
+    log.info(
+        format("Diff scope enabled, checking %s changed source files", diff.getSourceFileCount()));
+    this.diff = diff;
+  }
+
+  private CoverageBuilder newBuilder(final String bundleName) {
+    final CoverageBuilder builder;
+    if (leanAnalysis || reportTier == ReportTier.PACKAGE) {
+      builder = new LeanCoverageBuilder(log);
+    } else if (reportTier == ReportTier.SUMMARY) {
+      builder = new SummaryCoverageBuilder(log);
+    } else {
+      builder = new CoverageBuilder(log, new DuplicateClassFilter(), reportTier == ReportTier.FULL);
+    }
+    if (failFastRules != null) {
+      failFastCheckers.put(
+          builder,
+          new FailFastChecker(
+              builder, bundleName, failFastRules, failFastOutput, failFastViolations));
+    }
+    bundleBuilders.add(builder);
+    return builder;
+  }
+
+  private CoverageBuilder newStreamingBuilder(
+      final String bundleName, final DuplicateClassFilter duplicates) {
+    final CoverageBuilder builder = new LeanCoverageBuilder(log, duplicates);
+    if (failFastRules != null) {
+      // module level rules are checked on each module's bundle
+      final List<Rule> rules = new ArrayList<Rule>();
+      for (final Rule rule : failFastRules) {
+        if (!isModuleRule(rule)) {
+          rules.add(rule);
+        }
+      }
+      failFastCheckers.put(
+          builder,
+          new FailFastChecker(builder, bundleName, rules, failFastOutput, failFastViolations));
+    }
+    bundleBuilders.add(builder);
+    return builder;
+  }
+
+  private static boolean isModuleRule(final Rule rule) {
+    switch (rule.getElement()) {
+      case CLASS:
+      case SOURCEFILE:
+      case METHOD:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  /** Visitor the analyzer reports the classes of the builder to. */
+  private ICoverageVisitor visitorFor(final CoverageBuilder builder) {
+    return diff == null ? checkedVisitor(builder) : diff.filter(checkedVisitor(builder));
+  }
+
+  /** Visitor checking classes early, if enabled, before they are added to the builder. */
+  private ICoverageVisitor checkedVisitor(final CoverageBuilder builder) {
+    final FailFastChecker checker = failFastCheckers.get(builder);
+    final ICoverageVisitor visitor = checker == null ? builder : checker;
+    if (classVisitor == null || !bundleBuilders.contains(builder)) {
+      return visitor;
+    }
+    return coverage -> {
+      classVisitor.visitCoverage(coverage);
+      visitor.visitCoverage(coverage);
+    };
+  }
+
+  /** Whether a class file has to be analyzed at all, only header data is read. */
+  private boolean inScope(final byte[] bytes) {
+    return diff == null || diff.accepts(bytes);
+  }
+
+  /**
+   * Stops the analysis once enough violations are found for the builder. Violations of module level
+   * rules found while streaming count as well.
+   */
+  private void haltIfViolated(final CoverageBuilder builder) throws CoverageCheckHaltedException {
+    final FailFastChecker checker = failFastCheckers.get(builder);
+    if (checker == null) {
+      return;
+    }
+    final int violations = moduleViolations + checker.getViolationCount();
+    if (checker.isHalted() || violations >= failFastViolations) {
+      checker.report();
+      throw new CoverageCheckHaltedException(violations);
+    }
+  }
+
+  /**
+   * Passes every class of the analyzed bundles to the given visitor as well, e.g. to record per
+   * class counters. Classes are passed once each, also while streaming, and after they are
+   * restricted to a diff. Must be called before projects are processed.
+   *
+   * @param visitor visitor receiving the classes, called by several threads
+   */
+  public void setClassVisitor(final ICoverageVisitor visitor) {
+    this.classVisitor = visitor;
+  }
+
+  /**
+   * Reports classes whose execution data doesn't match to the given reporter, which bounds what is
+   * logged, instead of logging each of them.
+   *
+   * @param issues reporter for mismatching classes
+   * @param dataset dataset analyzed by this instance, or <code>null</code>
+   */
+  public void setIssueReporter(final IssueReporter issues, final String dataset) {
+    this.issues = issues;
+    this.dataset = dataset;
+  }
+
+  /**
+   * Records the time and throughput of loading, analyzing and reporting to the given metrics
+   * instead of this instance's own, e.g. to share them between the report supports of datasets.
+   *
+   * @param metrics metrics to record to
+   */
+  public void setMetrics(final PhaseMetrics metrics) {
+    this.metrics = metrics;
+  }
+
   /**
    * Loads the given execution data file.
    *
@@ -76,7 +389,31 @@ public class ReportSupport {
    */
   public void loadExecutionData(final File execFile) throws IOException {
     log.info("Loading execution data file " + execFile);
-    loader.load(execFile);
+    final PhaseMetrics.Phase load = metrics.phase(PhaseMetrics.LOAD);
+    final FlightRecorderEvents.ExecFileLoaded event = new FlightRecorderEvents.ExecFileLoaded();
+    event.begin();
+    final PhaseMetrics.Timer timer = load.start();
+    try {
+      if (spillingLoader != null) {
+        spillingLoader.load(execFile);
+      } else if (packedStore != null) {
+        new MappedExecFileReader(loader.getSessionInfoStore(), packedStore).read(execFile);
+      } else if (cache != null) {
+        cache.load(execFile, loader);
+      } else {
+        loader.load(execFile);
+      }
+    } finally {
+      timer.stop();
+    }
+    event.end();
+    load.addFiles(1);
+    load.addBytesRead(execFile.length());
+    if (event.shouldCommit()) {
+      event.path = execFile.getPath();
+      event.size = execFile.length();
+      event.commit();
+    }
   }
 
   public void addVisitor(final IReportVisitor visitor) {
@@ -86,19 +423,91 @@ public class ReportSupport {
   public void addRulesChecker(final List<Rule> rules, final IViolationsOutput output) {
     final RulesChecker checker = new RulesChecker();
     checker.setRules(rules);
-    formatters.add(checker.createVisitor(output));
+    final FlightRecorderEvents.ViolationCounter violations =
+        new FlightRecorderEvents.ViolationCounter();
+    formatters.add(
+        FlightRecorderEvents.rules(
+            checker.createVisitor(violations.counting(output)), rules.size(), violations));
+    // the streamed bundle has no classes, module level rules need the bundle of each module, also
+    // when exceeding the memory budget switches to streaming
+    final List<Rule> moduleRules = new ArrayList<Rule>();
+    for (final Rule rule : rules) {
+      if (isModuleRule(rule)) {
+        moduleRules.add(rule);
+      }
+    }
+    if (!moduleRules.isEmpty()) {
+      final RulesChecker moduleChecker = new RulesChecker();
+      moduleChecker.setRules(moduleRules);
+      final FlightRecorderEvents.ViolationCounter moduleViolationCounter =
+          new FlightRecorderEvents.ViolationCounter();
+      moduleCheckers.add(
+          FlightRecorderEvents.rules(
+              moduleChecker.createVisitor(
+                  moduleViolationCounter.counting(
+                      (node, rule, limit, message) -> {
+                        moduleViolations++;
+                        output.onViolation(node, rule, limit, message);
+                      })),
+              moduleRules.size(),
+              moduleViolationCounter));
+    }
   }
 
   public IReportVisitor initRootVisitor() throws IOException {
     final IReportVisitor visitor = new MultiReportVisitor(formatters);
-    visitor.visitInfo(
-        loader.getSessionInfoStore().getInfos(), loader.getExecutionDataStore().getContents());
+    final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.REPORT).start();
+    try {
+      visitInfo(visitor);
+    } finally {
+      timer.stop();
+    }
     return visitor;
   }
 
+  private void visitInfo(final IReportVisitor visitor) throws IOException {
+    if (spillingLoader != null) {
+      // execution data is only available partition by partition
+      visitor.visitInfo(spillingLoader.getSessionInfoStore().getInfos(), Collections.emptyList());
+    } else if (packedStore != null) {
+      visitor.visitInfo(
+          loader.getSessionInfoStore().getInfos(), packedStore.getContentsWithoutProbes());
+    } else {
+      visitor.visitInfo(
+          loader.getSessionInfoStore().getInfos(), loader.getExecutionDataStore().getContents());
+    }
+  }
+
+  /**
+   * Deletes temporary files created while loading execution data.
+   *
+   * @throws IOException if the files can't be deleted
+   */
+  public void close() throws IOException {
+    if (scanExecutor != null) {
+      scanExecutor.shutdownNow();
+      scanExecutor = null;
+    }
+    if (spillingLoader != null) {
+      spillingLoader.close();
+    }
+  }
+
+  /** Scanner for the classes of the projects, archives share the threads of this support. */
+  private ClassFileScanner newScanner(final List<String> includes, final List<String> excludes) {
+    if (scanExecutor == null) {
+      scanExecutor = ClassFileScanner.newExecutor();
+    }
+    return new ClassFileScanner(
+        new FileFilter(includes, excludes).withMetrics(metrics),
+        scanExecutor,
+        ClassFileScanner.parallelism());
+  }
+
   /**
    * Calculates coverage for the given project and emits it to the report group without source
-   * references
+   * references. Meant for checks: once the memory budget is exceeded the remaining projects are
+   * streamed, and the bundle emitted only has package counters.
    *
    * @param visitor group visitor to emit the project's coverage to
    * @param projects the MavenProjects
@@ -114,7 +523,14 @@ public class ReportSupport {
       List<String> excludedModules)
       throws IOException {
     processProjects(
-        visitor, projects, includes, excludes, new NoSourceLocator(), "project", excludedModules);
+        visitor,
+        projects,
+        includes,
+        excludes,
+        new NoSourceLocator(),
+        "project",
+        excludedModules,
+        true);
   }
 
   /**
@@ -144,10 +560,242 @@ public class ReportSupport {
         project,
         includes,
         excludes,
-        new SourceFileCollection(project, srcEncoding),
+        sourcesFor(project, srcEncoding),
         excludedModules);
   }
 
+  /**
+   * Calculates coverage for each of the given projects and emits one bundle per project to the
+   * report group including source references. With external merge enabled all projects are analyzed
+   * together, so the spilled execution data is only read once.
+   *
+   * @param visitor group visitor to emit the projects' coverage to
+   * @param projects the MavenProjects, each one becomes a bundle named after the project name
+   * @param includes list of includes patterns
+   * @param excludes list of excludes patterns
+   * @param srcEncoding encoding of the source files within the projects
+   * @param excludedModules artifactIds of projects to skip
+   * @throws IOException if class files can't be read
+   */
+  public void processEachProject(
+      final IReportGroupVisitor visitor,
+      final List<MavenProject> projects,
+      final List<String> includes,
+      final List<String> excludes,
+      final String srcEncoding,
+      final List<String> excludedModules)
+      throws IOException {
+    if (spillingLoader == null) {
+      for (final MavenProject project : projects) {
+        processProject(
+            visitor,
+            bundleName(project),
+            project,
+            includes,
+            excludes,
+            sourcesFor(project, srcEncoding),
+            excludedModules);
+      }
+      return;
+    }
+
+    final Map<MavenProject, CoverageBuilder> builders =
+        new LinkedHashMap<MavenProject, CoverageBuilder>();
+    for (final MavenProject project : included(projects, excludedModules)) {
+      builders.put(project, newBuilder(bundleName(project)));
+    }
+    analyze(builders, includes, excludes);
+
+    for (final Map.Entry<MavenProject, CoverageBuilder> entry : builders.entrySet()) {
+      final MavenProject project = entry.getKey();
+      emitBundle(visitor, entry.getValue(), bundleName(project), sourcesFor(project, srcEncoding));
+    }
+  }
+
+  /**
+   * Source locator of a project, without sources below the full report tier or once the memory
+   * budget is exceeded.
+   */
+  private ISourceFileLocator sourcesFor(final MavenProject project, final String srcEncoding) {
+    if (reportTier != ReportTier.FULL) {
+      return new NoSourceLocator();
+    }
+    if (isLowMemory()) {
+      log.debug(format("Leaving out the sources of '%s' to save memory", project));
+      modulesWithoutSources.add(project.getArtifactId());
+      return new NoSourceLocator();
+    }
+    return new SourceFileCollection(project, srcEncoding, metrics);
+  }
+
+  /**
+   * Calculates coverage of the given projects for several datasets in one pass and emits one bundle
+   * per dataset to the dataset's report group, without source references. Each class file is read
+   * and parsed once and then analyzed against the execution data of every dataset.
+   *
+   * @param datasets report support of each dataset, mapped to the group visitor of the dataset
+   * @param projects the MavenProjects
+   * @param includes list of includes patterns
+   * @param excludes list of excludes patterns
+   * @param excludedModules artifactIds of projects to skip
+   * @throws IOException if class files can't be read
+   */
+  public static void processProjects(
+      final Map<ReportSupport, IReportGroupVisitor> datasets,
+      final List<MavenProject> projects,
+      final List<String> includes,
+      final List<String> excludes,
+      final List<String> excludedModules)
+      throws IOException {
+    final List<ReportSupport> supports = new ArrayList<ReportSupport>(datasets.keySet());
+    final List<CoverageBuilder> builders = new ArrayList<CoverageBuilder>();
+    for (final ReportSupport support : supports) {
+      builders.add(support.newBuilder("project"));
+    }
+    final Map<MavenProject, List<CoverageBuilder>> projectBuilders =
+        new LinkedHashMap<MavenProject, List<CoverageBuilder>>();
+    for (final MavenProject project : supports.get(0).included(projects, excludedModules)) {
+      projectBuilders.put(project, builders);
+    }
+    analyzeDatasets(supports, projectBuilders, includes, excludes);
+
+    for (int i = 0; i < supports.size(); i++) {
+      supports
+          .get(i)
+          .emitBundle(
+              datasets.get(supports.get(i)), builders.get(i), "project", new NoSourceLocator());
+    }
+  }
+
+  /**
+   * Calculates coverage of each of the given projects for several datasets in one pass and emits
+   * one bundle per project and dataset to the dataset's report group, including source references.
+   * Each class file is read and parsed once and then analyzed against the execution data of every
+   * dataset.
+   *
+   * @param datasets report support of each dataset, mapped to the group visitor of the dataset
+   * @param projects the MavenProjects, each one becomes a bundle named after the project name
+   * @param includes list of includes patterns
+   * @param excludes list of excludes patterns
+   * @param srcEncoding encoding of the source files within the projects
+   * @param excludedModules artifactIds of projects to skip
+   * @throws IOException if class files can't be read
+   */
+  public static void processEachProject(
+      final Map<ReportSupport, IReportGroupVisitor> datasets,
+      final List<MavenProject> projects,
+      final List<String> includes,
+      final List<String> excludes,
+      final String srcEncoding,
+      final List<String> excludedModules)
+      throws IOException {
+    final List<ReportSupport> supports = new ArrayList<ReportSupport>(datasets.keySet());
+    final Map<MavenProject, List<CoverageBuilder>> projectBuilders =
+        new LinkedHashMap<MavenProject, List<CoverageBuilder>>();
+    for (final MavenProject project : supports.get(0).included(projects, excludedModules)) {
+      final List<CoverageBuilder> builders = new ArrayList<CoverageBuilder>();
+      for (final ReportSupport support : supports) {
+        builders.add(support.newBuilder(bundleName(project)));
+      }
+      projectBuilders.put(project, builders);
+    }
+    analyzeDatasets(supports, projectBuilders, includes, excludes);
+
+    for (final Map.Entry<MavenProject, List<CoverageBuilder>> entry : projectBuilders.entrySet()) {
+      final MavenProject project = entry.getKey();
+      for (int i = 0; i < supports.size(); i++) {
+        supports
+            .get(i)
+            .emitBundle(
+                datasets.get(supports.get(i)),
+                entry.getValue().get(i),
+                bundleName(project),
+                supports.get(i).sourcesFor(project, srcEncoding));
+      }
+    }
+  }
+
+  private static void analyzeDatasets(
+      final List<ReportSupport> supports,
+      final Map<MavenProject, List<CoverageBuilder>> builders,
+      final List<String> includes,
+      final List<String> excludes)
+      throws IOException {
+    for (final ReportSupport support : supports) {
+      if (support.spillingLoader != null) {
+        throw new IllegalStateException("External merge is not supported for multiple datasets");
+      }
+    }
+    // classes are read once for all datasets, so their analysis is recorded once as well
+    final PhaseMetrics metrics = supports.get(0).metrics;
+    final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.ANALYZE).start();
+    try {
+      analyzeDatasetClasses(supports, builders, includes, excludes, metrics);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  private static void analyzeDatasetClasses(
+      final List<ReportSupport> supports,
+      final Map<MavenProject, List<CoverageBuilder>> builders,
+      final List<String> includes,
+      final List<String> excludes,
+      final PhaseMetrics metrics)
+      throws IOException {
+    final PhaseMetrics.Phase analysis = metrics.phase(PhaseMetrics.ANALYZE);
+    final ClassFileScanner scanner = supports.get(0).newScanner(includes, excludes);
+    for (final Map.Entry<MavenProject, List<CoverageBuilder>> entry : builders.entrySet()) {
+      final String module = entry.getKey().getArtifactId();
+      metrics.enterModule(module);
+      // all datasets see the same class files, the first builder filters for all of them
+      final DuplicateClassFilter duplicates = entry.getValue().get(0).getDuplicates();
+      final List<ICoverageVisitor> visitors = new ArrayList<ICoverageVisitor>();
+      for (int i = 0; i < supports.size(); i++) {
+        visitors.add(supports.get(i).visitorFor(entry.getValue().get(i)));
+      }
+      supports
+          .get(0)
+          .scanProject(
+              scanner,
+              entry.getKey(),
+              () -> {
+                final DatasetAnalyzer analyzer =
+                    new DatasetAnalyzer()
+                        .withCache(supports.get(0).cache)
+                        .withSharedCache(supports.get(0).sharedCache);
+                final List<ExecutionDataLookup> stores =
+                    new ArrayList<ExecutionDataLookup>(supports.size());
+                for (final ReportSupport support : supports) {
+                  stores.add(support.lookup());
+                }
+                return (classId, bytes, location) -> {
+                  for (int i = 0; i < supports.size(); i++) {
+                    supports.get(i).haltIfViolated(entry.getValue().get(i));
+                  }
+                  analysis.addFiles(1);
+                  analysis.addBytesRead(bytes.length);
+                  if (!supports.get(0).inScope(bytes)) {
+                    return;
+                  }
+                  if (!duplicates.accept(module, classId, location)) {
+                    return;
+                  }
+                  analysis.addClasses(1);
+                  analyzer.analyzeClass(bytes, classId, location, stores, visitors);
+                };
+              });
+      metrics.sampleModule(module);
+    }
+  }
+
+  private ExecutionDataLookup lookup() {
+    if (packedStore != null) {
+      return packedStore;
+    }
+    return ExecutionDataLookup.of(loader.getExecutionDataStore());
+  }
+
   private void processProjects(
       final IReportGroupVisitor visitor,
       final List<MavenProject> projects,
@@ -155,33 +803,320 @@ public class ReportSupport {
       final List<String> excludes,
       final ISourceFileLocator locator,
       String bundleName,
-      List<String> excludedModules)
+      List<String> excludedModules,
+      final boolean mayStream)
+      throws IOException {
+    if (streaming && spillingLoader == null) {
+      final CoverageBuilder aggregate = newStreamingBuilder(bundleName, new DuplicateClassFilter());
+      streamProjects(aggregate, included(projects, excludedModules), includes, excludes, locator);
+      emitBundle(visitor, aggregate, bundleName, locator);
+      return;
+    }
+    CoverageBuilder builder = newBuilder(bundleName);
+
+    final List<MavenProject> included = included(projects, excludedModules);
+    if (mayStream
+        && memoryBudget != null
+        && spillingLoader == null
+        && !leanAnalysis
+        && failFastRules == null) {
+      // analyzed one module at a time, to switch to streaming once the budget is exceeded
+      for (int i = 0; i < included.size(); i++) {
+        if (isLowMemory()) {
+          log.info(
+              format(
+                  "Continuing with streaming analysis for the remaining %s modules",
+                  Integer.valueOf(included.size() - i)));
+          final CoverageBuilder aggregate =
+              newStreamingBuilder(bundleName, builder.getDuplicates());
+          foldModule(builder.getBundle(bundleName), builder, aggregate, locator);
+          bundleBuilders.remove(builder);
+          // lets go of the classes folded so far
+          builder = null;
+          streamProjects(
+              aggregate, included.subList(i, included.size()), includes, excludes, locator);
+          emitBundle(visitor, aggregate, bundleName, locator);
+          return;
+        }
+        analyze(Collections.singletonMap(included.get(i), builder), includes, excludes);
+      }
+      emitBundle(visitor, builder, bundleName, locator);
+      return;
+    }
+
+    final Map<MavenProject, CoverageBuilder> builders =
+        new LinkedHashMap<MavenProject, CoverageBuilder>();
+    for (final MavenProject project : included) {
+      builders.put(project, builder);
+    }
+    analyze(builders, includes, excludes);
+
+    emitBundle(visitor, builder, bundleName, locator);
+  }
+
+  private void streamProjects(
+      final CoverageBuilder aggregate,
+      final List<MavenProject> projects,
+      final List<String> includes,
+      final List<String> excludes,
+      final ISourceFileLocator locator)
       throws IOException {
-    final CoverageBuilder builder = new CoverageBuilder(log);
+    // module classes are already restricted to the diff
+    final ICoverageVisitor aggregateVisitor = checkedVisitor(aggregate);
+    for (final MavenProject project : projects) {
+      final CoverageBuilder builder = new CoverageBuilder(log, aggregate.getDuplicates());
+      analyze(Collections.singletonMap(project, builder), includes, excludes);
+
+      foldModule(builder.getBundle(bundleName(project)), builder, aggregateVisitor, locator);
+      log.debug(
+          format(
+              "Module %s analyzed and folded, %s classes",
+              project.getArtifactId(), Integer.valueOf(builder.getClasses().size())));
+      haltIfViolated(aggregate);
+    }
+  }
+
+  /** Checks module level rules on the bundle of a module, then folds its classes. */
+  private void foldModule(
+      final IBundleCoverage bundle,
+      final CoverageBuilder builder,
+      final ICoverageVisitor aggregate,
+      final ISourceFileLocator locator)
+      throws IOException {
+    final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.REPORT).start();
+    try {
+      for (final IReportVisitor checker : moduleCheckers) {
+        checker.visitBundle(bundle, locator);
+      }
+    } finally {
+      timer.stop();
+    }
+    for (final IClassCoverage coverage : builder.getClasses()) {
+      aggregate.visitCoverage(coverage);
+    }
+  }
+
+  private List<MavenProject> included(
+      final List<MavenProject> projects, List<String> excludedModules) {
     excludedModules = excludedModules == null ? Collections.emptyList() : excludedModules;
 
+    final List<MavenProject> result = new ArrayList<MavenProject>();
     for (MavenProject project : projects) {
-      final File classesDir = new File(project.getBuild().getOutputDirectory());
       if (excludedModules.contains(project.getArtifactId())) {
         log.debug(
             String.format(
                 "Module '%s' skipped due to excludedModules %s", project, excludedModules));
         continue;
       }
+      if (diff != null && !diff.touches(project)) {
+        log.debug(format("Module '%s' skipped, none of its sources changed", project));
+        continue;
+      }
+      result.add(project);
+    }
+    return result;
+  }
 
-      if (classesDir.isDirectory()) {
-        final Analyzer analyzer = new Analyzer(loader.getExecutionDataStore(), builder);
-        final FileFilter filter = new FileFilter(includes, excludes);
-        for (final File file : filter.getFiles(classesDir)) {
-          analyzer.analyzeAll(file);
-        }
+  private void analyze(
+      final Map<MavenProject, CoverageBuilder> builders,
+      final List<String> includes,
+      final List<String> excludes)
+      throws IOException {
+    final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.ANALYZE).start();
+    try {
+      analyzeClasses(builders, includes, excludes);
+    } finally {
+      timer.stop();
+    }
+  }
+
+  private void analyzeClasses(
+      final Map<MavenProject, CoverageBuilder> builders,
+      final List<String> includes,
+      final List<String> excludes)
+      throws IOException {
+    final PhaseMetrics.Phase analysis = metrics.phase(PhaseMetrics.ANALYZE);
+    final ClassFileScanner scanner = newScanner(includes, excludes);
+    if (spillingLoader == null) {
+      for (final Map.Entry<MavenProject, CoverageBuilder> entry : builders.entrySet()) {
+        final String module = entry.getKey().getArtifactId();
+        final CoverageBuilder builder = entry.getValue();
+        metrics.enterModule(module);
+        scanProject(
+            scanner,
+            entry.getKey(),
+            () -> {
+              final Analyzer analyzer =
+                  packedStore == null && cache == null && sharedCache == null
+                      ? new Analyzer(loader.getExecutionDataStore(), visitorFor(builder))
+                      : null;
+              // packed execution data is looked up in place, which the Analyzer can't do
+              final DatasetAnalyzer inPlace =
+                  analyzer != null
+                      ? null
+                      : new DatasetAnalyzer().withCache(cache).withSharedCache(sharedCache);
+              final List<ExecutionDataLookup> stores = singletonList(lookup());
+              final List<ICoverageVisitor> visitors = singletonList(visitorFor(builder));
+              return (classId, bytes, location) -> {
+                haltIfViolated(builder);
+                analysis.addFiles(1);
+                analysis.addBytesRead(bytes.length);
+                if (!inScope(bytes)) {
+                  return;
+                }
+                if (!builder.getDuplicates().accept(module, classId, location)) {
+                  return;
+                }
+                analysis.addClasses(1);
+                if (analyzer != null) {
+                  analyzer.analyzeClass(bytes, location);
+                } else {
+                  inPlace.analyzeClass(bytes, classId, location, stores, visitors);
+                }
+              };
+            });
+        metrics.sampleModule(module);
+      }
+      return;
+    }
+
+    final int passes = spillingLoader.partition();
+    log.info(format("External merge analyzes the classes in %s passes", passes));
+    for (int pass = 0; pass < passes; pass++) {
+      log.debug(format("Analyzing external merge pass %s of %s", pass + 1, passes));
+      final int current = pass;
+      final ExecutionDataStore store = spillingLoader.loadPass(pass);
+      for (final Map.Entry<MavenProject, CoverageBuilder> entry : builders.entrySet()) {
+        final String module = entry.getKey().getArtifactId();
+        final CoverageBuilder builder = entry.getValue();
+        metrics.enterModule(module);
+        scanProject(
+            scanner,
+            entry.getKey(),
+            () -> {
+              final Analyzer analyzer = new Analyzer(store, visitorFor(builder));
+              return (classId, bytes, location) -> {
+                haltIfViolated(builder);
+                analysis.addFiles(1);
+                analysis.addBytesRead(bytes.length);
+                // a class id belongs to a single pass, so each class is only filtered once
+                if (spillingLoader.passOf(classId) == current
+                    && inScope(bytes)
+                    && builder.getDuplicates().accept(module, classId, location)) {
+                  analysis.addClasses(1);
+                  analyzer.analyzeClass(bytes, location);
+                }
+              };
+            });
+        metrics.sampleModule(module);
       }
     }
+  }
+
+  /**
+   * Scans the classes of a project from its output directory. When the directory is missing or
+   * holds no files, e.g. because a build cache restored the module's jar without its output
+   * directory, the project's packaged artifact is scanned instead. An output directory with files
+   * is scanned even when the artifact is newer, a stale directory isn't detected.
+   *
+   * @param visitors creates the visitors; archives are scanned by several threads, one visitor each
+   */
+  private void scanProject(
+      final ClassFileScanner scanner,
+      final MavenProject project,
+      final Supplier<ClassFileVisitor> visitors)
+      throws IOException {
+    final FlightRecorderEvents.ModuleAnalyzed event = new FlightRecorderEvents.ModuleAnalyzed();
+    if (!event.isEnabled()) {
+      scanClasses(scanner, project, visitors);
+      return;
+    }
+    final LongAdder classFiles = new LongAdder();
+    final LongAdder size = new LongAdder();
+    event.begin();
+    scanClasses(
+        scanner,
+        project,
+        () -> {
+          final ClassFileVisitor visitor = visitors.get();
+          return (classId, bytes, location) -> {
+            classFiles.increment();
+            size.add(bytes.length);
+            if (!FlightRecorderEvents.sampleClass()) {
+              visitor.visitClassFile(classId, bytes, location);
+              return;
+            }
+            final FlightRecorderEvents.ClassAnalyzed sample =
+                new FlightRecorderEvents.ClassAnalyzed();
+            sample.begin();
+            visitor.visitClassFile(classId, bytes, location);
+            sample.end();
+            if (sample.shouldCommit()) {
+              sample.location = location;
+              sample.size = bytes.length;
+              sample.commit();
+            }
+          };
+        });
+    event.end();
+    if (event.shouldCommit()) {
+      event.module = project.getArtifactId();
+      event.classFiles = classFiles.sum();
+      event.size = size.sum();
+      event.commit();
+    }
+  }
 
+  private void scanClasses(
+      final ClassFileScanner scanner,
+      final MavenProject project,
+      final Supplier<ClassFileVisitor> visitors)
+      throws IOException {
+    final File classesDir = classesDir(project);
+    if (hasFiles(classesDir)) {
+      scanner.scan(classesDir, visitors.get());
+      return;
+    }
+    final File artifact = project.getArtifact() == null ? null : project.getArtifact().getFile();
+    if (artifact != null && artifact.isFile()) {
+      log.info(
+          format(
+              "No classes found at %s, analyzing packaged artifact %s",
+              classesDir, artifact.getName()));
+      scanner.scanArchive(artifact, visitors);
+    }
+  }
+
+  private static boolean hasFiles(final File directory) throws IOException {
+    if (!directory.isDirectory()) {
+      return false;
+    }
+    try (Stream<Path> files = Files.walk(directory.toPath())) {
+      return files.anyMatch(Files::isRegularFile);
+    }
+  }
+
+  private static File classesDir(final MavenProject project) {
+    return new File(project.getBuild().getOutputDirectory());
+  }
+
+  private void emitBundle(
+      final IReportGroupVisitor visitor,
+      final CoverageBuilder builder,
+      final String bundleName,
+      final ISourceFileLocator locator)
+      throws IOException {
+    metrics.enterModule(bundleName);
     final IBundleCoverage bundle = builder.getBundle(bundleName);
     logBundleInfo(bundle, builder.getNoMatchClasses());
+    logDuplicates(bundle, builder.getDuplicates());
 
-    visitor.visitBundle(bundle, locator);
+    final PhaseMetrics.Timer timer = metrics.phase(PhaseMetrics.REPORT).start();
+    try {
+      visitor.visitBundle(bundle, locator);
+    } finally {
+      timer.stop();
+    }
   }
 
   private void processProject(
@@ -199,8 +1134,14 @@ public class ReportSupport {
         includes,
         excludes,
         locator,
-        project.getName(),
-        excludedModules);
+        bundleName(project),
+        excludedModules,
+        false);
+  }
+
+  /** Name of the bundle of a single project, the same whichever way it is analyzed. */
+  private static String bundleName(final MavenProject project) {
+    return project.getName();
   }
 
   private void logBundleInfo(
@@ -216,7 +1157,11 @@ public class ReportSupport {
                   + "For report generation the same class files must be used as at runtime.",
               bundle.getName()));
       for (final IClassCoverage c : nomatch) {
-        log.warn(format("Execution data for class %s does not match.", c.getName()));
+        if (issues != null) {
+          issues.mismatch(dataset, c.getName());
+        } else {
+          log.warn(format("Execution data for class %s does not match.", c.getName()));
+        }
       }
     }
     if (bundle.containsCode() && bundle.getLineCounter().getTotalCount() == 0) {
@@ -225,6 +1170,34 @@ public class ReportSupport {
     }
   }
 
+  private void logDuplicates(final IBundleCoverage bundle, final DuplicateClassFilter duplicates) {
+    final int count = duplicates.getCount();
+    if (count == 0) {
+      return;
+    }
+    log.info(
+        format(
+            "Skipped %s duplicate class files in bundle '%s', identical classes are only analyzed once:",
+            Integer.valueOf(count), bundle.getName()));
+    for (final Map.Entry<String, Integer> entry : duplicates.getSummary().entrySet()) {
+      log.info(format("  %s: %s classes", entry.getKey(), entry.getValue()));
+    }
+    if (log.isDebugEnabled()) {
+      final List<DuplicateClassFilter.Duplicate> recorded = duplicates.getDuplicates();
+      for (final DuplicateClassFilter.Duplicate duplicate : recorded) {
+        log.debug(
+            format(
+                "Duplicate class file %s skipped, identical to a class of %s",
+                duplicate.getLocation(), duplicate.getOriginalModule()));
+      }
+      if (count > recorded.size()) {
+        log.debug(
+            format(
+                "%s more duplicate class files skipped", Integer.valueOf(count - recorded.size())));
+      }
+    }
+  }
+
   private static class NoSourceLocator implements ISourceFileLocator {
 
     public Reader getSourceFile(final String packageName, final String fileName) {
@@ -240,10 +1213,13 @@ public class ReportSupport {
 
     private final List<File> sourceRoots;
     private final String encoding;
+    private final PhaseMetrics.Phase sources;
 
-    public SourceFileCollection(final MavenProject project, final String encoding) {
+    public SourceFileCollection(
+        final MavenProject project, final String encoding, final PhaseMetrics metrics) {
       this.sourceRoots = getCompileSourceRoots(project);
       this.encoding = encoding;
+      this.sources = metrics.phase(PhaseMetrics.SOURCES);
     }
 
     public Reader getSourceFile(final String packageName, final String fileName)
@@ -254,11 +1230,18 @@ public class ReportSupport {
       } else {
         r = fileName;
       }
-      for (final File sourceRoot : sourceRoots) {
-        final File file = new File(sourceRoot, r);
-        if (file.exists() && file.isFile()) {
-          return new InputStreamReader(new FileInputStream(file), encoding);
+      final PhaseMetrics.Timer timer = sources.start();
+      try {
+        for (final File sourceRoot : sourceRoots) {
+          final File file = new File(sourceRoot, r);
+          if (file.exists() && file.isFile()) {
+            sources.addFiles(1);
+            sources.addBytesRead(file.length());
+            return new InputStreamReader(new FileInputStream(file), encoding);
+          }
         }
+      } finally {
+        timer.stop();
       }
       return null;
     }
@@ -268,7 +1251,7 @@ public class ReportSupport {
     }
   }
 
-  private static List<File> getCompileSourceRoots(final MavenProject project) {
+  static List<File> getCompileSourceRoots(final MavenProject project) {
     final List<File> result = new ArrayList<File>();
     for (final Object path : project.getCompileSourceRoots()) {
       result.add(resolvePath(project, (String) path));
@@ -276,6 +1259,14 @@ public class ReportSupport {
     return result;
   }
 
+  static List<File> getTestCompileSourceRoots(final MavenProject project) {
+    final List<File> result = new ArrayList<File>();
+    for (final Object path : project.getTestCompileSourceRoots()) {
+      result.add(resolvePath(project, (String) path));
+    }
+    return result;
+  }
+
   private static File resolvePath(final MavenProject project, final String path) {
     File file = new File(path);
     if (!file.isAbsolute()) {
@@ -0,0 +1,39 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+/**
+ * Level of detail of a report. Cheaper tiers skip work while analyzing as well as while rendering:
+ * sources are only looked up for the full report, and the coverage tree is cut below the nodes the
+ * tier reports.
+ */
+public enum ReportTier {
+
+  /**
+   * Totals of each module, see {@link SummaryCoverageBuilder}. Lines of classes sharing a source
+   * file are summed rather than merged.
+   */
+  SUMMARY,
+
+  /** Counters of each package, without classes, see {@link LeanCoverageBuilder}. */
+  PACKAGE,
+
+  /** Classes and their methods, without source file nodes and source pages. */
+  CLASS,
+
+  /** Everything, including source file nodes and highlighted source pages. */
+  FULL
+}
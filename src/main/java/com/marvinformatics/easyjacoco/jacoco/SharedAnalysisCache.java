@@ -0,0 +1,435 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import org.apache.maven.plugin.logging.Log;
+import org.jacoco.core.JaCoCo;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICounter;
+import org.jacoco.core.analysis.ILine;
+import org.jacoco.core.analysis.IMethodCoverage;
+import org.jacoco.core.analysis.ISourceNode;
+import org.jacoco.core.internal.analysis.ClassCoverageImpl;
+import org.jacoco.core.internal.analysis.CounterImpl;
+import org.jacoco.core.internal.analysis.MethodCoverageImpl;
+
+/**
+ * Cache of analyzed classes in a directory shared by builds, e.g. a network file system mounted by
+ * all CI agents. A class that didn't change is then analyzed once for all builds that see the same
+ * execution data for it, instead of once per build.
+ *
+ * <p>Entries are content addressed: a file per class named after the class id, a CRC64 of the class
+ * file, and a SHA-256 of its probes, below a directory per JaCoCo version. Files are written to a
+ * temporary file and moved in place, so concurrent builds never read a partial entry, and an entry
+ * that can't be read is a miss. Hits refresh the modification time of an entry at most once a day,
+ * once the directory outgrows its size the entries used least recently are deleted. Evictions run
+ * at most once an hour for all builds sharing the directory.
+ */
+public final class SharedAnalysisCache {
+
+  /** Size of the cache when none is configured. */
+  public static final long DEFAULT_SIZE = 1024L * 1024 * 1024;
+
+  private static final int FORMAT = 0xEC0C0001;
+  private static final String TEMP_PREFIX = ".tmp-";
+  private static final String EVICTION_MARKER = ".eviction";
+  private static final long EVICTION_INTERVAL = TimeUnit.HOURS.toMillis(1);
+  private static final long TOUCH_INTERVAL = TimeUnit.DAYS.toMillis(1);
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final Path root;
+  private final Path directory;
+  private final long maxSize;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+  private final LongAdder written = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  /**
+   * @param root directory of the cache, created if needed
+   * @param maxSize size of all entries, in bytes, beyond which entries are evicted
+   */
+  public SharedAnalysisCache(final File root, final long maxSize) {
+    this.root = root.toPath();
+    this.directory = this.root.resolve(JaCoCo.VERSION);
+    this.maxSize = maxSize;
+  }
+
+  /**
+   * Looks up the coverage of a class analyzed before with the same execution data.
+   *
+   * @param classId id of the class
+   * @param probes probes of the class' execution data, or <code>null</code> if there is none
+   * @param noMatch whether the execution data has a different class of the same name
+   * @return cached coverage, or <code>null</code>
+   */
+  public IClassCoverage getClass(
+      final long classId, final boolean[] probes, final boolean noMatch) {
+    final Path file = entry(classId, probes, noMatch);
+    try (DataInputStream in =
+        new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      final IClassCoverage coverage = readClass(in, classId, noMatch);
+      hits.increment();
+      touch(file);
+      return coverage;
+    } catch (final NoSuchFileException e) {
+      misses.increment();
+      return null;
+    } catch (final IOException | RuntimeException e) {
+      // partially evicted or from another format, the class is analyzed and written again
+      misses.increment();
+      failures.increment();
+      return null;
+    }
+  }
+
+  /**
+   * Writes the coverage of an analyzed class to the cache, unless another build did already.
+   *
+   * @param classId id of the class
+   * @param probes probes of the class' execution data, or <code>null</code> if there is none
+   * @param noMatch whether the execution data has a different class of the same name
+   * @param coverage coverage of the class
+   */
+  public void putClass(
+      final long classId,
+      final boolean[] probes,
+      final boolean noMatch,
+      final IClassCoverage coverage) {
+    final Path file = entry(classId, probes, noMatch);
+    Path temp = null;
+    try {
+      if (Files.exists(file)) {
+        return;
+      }
+      Files.createDirectories(file.getParent());
+      temp = Files.createTempFile(file.getParent(), TEMP_PREFIX, null);
+      try (DataOutputStream out =
+          new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        writeClass(out, coverage);
+      }
+      try {
+        Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+      } catch (final AtomicMoveNotSupportedException e) {
+        Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+      }
+      temp = null;
+      written.increment();
+    } catch (final IOException e) {
+      // the cache is an optimization, a full or unavailable directory must not fail the build
+      failures.increment();
+    } finally {
+      if (temp != null) {
+        try {
+          Files.deleteIfExists(temp);
+        } catch (final IOException e) {
+          // left to eviction
+        }
+      }
+    }
+  }
+
+  private Path entry(final long classId, final boolean[] probes, final boolean noMatch) {
+    final String id = String.format("%016x", Long.valueOf(classId));
+    return directory.resolve(id.substring(0, 2)).resolve(id + "-" + hash(probes, noMatch));
+  }
+
+  private static String hash(final boolean[] probes, final boolean noMatch) {
+    final MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (final NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+    if (probes == null) {
+      digest.update((byte) (noMatch ? 2 : 1));
+    } else {
+      final byte[] bits = new byte[5 + (probes.length + 7) / 8];
+      bits[1] = (byte) (probes.length >>> 24);
+      bits[2] = (byte) (probes.length >>> 16);
+      bits[3] = (byte) (probes.length >>> 8);
+      bits[4] = (byte) probes.length;
+      for (int i = 0; i < probes.length; i++) {
+        if (probes[i]) {
+          bits[5 + i / 8] |= (byte) (1 << (i % 8));
+        }
+      }
+      digest.update(bits);
+    }
+    // 128 bits are plenty to tell the probes of a single class apart
+    final byte[] sha = digest.digest();
+    final char[] hex = new char[32];
+    for (int i = 0; i < 16; i++) {
+      hex[2 * i] = HEX[(sha[i] >>> 4) & 0xF];
+      hex[2 * i + 1] = HEX[sha[i] & 0xF];
+    }
+    return new String(hex);
+  }
+
+  private static void touch(final Path file) throws IOException {
+    final long now = System.currentTimeMillis();
+    if (now - Files.getLastModifiedTime(file).toMillis() > TOUCH_INTERVAL) {
+      Files.setLastModifiedTime(file, FileTime.fromMillis(now));
+    }
+  }
+
+  private static void writeClass(final DataOutputStream out, final IClassCoverage coverage)
+      throws IOException {
+    out.writeInt(FORMAT);
+    out.writeLong(coverage.getId());
+    out.writeUTF(coverage.getName());
+    writeNullable(out, coverage.getSignature());
+    writeNullable(out, coverage.getSuperName());
+    writeNullable(out, coverage.getSourceFileName());
+    final String[] interfaces = coverage.getInterfaceNames();
+    out.writeInt(interfaces == null ? -1 : interfaces.length);
+    if (interfaces != null) {
+      for (final String name : interfaces) {
+        out.writeUTF(name);
+      }
+    }
+    final Collection<IMethodCoverage> methods = coverage.getMethods();
+    out.writeInt(methods.size());
+    for (final IMethodCoverage method : methods) {
+      out.writeUTF(method.getName());
+      out.writeUTF(method.getDesc());
+      writeNullable(out, method.getSignature());
+      writeCounter(out, method.getInstructionCounter());
+      writeCounter(out, method.getBranchCounter());
+      writeCounter(out, method.getComplexityCounter());
+      writeCounter(out, method.getMethodCounter());
+      out.writeInt(method.getFirstLine());
+      out.writeInt(method.getLastLine());
+      if (method.getFirstLine() != ISourceNode.UNKNOWN_LINE) {
+        for (int nr = method.getFirstLine(); nr <= method.getLastLine(); nr++) {
+          final ILine line = method.getLine(nr);
+          writeCounter(out, line.getInstructionCounter());
+          writeCounter(out, line.getBranchCounter());
+        }
+      }
+    }
+  }
+
+  private static IClassCoverage readClass(
+      final DataInputStream in, final long classId, final boolean noMatch) throws IOException {
+    if (in.readInt() != FORMAT || in.readLong() != classId) {
+      throw new IOException("Unexpected cache entry");
+    }
+    final ClassCoverageImpl coverage = new ClassCoverageImpl(in.readUTF(), classId, noMatch);
+    coverage.setSignature(readNullable(in));
+    coverage.setSuperName(readNullable(in));
+    coverage.setSourceFileName(readNullable(in));
+    final int interfaceCount = in.readInt();
+    if (interfaceCount >= 0) {
+      final String[] interfaces = new String[interfaceCount];
+      for (int i = 0; i < interfaceCount; i++) {
+        interfaces[i] = in.readUTF();
+      }
+      coverage.setInterfaces(interfaces);
+    }
+    final int methodCount = in.readInt();
+    for (int m = 0; m < methodCount; m++) {
+      final StoredMethodCoverage method =
+          new StoredMethodCoverage(in.readUTF(), in.readUTF(), readNullable(in));
+      final CounterImpl instructions = readCounter(in);
+      final CounterImpl branches = readCounter(in);
+      final CounterImpl complexity = readCounter(in);
+      final CounterImpl methods = readCounter(in);
+      final int firstLine = in.readInt();
+      final int lastLine = in.readInt();
+      if (firstLine != ISourceNode.UNKNOWN_LINE) {
+        method.ensureCapacity(firstLine, lastLine);
+        for (int nr = firstLine; nr <= lastLine; nr++) {
+          final CounterImpl lineInstructions = readCounter(in);
+          final CounterImpl lineBranches = readCounter(in);
+          if (lineInstructions.getTotalCount() > 0 || lineBranches.getTotalCount() > 0) {
+            method.increment(lineInstructions, lineBranches, nr);
+          }
+        }
+      }
+      method.setCounters(instructions, branches, complexity, methods);
+      coverage.addMethod(method);
+    }
+    return coverage;
+  }
+
+  private static void writeNullable(final DataOutputStream out, final String value)
+      throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullable(final DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+  private static void writeCounter(final DataOutputStream out, final ICounter counter)
+      throws IOException {
+    out.writeInt(counter.getMissedCount());
+    out.writeInt(counter.getCoveredCount());
+  }
+
+  private static CounterImpl readCounter(final DataInputStream in) throws IOException {
+    return CounterImpl.getInstance(in.readInt(), in.readInt());
+  }
+
+  /**
+   * Deletes the entries used least recently while the cache exceeds its size, along with temporary
+   * files left behind by crashed builds. Skipped if any build sharing the directory evicted within
+   * the last hour.
+   *
+   * @param log log to report evictions to
+   */
+  public void evict(final Log log) {
+    final Path marker = root.resolve(EVICTION_MARKER);
+    final long now = System.currentTimeMillis();
+    try {
+      if (Files.exists(marker)
+          && now - Files.getLastModifiedTime(marker).toMillis() < EVICTION_INTERVAL) {
+        return;
+      }
+      Files.createDirectories(root);
+      Files.write(marker, new byte[0]);
+
+      final List<Entry> entries = new ArrayList<Entry>();
+      long size = 0;
+      try (Stream<Path> files = Files.walk(root)) {
+        for (final Path file : (Iterable<Path>) files::iterator) {
+          final BasicFileAttributes attributes;
+          try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+          } catch (final NoSuchFileException e) {
+            continue;
+          }
+          if (!attributes.isRegularFile() || file.equals(marker)) {
+            continue;
+          }
+          final long modified = attributes.lastModifiedTime().toMillis();
+          if (file.getFileName().toString().startsWith(TEMP_PREFIX)) {
+            if (now - modified > EVICTION_INTERVAL) {
+              Files.deleteIfExists(file);
+            }
+            continue;
+          }
+          entries.add(new Entry(file, attributes.size(), modified));
+          size += attributes.size();
+        }
+      }
+      if (size <= maxSize) {
+        return;
+      }
+
+      // evict down to 90% so that the next builds don't have to evict right away
+      entries.sort(Comparator.comparingLong(entry -> entry.modified));
+      final long target = maxSize / 10 * 9;
+      int deleted = 0;
+      for (final Entry entry : entries) {
+        if (size <= target) {
+          break;
+        }
+        Files.deleteIfExists(entry.file);
+        size -= entry.size;
+        deleted++;
+      }
+      log.info(
+          format(
+              "Shared analysis cache evicted %s entries, %s MB left",
+              deleted, size / (1024 * 1024)));
+    } catch (final IOException | UncheckedIOException e) {
+      log.warn("Error while evicting the shared analysis cache: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Logs hits, misses and writes since the previous call.
+   *
+   * @param log log to write to
+   */
+  public void logStatistics(final Log log) {
+    final long hits = this.hits.sumThenReset();
+    final long misses = this.misses.sumThenReset();
+    final long failures = this.failures.sumThenReset();
+    log.info(
+        format(
+            "Shared analysis cache reused %s of %s classes, %s written to %s",
+            hits, hits + misses, written.sumThenReset(), root));
+    if (failures > 0) {
+      log.warn(
+          format("Shared analysis cache failed to read or write %s entries in %s", failures, root));
+    }
+  }
+
+  private static final class Entry {
+    final Path file;
+    final long size;
+    final long modified;
+
+    Entry(final Path file, final long size, final long modified) {
+      this.file = file;
+      this.size = size;
+      this.modified = modified;
+    }
+  }
+
+  /**
+   * Method coverage restored from the cache. Lines are replayed as stored, the totals are set as
+   * analyzed since complexity and instructions without line numbers can't be derived from lines.
+   */
+  private static final class StoredMethodCoverage extends MethodCoverageImpl {
+
+    StoredMethodCoverage(final String name, final String desc, final String signature) {
+      super(name, desc, signature);
+    }
+
+    void setCounters(
+        final CounterImpl instructions,
+        final CounterImpl branches,
+        final CounterImpl complexity,
+        final CounterImpl methods) {
+      this.instructionCounter = instructions;
+      this.branchCounter = branches;
+      this.complexityCounter = complexity;
+      this.methodCounter = methods;
+    }
+  }
+}
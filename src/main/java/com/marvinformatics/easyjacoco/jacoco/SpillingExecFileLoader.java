@@ -0,0 +1,308 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.ExecutionDataStore;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.SessionInfoStore;
+
+/**
+ * Loads execution data files without merging them on the heap. Execution data records are
+ * partitioned by class id and appended to spill files; session infos are kept in memory.
+ *
+ * <p>After all files are loaded the partitions are grouped into passes so that the merged execution
+ * data of a single pass fits into the configured memory budget. A partition larger than the budget
+ * on its own is split over several passes by a second hash of the class id. Each pass is then
+ * loaded on its own with {@link #loadPass(int)}, and only classes for which {@link #passOf(long)}
+ * matches should be analyzed against it.
+ *
+ * <p>Class ids are only deduplicated one partition at a time, so besides the data of the current
+ * pass at most the ids of a single partition are held on the heap.
+ */
+public class SpillingExecFileLoader implements Closeable {
+
+  /** Number of spill partitions, must be a power of two. */
+  static final int PARTITIONS = 64;
+
+  /** Rough heap cost of one merged class entry, excluding probes and name. */
+  private static final long ENTRY_OVERHEAD = 160;
+
+  /** Upper bound of the passes a single partition is split over. */
+  private static final int MAX_SPLITS = 1024;
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private static final int SPILL_BUFFER_SIZE = 8 * 1024;
+
+  private final File directory;
+  private final long memoryBudget;
+  private final SessionInfoStore sessionInfos;
+  private final ExecutionDataWriter[] writers;
+  private final OutputStream[] outputs;
+  private final long[] estimatedSize;
+
+  private int[] passes;
+  private int[] splits;
+  private int passCount;
+
+  /**
+   * Creates a new loader.
+   *
+   * @param directory directory for the spill files, created if missing
+   * @param memoryBudget heap budget in bytes for the execution data of a single pass
+   */
+  public SpillingExecFileLoader(final File directory, final long memoryBudget) {
+    this.directory = directory;
+    this.memoryBudget = Math.max(1, memoryBudget);
+    this.sessionInfos = new SessionInfoStore();
+    this.writers = new ExecutionDataWriter[PARTITIONS];
+    this.outputs = new OutputStream[PARTITIONS];
+    this.estimatedSize = new long[PARTITIONS];
+  }
+
+  /**
+   * Spills all execution data from the given file.
+   *
+   * @param file execution data file to load
+   * @throws IOException if the file can't be read or the spill files can't be written
+   */
+  public void load(final File file) throws IOException {
+    if (passes != null) {
+      throw new IllegalStateException("Execution data can't be loaded after partitioning");
+    }
+    try (InputStream in = new BufferedInputStream(new FileInputStream(file), BUFFER_SIZE)) {
+      final ExecutionDataReader reader = new ExecutionDataReader(in);
+      reader.setSessionInfoVisitor(sessionInfos);
+      reader.setExecutionDataVisitor(this::spill);
+      reader.read();
+    } catch (final SpillException e) {
+      throw e.getCause();
+    }
+  }
+
+  private void spill(final ExecutionData data) {
+    final int partition = partitionOf(data.getId());
+    try {
+      writer(partition).visitClassExecution(data);
+    } catch (final IOException e) {
+      throw new SpillException(e);
+    }
+    // counts every record, classes found in several files are deduplicated by partition()
+    estimatedSize[partition] += estimatedSize(data);
+  }
+
+  private static long estimatedSize(final ExecutionData data) {
+    return ENTRY_OVERHEAD + data.getProbes().length + 2L * data.getName().length();
+  }
+
+  private ExecutionDataWriter writer(final int partition) throws IOException {
+    if (writers[partition] == null) {
+      directory.mkdirs();
+      outputs[partition] =
+          new BufferedOutputStream(
+              new FileOutputStream(partitionFile(partition)), SPILL_BUFFER_SIZE);
+      writers[partition] = new ExecutionDataWriter(outputs[partition]);
+    }
+    return writers[partition];
+  }
+
+  private File partitionFile(final int partition) {
+    return new File(directory, String.format("partition-%02d.exec", partition));
+  }
+
+  /**
+   * Session infos of all loaded files.
+   *
+   * @return session info store
+   */
+  public SessionInfoStore getSessionInfoStore() {
+    return sessionInfos;
+  }
+
+  /**
+   * Finishes spilling and groups partitions into passes that fit the memory budget. Loading further
+   * files is not possible afterwards. When the execution data doesn't fit into a single pass, each
+   * partition is read once more to estimate the size of its classes without duplicates.
+   *
+   * @return number of passes required to analyze all execution data
+   * @throws IOException if the spill files can't be flushed
+   */
+  public int partition() throws IOException {
+    if (passes != null) {
+      return passCount;
+    }
+    for (final OutputStream output : outputs) {
+      if (output != null) {
+        output.close();
+      }
+    }
+    long total = 0;
+    for (final long size : estimatedSize) {
+      total += size;
+    }
+    if (total > memoryBudget) {
+      for (int partition = 0; partition < PARTITIONS; partition++) {
+        if (writers[partition] != null) {
+          estimatedSize[partition] = uniqueSize(partition);
+        }
+      }
+    }
+
+    passes = new int[PARTITIONS];
+    splits = new int[PARTITIONS];
+    long current = 0;
+    int pass = 0;
+    for (int partition = 0; partition < PARTITIONS; partition++) {
+      final long size = estimatedSize[partition];
+      if (size > memoryBudget) {
+        // spread over passes of its own, each one loading a share of the partition's classes
+        if (current > 0) {
+          pass++;
+          current = 0;
+        }
+        splits[partition] = (int) Math.min(MAX_SPLITS, (size + memoryBudget - 1) / memoryBudget);
+        passes[partition] = pass;
+        pass += splits[partition];
+        continue;
+      }
+      if (current > 0 && current + size > memoryBudget) {
+        pass++;
+        current = 0;
+      }
+      current += size;
+      // partitions without data go to the first pass, their classes are analyzed as not covered
+      passes[partition] = size == 0 ? 0 : pass;
+      splits[partition] = 1;
+    }
+    passCount = Math.max(1, current > 0 ? pass + 1 : pass);
+    return passCount;
+  }
+
+  private long uniqueSize(final int partition) throws IOException {
+    final LongHashSet ids = new LongHashSet();
+    final long[] size = new long[1];
+    read(
+        partition,
+        data -> {
+          if (ids.add(data.getId())) {
+            size[0] += estimatedSize(data);
+          }
+        });
+    return size[0];
+  }
+
+  /**
+   * Pass in which the execution data of the given class is available.
+   *
+   * @param classId class id
+   * @return pass index
+   */
+  public int passOf(final long classId) {
+    final int partition = partitionOf(classId);
+    return passes[partition] + splitOf(classId, splits[partition]);
+  }
+
+  /**
+   * Loads and merges the execution data of all partitions that belong to the given pass.
+   *
+   * @param pass pass index
+   * @return merged execution data of the pass
+   * @throws IOException if the spill files can't be read
+   */
+  public ExecutionDataStore loadPass(final int pass) throws IOException {
+    final ExecutionDataStore store = new ExecutionDataStore();
+    for (int partition = 0; partition < PARTITIONS; partition++) {
+      final int first = passes[partition];
+      final int count = splits[partition];
+      if (writers[partition] == null || pass < first || pass >= first + count) {
+        continue;
+      }
+      if (count == 1) {
+        read(partition, store);
+      } else {
+        final int split = pass - first;
+        read(
+            partition,
+            data -> {
+              if (splitOf(data.getId(), count) == split) {
+                store.visitClassExecution(data);
+              }
+            });
+      }
+    }
+    return store;
+  }
+
+  private void read(final int partition, final IExecutionDataVisitor visitor) throws IOException {
+    try (InputStream in =
+        new BufferedInputStream(new FileInputStream(partitionFile(partition)), BUFFER_SIZE)) {
+      final ExecutionDataReader reader = new ExecutionDataReader(in);
+      reader.setExecutionDataVisitor(visitor);
+      reader.read();
+    }
+  }
+
+  static int partitionOf(final long classId) {
+    final long mixed = classId ^ (classId >>> 29) ^ (classId >>> 47);
+    return (int) mixed & (PARTITIONS - 1);
+  }
+
+  /** Share of a split partition a class belongs to, independent of {@link #partitionOf}. */
+  static int splitOf(final long classId, final int splits) {
+    if (splits == 1) {
+      return 0;
+    }
+    return (int) Long.remainderUnsigned((classId * 0x9E3779B97F4A7C15L) >>> 16, splits);
+  }
+
+  /** Deletes all spill files. */
+  @Override
+  public void close() throws IOException {
+    for (int partition = 0; partition < PARTITIONS; partition++) {
+      if (outputs[partition] != null) {
+        outputs[partition].close();
+        partitionFile(partition).delete();
+      }
+    }
+    directory.delete();
+  }
+
+  /** Unchecked wrapper to get spill failures out of the reader callback. */
+  static class SpillException extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    SpillException(final IOException cause) {
+      super(cause);
+    }
+
+    @Override
+    public synchronized IOException getCause() {
+      return (IOException) super.getCause();
+    }
+  }
+}
@@ -0,0 +1,125 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.plugin.logging.Log;
+import org.jacoco.core.analysis.CoverageNodeImpl;
+import org.jacoco.core.analysis.IBundleCoverage;
+import org.jacoco.core.analysis.IClassCoverage;
+import org.jacoco.core.analysis.ICoverageNode.ElementType;
+import org.jacoco.core.analysis.IPackageCoverage;
+import org.jacoco.core.analysis.ISourceFileCoverage;
+import org.jacoco.core.internal.analysis.SourceFileCoverageImpl;
+
+/**
+ * Coverage builder for summary reports. Each class is added to the counters of its source file as
+ * soon as it's analyzed and then dropped, the resulting bundle has no packages. Source files keep
+ * their lines, so a line shared by classes of the same source file, e.g. of an inner class or an
+ * inlined function, counts once like in the full report. Classes without a source file are added to
+ * the bundle counters directly.
+ *
+ * <p>Like {@link LeanCoverageBuilder}, the first class analyzed for a name wins when different
+ * classes share a name.
+ */
+public class SummaryCoverageBuilder extends CoverageBuilder {
+
+  private final Log log;
+  private final Map<String, Long> classIds;
+  private final Map<String, SourceFileCoverageImpl> sourceFiles;
+  private final List<IClassCoverage> noMatch;
+  private final CoverageNodeImpl totals;
+
+  /**
+   * Create a new builder.
+   *
+   * @param log for log output
+   */
+  public SummaryCoverageBuilder(final Log log) {
+    super(log);
+    this.log = log;
+    this.classIds = new HashMap<String, Long>();
+    this.sourceFiles = new HashMap<String, SourceFileCoverageImpl>();
+    this.noMatch = new ArrayList<IClassCoverage>();
+    this.totals = new CoverageNodeImpl(ElementType.BUNDLE, "");
+  }
+
+  @Override
+  public synchronized void visitCoverage(final IClassCoverage coverage) {
+    final String name = coverage.getName();
+    final Long previous = classIds.putIfAbsent(name, Long.valueOf(coverage.getId()));
+    if (previous != null) {
+      if (previous.longValue() != coverage.getId()) {
+        log.warn("Can't add different class with same name: " + name);
+      }
+      return;
+    }
+    final String source = coverage.getSourceFileName();
+    if (source == null) {
+      totals.increment(coverage);
+    } else {
+      sourceFiles
+          .computeIfAbsent(
+              coverage.getPackageName() + '/' + source,
+              key -> new SourceFileCoverageImpl(source, coverage.getPackageName()))
+          .increment(coverage);
+    }
+    if (coverage.isNoMatch()) {
+      noMatch.add(coverage);
+    }
+  }
+
+  @Override
+  public Collection<IClassCoverage> getClasses() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public Collection<ISourceFileCoverage> getSourceFiles() {
+    return Collections.emptyList();
+  }
+
+  @Override
+  public synchronized IBundleCoverage getBundle(final String name) {
+    final SummaryBundle bundle = new SummaryBundle(name);
+    bundle.increment(totals);
+    bundle.increment(sourceFiles.values());
+    return bundle;
+  }
+
+  @Override
+  public Collection<IClassCoverage> getNoMatchClasses() {
+    return Collections.unmodifiableCollection(noMatch);
+  }
+
+  /** Bundle holding just the counters of its classes. */
+  private static final class SummaryBundle extends CoverageNodeImpl implements IBundleCoverage {
+
+    SummaryBundle(final String name) {
+      super(ElementType.BUNDLE, name);
+    }
+
+    @Override
+    public Collection<IPackageCoverage> getPackages() {
+      return Collections.emptyList();
+    }
+  }
+}
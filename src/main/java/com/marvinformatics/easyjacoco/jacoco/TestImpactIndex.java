@@ -0,0 +1,418 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import static java.lang.String.format;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Predicate;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataReader;
+import org.jacoco.core.data.IExecutionDataVisitor;
+import org.jacoco.core.data.ISessionInfoVisitor;
+import org.jacoco.core.data.SessionInfo;
+
+/**
+ * Inverted index from classes to the tests that executed them, for running only the tests affected
+ * by a change. Tests are identified by the id of the session they were dumped in, so exec files
+ * have to be written with one session per test, each session followed by the execution data of its
+ * dump.
+ *
+ * <p>The index file is memory-mapped for lookups. It holds a header, a table of fixed size class
+ * records sorted by the bytes of their UTF-8 VM names, a table of test records, then the names and
+ * for each class the varint encoded list of test numbers, as deltas:
+ *
+ * <pre>
+ * header:  magic (int), version (int), test count (int), class count (int)
+ * class:   name offset (int), name length (int), class id (long), tests offset (int)
+ * test:    name offset (int), name length (int)
+ * </pre>
+ */
+public class TestImpactIndex {
+
+  private static final int MAGIC = 0xEC0A11DE;
+
+  private static final int VERSION = 1;
+
+  private static final int HEADER = 16;
+
+  private static final int CLASS_RECORD = 20;
+
+  private static final int TEST_RECORD = 8;
+
+  private final ByteBuffer buffer;
+  private final int testCount;
+  private final int classCount;
+
+  private TestImpactIndex(final ByteBuffer buffer) {
+    this.buffer = buffer;
+    this.testCount = buffer.getInt(8);
+    this.classCount = buffer.getInt(12);
+  }
+
+  /**
+   * Maps an index file written by {@link Builder#write(File)}.
+   *
+   * @param file index file
+   * @return index backed by the mapped file
+   * @throws IOException if the file can't be read or isn't an index
+   */
+  public static TestImpactIndex open(final File file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      final ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+      if (buffer.capacity() < HEADER || buffer.getInt(0) != MAGIC) {
+        throw new IOException(file + " is not a test impact index");
+      }
+      if (buffer.getInt(4) != VERSION) {
+        throw new IOException(
+            format("Unsupported version %s of test impact index %s", buffer.getInt(4), file));
+      }
+      return new TestImpactIndex(buffer);
+    }
+  }
+
+  /**
+   * @return number of tests in the index
+   */
+  public int getTestCount() {
+    return testCount;
+  }
+
+  /**
+   * @return number of classes in the index
+   */
+  public int getClassCount() {
+    return classCount;
+  }
+
+  /**
+   * Checks whether a test of the given name is part of the index.
+   *
+   * @param test test name, as the session id it was recorded with
+   * @return <code>true</code> if the test is known
+   */
+  public boolean isTest(final String test) {
+    for (int t = 0; t < testCount; t++) {
+      if (test.equals(testName(t))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Looks up the tests that executed a class or any of its nested classes.
+   *
+   * @param className VM name of the class, e.g. <code>com/example/Foo</code>
+   * @param tests receives the test names
+   * @return <code>true</code> if the class or a nested class is part of the index
+   */
+  public boolean collectTests(final String className, final Collection<String> tests) {
+    final byte[] name = className.getBytes(StandardCharsets.UTF_8);
+    final byte[] nested = (className + "$").getBytes(StandardCharsets.UTF_8);
+    boolean found = false;
+    final int c = lowerBound(name);
+    if (c < classCount && compareName(c, name) == 0) {
+      collectTests(c, tests);
+      found = true;
+    }
+    for (int n = lowerBound(nested); n < classCount && startsWith(n, nested); n++) {
+      collectTests(n, tests);
+      found = true;
+    }
+    return found;
+  }
+
+  /**
+   * Looks up the tests affected by a set of changed classes.
+   *
+   * @param classNames VM names of the changed classes
+   * @param unknown receives the changed classes not executed by any test
+   * @return names of the affected tests, sorted
+   */
+  public Set<String> affectedTests(
+      final Collection<String> classNames, final Collection<String> unknown) {
+    final Set<String> result = new TreeSet<String>();
+    for (final String className : classNames) {
+      if (!collectTests(className, result)) {
+        unknown.add(className);
+      }
+    }
+    return result;
+  }
+
+  private void collectTests(final int c, final Collection<String> tests) {
+    final int[] position = {buffer.getInt(classRecord(c) + 16)};
+    final int count = readVarInt(position);
+    int test = 0;
+    for (int i = 0; i < count; i++) {
+      test += readVarInt(position);
+      tests.add(testName(test));
+    }
+  }
+
+  /** First class whose name isn't ordered before the given one. */
+  private int lowerBound(final byte[] name) {
+    int low = 0;
+    int high = classCount;
+    while (low < high) {
+      final int mid = (low + high) >>> 1;
+      if (compareName(mid, name) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /** Compares the name of a class with the given bytes, unsigned, like the records are sorted. */
+  private int compareName(final int c, final byte[] name) {
+    final int record = classRecord(c);
+    final int offset = buffer.getInt(record);
+    final int length = buffer.getInt(record + 4);
+    for (int i = 0; i < Math.min(length, name.length); i++) {
+      final int order = Integer.compare(buffer.get(offset + i) & 0xFF, name[i] & 0xFF);
+      if (order != 0) {
+        return order;
+      }
+    }
+    return Integer.compare(length, name.length);
+  }
+
+  private boolean startsWith(final int c, final byte[] prefix) {
+    final int record = classRecord(c);
+    final int offset = buffer.getInt(record);
+    if (buffer.getInt(record + 4) < prefix.length) {
+      return false;
+    }
+    for (int i = 0; i < prefix.length; i++) {
+      if (buffer.get(offset + i) != prefix[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static int classRecord(final int c) {
+    return HEADER + c * CLASS_RECORD;
+  }
+
+  private String testName(final int t) {
+    final int record = HEADER + classCount * CLASS_RECORD + t * TEST_RECORD;
+    final byte[] name = new byte[buffer.getInt(record + 4)];
+    final ByteBuffer view = buffer.duplicate();
+    view.position(buffer.getInt(record));
+    view.get(name);
+    return new String(name, StandardCharsets.UTF_8);
+  }
+
+  private int readVarInt(final int[] position) {
+    int value = 0;
+    int shift = 0;
+    int b;
+    do {
+      b = buffer.get(position[0]++) & 0xFF;
+      value |= (b & 0x7F) << shift;
+      shift += 7;
+    } while ((b & 0x80) != 0);
+    return value;
+  }
+
+  /**
+   * Collects which test sessions executed which classes, from exec files holding one session per
+   * test. Classes without any executed probe in a session are not attributed to it, neither is
+   * execution data found before the first session info of a file or in a session that isn't a test.
+   */
+  public static class Builder implements ISessionInfoVisitor, IExecutionDataVisitor {
+
+    /** class id and tests of a class */
+    private static class Entry {
+      private long id;
+      private final BitSet tests = new BitSet();
+    }
+
+    private final Predicate<String> isTest;
+    private final Map<String, Integer> tests = new LinkedHashMap<String, Integer>();
+    private final Set<String> skipped = new HashSet<String>();
+    private final Map<String, Entry> classes = new HashMap<String, Entry>();
+    private int current = -1;
+
+    /** Creates a builder taking every session for a test. */
+    public Builder() {
+      this(id -> true);
+    }
+
+    /**
+     * @param isTest tells which session ids name a test, execution data of other sessions is
+     *     skipped
+     */
+    public Builder(final Predicate<String> isTest) {
+      this.isTest = isTest;
+    }
+
+    /**
+     * Reads the sessions of an exec file.
+     *
+     * @param execFile exec file to read
+     * @throws IOException if the file can't be read
+     */
+    public void read(final File execFile) throws IOException {
+      current = -1;
+      try (InputStream in = new BufferedInputStream(Files.newInputStream(execFile.toPath()))) {
+        final ExecutionDataReader reader = new ExecutionDataReader(in);
+        reader.setSessionInfoVisitor(this);
+        reader.setExecutionDataVisitor(this);
+        reader.read();
+      }
+    }
+
+    @Override
+    public void visitSessionInfo(final SessionInfo info) {
+      if (!isTest.test(info.getId())) {
+        skipped.add(info.getId());
+        current = -1;
+        return;
+      }
+      current = tests.computeIfAbsent(info.getId(), id -> Integer.valueOf(tests.size())).intValue();
+    }
+
+    @Override
+    public void visitClassExecution(final ExecutionData data) {
+      if (current < 0 || !data.hasHits()) {
+        return;
+      }
+      final Entry entry = classes.computeIfAbsent(data.getName(), n -> new Entry());
+      entry.id = data.getId();
+      entry.tests.set(current);
+    }
+
+    /**
+     * @return number of tests seen so far
+     */
+    public int getTestCount() {
+      return tests.size();
+    }
+
+    /**
+     * @return number of distinct session ids skipped so far as they don't name a test
+     */
+    public int getSkippedSessionCount() {
+      return skipped.size();
+    }
+
+    /**
+     * @return number of classes executed by any test so far
+     */
+    public int getClassCount() {
+      return classes.size();
+    }
+
+    /**
+     * Writes the index, replacing the file once completely written.
+     *
+     * @param file index file
+     * @throws IOException if the file can't be written
+     */
+    public void write(final File file) throws IOException {
+      final List<Map.Entry<byte[], Entry>> sorted =
+          new ArrayList<Map.Entry<byte[], Entry>>(classes.size());
+      for (final Map.Entry<String, Entry> entry : classes.entrySet()) {
+        sorted.add(Map.entry(entry.getKey().getBytes(StandardCharsets.UTF_8), entry.getValue()));
+      }
+      sorted.sort((a, b) -> Arrays.compareUnsigned(a.getKey(), b.getKey()));
+      final List<byte[]> testNames = new ArrayList<byte[]>(tests.size());
+      for (final String test : tests.keySet()) {
+        testNames.add(test.getBytes(StandardCharsets.UTF_8));
+      }
+
+      // names and test lists follow the fixed size records
+      final int dataStart = HEADER + sorted.size() * CLASS_RECORD + testNames.size() * TEST_RECORD;
+      final ByteArrayOutputStream data = new ByteArrayOutputStream();
+      final ByteArrayOutputStream records = new ByteArrayOutputStream(dataStart);
+      final DataOutputStream out = new DataOutputStream(records);
+      out.writeInt(MAGIC);
+      out.writeInt(VERSION);
+      out.writeInt(testNames.size());
+      out.writeInt(sorted.size());
+      for (final Map.Entry<byte[], Entry> entry : sorted) {
+        out.writeInt(dataStart + data.size());
+        out.writeInt(entry.getKey().length);
+        data.write(entry.getKey());
+        out.writeLong(entry.getValue().id);
+        out.writeInt(dataStart + data.size());
+        final BitSet bits = entry.getValue().tests;
+        writeVarInt(data, bits.cardinality());
+        int previous = 0;
+        for (int t = bits.nextSetBit(0); t >= 0; t = bits.nextSetBit(t + 1)) {
+          writeVarInt(data, t - previous);
+          previous = t;
+        }
+      }
+      for (final byte[] name : testNames) {
+        out.writeInt(dataStart + data.size());
+        out.writeInt(name.length);
+        data.write(name);
+      }
+      out.flush();
+
+      final File directory = file.getAbsoluteFile().getParentFile();
+      Files.createDirectories(directory.toPath());
+      final File temp = File.createTempFile(file.getName(), ".tmp", directory);
+      try {
+        try (OutputStream stream = Files.newOutputStream(temp.toPath())) {
+          records.writeTo(stream);
+          data.writeTo(stream);
+        }
+        Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      } finally {
+        Files.deleteIfExists(temp.toPath());
+      }
+    }
+
+    /** Same encoding as <code>CompactDataOutput.writeVarInt</code>: 7 bits per byte, LSB first. */
+    private static void writeVarInt(final ByteArrayOutputStream out, int value) {
+      while ((value & 0xFFFFFF80) != 0) {
+        out.write((value & 0x7F) | 0x80);
+        value >>>= 7;
+      }
+      out.write(value);
+    }
+  }
+}
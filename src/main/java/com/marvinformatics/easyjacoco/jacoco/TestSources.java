@@ -0,0 +1,112 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.jacoco;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import org.apache.maven.project.MavenProject;
+
+/**
+ * Test classes of a reactor, found through the test compile source roots and the test output
+ * directories of its projects. Used to tell test sessions from other sessions of the execution
+ * data, e.g. the <code>host-1a2b3c</code> ids the JaCoCo agent generates, and to select changed
+ * tests.
+ */
+public class TestSources {
+
+  private static final String[] EXTENSIONS = {".java", ".kt", ".groovy", ".scala"};
+
+  private final List<File> sourceRoots = new ArrayList<File>();
+  private final List<File> outputDirectories = new ArrayList<File>();
+  private final Map<String, Boolean> tests = new HashMap<String, Boolean>();
+
+  /**
+   * @param projects projects whose tests are looked up
+   */
+  public TestSources(final List<MavenProject> projects) {
+    for (final MavenProject project : projects) {
+      sourceRoots.addAll(ReportSupport.getTestCompileSourceRoots(project));
+      outputDirectories.add(new File(project.getBuild().getTestOutputDirectory()));
+    }
+  }
+
+  /**
+   * Checks whether a test name, as recorded in a session id, names a test class of the reactor.
+   *
+   * @param test fully qualified name of a test class, optionally followed by <code>#method</code>
+   * @return <code>true</code> if a test source or test class file of that name exists
+   */
+  public boolean isTest(final String test) {
+    final int method = test.indexOf('#');
+    final String className = method < 0 ? test : test.substring(0, method);
+    if (className.isEmpty()) {
+      return false;
+    }
+    return tests.computeIfAbsent(className, this::exists).booleanValue();
+  }
+
+  private Boolean exists(final String className) {
+    final String path = className.replace('.', '/');
+    for (final File root : sourceRoots) {
+      for (final String extension : EXTENSIONS) {
+        if (new File(root, path + extension).isFile()) {
+          return Boolean.TRUE;
+        }
+      }
+    }
+    for (final File directory : outputDirectories) {
+      if (new File(directory, path + ".class").isFile()) {
+        return Boolean.TRUE;
+      }
+    }
+    return Boolean.FALSE;
+  }
+
+  /**
+   * Names the tests whose sources are among the changed files.
+   *
+   * @param changes changed line numbers by absolute file, e.g. of a {@link GitDiff}
+   * @return fully qualified names of the changed tests, sorted
+   * @throws IOException if a path can't be resolved
+   */
+  public Set<String> changedTests(final Map<File, BitSet> changes) throws IOException {
+    final Set<String> result = new TreeSet<String>();
+    for (final File file : changes.keySet()) {
+      // git reports resolved paths, project directories may contain symbolic links
+      final String path = file.getCanonicalPath();
+      for (final File root : sourceRoots) {
+        final String prefix = root.getCanonicalPath() + File.separator;
+        if (!path.startsWith(prefix)) {
+          continue;
+        }
+        final String relative = path.substring(prefix.length()).replace(File.separatorChar, '.');
+        for (final String extension : EXTENSIONS) {
+          if (relative.endsWith(extension)) {
+            result.add(relative.substring(0, relative.length() - extension.length()));
+          }
+        }
+      }
+    }
+    return result;
+  }
+}
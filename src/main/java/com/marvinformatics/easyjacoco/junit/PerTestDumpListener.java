@@ -0,0 +1,175 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco.junit;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.TestSource;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+
+/**
+ * Dumps the execution data of the JaCoCo agent once per test class, as a session named after the
+ * class. Each test JVM appends its sessions to its own segment file, so forks never share a file.
+ *
+ * <p>Registered as a JUnit Platform service and only active when the <code>easyjacoco.sessionsDir
+ * </code> system property names the segment directory and the JaCoCo agent runs in the JVM. The
+ * agent is accessed by reflection, this class must not depend on anything but the JUnit Platform
+ * launcher API as it runs on the test classpath. Test classes have to run one after another in a
+ * JVM, data of classes running concurrently is mixed up.
+ */
+public class PerTestDumpListener implements TestExecutionListener {
+
+  /** System property naming the directory segment files are written to. */
+  public static final String SESSIONS_DIR = "easyjacoco.sessionsDir";
+
+  /** Prefix of the warnings printed by the listener. */
+  static final String WARNING = "[easy-jacoco] WARNING: ";
+
+  private final File directory;
+  private Object agent;
+  private Method getExecutionData;
+  private Method getSessionId;
+  private Method setSessionId;
+  private String originalSessionId;
+  private String current;
+  private String testClass;
+  private OutputStream segment;
+
+  /** Creates the listener, looking up the agent if per test dumps are enabled. */
+  public PerTestDumpListener() {
+    final String sessionsDir = System.getProperty(SESSIONS_DIR);
+    this.directory = sessionsDir == null || sessionsDir.isEmpty() ? null : new File(sessionsDir);
+    if (directory == null) {
+      return;
+    }
+    try {
+      final Class<?> rt = Class.forName("org.jacoco.agent.rt.RT");
+      final Class<?> api = Class.forName("org.jacoco.agent.rt.IAgent");
+      this.agent = rt.getMethod("getAgent").invoke(null);
+      this.getExecutionData = api.getMethod("getExecutionData", boolean.class);
+      this.getSessionId = api.getMethod("getSessionId");
+      this.setSessionId = api.getMethod("setSessionId", String.class);
+    } catch (final ReflectiveOperationException | LinkageError e) {
+      // no agent in this JVM, e.g. coverage is skipped
+      this.agent = null;
+    }
+  }
+
+  /**
+   * Dumps and resets what was recorded before the first test class, e.g. by static initializers run
+   * while discovering tests, under the agent's own session id, so it isn't attributed to the first
+   * test class.
+   */
+  @Override
+  public synchronized void testPlanExecutionStarted(final TestPlan testPlan) {
+    if (agent == null) {
+      return;
+    }
+    try {
+      if (originalSessionId == null) {
+        originalSessionId = (String) getSessionId.invoke(agent);
+      }
+      dump();
+    } catch (final IOException | ReflectiveOperationException e) {
+      disable(e);
+    }
+  }
+
+  @Override
+  public synchronized void executionStarted(final TestIdentifier identifier) {
+    if (agent == null || current != null) {
+      return;
+    }
+    final TestSource source = identifier.getSource().orElse(null);
+    if (source instanceof ClassSource) {
+      current = identifier.getUniqueId();
+      testClass = ((ClassSource) source).getClassName();
+    }
+  }
+
+  @Override
+  public synchronized void executionFinished(
+      final TestIdentifier identifier, final TestExecutionResult result) {
+    if (agent == null || !identifier.getUniqueId().equals(current)) {
+      return;
+    }
+    current = null;
+    try {
+      setSessionId.invoke(agent, testClass);
+      dump();
+    } catch (final IOException | ReflectiveOperationException e) {
+      disable(e);
+    }
+  }
+
+  @Override
+  public synchronized void testPlanExecutionFinished(final TestPlan testPlan) {
+    if (agent == null) {
+      return;
+    }
+    try {
+      // data recorded after the last test class is dumped by the agent on exit, as usual
+      if (originalSessionId != null) {
+        setSessionId.invoke(agent, originalSessionId);
+      }
+      if (segment != null) {
+        segment.close();
+        segment = null;
+      }
+    } catch (final IOException | ReflectiveOperationException e) {
+      disable(e);
+    }
+  }
+
+  /** Appends the data recorded so far to the segment and resets it in the agent. */
+  private void dump() throws IOException, ReflectiveOperationException {
+    final byte[] data = (byte[]) getExecutionData.invoke(agent, Boolean.TRUE);
+    segment().write(data);
+    segment.flush();
+  }
+
+  private OutputStream segment() throws IOException {
+    if (segment == null) {
+      Files.createDirectories(directory.toPath());
+      final File file = File.createTempFile("tests-", ".exec", directory);
+      segment = new BufferedOutputStream(Files.newOutputStream(file.toPath()));
+    }
+    return segment;
+  }
+
+  private void disable(final Exception e) {
+    final Throwable cause = e instanceof InvocationTargetException ? e.getCause() : e;
+    warn("Per test coverage dumps disabled: " + cause);
+    agent = null;
+  }
+
+  /**
+   * Prints a warning to the standard error of the test JVM, which has no Maven log. Lines start
+   * with {@value #WARNING}, so they can be told apart from the output of the tests.
+   */
+  static void warn(final String message) {
+    System.err.println(WARNING + message);
+  }
+}
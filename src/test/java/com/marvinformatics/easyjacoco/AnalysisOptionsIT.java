@@ -0,0 +1,625 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.marvinformatics.easyjacoco.jacoco.AnalysisCache;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import org.apache.maven.MavenExecutionException;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Builds reactors generated by {@link ReactorGenerator} with the options that change how execution
+ * data is loaded or classes are analyzed, and compares the results with a build using the default
+ * options. Invalidation of cached exec files, which needs a file to change within one JVM, is
+ * checked on the cache directly.
+ */
+public class AnalysisOptionsIT {
+
+  private static final String REPORT = "target/coverage/target/jacoco-project-report/";
+
+  /** Rule violated by most classes of a generated reactor, so checks have violations to compare. */
+  private static final String CLASS_RULE =
+      "          <projectRules>\n"
+          + "            <rule>\n"
+          + "              <element>CLASS</element>\n"
+          + "              <limits>\n"
+          + "                <limit>\n"
+          + "                  <counter>LINE</counter>\n"
+          + "                  <value>COVEREDRATIO</value>\n"
+          + "                  <minimum>0.90</minimum>\n"
+          + "                </limit>\n"
+          + "              </limits>\n"
+          + "            </rule>\n"
+          + "          </projectRules>\n"
+          + "          <maxLoggedIssues>1000</maxLoggedIssues>\n";
+
+  private static GeneratedReactorBuilds builds;
+
+  @BeforeAll
+  static void setUp() throws MavenExecutionException {
+    builds = new GeneratedReactorBuilds();
+  }
+
+  @Test
+  void givenPackedExecutionData_whenBuild_thenReportAndCheckEqualDefault() throws Exception {
+    final File reactor =
+        builds.generate(
+            "packed",
+            new ReactorGenerator(3)
+                .classesPerModule(60)
+                .execFilesPerModule(3)
+                .pluginConfiguration(CLASS_RULE));
+    final Build expected = build(reactor);
+
+    final Build packed = build(reactor, "-Deasyjacoco.packedExecutionData");
+
+    assertThat(packed.output).contains("Packed execution data store enabled");
+    assertThat(expected.violations()).isNotEmpty();
+    assertThat(packed.violations()).isEqualTo(expected.violations());
+    assertThat(packed.report("jacoco.xml")).isEqualTo(expected.report("jacoco.xml"));
+    assertThat(packed.report("jacoco-sessions.html"))
+        .isEqualTo(expected.report("jacoco-sessions.html"));
+  }
+
+  @Test
+  void givenAppendedSessionsAndEmptyExecFile_whenMappedRead_thenReportEqualsDefault()
+      throws Exception {
+    final File reactor =
+        builds.generate(
+            "mapped",
+            new ReactorGenerator(2)
+                .classesPerModule(40)
+                .sessionsPerExecFile(3)
+                .hitRatio(0.3)
+                .pluginConfiguration(CLASS_RULE));
+    // left behind by a fork that was killed before dumping
+    Files.createFile(new File(reactor, "module-1/target/jacoco-empty.exec").toPath());
+    final Build expected = build(reactor);
+
+    // packed execution data is read by memory-mapping the exec files
+    final Build mapped = build(reactor, "-Deasyjacoco.packedExecutionData");
+
+    assertThat(expected.report("jacoco-sessions.html")).contains("module-0-0-2");
+    assertThat(mapped.violations()).isEqualTo(expected.violations());
+    assertThat(mapped.report("jacoco.xml")).isEqualTo(expected.report("jacoco.xml"));
+    assertThat(mapped.report("jacoco-sessions.html"))
+        .isEqualTo(expected.report("jacoco-sessions.html"));
+  }
+
+  @Test
+  void givenTinyBudget_whenExternalMerge_thenSeveralPassesReportEqualDefault() throws Exception {
+    // about 5 MB of merged execution data, several exec files per module hold the same classes
+    final File reactor =
+        builds.generate(
+            "external-merge",
+            new ReactorGenerator(4)
+                .classesPerModule(4000)
+                .execFilesPerModule(2)
+                .pluginConfiguration(CLASS_RULE));
+    final Build expected = build(reactor);
+
+    final Build merged =
+        build(reactor, "-Deasyjacoco.externalMerge", "-Deasyjacoco.externalMergeBudget=1");
+
+    assertThat(passes(merged)).isGreaterThan(1);
+    assertThat(expected.report("jacoco.xml")).contains("name=\"Module 0\"");
+    assertThat(merged.violations()).isEqualTo(expected.violations());
+    assertThat(merged.report("jacoco.xml")).isEqualTo(expected.report("jacoco.xml"));
+  }
+
+  /** Passes of the external merge of report-project and check-project, which must agree. */
+  private static int passes(final Build build) {
+    final Matcher matcher =
+        Pattern.compile("External merge analyzes the classes in (\\d+) passes")
+            .matcher(build.output);
+    final List<Integer> passes = new ArrayList<Integer>();
+    while (matcher.find()) {
+      passes.add(Integer.valueOf(matcher.group(1)));
+    }
+    assertThat(passes).hasSize(2);
+    assertThat(passes.get(1)).isEqualTo(passes.get(0));
+    return passes.get(0).intValue();
+  }
+
+  @Test
+  void givenTwoDatasets_whenBuild_thenEachReportEqualsSingleDatasetBuild() throws Exception {
+    // both datasets miss, so the class is parsed once and replayed for each of them
+    final Build datasets =
+        build(
+            builds.generate(
+                "datasets",
+                twoExecFiles(
+                    "          <datasets>\n"
+                        + dataset("first", "jacoco.exec")
+                        + dataset("second", "jacoco-1.exec")
+                        + "          </datasets>\n")));
+
+    for (final Map.Entry<String, String> dataset :
+        Map.of("first", "jacoco.exec", "second", "jacoco-1.exec").entrySet()) {
+      // same seed, same classes and exec files, analyzed by JaCoCo's Analyzer
+      final Build single =
+          build(
+              builds.generate(
+                  "dataset-" + dataset.getKey(),
+                  twoExecFiles(
+                      "          <dataFileIncludes>\n"
+                          + "            <dataFileInclude>**/target/"
+                          + dataset.getValue()
+                          + "</dataFileInclude>\n"
+                          + "          </dataFileIncludes>\n")));
+      // the report title names the dataset
+      assertThat(
+              datasets
+                  .report(dataset.getKey() + "/jacoco.xml")
+                  .replace("scale-coverage (" + dataset.getKey() + ")", "scale-coverage"))
+          .isEqualTo(single.report("jacoco.xml"));
+    }
+  }
+
+  private static ReactorGenerator twoExecFiles(final String configuration) {
+    return new ReactorGenerator(2)
+        .classesPerModule(40)
+        .execFilesPerModule(2)
+        .pluginConfiguration(configuration);
+  }
+
+  private static String dataset(final String name, final String exec) {
+    return "            <dataset>\n"
+        + "              <name>"
+        + name
+        + "</name>\n"
+        + "              <dataFileIncludes>\n"
+        + "                <dataFileInclude>**/target/"
+        + exec
+        + "</dataFileInclude>\n"
+        + "              </dataFileIncludes>\n"
+        + "            </dataset>\n";
+  }
+
+  @Test
+  void givenClassCopiedToAnotherModule_whenCheck_thenCountedOnceAndReported() throws Exception {
+    final Build expected =
+        build(
+            builds.generate(
+                "unique",
+                new ReactorGenerator(2).classesPerModule(40).pluginConfiguration(CLASS_RULE)));
+    final File reactor =
+        builds.generate(
+            "duplicate",
+            new ReactorGenerator(2).classesPerModule(40).pluginConfiguration(CLASS_RULE));
+    // an identical class file in a second module, as left by a shaded or repackaged jar
+    final String copied = "target/classes/com/example/m0/p0/Class28.class";
+    final File copy = new File(reactor, "module-1/" + copied);
+    Files.createDirectories(copy.getParentFile().toPath());
+    Files.copy(new File(reactor, "module-0/" + copied).toPath(), copy.toPath());
+
+    final Build duplicate = build(reactor);
+
+    assertThat(duplicate.output)
+        .contains("Skipped 1 duplicate class files in bundle")
+        .contains("module-1 -> module-0: 1 classes");
+    assertThat(expected.violations()).anyMatch(violation -> violation.contains(".Class28:"));
+    assertThat(duplicate.violations()).isEqualTo(expected.violations());
+  }
+
+  @Test
+  void givenOnlyPackagedJars_whenBuild_thenParallelScanEqualsOutputDirectories() throws Exception {
+    final File reactor =
+        builds.generate(
+            "packaged",
+            new ReactorGenerator(2).classesPerModule(200).pluginConfiguration(CLASS_RULE));
+    // archives are scanned by one thread per processor
+    Files.write(
+        new File(reactor, ".mvn/jvm.config").toPath(),
+        "-XX:ActiveProcessorCount=4".getBytes(StandardCharsets.UTF_8));
+    final Build expected = build(reactor);
+
+    // like a build cache restoring the jars only, the output directories are gone once packaged
+    for (final String module : List.of("module-0", "module-1")) {
+      final Path pom = new File(reactor, module + "/pom.xml").toPath();
+      final String content = new String(Files.readAllBytes(pom), StandardCharsets.UTF_8);
+      Files.write(
+          pom,
+          content
+              .replace("</project>", DELETE_CLASSES_WHEN_PACKAGED + "</project>")
+              .getBytes(StandardCharsets.UTF_8));
+    }
+    final Build packaged = build(reactor);
+
+    assertThat(packaged.output)
+        .contains("analyzing packaged artifact module-0-1.0-SNAPSHOT.jar")
+        .contains("analyzing packaged artifact module-1-1.0-SNAPSHOT.jar");
+    assertThat(packaged.violations()).isEqualTo(expected.violations());
+    assertThat(packaged.report("jacoco.xml")).isEqualTo(expected.report("jacoco.xml"));
+  }
+
+  private static final String DELETE_CLASSES_WHEN_PACKAGED =
+      "  <build>\n"
+          + "    <plugins>\n"
+          + "      <plugin>\n"
+          + "        <artifactId>maven-clean-plugin</artifactId>\n"
+          + "        <version>3.2.0</version>\n"
+          + "        <executions>\n"
+          + "          <execution>\n"
+          + "            <id>delete-classes</id>\n"
+          + "            <phase>package</phase>\n"
+          + "            <goals>\n"
+          + "              <goal>clean</goal>\n"
+          + "            </goals>\n"
+          + "            <configuration>\n"
+          + "              <excludeDefaultDirectories>true</excludeDefaultDirectories>\n"
+          + "              <filesets>\n"
+          + "                <fileset>\n"
+          + "                  <directory>target/classes</directory>\n"
+          + "                </fileset>\n"
+          + "              </filesets>\n"
+          + "            </configuration>\n"
+          + "          </execution>\n"
+          + "        </executions>\n"
+          + "      </plugin>\n"
+          + "    </plugins>\n"
+          + "  </build>\n";
+
+  @Test
+  void givenFailFast_whenViolationsFound_thenAnalysisStopsEarly() throws Exception {
+    final File reactor =
+        builds.generate(
+            "fail-fast",
+            new ReactorGenerator(2).classesPerModule(40).pluginConfiguration(CLASS_RULE));
+    final Build expected = build(reactor);
+
+    final Build halted =
+        run(
+            reactor,
+            "-Djacoco.haltOnFailure=true",
+            "-Deasyjacoco.failFast",
+            "-Deasyjacoco.failFastViolations=3");
+    final Build invalid =
+        run(
+            reactor,
+            "-Djacoco.haltOnFailure=true",
+            "-Deasyjacoco.failFast",
+            "-Deasyjacoco.failFastViolations=0");
+
+    assertThat(halted.exitCode).isNotEqualTo(0);
+    assertThat(halted.output)
+        .contains("Coverage checks have not been met. Analysis stopped after 3 coverage check");
+    assertThat(expected.violations()).hasSizeGreaterThan(3);
+    assertThat(halted.violations()).hasSize(3);
+    assertThat(expected.violations()).containsAll(halted.violations());
+    assertThat(invalid.exitCode).isNotEqualTo(0);
+    assertThat(invalid.output).contains("failFastViolations must be at least 1, but is 0");
+  }
+
+  @Test
+  void givenClassAndBundleRules_whenStreamingCheck_thenViolationsEqualDefault() throws Exception {
+    final File reactor =
+        builds.generate(
+            "streaming",
+            new ReactorGenerator(3)
+                .classesPerModule(40)
+                .pluginConfiguration(
+                    CLASS_RULE.replace(
+                        "          </projectRules>\n",
+                        "            <rule>\n"
+                            + "              <element>BUNDLE</element>\n"
+                            + "              <limits>\n"
+                            + "                <limit>\n"
+                            + "                  <counter>INSTRUCTION</counter>\n"
+                            + "                  <value>COVEREDRATIO</value>\n"
+                            + "                  <minimum>0.95</minimum>\n"
+                            + "                </limit>\n"
+                            + "              </limits>\n"
+                            + "            </rule>\n"
+                            + "          </projectRules>\n")));
+    final Build expected = build(reactor);
+
+    // class rules are checked per module, the bundle rule once all modules are folded
+    final Build streamed = build(reactor, "-Deasyjacoco.streamingAnalysis");
+
+    assertThat(streamed.output).contains("Streaming analysis enabled");
+    assertThat(expected.violations())
+        .anyMatch(violation -> violation.contains("Rule violated for class "))
+        .anyMatch(violation -> violation.contains("Rule violated for bundle "));
+    assertThat(streamed.violations()).isEqualTo(expected.violations());
+  }
+
+  @Test
+  void givenIssuesFile_whenMoreViolationsThanLogged_thenAllAreWritten() throws Exception {
+    final File reactor =
+        builds.generate(
+            "issues-file",
+            new ReactorGenerator(2)
+                .classesPerModule(40)
+                .pluginConfiguration(
+                    CLASS_RULE.replace("          <maxLoggedIssues>1000</maxLoggedIssues>\n", "")));
+    final List<String> messages = new ArrayList<String>();
+    for (final String violation :
+        build(reactor, "-Deasyjacoco.maxLoggedIssues=1000").violations()) {
+      messages.add(violation.substring(violation.indexOf("Rule violated")));
+    }
+    assertThat(messages).hasSizeGreaterThan(5);
+    final int suppressed = messages.size() - 5;
+
+    for (final String name : List.of("issues.csv", "issues.jsonl")) {
+      final File file = new File(reactor, "target/" + name).getAbsoluteFile();
+      final Build build =
+          build(
+              reactor,
+              "-Deasyjacoco.maxLoggedIssues=5",
+              "-Deasyjacoco.issuesFile=" + file.getPath());
+      final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+      assertThat(build.violations()).hasSize(5);
+      assertThat(build.output)
+          .contains(
+              suppressed
+                  + " more violations and 0 more classes with mismatching execution data were not"
+                  + " logged, see "
+                  + file)
+          .contains(messages.size() + " violations and 0 mismatches written to " + file);
+      if (name.endsWith(".csv")) {
+        assertThat(lines.get(0))
+            .isEqualTo("type,dataset,element,name,counter,value,minimum,maximum,message");
+        assertThat(lines.subList(1, lines.size()))
+            .hasSize(messages.size())
+            .allMatch(line -> line.startsWith("violation,,CLASS,com/example/"));
+        for (final String message : messages) {
+          // messages hold a comma and are quoted
+          assertThat(lines).anyMatch(line -> line.endsWith(",\"" + message + "\""));
+        }
+      } else {
+        assertThat(lines)
+            .hasSize(messages.size())
+            // null values, like the dataset, are left out
+            .allMatch(
+                line ->
+                    line.startsWith(
+                        "{\"type\":\"violation\",\"element\":\"CLASS\",\"name\":\"com/example/"));
+        for (final String message : messages) {
+          assertThat(lines).anyMatch(line -> line.endsWith("\"message\":\"" + message + "\"}"));
+        }
+      }
+    }
+  }
+
+  @Test
+  void givenTinyMemoryBudget_whenBuild_thenLowMemoryAnalysisEqualsDefault() throws Exception {
+    final File reactor =
+        builds.generate(
+            "memory-budget",
+            new ReactorGenerator(3).classesPerModule(20).pluginConfiguration(CLASS_RULE));
+    final Build expected = build(reactor);
+    assertThat(expected.output).doesNotContain("low memory analysis");
+    assertThat(sourcePages(reactor)).isNotEmpty();
+
+    // Maven alone retains more than 1 MB, the budget is exceeded before the first module, the
+    // check counts the parent and coverage projects as well
+    deleteRecursively(new File(reactor, REPORT).toPath());
+    final Build lowMemory = build(reactor, "-Deasyjacoco.memoryBudget=1");
+
+    assertThat(lowMemory.output)
+        .contains("exceeds the memory budget of 1 MB, switching to low memory analysis")
+        .contains("Continuing with streaming analysis for the remaining 5 modules")
+        .contains(
+            "Memory budget exceeded, the report has no source pages for 3 modules:"
+                + " module-0, module-1, module-2");
+    assertThat(sourcePages(reactor)).isEmpty();
+    assertThat(lowMemory.violations()).isEqualTo(expected.violations());
+    assertThat(lowMemory.report("jacoco.xml")).isEqualTo(expected.report("jacoco.xml"));
+  }
+
+  private static List<Path> sourcePages(final File reactor) throws IOException {
+    try (Stream<Path> files = Files.walk(new File(reactor, REPORT).toPath())) {
+      return files
+          .filter(file -> file.getFileName().toString().endsWith(".java.html"))
+          .collect(Collectors.toList());
+    }
+  }
+
+  private static void deleteRecursively(final Path directory) throws IOException {
+    try (Stream<Path> files = Files.walk(directory)) {
+      for (final Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(file);
+      }
+    }
+  }
+
+  @Test
+  void givenClassesSharingSourceLines_whenSummaryTier_thenTotalsEqualFullReport() throws Exception {
+    final File reactor =
+        builds.generate(
+            "summary-tier", new ReactorGenerator(2).classesPerModule(20).innerClasses(true));
+    final Build full = build(reactor);
+
+    final Build summary = build(reactor, "-Deasyjacoco.reportTier=SUMMARY");
+
+    // counters of both modules and the report, the 16 lines of each of the 20 classes of a module
+    // count once, although inner classes share them
+    final List<String> expected = totals(full.report("jacoco.xml"));
+    assertThat(expected).hasSize(3);
+    assertThat(expected.get(0)).contains("<counter type=\"LINE\" missed=\"40\" covered=\"280\"/>");
+    assertThat(totals(summary.report("jacoco.xml"))).isEqualTo(expected);
+  }
+
+  /** Counters of the modules and the report, which directly precede their closing tags. */
+  private static List<String> totals(final String report) {
+    final List<String> totals = new ArrayList<String>();
+    final Matcher matcher =
+        Pattern.compile("((?:<counter [^>]*/>\\s*)+)</(?:group|report)>").matcher(report);
+    while (matcher.find()) {
+      totals.add(matcher.group(1));
+    }
+    return totals;
+  }
+
+  @Test
+  void givenAnalysisCache_whenCheckAfterReport_thenCachedAnalysisEqualsDefault() throws Exception {
+    final File reactor =
+        builds.generate(
+            "analysis-cache",
+            new ReactorGenerator(2).classesPerModule(40).pluginConfiguration(CLASS_RULE));
+    final Build expected = build(reactor);
+
+    // report-project fills the cache, check-project runs in the same JVM afterwards
+    final Build cached = build(reactor, "-Deasyjacoco.analysisCacheSize=64");
+
+    assertThat(cached.output)
+        .contains("Analysis cache reused 0 of 80 classes and 0 of 2 exec files")
+        .contains("Analysis cache reused 80 of 80 classes and 2 of 2 exec files");
+    assertThat(cached.violations()).isEqualTo(expected.violations());
+    assertThat(cached.report("jacoco.xml")).isEqualTo(expected.report("jacoco.xml"));
+  }
+
+  @Test
+  void givenSharedCache_whenAnotherBuildHitsIt_thenBundleEqualsDefault() throws Exception {
+    final File reactor =
+        builds.generate(
+            "shared-cache",
+            new ReactorGenerator(2).classesPerModule(40).pluginConfiguration(CLASS_RULE));
+    final String directory =
+        "-Deasyjacoco.sharedCacheDirectory=" + new File(reactor, "shared-cache").getAbsolutePath();
+    final Build expected = build(reactor);
+
+    final Build filling = build(reactor, directory);
+    // a new JVM, like a build on another agent, only finds the entries on disk
+    final Build hit = build(reactor, directory);
+
+    assertThat(filling.output).contains("Shared analysis cache reused 0 of 80 classes, 80 written");
+    assertThat(hit.output)
+        .contains("Shared analysis cache reused 80 of 80 classes, 0 written")
+        .doesNotContain("Shared analysis cache reused 0 of");
+    for (final Build build : List.of(filling, hit)) {
+      assertThat(build.violations()).isEqualTo(expected.violations());
+      assertThat(build.report("jacoco.xml")).isEqualTo(expected.report("jacoco.xml"));
+      assertThat(build.report("jacoco-sessions.html"))
+          .isEqualTo(expected.report("jacoco-sessions.html"));
+    }
+  }
+
+  @Test
+  void givenCachedExecFile_whenRewrittenWithSameSizeAndTime_thenChangedDataIsLoaded()
+      throws Exception {
+    final File exec = new File("target/testing/analysis-cache-" + System.nanoTime() + ".exec");
+    writeExec(exec, true, false);
+    final long modified = exec.lastModified();
+    final AnalysisCache cache = AnalysisCache.shared(1024 * 1024);
+
+    final ExecFileLoader first = new ExecFileLoader();
+    cache.load(exec, first);
+    assertThat(first.getExecutionDataStore().get(1).getProbes()).containsExactly(true, false);
+    // the loader merges into the data it holds, that must not reach the cache
+    first.getExecutionDataStore().get(1).getProbes()[1] = true;
+    final ExecFileLoader second = new ExecFileLoader();
+    cache.load(exec, second);
+    assertThat(second.getExecutionDataStore().get(1).getProbes()).containsExactly(true, false);
+
+    // same path, size and modification time, only the checksum tells the difference
+    writeExec(exec, false, true);
+    assertThat(exec.setLastModified(modified)).isTrue();
+    final ExecFileLoader rewritten = new ExecFileLoader();
+    cache.load(exec, rewritten);
+    assertThat(rewritten.getExecutionDataStore().get(1).getProbes()).containsExactly(false, true);
+  }
+
+  private static void writeExec(final File file, final boolean... probes) throws IOException {
+    Files.createDirectories(file.getAbsoluteFile().getParentFile().toPath());
+    try (OutputStream out = Files.newOutputStream(file.toPath())) {
+      final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+      writer.visitSessionInfo(new SessionInfo("session", 1, 2));
+      writer.visitClassExecution(new ExecutionData(1, "com/example/Cached", probes));
+    }
+  }
+
+  /** Builds the reactor, which must succeed. */
+  private Build build(final File reactor, final String... options) throws Exception {
+    final Build build = run(reactor, options);
+    assertThat(build.exitCode).as(build.output).isEqualTo(0);
+    return build;
+  }
+
+  private Build run(final File reactor, final String... options) throws Exception {
+    return new Build(reactor, builds.verify(reactor, options));
+  }
+
+  /**
+   * Output of a build and the reports it wrote, read right away as the next build replaces them.
+   * Reports are keyed by their path in the report directory, e.g. <code>unit/jacoco.xml</code> for
+   * a dataset.
+   */
+  static class Build {
+
+    final String output;
+    final int exitCode;
+    private final Map<String, String> reports = new LinkedHashMap<String, String>();
+
+    Build(final File reactor, final GeneratedReactorBuilds.Result result) throws IOException {
+      this.output = result.output;
+      this.exitCode = result.exitCode;
+      final Path directory = new File(reactor, REPORT).toPath();
+      if (!Files.isDirectory(directory)) {
+        return;
+      }
+      try (Stream<Path> files = Files.walk(directory)) {
+        for (final Path file : (Iterable<Path>) files::iterator) {
+          final String name = file.getFileName().toString();
+          if (name.equals("jacoco.xml") || name.equals("jacoco-sessions.html")) {
+            reports.put(
+                directory.relativize(file).toString().replace(File.separatorChar, '/'),
+                new String(Files.readAllBytes(file), StandardCharsets.UTF_8));
+          }
+        }
+      }
+    }
+
+    String report(final String name) {
+      return reports.get(name);
+    }
+
+    /** Violations reported by the coverage check, sorted as modules may be analyzed in parallel. */
+    List<String> violations() {
+      final List<String> violations = new ArrayList<String>();
+      for (final String line : output.split("\\R")) {
+        if (line.contains("Rule violated")) {
+          violations.add(line);
+        }
+      }
+      violations.sort(null);
+      return violations;
+    }
+  }
+}
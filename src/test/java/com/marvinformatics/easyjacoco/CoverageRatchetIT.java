@@ -0,0 +1,85 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import org.apache.maven.MavenExecutionException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/** Checks a generated reactor against a coverage baseline with the ratchet enabled. */
+public class CoverageRatchetIT {
+
+  /** Rule every generated reactor passes, so only the ratchet can fail the check. */
+  private static final String LENIENT_RULE =
+      "          <projectRules>\n"
+          + "            <rule>\n"
+          + "              <element>BUNDLE</element>\n"
+          + "              <limits>\n"
+          + "                <limit>\n"
+          + "                  <counter>INSTRUCTION</counter>\n"
+          + "                  <value>COVEREDRATIO</value>\n"
+          + "                  <minimum>0.01</minimum>\n"
+          + "                </limit>\n"
+          + "              </limits>\n"
+          + "            </rule>\n"
+          + "          </projectRules>\n";
+
+  private static GeneratedReactorBuilds builds;
+
+  @BeforeAll
+  static void setUp() throws MavenExecutionException {
+    builds = new GeneratedReactorBuilds();
+  }
+
+  @Test
+  void givenBaseline_whenCoverageDrops_thenCheckFails() throws Exception {
+    final ReactorGenerator generator =
+        new ReactorGenerator(2).classesPerModule(30).pluginConfiguration(LENIENT_RULE);
+    final File reactor = builds.generate("ratchet", generator);
+
+    final GeneratedReactorBuilds.Result first =
+        builds.verify(reactor, "-Deasyjacoco.ratchet", "-Djacoco.haltOnFailure=true");
+    assertThat(first.exitCode).as(first.output).isEqualTo(0);
+    assertThat(first.output).contains("Coverage baseline of 60 classes written to");
+
+    final GeneratedReactorBuilds.Result same =
+        builds.verify(reactor, "-Deasyjacoco.ratchet", "-Djacoco.haltOnFailure=true");
+    assertThat(same.exitCode).as(same.output).isEqualTo(0);
+    assertThat(same.output)
+        .contains("Coverage baseline of 60 classes loaded")
+        .doesNotContain("Coverage regressed");
+
+    // same seed, so every probe still hit was hit before: coverage only drops
+    generator.hitRatio(0.2).generate(reactor, builds.easyJacocoVersion());
+    final GeneratedReactorBuilds.Result dropped =
+        builds.verify(reactor, "-Deasyjacoco.ratchet", "-Djacoco.haltOnFailure=true");
+    assertThat(dropped.exitCode).as(dropped.output).isNotEqualTo(0);
+    assertThat(dropped.output)
+        .contains("Coverage regressed for class")
+        .contains("run with -Deasyjacoco.updateBaseline to accept them");
+
+    final GeneratedReactorBuilds.Result accepted =
+        builds.verify(reactor, "-Deasyjacoco.updateBaseline", "-Djacoco.haltOnFailure=true");
+    assertThat(accepted.exitCode).as(accepted.output).isEqualTo(0);
+    final GeneratedReactorBuilds.Result ratcheted =
+        builds.verify(reactor, "-Deasyjacoco.ratchet", "-Djacoco.haltOnFailure=true");
+    assertThat(ratcheted.exitCode).as(ratcheted.output).isEqualTo(0);
+    assertThat(ratcheted.output).doesNotContain("Coverage regressed");
+  }
+}
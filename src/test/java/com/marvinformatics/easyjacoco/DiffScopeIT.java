@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import org.apache.maven.MavenExecutionException;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Checks the lines of a generated reactor changed since a git revision with <code>diffBase</code>.
+ * The changed module lives in a directory whose name git quotes in its diff output.
+ */
+public class DiffScopeIT {
+
+  /** A module directory git quotes, with a trailing tab after the path as it holds a space. */
+  private static final String MODULE = "module \"1\"";
+
+  private static final String CHANGED = "src/main/java/com/example/m1/p0/Class5.java";
+
+  private static GeneratedReactorBuilds builds;
+
+  @BeforeAll
+  static void setUp() throws MavenExecutionException {
+    builds = new GeneratedReactorBuilds();
+  }
+
+  @Test
+  void givenChangedSourceInQuotedPath_whenCheckWithDiffBase_thenOnlyItsClassIsChecked()
+      throws Exception {
+    final File reactor =
+        builds.generate(
+            "diff-scope",
+            new ReactorGenerator(2)
+                .classesPerModule(20)
+                .pluginConfiguration(
+                    "          <projectRules>\n"
+                        + "            <rule>\n"
+                        + "              <element>CLASS</element>\n"
+                        + "              <limits>\n"
+                        + "                <limit>\n"
+                        + "                  <counter>LINE</counter>\n"
+                        + "                  <value>COVEREDRATIO</value>\n"
+                        + "                  <minimum>1.0</minimum>\n"
+                        + "                </limit>\n"
+                        + "              </limits>\n"
+                        + "            </rule>\n"
+                        + "          </projectRules>\n"
+                        + "          <maxLoggedIssues>1000</maxLoggedIssues>\n"));
+    Files.move(new File(reactor, "module-1").toPath(), new File(reactor, MODULE).toPath());
+    final Path pom = new File(reactor, "pom.xml").toPath();
+    Files.writeString(
+        pom,
+        Files.readString(pom)
+            .replace("<module>module-1</module>", "<module>" + MODULE + "</module>"));
+    final List<String> expected = violations(builds.verify(reactor));
+    assertThat(expected).anyMatch(violation -> violation.contains("m1.p0.Class5:"));
+
+    git(reactor, "init", "-q");
+    git(reactor, "add", "-A");
+    git(reactor, "commit", "-q", "-m", "base");
+    git(reactor, "tag", "base");
+    // every line changes, so the class keeps all its counters
+    final Path changed = new File(reactor, MODULE + "/" + CHANGED).toPath();
+    Files.writeString(
+        changed,
+        Files.readString(changed)
+            .lines()
+            .map(line -> line + " // changed")
+            .collect(Collectors.joining("\n", "", "\n")));
+
+    final GeneratedReactorBuilds.Result diff = builds.verify(reactor, "-Deasyjacoco.diffBase=base");
+
+    assertThat(diff.exitCode).as(diff.output).isEqualTo(0);
+    assertThat(diff.output).contains("Diff scope enabled, checking 1 changed source files");
+    assertThat(violations(diff))
+        .containsExactlyElementsOf(
+            expected.stream()
+                .filter(violation -> violation.contains("m1.p0.Class5:"))
+                .collect(Collectors.toList()));
+  }
+
+  private static List<String> violations(final GeneratedReactorBuilds.Result result) {
+    assertThat(result.exitCode).as(result.output).isEqualTo(0);
+    final List<String> violations = new ArrayList<String>();
+    for (final String line : result.output.split("\\R")) {
+      if (line.contains("Rule violated")) {
+        violations.add(line);
+      }
+    }
+    return violations;
+  }
+
+  private static void git(final File reactor, final String... args) throws Exception {
+    final List<String> command =
+        new ArrayList<String>(
+            List.of("git", "-c", "user.name=test", "-c", "user.email=test@example.com"));
+    command.addAll(List.of(args));
+    final Process process =
+        new ProcessBuilder(command).directory(reactor).redirectErrorStream(true).start();
+    final String output =
+        new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    assertThat(process.waitFor()).as(output).isEqualTo(0);
+  }
+}
@@ -28,6 +28,9 @@ import java.nio.file.Path;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardCopyOption;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.apache.maven.MavenExecutionException;
 import org.apache.maven.shared.invoker.DefaultInvocationRequest;
 import org.apache.maven.shared.invoker.DefaultInvoker;
@@ -37,6 +40,8 @@ import org.apache.maven.shared.invoker.Invoker;
 import org.apache.maven.shared.invoker.MavenInvocationException;
 import org.apache.maven.shared.invoker.PrintStreamHandler;
 import org.apache.maven.shared.utils.cli.CommandLineException;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.tools.ExecFileLoader;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 
@@ -87,6 +92,95 @@ public class ExampleProjectMavenBuildIT {
             "Coverage checks have not been met");
   }
 
+  @Test
+  void givenLeanAnalysis_whenBuild_thenSameViolationsAsFullAnalysis() throws Exception {
+    TestResult full = runExample("examples/basic", mavenVersion, cleanInstall());
+    TestResult lean =
+        runExample("examples/basic", mavenVersion, cleanInstall("-Deasyjacoco.leanAnalysis=true"));
+
+    assertThat(full.exitCode).as(full.buildOutput).isEqualTo(0);
+    assertThat(lean.exitCode).as(lean.buildOutput).isEqualTo(0);
+    // the example only has a bundle rule, lean analysis applies once enabled
+    assertThat(full.buildOutput).doesNotContain("Lean analysis enabled");
+    assertThat(lean.buildOutput).contains("Lean analysis enabled");
+    // violations carry the covered ratios of the counters checked
+    assertThat(violations(full)).isNotEmpty();
+    assertThat(violations(lean)).isEqualTo(violations(full));
+  }
+
+  @Test
+  void givenPerTestDumpStrategy_whenBuild_thenSessionPerTestClassIsDumped() throws Exception {
+    TestResult result =
+        runExample(
+            "examples/basic", mavenVersion, cleanInstall("-Deasyjacoco.dumpStrategy=PER_TEST"));
+
+    assertThat(result.exitCode).as(result.buildOutput).isEqualTo(0);
+    assertThat(result.buildOutput).doesNotContain("[easy-jacoco] WARNING:");
+
+    File sessionsDir = new File(result.projectDir, "module-1/target/jacoco-sessions");
+    File[] segments = sessionsDir.listFiles((dir, name) -> name.matches("tests-.*\\.exec"));
+    assertThat(segments).as("segments in %s", sessionsDir).isNotEmpty();
+
+    List<String> sessionIds = new ArrayList<>();
+    for (File segment : segments) {
+      ExecFileLoader loader = new ExecFileLoader();
+      loader.load(segment);
+      for (SessionInfo info : loader.getSessionInfoStore().getInfos()) {
+        sessionIds.add(info.getId());
+      }
+    }
+    // what ran before the first test class is dumped under the agent's own session id first
+    assertThat(sessionIds).hasSize(2).endsWith("com.marvinformatics.easyjacoco.SimpleMathTest");
+    assertThat(sessionIds.get(0)).isNotEqualTo("com.marvinformatics.easyjacoco.SimpleMathTest");
+  }
+
+  @Test
+  void givenUnwritableSessionsDir_whenPerTestBuild_thenWarnsAndTestsStillRun() throws Exception {
+    // a regular file where the sessions directory goes, kept by building without clean
+    Path example = Files.createTempDirectory(new File("target").toPath(), "per-test-");
+    copyDirectory(new File("examples/basic").toPath(), example);
+    Path sessions = example.resolve("module-1/target/jacoco-sessions");
+    Files.createDirectories(sessions.getParent());
+    Files.writeString(sessions, "not a directory");
+
+    TestResult result =
+        runExample(
+            example.toString(),
+            mavenVersion,
+            "install",
+            "-Deasy-jacoco.version=" + easyJacocoVersion,
+            "-Djacoco.version=" + jacocoVersion,
+            "-Deasyjacoco.dumpStrategy=PER_TEST");
+
+    assertThat(result.exitCode).as(result.buildOutput).isEqualTo(0);
+    assertThat(result.buildOutput)
+        .contains(
+            "[easy-jacoco] WARNING: Per test coverage dumps disabled: "
+                + "java.nio.file.FileAlreadyExistsException")
+        .contains("Tests run: 3, Failures: 0, Errors: 0");
+  }
+
+  private static String[] cleanInstall(String... options) {
+    List<String> args =
+        Lists.newArrayList(
+            "clean",
+            "install",
+            "-Deasy-jacoco.version=" + easyJacocoVersion,
+            "-Djacoco.version=" + jacocoVersion);
+    args.addAll(Arrays.asList(options));
+    return args.toArray(new String[0]);
+  }
+
+  private static List<String> violations(TestResult result) {
+    List<String> violations = new ArrayList<>();
+    for (String line : result.buildOutput.split("\\R")) {
+      if (line.contains("Rule violated")) {
+        violations.add(line);
+      }
+    }
+    return violations;
+  }
+
   @Test
   void givenNonModularProject_whenMavenCleanInstall_thenShowsWarningAndSkips() throws Exception {
     // Execute the Maven build on the single-module example.
@@ -355,9 +449,11 @@ public class ExampleProjectMavenBuildIT {
     File mavenHome = MavenDownloader.downloadAndExtractMaven(mavenVersion);
     invoker.setMavenHome(mavenHome);
 
-    // Capture Maven output.
+    // Capture Maven output, along with the standard error of the forked test JVMs.
     ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-    invoker.setOutputHandler(new PrintStreamHandler(new PrintStream(outputStream), true));
+    PrintStreamHandler outputHandler = new PrintStreamHandler(new PrintStream(outputStream), true);
+    invoker.setOutputHandler(outputHandler);
+    invoker.setErrorHandler(outputHandler);
 
     // Execute the Maven build.
     InvocationResult invocationResult = invoker.execute(request);
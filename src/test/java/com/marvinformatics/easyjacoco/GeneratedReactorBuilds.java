@@ -0,0 +1,126 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+import org.apache.maven.MavenExecutionException;
+import org.apache.maven.shared.invoker.DefaultInvocationRequest;
+import org.apache.maven.shared.invoker.DefaultInvoker;
+import org.apache.maven.shared.invoker.InvocationRequest;
+import org.apache.maven.shared.invoker.InvocationResult;
+import org.apache.maven.shared.invoker.Invoker;
+import org.apache.maven.shared.invoker.MavenInvocationException;
+import org.apache.maven.shared.invoker.PrintStreamHandler;
+
+/**
+ * Writes reactors with {@link ReactorGenerator} below <code>target/testing</code> and builds them
+ * with <code>-Dmaven.main.skip -Dmaven.test.skip=true</code>, so the generated class and exec files
+ * are used as they are.
+ */
+class GeneratedReactorBuilds {
+
+  private final String mavenVersion;
+  private final String easyJacocoVersion;
+
+  GeneratedReactorBuilds() throws MavenExecutionException {
+    this.mavenVersion =
+        EasyJacocoLifecycleParticipant.readArtifactProperties("org.apache.maven", "maven-core")
+            .getProperty("version");
+    this.easyJacocoVersion =
+        EasyJacocoLifecycleParticipant.readArtifactProperties(
+                "com.marvinformatics.jacoco", "easy-jacoco-maven-plugin")
+            .getProperty("version");
+  }
+
+  String easyJacocoVersion() {
+    return easyJacocoVersion;
+  }
+
+  /**
+   * Writes a reactor into a new directory.
+   *
+   * @param name prefix of the directory name
+   * @param generator generator of the reactor
+   * @return root directory of the reactor
+   */
+  File generate(final String name, final ReactorGenerator generator) throws IOException {
+    final File reactor = new File("target/testing", name + "-" + System.nanoTime());
+    generator.generate(reactor, easyJacocoVersion);
+    return reactor;
+  }
+
+  /**
+   * Runs <code>verify</code> on the reactor.
+   *
+   * @param reactor root directory of the reactor
+   * @param options further arguments, e.g. <code>-Deasyjacoco.ratchet</code>
+   * @return output of the build
+   */
+  Result verify(final File reactor, final String... options)
+      throws IOException, MavenInvocationException, MavenExecutionException {
+    final List<String> args = new ArrayList<String>();
+    args.add("verify");
+    args.add("-Dmaven.main.skip");
+    args.add("-Dmaven.test.skip=true");
+    args.addAll(List.of(options));
+    return run(reactor, args);
+  }
+
+  /**
+   * Runs Maven on the reactor.
+   *
+   * @param reactor root directory of the reactor
+   * @param args goals and options
+   * @return output of the build
+   */
+  Result run(final File reactor, final List<String> args)
+      throws IOException, MavenInvocationException, MavenExecutionException {
+    final InvocationRequest request =
+        new DefaultInvocationRequest()
+            .setPomFile(new File(reactor, "pom.xml"))
+            .setShellEnvironmentInherited(false)
+            .addArgs(args)
+            .setBatchMode(true)
+            .setJavaHome(new File(System.getProperty("java.home")))
+            .setShowErrors(true);
+
+    final Invoker invoker = new DefaultInvoker();
+    invoker.setMavenHome(MavenDownloader.downloadAndExtractMaven(mavenVersion));
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    invoker.setOutputHandler(new PrintStreamHandler(new PrintStream(output), true));
+
+    final InvocationResult result = invoker.execute(request);
+    System.out.println(output); // useful for debugging in the IDE
+    return new Result(output.toString(), result.getExitCode());
+  }
+
+  /** Output and exit code of a build. */
+  static class Result {
+
+    final String output;
+    final int exitCode;
+
+    Result(final String output, final int exitCode) {
+      this.output = output;
+      this.exitCode = exitCode;
+    }
+  }
+}
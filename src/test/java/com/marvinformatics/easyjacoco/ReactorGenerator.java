@@ -0,0 +1,432 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.jacoco.core.internal.data.CRC64;
+import org.jacoco.core.internal.flow.ClassProbesAdapter;
+import org.jacoco.core.internal.flow.ClassProbesVisitor;
+import org.jacoco.core.internal.flow.MethodProbesVisitor;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Generates multi-module Maven reactors of any size that look like they were already built and
+ * tested: every module gets sources, class files in <code>target/classes</code> written with ASM,
+ * and exec files whose probes are generated, so coverage goals run without compiling or testing.
+ *
+ * <p>Generation is seeded, the same settings always produce the same reactor. Build the reactor
+ * with <code>-Dmaven.main.skip -Dmaven.test.skip=true</code> to keep the generated files.
+ */
+class ReactorGenerator {
+
+  private static final int PACKAGE_SIZE = 50;
+
+  private final int modules;
+  private int classesPerModule = 100;
+  private int methodsPerClass = 5;
+  private int sourceRoots = 1;
+  private int execFilesPerModule = 1;
+  private boolean innerClasses;
+  private int sessionsPerExecFile = 1;
+  private double hitRatio = 0.6;
+  private long seed = 42;
+  private String pluginConfiguration;
+
+  /**
+   * @param modules number of jar modules of the reactor
+   */
+  ReactorGenerator(final int modules) {
+    this.modules = modules;
+  }
+
+  ReactorGenerator classesPerModule(final int classesPerModule) {
+    this.classesPerModule = classesPerModule;
+    return this;
+  }
+
+  ReactorGenerator methodsPerClass(final int methodsPerClass) {
+    this.methodsPerClass = methodsPerClass;
+    return this;
+  }
+
+  /**
+   * Spreads the sources of each module over several roots, the additional ones are registered with
+   * the build-helper-maven-plugin.
+   */
+  ReactorGenerator sourceRoots(final int sourceRoots) {
+    this.sourceRoots = sourceRoots;
+    return this;
+  }
+
+  /**
+   * Writes several exec files per module, each one a session of its own with different probes hit,
+   * as left behind by several test forks.
+   */
+  ReactorGenerator execFilesPerModule(final int execFilesPerModule) {
+    this.execFilesPerModule = execFilesPerModule;
+    return this;
+  }
+
+  /**
+   * Adds an inner class to every class, compiled from the same lines of the same source file, as
+   * left by inlined code, so line counters only add up once lines are merged per source file.
+   */
+  ReactorGenerator innerClasses(final boolean innerClasses) {
+    this.innerClasses = innerClasses;
+    return this;
+  }
+
+  /**
+   * Appends several sessions to each exec file, each one with a header of its own, as written by an
+   * agent with <code>append=true</code> in repeated test runs.
+   */
+  ReactorGenerator sessionsPerExecFile(final int sessionsPerExecFile) {
+    this.sessionsPerExecFile = sessionsPerExecFile;
+    return this;
+  }
+
+  /** Probability of a probe being hit. */
+  ReactorGenerator hitRatio(final double hitRatio) {
+    this.hitRatio = hitRatio;
+    return this;
+  }
+
+  ReactorGenerator seed(final long seed) {
+    this.seed = seed;
+    return this;
+  }
+
+  /** Configuration of the plugin in the parent pom, e.g. the rules of the coverage check. */
+  ReactorGenerator pluginConfiguration(final String pluginConfiguration) {
+    this.pluginConfiguration = pluginConfiguration;
+    return this;
+  }
+
+  int getClassCount() {
+    return modules * classesPerModule;
+  }
+
+  /**
+   * Writes the reactor.
+   *
+   * @param directory root directory of the reactor, created if missing
+   * @param easyJacocoVersion version of the plugin registered as build extension
+   * @throws IOException if a file can't be written
+   */
+  void generate(final File directory, final String easyJacocoVersion) throws IOException {
+    final Path root = directory.toPath();
+    Files.createDirectories(root.resolve(".mvn"));
+    write(
+        root.resolve(".mvn/extensions.xml"),
+        "<extensions>\n"
+            + "  <extension>\n"
+            + "    <groupId>com.marvinformatics.jacoco</groupId>\n"
+            + "    <artifactId>easy-jacoco-maven-plugin</artifactId>\n"
+            + "    <version>"
+            + easyJacocoVersion
+            + "</version>\n"
+            + "  </extension>\n"
+            + "</extensions>\n");
+    write(root.resolve("pom.xml"), parentPom(easyJacocoVersion));
+
+    final Random random = new Random(seed);
+    for (int m = 0; m < modules; m++) {
+      final Path module = root.resolve(moduleName(m));
+      write(module.resolve("pom.xml"), modulePom(m));
+      final List<String> names = new ArrayList<String>(classesPerModule);
+      final List<byte[]> classFiles = new ArrayList<byte[]>(classesPerModule);
+      for (int c = 0; c < classesPerModule; c++) {
+        final String name = className(m, c);
+        final byte[] bytes = classFile(name);
+        write(module.resolve("target/classes/" + name + ".class"), bytes);
+        write(
+            module.resolve(sourceRoot(c) + "/" + name + ".java"),
+            source(name).getBytes(StandardCharsets.UTF_8));
+        names.add(name);
+        classFiles.add(bytes);
+        if (innerClasses) {
+          final byte[] inner = classFile(name + "$Inner");
+          write(module.resolve("target/classes/" + name + "$Inner.class"), inner);
+          names.add(name + "$Inner");
+          classFiles.add(inner);
+        }
+      }
+      for (int e = 0; e < execFilesPerModule; e++) {
+        final String exec = e == 0 ? "jacoco.exec" : "jacoco-" + e + ".exec";
+        writeExec(
+            module.resolve("target/" + exec), moduleName(m) + "-" + e, names, classFiles, random);
+      }
+    }
+  }
+
+  /**
+   * Writes a jar with the classes of all modules, e.g. as input for instrument-jar.
+   *
+   * @param jar jar to write
+   * @throws IOException if the jar can't be written
+   */
+  void writeJar(final File jar) throws IOException {
+    Files.createDirectories(jar.getAbsoluteFile().getParentFile().toPath());
+    try (ZipOutputStream out =
+        new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(jar.toPath())))) {
+      for (int m = 0; m < modules; m++) {
+        for (int c = 0; c < classesPerModule; c++) {
+          final String name = className(m, c);
+          out.putNextEntry(new ZipEntry(name + ".class"));
+          out.write(classFile(name));
+          out.closeEntry();
+        }
+      }
+    }
+  }
+
+  private String parentPom(final String easyJacocoVersion) {
+    final StringBuilder pom = new StringBuilder();
+    pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+        .append("  <modelVersion>4.0.0</modelVersion>\n")
+        .append("  <groupId>com.example.scale</groupId>\n")
+        .append("  <artifactId>scale-parent</artifactId>\n")
+        .append("  <version>1.0-SNAPSHOT</version>\n")
+        .append("  <packaging>pom</packaging>\n")
+        .append("  <modules>\n");
+    for (int m = 0; m < modules; m++) {
+      pom.append("    <module>").append(moduleName(m)).append("</module>\n");
+    }
+    pom.append("  </modules>\n")
+        .append("  <properties>\n")
+        .append("    <project.build.sourceEncoding>UTF-8</project.build.sourceEncoding>\n")
+        .append("  </properties>\n")
+        .append("  <build>\n")
+        .append("    <plugins>\n")
+        .append("      <plugin>\n")
+        .append("        <groupId>com.marvinformatics.jacoco</groupId>\n")
+        .append("        <artifactId>easy-jacoco-maven-plugin</artifactId>\n")
+        .append("        <version>")
+        .append(easyJacocoVersion)
+        .append("</version>\n");
+    if (pluginConfiguration != null) {
+      pom.append("        <configuration>\n")
+          .append(pluginConfiguration)
+          .append("        </configuration>\n");
+    }
+    pom.append("      </plugin>\n")
+        .append("    </plugins>\n")
+        .append("  </build>\n")
+        .append("</project>\n");
+    return pom.toString();
+  }
+
+  private String modulePom(final int module) {
+    final StringBuilder pom = new StringBuilder();
+    pom.append("<project xmlns=\"http://maven.apache.org/POM/4.0.0\">\n")
+        .append("  <modelVersion>4.0.0</modelVersion>\n")
+        .append("  <parent>\n")
+        .append("    <groupId>com.example.scale</groupId>\n")
+        .append("    <artifactId>scale-parent</artifactId>\n")
+        .append("    <version>1.0-SNAPSHOT</version>\n")
+        .append("  </parent>\n")
+        .append("  <artifactId>")
+        .append(moduleName(module))
+        .append("</artifactId>\n")
+        // bundles are named after the project name, which differs from the artifactId
+        .append("  <name>Module ")
+        .append(module)
+        .append("</name>\n");
+    if (sourceRoots > 1) {
+      pom.append("  <build>\n")
+          .append("    <plugins>\n")
+          .append("      <plugin>\n")
+          .append("        <groupId>org.codehaus.mojo</groupId>\n")
+          .append("        <artifactId>build-helper-maven-plugin</artifactId>\n")
+          .append("        <version>3.6.0</version>\n")
+          .append("        <executions>\n")
+          .append("          <execution>\n")
+          .append("            <goals>\n")
+          .append("              <goal>add-source</goal>\n")
+          .append("            </goals>\n")
+          .append("            <configuration>\n")
+          .append("              <sources>\n");
+      for (int r = 1; r < sourceRoots; r++) {
+        pom.append("                <source>").append(sourceRoot(r)).append("</source>\n");
+      }
+      pom.append("              </sources>\n")
+          .append("            </configuration>\n")
+          .append("          </execution>\n")
+          .append("        </executions>\n")
+          .append("      </plugin>\n")
+          .append("    </plugins>\n")
+          .append("  </build>\n");
+    }
+    pom.append("</project>\n");
+    return pom.toString();
+  }
+
+  private String sourceRoot(final int index) {
+    final int root = index % sourceRoots;
+    return root == 0 ? "src/main/java" : "src/main/java" + (root + 1);
+  }
+
+  private static String moduleName(final int module) {
+    return "module-" + module;
+  }
+
+  private static String className(final int module, final int index) {
+    return "com/example/m" + module + "/p" + index / PACKAGE_SIZE + "/Class" + index;
+  }
+
+  /** A constructor plus methods <code>mK(int)</code> with one branch each. */
+  private byte[] classFile(final String name) {
+    final ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_FRAMES);
+    writer.visit(Opcodes.V11, Opcodes.ACC_PUBLIC, name, null, "java/lang/Object", null);
+    final String simpleName = name.substring(name.lastIndexOf('/') + 1);
+    writer.visitSource(simpleName.split("\\$")[0] + ".java", null);
+
+    final MethodVisitor init = writer.visitMethod(Opcodes.ACC_PUBLIC, "<init>", "()V", null, null);
+    init.visitCode();
+    line(init, 3);
+    init.visitVarInsn(Opcodes.ALOAD, 0);
+    init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+    init.visitInsn(Opcodes.RETURN);
+    init.visitMaxs(0, 0);
+    init.visitEnd();
+
+    for (int m = 0; m < methodsPerClass; m++) {
+      final int first = 4 + m * 6;
+      final MethodVisitor method =
+          writer.visitMethod(Opcodes.ACC_PUBLIC, "m" + m, "(I)I", null, null);
+      method.visitCode();
+      final Label negative = new Label();
+      line(method, first + 1);
+      method.visitVarInsn(Opcodes.ILOAD, 1);
+      method.visitIntInsn(Opcodes.BIPUSH, m);
+      method.visitJumpInsn(Opcodes.IF_ICMPLE, negative);
+      line(method, first + 2);
+      method.visitVarInsn(Opcodes.ILOAD, 1);
+      method.visitInsn(Opcodes.IRETURN);
+      method.visitLabel(negative);
+      line(method, first + 4);
+      method.visitVarInsn(Opcodes.ILOAD, 1);
+      method.visitInsn(Opcodes.INEG);
+      method.visitInsn(Opcodes.IRETURN);
+      method.visitMaxs(0, 0);
+      method.visitEnd();
+    }
+    writer.visitEnd();
+    return writer.toByteArray();
+  }
+
+  /** Source matching the line numbers of {@link #classFile}. */
+  private String source(final String name) {
+    final int simpleName = name.lastIndexOf('/');
+    final StringBuilder source = new StringBuilder();
+    source
+        .append("package ")
+        .append(name.substring(0, simpleName).replace('/', '.'))
+        .append(";\n\n");
+    source.append("public class ").append(name.substring(simpleName + 1)).append(" {\n");
+    for (int m = 0; m < methodsPerClass; m++) {
+      source.append("  public int m").append(m).append("(int x) {\n");
+      source.append("    if (x > ").append(m).append(") {\n");
+      source.append("      return x;\n");
+      source.append("    }\n");
+      source.append("    return -x;\n");
+      source.append("  }\n");
+    }
+    source.append("}\n");
+    return source.toString();
+  }
+
+  private void writeExec(
+      final Path exec,
+      final String session,
+      final List<String> names,
+      final List<byte[]> classFiles,
+      final Random random)
+      throws IOException {
+    Files.createDirectories(exec.getParent());
+    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(exec))) {
+      for (int s = 0; s < sessionsPerExecFile; s++) {
+        final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+        writer.visitSessionInfo(new SessionInfo(s == 0 ? session : session + "-" + s, s, s));
+        for (int i = 0; i < classFiles.size(); i++) {
+          final byte[] bytes = classFiles.get(i);
+          final boolean[] probes = new boolean[probeCount(bytes)];
+          for (int p = 0; p < probes.length; p++) {
+            probes[p] = random.nextDouble() < hitRatio;
+          }
+          writer.visitClassExecution(new ExecutionData(CRC64.classId(bytes), names.get(i), probes));
+        }
+      }
+    }
+  }
+
+  /** Number of probes JaCoCo inserts into a class, execution data must match it. */
+  private static int probeCount(final byte[] classFile) {
+    final int[] count = new int[1];
+    final ClassProbesVisitor counter =
+        new ClassProbesVisitor() {
+          @Override
+          public MethodProbesVisitor visitMethod(
+              final int access,
+              final String name,
+              final String desc,
+              final String signature,
+              final String[] exceptions) {
+            return null;
+          }
+
+          @Override
+          public void visitTotalProbeCount(final int total) {
+            count[0] = total;
+          }
+        };
+    new ClassReader(classFile).accept(new ClassProbesAdapter(counter, false), 0);
+    return count[0];
+  }
+
+  private static void line(final MethodVisitor method, final int line) {
+    final Label label = new Label();
+    method.visitLabel(label);
+    method.visitLineNumber(line, label);
+  }
+
+  private static void write(final Path file, final String content) throws IOException {
+    write(file, content.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static void write(final Path file, final byte[] content) throws IOException {
+    Files.createDirectories(file.getParent());
+    Files.write(file, content);
+  }
+}
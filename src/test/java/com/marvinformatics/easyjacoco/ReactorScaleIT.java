@@ -0,0 +1,265 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import org.apache.maven.shared.invoker.DefaultInvocationRequest;
+import org.apache.maven.shared.invoker.DefaultInvoker;
+import org.apache.maven.shared.invoker.InvocationRequest;
+import org.apache.maven.shared.invoker.InvocationResult;
+import org.apache.maven.shared.invoker.Invoker;
+import org.apache.maven.shared.invoker.PrintStreamHandler;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+/**
+ * Runs the plugin against generated reactors of growing size, see {@link ReactorGenerator}, and
+ * records the time of the lifecycle participant and of each goal, and the peak heap of each build.
+ * Results are printed and written to <code>target/scale/results.csv</code>.
+ *
+ * <p>Only runs with the scale profile, e.g. <code>mvn verify -Pscale -Dscale.sizes=10,100,300
+ * -Dscale.classes=200</code>.
+ */
+@EnabledIfSystemProperty(named = "easyjacoco.scale.sizes", matches = ".+")
+public class ReactorScaleIT {
+
+  private static final Pattern LOG_LINE =
+      Pattern.compile("^(\\d{2}:\\d{2}:\\d{2}\\.\\d{3}) \\[\\w+\\] (.*)$");
+  private static final Pattern MOJO_START =
+      Pattern.compile("^--- easy-jacoco:[^:]+:(\\S+) \\(\\S+\\) @ \\S+ ---$");
+  private static final Pattern GC_PAUSE = Pattern.compile("(\\d+)M->\\d+M\\(\\d+M\\)");
+  private static final Pattern EXIT_HEAP = Pattern.compile("total \\d+K, used (\\d+)K");
+
+  @Test
+  void givenGeneratedReactors_whenRunningGoals_thenRecordsTimeAndHeapPerSize() throws Exception {
+    final String mavenVersion =
+        EasyJacocoLifecycleParticipant.readArtifactProperties("org.apache.maven", "maven-core")
+            .getProperty("version");
+    final String easyJacocoVersion =
+        EasyJacocoLifecycleParticipant.readArtifactProperties(
+                "com.marvinformatics.jacoco", "easy-jacoco-maven-plugin")
+            .getProperty("version");
+    final int classes = Integer.parseInt(System.getProperty("easyjacoco.scale.classes", "100"));
+    final String heap = System.getProperty("easyjacoco.scale.heap", "2g");
+
+    final File scaleDir = new File("target/scale");
+    final List<String> rows = new ArrayList<String>();
+    rows.add("modules,classes,goal,millis,buildMillis,peakHeapMB");
+    for (final String size : System.getProperty("easyjacoco.scale.sizes").split(",")) {
+      final int modules = Integer.parseInt(size.trim());
+      final File reactor = new File(scaleDir, "reactor-" + modules);
+      deleteDirectory(reactor);
+      final ReactorGenerator generator =
+          new ReactorGenerator(modules).classesPerModule(classes).seed(modules);
+      generator.generate(reactor, easyJacocoVersion);
+      final File jar = new File(reactor, "target/all-classes.jar");
+      generator.writeJar(jar);
+
+      final Build validate = run(reactor, mavenVersion, heap, "validate");
+      assertThat(validate.exitCode).as(validate.output).isEqualTo(0);
+      rows.add(row(modules, generator, "lifecycle-participant", validate.participant(), validate));
+
+      final Build verify =
+          run(reactor, mavenVersion, heap, "verify", "-Dmaven.main.skip", "-Dmaven.test.skip=true");
+      assertThat(verify.exitCode).as(verify.output).isEqualTo(0);
+      assertThat(new File(reactor, "target/coverage/target/jacoco-project-report/index.html"))
+          .exists();
+      rows.add(row(modules, generator, "report-project", verify.goal("report-project"), verify));
+      rows.add(row(modules, generator, "check-project", verify.goal("check-project"), verify));
+
+      final Build instrument =
+          run(
+              reactor,
+              mavenVersion,
+              heap,
+              "-N",
+              "com.marvinformatics.jacoco:easy-jacoco-maven-plugin:"
+                  + easyJacocoVersion
+                  + ":instrument-jar",
+              "-Deasyjacoco.source=" + jar.getAbsolutePath(),
+              "-Deasyjacoco.destination="
+                  + new File(reactor, "target/all-classes-instrumented.jar").getAbsolutePath());
+      assertThat(instrument.exitCode).as(instrument.output).isEqualTo(0);
+      rows.add(
+          row(modules, generator, "instrument-jar", instrument.goal("instrument-jar"), instrument));
+    }
+
+    final File results = new File(scaleDir, "results.csv");
+    Files.write(results.toPath(), rows, StandardCharsets.UTF_8);
+    for (final String row : rows) {
+      System.out.println(row);
+    }
+  }
+
+  private static String row(
+      final int modules,
+      final ReactorGenerator generator,
+      final String goal,
+      final long millis,
+      final Build build) {
+    return String.format(
+        "%s,%s,%s,%s,%s,%s",
+        modules, generator.getClassCount(), goal, millis, build.millis, build.peakHeapMB);
+  }
+
+  private Build run(
+      final File reactor, final String mavenVersion, final String heap, final String... args)
+      throws Exception {
+    final File gcLog = new File(reactor, "target/gc-" + System.nanoTime() + ".log");
+    gcLog.getParentFile().mkdirs();
+    final InvocationRequest request =
+        new DefaultInvocationRequest()
+            .setPomFile(new File(reactor, "pom.xml"))
+            .setShellEnvironmentInherited(false)
+            .addArgs(List.of(args))
+            .setBatchMode(true)
+            .setJavaHome(new File(System.getProperty("java.home")))
+            .setShowErrors(true)
+            .setMavenOpts(
+                "-Xmx"
+                    + heap
+                    + " -Xlog:gc,gc+heap+exit:file="
+                    + gcLog.getAbsolutePath()
+                    + " -Dorg.slf4j.simpleLogger.showDateTime=true"
+                    + " -Dorg.slf4j.simpleLogger.dateTimeFormat=HH:mm:ss.SSS");
+
+    final Invoker invoker = new DefaultInvoker();
+    invoker.setMavenHome(MavenDownloader.downloadAndExtractMaven(mavenVersion));
+    final ByteArrayOutputStream output = new ByteArrayOutputStream();
+    invoker.setOutputHandler(new PrintStreamHandler(new PrintStream(output), true));
+
+    final long start = System.nanoTime();
+    final InvocationResult result = invoker.execute(request);
+    final long millis = (System.nanoTime() - start) / 1000000;
+    return new Build(output.toString(), result.getExitCode(), millis, peakHeapMB(gcLog));
+  }
+
+  /** Largest heap usage seen before a collection or at exit. */
+  private static long peakHeapMB(final File gcLog) throws IOException {
+    if (!gcLog.isFile()) {
+      return -1;
+    }
+    long peak = 0;
+    for (final String line : Files.readAllLines(gcLog.toPath(), StandardCharsets.UTF_8)) {
+      final Matcher pause = GC_PAUSE.matcher(line);
+      if (pause.find()) {
+        peak = Math.max(peak, Long.parseLong(pause.group(1)));
+      }
+      final Matcher exit = EXIT_HEAP.matcher(line);
+      if (exit.find()) {
+        peak = Math.max(peak, Long.parseLong(exit.group(1)) / 1024);
+      }
+    }
+    return peak;
+  }
+
+  private static void deleteDirectory(final File directory) throws IOException {
+    if (!directory.exists()) {
+      return;
+    }
+    try (Stream<Path> paths = Files.walk(directory.toPath())) {
+      // children sort after their parents, delete them first
+      for (final Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+        Files.delete(path);
+      }
+    }
+  }
+
+  /** Output of a Maven build, with the timestamps of its log lines. */
+  static class Build {
+
+    final String output;
+    final int exitCode;
+    final long millis;
+    final long peakHeapMB;
+    private final List<LocalTime> times = new ArrayList<LocalTime>();
+    private final List<String> messages = new ArrayList<String>();
+
+    Build(final String output, final int exitCode, final long millis, final long peakHeapMB) {
+      this.output = output;
+      this.exitCode = exitCode;
+      this.millis = millis;
+      this.peakHeapMB = peakHeapMB;
+      for (final String line : output.split("\\R")) {
+        final Matcher matcher = LOG_LINE.matcher(line);
+        if (matcher.matches()) {
+          times.add(LocalTime.parse(matcher.group(1)));
+          messages.add(matcher.group(2));
+        }
+      }
+    }
+
+    /** Time from registering the plugins until the reactor build order is known. */
+    long participant() {
+      return between(indexOf("Registering jacoco related plugins"), indexOf("Reactor Build Order"));
+    }
+
+    /** Time of a goal, until the next mojo, project or build summary starts. */
+    long goal(final String goal) {
+      final Map<String, Integer> starts = new LinkedHashMap<String, Integer>();
+      for (int i = 0; i < messages.size(); i++) {
+        final Matcher matcher = MOJO_START.matcher(messages.get(i));
+        if (matcher.matches()) {
+          starts.put(matcher.group(1), i);
+        }
+      }
+      final Integer start = starts.get(goal);
+      if (start == null) {
+        return -1;
+      }
+      for (int i = start + 1; i < messages.size(); i++) {
+        if (messages.get(i).startsWith("---")) {
+          return between(start, i);
+        }
+      }
+      return between(start, messages.size() - 1);
+    }
+
+    private int indexOf(final String prefix) {
+      for (int i = 0; i < messages.size(); i++) {
+        if (messages.get(i).startsWith(prefix)) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    private long between(final int from, final int to) {
+      if (from < 0 || to < 0) {
+        return -1;
+      }
+      return times.get(from).until(times.get(to), ChronoUnit.MILLIS);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright © 2025 Marvin Froeder (contact@marvinformatics.com)
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.marvinformatics.easyjacoco;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.apache.maven.MavenExecutionException;
+import org.jacoco.core.data.ExecutionData;
+import org.jacoco.core.data.ExecutionDataWriter;
+import org.jacoco.core.data.SessionInfo;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Indexes per-test sessions of a generated reactor with index-tests and selects tests from the
+ * written index with select-tests.
+ */
+public class SelectTestsIT {
+
+  private static final String PACKAGE = "com/example/m0/p0/";
+
+  private static GeneratedReactorBuilds builds;
+
+  @BeforeAll
+  static void setUp() throws MavenExecutionException {
+    builds = new GeneratedReactorBuilds();
+  }
+
+  @Test
+  void givenPerTestSessions_whenSelectTests_thenTestsOfChangedClassesAreSelected()
+      throws Exception {
+    final File reactor =
+        builds.generate("test-selection", new ReactorGenerator(2).classesPerModule(20));
+    write(reactor, "module-0/src/test/java/com/example/m0/p0/AlphaTest.java", "class AlphaTest {}");
+    // compiled only, without a source in the test source roots
+    write(reactor, "module-0/target/test-classes/com/example/m0/p0/BetaTest.class", "");
+    write(reactor, "module-1/src/test/java/com/example/m1/GammaTest.java", "class GammaTest {}");
+    writeSessions(
+        new File(reactor, "module-0/target/jacoco-sessions/tests.exec"),
+        Map.of(
+            "host-1a2b3c",
+            List.of("Class1", "Class10", "Class2$Inner", "Class3"),
+            "com.example.m0.p0.AlphaTest",
+            List.of("Class1"),
+            "com.example.m0.p0.BetaTest#testB",
+            List.of("Class10"),
+            "com.example.NotATest",
+            List.of("Class3")));
+    writeSessions(
+        new File(reactor, "module-1/target/jacoco-sessions/tests.exec"),
+        Map.of("com.example.m1.GammaTest", List.of("Class2$Inner")));
+
+    final GeneratedReactorBuilds.Result index = goal(reactor, "index-tests");
+    // target/jacoco.exec of the modules isn't read
+    assertThat(index.output)
+        .contains("Indexed 3 classes executed by 3 tests")
+        .contains("skipped 2 sessions not naming a test")
+        .doesNotContain("target/jacoco.exec");
+
+    // Class10 sorts right after Class1, but isn't nested in it
+    assertThat(select(reactor, "-Deasyjacoco.changedClasses=com.example.m0.p0.Class1"))
+        .isEqualTo("com.example.m0.p0.AlphaTest");
+    assertThat(select(reactor, "-Deasyjacoco.changedClasses=com.example.m0.p0.Class2"))
+        .isEqualTo("com.example.m1.GammaTest");
+    assertThat(select(reactor, "-Deasyjacoco.changedClasses=com.example.m0.p0.Class3")).isEmpty();
+
+    git(reactor, "init", "-q");
+    git(reactor, "add", "-A");
+    git(reactor, "commit", "-q", "-m", "base");
+    git(reactor, "tag", "base");
+    write(
+        reactor,
+        "module-0/src/main/java/com/example/m0/p0/Class10.java",
+        "package com.example.m0.p0;\n\nclass Class10 {}\n");
+    write(reactor, "module-1/src/test/java/com/example/m1/DeltaTest.java", "class DeltaTest {}");
+    git(reactor, "add", "-A");
+    git(reactor, "commit", "-q", "-m", "change");
+
+    // DeltaTest is new, it isn't part of the index
+    assertThat(select(reactor, "-Deasyjacoco.diffBase=base"))
+        .isEqualTo("com.example.m0.p0.BetaTest#testB,com.example.m1.DeltaTest");
+  }
+
+  private static GeneratedReactorBuilds.Result goal(
+      final File reactor, final String goal, final String... options) throws Exception {
+    final List<String> args =
+        new ArrayList<String>(
+            List.of(
+                "com.marvinformatics.jacoco:easy-jacoco-maven-plugin:"
+                    + builds.easyJacocoVersion()
+                    + ":"
+                    + goal));
+    args.addAll(List.of(options));
+    final GeneratedReactorBuilds.Result result = builds.run(reactor, args);
+    assertThat(result.exitCode).as(result.output).isEqualTo(0);
+    return result;
+  }
+
+  /** Runs select-tests and returns the selection it wrote. */
+  private static String select(final File reactor, final String... options) throws Exception {
+    goal(reactor, "select-tests", options);
+    return Files.readString(new File(reactor, "target/selected-tests.txt").toPath()).trim();
+  }
+
+  /** Writes one session per test, each executing the given classes of {@link #PACKAGE}. */
+  private static void writeSessions(final File file, final Map<String, List<String>> sessions)
+      throws IOException {
+    Files.createDirectories(file.getParentFile().toPath());
+    try (OutputStream out = Files.newOutputStream(file.toPath())) {
+      final ExecutionDataWriter writer = new ExecutionDataWriter(out);
+      long id = 1;
+      for (final Map.Entry<String, List<String>> session : sessions.entrySet()) {
+        writer.visitSessionInfo(new SessionInfo(session.getKey(), 1, 2));
+        for (final String name : session.getValue()) {
+          writer.visitClassExecution(
+              new ExecutionData(id++, PACKAGE + name, new boolean[] {true, false}));
+        }
+      }
+    }
+  }
+
+  private static void write(final File reactor, final String path, final String content)
+      throws IOException {
+    final File file = new File(reactor, path);
+    Files.createDirectories(file.getParentFile().toPath());
+    Files.write(
+        file.toPath(),
+        content.getBytes(StandardCharsets.UTF_8),
+        StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING);
+  }
+
+  private static void git(final File reactor, final String... args) throws Exception {
+    final List<String> command =
+        new ArrayList<String>(
+            List.of("git", "-c", "user.name=test", "-c", "user.email=test@example.com"));
+    command.addAll(List.of(args));
+    final Process process =
+        new ProcessBuilder(command).directory(reactor).redirectErrorStream(true).start();
+    final String output =
+        new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+    assertThat(process.waitFor()).as(output).isEqualTo(0);
+  }
+}